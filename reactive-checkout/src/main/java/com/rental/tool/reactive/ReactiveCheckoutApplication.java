@@ -0,0 +1,15 @@
+package com.rental.tool.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableScheduling
+public class ReactiveCheckoutApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveCheckoutApplication.class, args);
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.rental.tool.reactive.config;
+
+import com.rental.tool.mapper.RentalMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ReactiveCheckoutConfig {
+
+    /**
+     * Exposes the MVC service's mapper so both stacks build identical rental agreements.
+     *
+     * @return RentalMapper shared with the MVC path
+     */
+    @Bean
+    public RentalMapper rentalMapper() {
+        return new RentalMapper();
+    }
+}
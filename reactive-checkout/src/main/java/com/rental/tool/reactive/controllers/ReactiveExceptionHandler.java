@@ -0,0 +1,42 @@
+package com.rental.tool.reactive.controllers;
+
+import com.rental.tool.dto.response.RentalResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reactive counterpart of the MVC {@code GlobalExceptionHandler}, returning the same error bodies.
+ */
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<RentalResponse<Object>> handleWebExchangeBindException(WebExchangeBindException ex) {
+        Map<String, String> errors = ex.getBindingResult().getFieldErrors().stream()
+                .collect(Collectors.toMap(
+                        FieldError::getField,
+                        FieldError::getDefaultMessage,
+                        (first, second) -> first
+                ));
+
+        RentalResponse<Object> errorResponse = new RentalResponse<>(
+                HttpStatus.BAD_REQUEST.value(),
+                "Validation failed for the request",
+                errors
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<String> handleServerWebInputException(ServerWebInputException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid input: " + ex.getReason());
+    }
+}
@@ -0,0 +1,53 @@
+package com.rental.tool.reactive.controllers;
+
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.dto.request.RentalRequest;
+import com.rental.tool.dto.response.RentalResponse;
+import com.rental.tool.exception.ResourceNotFoundException;
+import com.rental.tool.reactive.services.ReactiveRentalService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux implementation of the {@code /api/rentals/quote} contract. Request and response bodies
+ * are the same types the MVC {@code RentalController} uses. Checkouts go to the main service.
+ */
+@RestController
+@RequestMapping("/api/rentals")
+public class ReactiveRentalController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRentalController.class);
+
+    @Autowired
+    private ReactiveRentalService rentalService;
+
+    /**
+     * Price a tool rental without checking it out. Nothing is persisted and no audit entry is written.
+     *
+     * @param request - RentalRequest containing the tool code, rental days, discount percent, and checkout date.
+     * @return RentalAgreementDTO the checkout would produce for the same request at the catalog charge
+     */
+    @PostMapping("/quote")
+    public Mono<RentalResponse<RentalAgreementDTO>> quoteTool(@Valid @RequestBody RentalRequest request) {
+        return rentalService.quoteRental(request)
+                .map(agreement -> new RentalResponse<>(HttpStatus.OK.value(), "Rental quote successful", agreement))
+                .onErrorResume(ResourceNotFoundException.class,
+                        ex -> Mono.just(failure(HttpStatus.NOT_FOUND, ex.getMessage())))
+                .onErrorResume(ex -> !(ex instanceof ResourceNotFoundException), ex -> {
+                    logger.error("Error during tool quote", ex);
+                    return Mono.just(failure(HttpStatus.BAD_REQUEST, "Quote failed: " + ex.getMessage()));
+                });
+    }
+
+    private static RentalResponse<RentalAgreementDTO> failure(HttpStatus status, String message) {
+        return new RentalResponse<>(status.value(), message, (RentalAgreementDTO) null);
+    }
+}
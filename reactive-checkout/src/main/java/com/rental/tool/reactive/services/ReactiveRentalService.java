@@ -0,0 +1,47 @@
+package com.rental.tool.reactive.services;
+
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.dto.request.RentalRequest;
+import com.rental.tool.entities.Rental;
+import com.rental.tool.mapper.RentalMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import static com.rental.tool.utility.PricingUtils.priceRental;
+import static com.rental.tool.utility.PricingUtils.validateRentalInput;
+
+/**
+ * Non-blocking quotes with the validation, pricing and mapping of the MVC {@code RentalService}
+ * ({@code PricingUtils}/{@code RentalMapper}).
+ * <p>
+ * Quotes are priced at the catalog charge. The demand multiplier, stock and availability checks and
+ * store routing belong to checkout, which only the main service offers: a checkout here would
+ * bypass them.
+ */
+@Service
+public class ReactiveRentalService {
+
+    @Autowired
+    private ReactiveToolCatalog toolCatalog;
+
+    @Autowired
+    private RentalMapper rentalMapper;
+
+    /**
+     * Prices a rental without persisting it or writing an audit entry.
+     *
+     * @param request the rental request to price
+     * @return Mono emitting the RentalAgreementDTO a checkout at the catalog charge would produce
+     */
+    public Mono<RentalAgreementDTO> quoteRental(RentalRequest request) {
+        return priceRequest(request).map(rentalMapper::toRentalAgreementDTO);
+    }
+
+    private Mono<Rental> priceRequest(RentalRequest request) {
+        return Mono.defer(() -> {
+            validateRentalInput(request.getToolCode(), request.getRentalDays(), request.getDiscountPercent(), request.getCheckoutDate());
+            return toolCatalog.getTool(request.getToolCode());
+        }).map(tool -> priceRental(tool, request.getRentalDays(), request.getDiscountPercent(), request.getCheckoutDate()));
+    }
+}
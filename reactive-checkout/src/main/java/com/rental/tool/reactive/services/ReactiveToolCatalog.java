@@ -0,0 +1,125 @@
+package com.rental.tool.reactive.services;
+
+import com.rental.tool.entities.Tool;
+import com.rental.tool.entities.ToolCharge;
+import com.rental.tool.exception.ResourceNotFoundException;
+import io.r2dbc.spi.Row;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory tool catalog for reactive quotes, kept apart from the MVC service's caches. Tools and
+ * their charges are read into {@link Tool}/{@link ToolCharge} instances at startup and reloaded
+ * every {@code rental.catalog.refresh-interval-ms}, so catalog lookups on the request path never
+ * touch the database and changes to the catalog reach quotes within one interval. A failed reload
+ * keeps the previous catalog.
+ */
+@Service
+@DependsOnDatabaseInitialization
+public class ReactiveToolCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveToolCatalog.class);
+
+    private static final String SELECT_TOOLS =
+            "SELECT t.tool_code, t.tool_type, t.brand, c.tool_charge_id, c.daily_rental_charge, "
+                    + "c.weekday_charge, c.weekend_charge, c.holiday_charge "
+                    + "FROM tool t JOIN tool_charge c ON c.tool_code = t.tool_code";
+
+    // Replaced as a whole on each reload, so tools removed from the catalog are dropped
+    private volatile Map<String, Tool> tools = new ConcurrentHashMap<>();
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Preloads all tools and tool charges at application startup. Runs on the main thread,
+     * before the server accepts requests, so blocking here is acceptable.
+     */
+    @PostConstruct
+    public void preloadCatalog() {
+        logger.info("Preloading Tool and ToolCharge entities into the reactive catalog.");
+        Long loaded = refresh().block(Duration.ofSeconds(30));
+        logger.info("{} tools loaded into the reactive catalog.", loaded);
+    }
+
+    /**
+     * Reloads the catalog on a schedule.
+     */
+    @Scheduled(fixedDelayString = "${rental.catalog.refresh-interval-ms:60000}",
+            initialDelayString = "${rental.catalog.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        refresh().subscribe(
+                loaded -> logger.debug("Reactive catalog reloaded with {} tools", loaded),
+                ex -> logger.warn("Reactive catalog reload failed, keeping the previous catalog: {}", ex.getMessage()));
+    }
+
+    /**
+     * Reloads the whole catalog from the database.
+     *
+     * @return Mono emitting the number of tools loaded
+     */
+    public Mono<Long> refresh() {
+        return selectTools(SELECT_TOOLS, null)
+                .collectMap(Tool::getToolCode, tool -> tool, ConcurrentHashMap::new)
+                .map(loaded -> {
+                    tools = loaded;
+                    return (long) loaded.size();
+                });
+    }
+
+    /**
+     * Retrieves a tool with its charge from the catalog, falling back to a single-row query
+     * for tools added after startup.
+     *
+     * @param toolCode The unique identifier of the tool to retrieve.
+     * @return Mono emitting the Tool, or a ResourceNotFoundException if it does not exist
+     */
+    public Mono<Tool> getTool(String toolCode) {
+        Tool cached = tools.get(toolCode);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return selectTools(SELECT_TOOLS + " WHERE t.tool_code = :toolCode", toolCode)
+                .next()
+                .doOnNext(tool -> tools.put(tool.getToolCode(), tool))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Tool not found with code: " + toolCode)));
+    }
+
+    private Flux<Tool> selectTools(String sql, String toolCode) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        if (toolCode != null) {
+            spec = spec.bind("toolCode", toolCode);
+        }
+        return spec.map((row, metadata) -> toTool(row)).all();
+    }
+
+    private static Tool toTool(Row row) {
+        Tool tool = Tool.builder()
+                .toolCode(row.get("tool_code", String.class))
+                .toolType(row.get("tool_type", String.class))
+                .brand(row.get("brand", String.class))
+                .build();
+        ToolCharge toolCharge = ToolCharge.builder()
+                .toolChargeId(row.get("tool_charge_id", String.class))
+                .tool(tool)
+                .dailyRentalCharge(row.get("daily_rental_charge", BigDecimal.class))
+                .weekdayCharge(Boolean.TRUE.equals(row.get("weekday_charge", Boolean.class)))
+                .weekendCharge(Boolean.TRUE.equals(row.get("weekend_charge", Boolean.class)))
+                .holidayCharge(Boolean.TRUE.equals(row.get("holiday_charge", Boolean.class)))
+                .build();
+        tool.setToolCharge(toolCharge);
+        return tool;
+    }
+}
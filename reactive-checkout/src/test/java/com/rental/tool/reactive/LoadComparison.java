@@ -0,0 +1,91 @@
+package com.rental.tool.reactive;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop quote load against the MVC and the reactive service with the same request mix,
+ * printing throughput and latency percentiles side by side. Both services must already be
+ * running against the same database.
+ * <p>
+ * Usage: {@code LoadComparison <mvcBaseUrl> <reactiveBaseUrl> <requests> <concurrency>}
+ */
+public class LoadComparison {
+
+    private static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+
+    public static void main(String[] args) throws Exception {
+        String mvcUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String reactiveUrl = args.length > 1 ? args[1] : "http://localhost:8081";
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %8s%n", "stack", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors");
+        // Warm both JITs before measuring
+        run(client, mvcUrl, Math.min(requests, 2_000), concurrency);
+        run(client, reactiveUrl, Math.min(requests, 2_000), concurrency);
+        print("mvc", run(client, mvcUrl, requests, concurrency));
+        print("reactive", run(client, reactiveUrl, requests, concurrency));
+    }
+
+    private static Result run(HttpClient client, String baseUrl, int requests, int concurrency) throws InterruptedException {
+        URI uri = URI.create(baseUrl + "/api/rentals/quote");
+        String checkoutDate = LocalDate.now().plusDays(1).toString();
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            String body = String.format("{\"toolCode\":\"%s\",\"rentalDays\":%d,\"discountPercent\":%d,\"checkoutDate\":\"%s\"}",
+                    TOOL_CODES[i % TOOL_CODES.length], 1 + i % 14, i % 50, checkoutDate);
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            int slot = i;
+            long sent = System.nanoTime();
+            futures[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        latencies[slot] = System.nanoTime() - sent;
+                        if (failure != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        CompletableFuture.allOf(futures).exceptionally(ex -> null).join();
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(requests * 1_000_000_000.0 / elapsed, latencies, errors.get());
+    }
+
+    private static void print(String stack, Result result) {
+        System.out.printf("%-10s %10.0f %10.2f %10.2f %10.2f %10.2f %8d%n", stack, result.throughput(),
+                result.percentile(0.50), result.percentile(0.90), result.percentile(0.99),
+                result.percentile(1.0), result.errors());
+    }
+
+    private record Result(double throughput, long[] sortedLatencies, int errors) {
+        double percentile(double p) {
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(p * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.rental.tool.reactive.controllers;
+
+import com.rental.tool.reactive.services.ReactiveToolCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+public class ReactiveRentalControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ReactiveToolCatalog toolCatalog;
+
+    private static Map<String, Object> request(String toolCode, int rentalDays, int discountPercent) {
+        return Map.of(
+                "toolCode", toolCode,
+                "rentalDays", rentalDays,
+                "discountPercent", discountPercent,
+                "checkoutDate", LocalDate.now().plusDays(1).toString());
+    }
+
+    private WebTestClient.ResponseSpec quote(Map<String, Object> request) {
+        return webTestClient.post().uri("/api/rentals/quote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange();
+    }
+
+    /**
+     * A quote returns the agreement a checkout would produce, priced with the shared pricing rules.
+     */
+    @Test
+    public void quoteReturnsAgreement() {
+        quote(request("JAKR", 4, 50))
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(200)
+                .jsonPath("$.data.toolType").isEqualTo("Jackhammer")
+                .jsonPath("$.data.toolBrand").isEqualTo("Ridgid")
+                .jsonPath("$.data.discountPercent").isEqualTo(50);
+    }
+
+    /**
+     * Checkout is left to the main service, which admits it against stock and availability.
+     */
+    @Test
+    public void checkoutIsNotServed() {
+        webTestClient.post().uri("/api/rentals/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request("LADW", 3, 10))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    /**
+     * A changed daily charge is quoted once the catalog is reloaded.
+     */
+    @Test
+    public void reloadedCatalogIsQuoted() {
+        databaseClient.sql("UPDATE tool_charge SET daily_rental_charge = 9.99 WHERE tool_code = 'CHNS'")
+                .fetch().rowsUpdated().block();
+        try {
+            toolCatalog.refresh().block();
+
+            quote(request("CHNS", 1, 0))
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.data.dailyRentalCharge").isEqualTo(9.99);
+        } finally {
+            databaseClient.sql("UPDATE tool_charge SET daily_rental_charge = 1.49 WHERE tool_code = 'CHNS'")
+                    .fetch().rowsUpdated().block();
+            toolCatalog.refresh().block();
+        }
+    }
+
+    /**
+     * Unknown tool codes produce the same 404 body as the MVC controller.
+     */
+    @Test
+    public void unknownToolReturnsNotFoundBody() {
+        quote(request("NOPE", 3, 0))
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("Tool not found with code: NOPE");
+    }
+
+    /**
+     * Bean validation failures are reported as a 400 with per-field errors.
+     */
+    @Test
+    public void invalidDiscountIsRejected() {
+        quote(request("LADW", 3, 101))
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.discountPercent").isEqualTo("Discount percent cannot exceed 100");
+    }
+}
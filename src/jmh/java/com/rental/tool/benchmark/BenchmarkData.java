@@ -0,0 +1,31 @@
+package com.rental.tool.benchmark;
+
+import com.rental.tool.entities.Tool;
+import com.rental.tool.entities.ToolCharge;
+
+import java.math.BigDecimal;
+
+/**
+ * Catalog entries shared by the benchmarks, matching the seed data.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * A jackhammer: charged on weekdays only, the most branching charge rule.
+     */
+    static Tool jackhammer() {
+        Tool tool = Tool.builder().toolCode("JAKR").toolType("Jackhammer").brand("Ridgid").build();
+        tool.setToolCharge(ToolCharge.builder()
+                .toolChargeId("JAKR")
+                .tool(tool)
+                .dailyRentalCharge(new BigDecimal("2.99"))
+                .weekdayCharge(true)
+                .weekendCharge(false)
+                .holidayCharge(false)
+                .build());
+        return tool;
+    }
+}
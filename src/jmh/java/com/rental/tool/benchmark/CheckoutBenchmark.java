@@ -0,0 +1,154 @@
+package com.rental.tool.benchmark;
+
+import com.rental.tool.config.metrics.CheckoutMetrics;
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.entities.Rental;
+import com.rental.tool.entities.Tool;
+import com.rental.tool.events.RentalCreatedEvent;
+import com.rental.tool.events.RentalEventRelay;
+import com.rental.tool.mapper.RentalMapper;
+import com.rental.tool.repository.RentalRepository;
+import com.rental.tool.services.AuditService;
+import com.rental.tool.services.DemandPricingService;
+import com.rental.tool.services.RentalAgreementViewService;
+import com.rental.tool.services.RentalService;
+import com.rental.tool.services.ToolAvailabilityIndex;
+import com.rental.tool.services.ToolInventoryService;
+import com.rental.tool.services.ToolService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A checkout through {@link RentalService} as the controller runs it: validation, catalog lookup,
+ * pricing, reservation, save, mapping and audit, with the real pricing, mapper and metrics code.
+ * <p>
+ * The database, catalog cache, availability index, inventory and audit writer are replaced by
+ * hand-written stubs, so no I/O is measured. Mockito mocks are not used: walking the stack on
+ * every stubbed call cost more than the checkout itself and made the score too noisy to compare.
+ * Spring proxies (transaction, circuit breaker) are not involved, so the snapshot fallback is
+ * never reached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CheckoutBenchmark {
+
+    private RentalService rentalService;
+    private LocalDate checkoutDate;
+    private final BigDecimal discountPercent = new BigDecimal("10");
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        Tool tool = BenchmarkData.jackhammer();
+        // In the future, so only the availability index is booked, as for an advance reservation
+        checkoutDate = LocalDate.now().plusDays(30);
+        AtomicLong ids = new AtomicLong();
+
+        ToolService toolService = new ToolService() {
+            @Override
+            public Tool getToolFromCache(String toolCode) {
+                return tool;
+            }
+        };
+
+        RentalRepository rentalRepository = stub(RentalRepository.class, (proxy, method, args) -> {
+            if (method.getName().equals("save")) {
+                Rental rental = (Rental) args[0];
+                rental.setRental_id(ids.incrementAndGet());
+                return rental;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+
+        EntityManager entityManager = stub(EntityManager.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getReference" -> tool;
+            case "detach" -> null;
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+
+        ToolAvailabilityIndex toolAvailabilityIndex = new ToolAvailabilityIndex() {
+            @Override
+            public Long tryBook(String toolCode, LocalDate checkoutDate, LocalDate dueDate) {
+                return 1L;
+            }
+
+            @Override
+            public void release(String toolCode, long bookingId) {
+            }
+        };
+        ToolInventoryService toolInventoryService = new ToolInventoryService() {
+            @Override
+            public boolean tryReserve(String toolCode) {
+                return true;
+            }
+
+            @Override
+            public void confirm(String toolCode) {
+            }
+
+            @Override
+            public void release(String toolCode) {
+            }
+        };
+
+        // Disabled, so every tool is priced at its catalog charge and checkouts are not counted
+        DemandPricingService demandPricingService = new DemandPricingService(false, 60, 12, 1440, 24, 100, 10,
+                0.25, 0.8, 1.5, 2048, 4);
+
+        rentalService = new RentalService();
+        inject(rentalService, "entityManager", entityManager);
+        inject(rentalService, "toolService", toolService);
+        inject(rentalService, "rentalRepository", rentalRepository);
+        inject(rentalService, "rentalMapper", new RentalMapper());
+        inject(rentalService, "auditService", new AuditService() {
+            @Override
+            public void logAudit(String transactionId, String username, boolean success, String message) {
+            }
+        });
+        inject(rentalService, "toolInventoryService", toolInventoryService);
+        inject(rentalService, "toolAvailabilityIndex", toolAvailabilityIndex);
+        inject(rentalService, "checkoutMetrics", new CheckoutMetrics(new SimpleMeterRegistry()));
+        inject(rentalService, "demandPricingService", demandPricingService);
+        inject(rentalService, "rentalEventRelay", new RentalEventRelay() {
+            @Override
+            public void enqueue(RentalCreatedEvent event) {
+            }
+        });
+        inject(rentalService, "rentalAgreementViewService", new RentalAgreementViewService(1, 1) {
+            @Override
+            public void record(Long rentalId, RentalAgreementDTO agreement) {
+            }
+        });
+    }
+
+    @Benchmark
+    public RentalAgreementDTO checkout() {
+        Rental rental = rentalService.createRental("JAKR", 5, discountPercent, checkoutDate);
+        return rentalService.processRentalAgreement(rental, "JAKR", checkoutDate, "benchmark", "benchmark");
+    }
+
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static void inject(Object target, String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
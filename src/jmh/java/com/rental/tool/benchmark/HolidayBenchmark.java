@@ -0,0 +1,43 @@
+package com.rental.tool.benchmark;
+
+import com.rental.tool.utility.HolidayUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The holiday check that charge day counting runs for every day of a rental.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HolidayBenchmark {
+
+    private LocalDate[] year;
+
+    @Setup
+    public void setUp() {
+        year = new LocalDate[365];
+        for (int i = 0; i < year.length; i++) {
+            year[i] = LocalDate.of(2024, 1, 1).plusDays(i);
+        }
+    }
+
+    /**
+     * One holiday check per day of a year, so the score is per 365 checks.
+     */
+    @Benchmark
+    public void isHolidayForYear(Blackhole blackhole) {
+        for (LocalDate date : year) {
+            blackhole.consume(HolidayUtils.isHoliday(date));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.rental.tool.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.dto.response.RentalResponse;
+import com.rental.tool.entities.Rental;
+import com.rental.tool.mapper.RentalMapper;
+import com.rental.tool.utility.PricingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response path of a checkout: mapping the rental to its agreement and writing the JSON body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBenchmark {
+
+    private RentalMapper rentalMapper;
+    private ObjectMapper objectMapper;
+    private Rental rental;
+    private RentalResponse<RentalAgreementDTO> response;
+
+    @Setup
+    public void setUp() {
+        rentalMapper = new RentalMapper();
+        // Configured like the ObjectMapper Spring Boot gives the MVC message converters
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        rental = PricingUtils.priceRental(BenchmarkData.jackhammer(), 5, new BigDecimal("10"), LocalDate.of(2024, 7, 1));
+        rental.setRental_id(1L);
+        response = new RentalResponse<>(200, "Rental checkout successful", rentalMapper.toRentalAgreementDTO(rental));
+    }
+
+    @Benchmark
+    public RentalAgreementDTO toRentalAgreementDTO() {
+        return rentalMapper.toRentalAgreementDTO(rental);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
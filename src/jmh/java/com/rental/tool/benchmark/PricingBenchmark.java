@@ -0,0 +1,66 @@
+package com.rental.tool.benchmark;
+
+import com.rental.tool.entities.Rental;
+import com.rental.tool.entities.Tool;
+import com.rental.tool.entities.ToolCharge;
+import com.rental.tool.utility.PricingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pricing hot path: charge day counting, the BigDecimal charge math and
+ * {@link PricingUtils#priceRental} as a whole, for rentals from a day to a year.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PricingBenchmark {
+
+    @Param({"1", "7", "30", "365"})
+    private int rentalDays;
+
+    private Tool tool;
+    private ToolCharge toolCharge;
+    private LocalDate checkoutDate;
+    private LocalDate dueDate;
+    private BigDecimal dailyRentalCharge;
+    private BigDecimal discountPercent;
+
+    @Setup
+    public void setUp() {
+        tool = BenchmarkData.jackhammer();
+        toolCharge = tool.getToolCharge();
+        // Spans Independence Day and Labor Day for the longer rentals
+        checkoutDate = LocalDate.of(2024, 7, 1);
+        dueDate = checkoutDate.plusDays(rentalDays);
+        dailyRentalCharge = toolCharge.getDailyRentalCharge();
+        discountPercent = new BigDecimal("15");
+    }
+
+    @Benchmark
+    public int calculateChargeDays() {
+        return PricingUtils.calculateChargeDays(toolCharge, checkoutDate, dueDate);
+    }
+
+    @Benchmark
+    public BigDecimal chargeMath() {
+        BigDecimal preDiscountCharge = dailyRentalCharge.multiply(BigDecimal.valueOf(rentalDays));
+        BigDecimal discountAmount = PricingUtils.calculateDiscountAmount(preDiscountCharge, discountPercent);
+        return preDiscountCharge.subtract(discountAmount);
+    }
+
+    @Benchmark
+    public Rental priceRental() {
+        return PricingUtils.priceRental(tool, rentalDays, discountPercent, checkoutDate);
+    }
+}
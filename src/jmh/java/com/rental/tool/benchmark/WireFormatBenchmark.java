@@ -0,0 +1,89 @@
+package com.rental.tool.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rental.tool.config.codec.AgreementCodec;
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.dto.request.RentalRequest;
+import com.rental.tool.dto.response.RentalResponse;
+import com.rental.tool.entities.Rental;
+import com.rental.tool.mapper.RentalMapper;
+import com.rental.tool.utility.PricingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wire cost of a checkout in each format the API negotiates: reading the request body and writing
+ * the response. {@code cbor-bean} is CBOR without the agreement codec, to separate what the format
+ * saves from what the codec saves. Payload sizes are printed once per fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor-bean", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private RentalResponse<RentalAgreementDTO> response;
+    private byte[] requestBody;
+    private byte[] agreementBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = mapper(format);
+        Rental rental = PricingUtils.priceRental(BenchmarkData.jackhammer(), 5, new BigDecimal("10"), LocalDate.of(2024, 7, 1));
+        rental.setRental_id(1L);
+        response = new RentalResponse<>(200, "Rental checkout successful", new RentalMapper().toRentalAgreementDTO(rental));
+
+        RentalRequest request = new RentalRequest();
+        request.setToolCode("JAKR");
+        request.setRentalDays(5);
+        request.setDiscountPercent(new BigDecimal("10"));
+        request.setCheckoutDate(LocalDate.of(2024, 7, 1));
+        requestBody = objectMapper.writeValueAsBytes(request);
+        agreementBody = objectMapper.writeValueAsBytes(response.getData());
+        System.out.printf("%n%s payload bytes: request %d, response %d%n", format, requestBody.length,
+                objectMapper.writeValueAsBytes(response).length);
+    }
+
+    // Configured like the mappers of the MVC message converters, see WireFormatConfig
+    private static ObjectMapper mapper(String format) {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json();
+            case "cbor-bean" -> Jackson2ObjectMapperBuilder.cbor();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().postConfigurer(m -> m.registerModule(AgreementCodec.module()));
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().postConfigurer(m -> m.registerModule(AgreementCodec.module()));
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        return builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public RentalRequest deserializeRequest() throws IOException {
+        return objectMapper.readValue(requestBody, RentalRequest.class);
+    }
+
+    @Benchmark
+    public RentalAgreementDTO deserializeAgreement() throws IOException {
+        return objectMapper.readValue(agreementBody, RentalAgreementDTO.class);
+    }
+}
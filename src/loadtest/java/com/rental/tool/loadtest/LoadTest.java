@@ -0,0 +1,218 @@
+package com.rental.tool.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.RentalToolManagementApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the service on the {@code loadtest} profile (in-memory H2 with seed data) and drives it
+ * with an open workload: requests start at a fixed rate whether or not earlier ones have completed,
+ * as real clients do. Latency is measured from when a request was due to start, so a stalled
+ * server is charged for the requests queued behind the stall rather than hiding them.
+ * <p>
+ * Traffic mixes quotes, checkouts, checkouts of unknown tool codes and, when asked for, catalog
+ * revalidations with the current ETag, generated from a fixed seed so runs are repeatable. A warmup phase runs first at the same rate and is not reported.
+ * Throughput, p50/p99/p999 latency and error rates are written as JSON, overall and per scenario.
+ * Run it with {@code ./gradlew loadTest}.
+ */
+public final class LoadTest {
+
+    static final int TIMEOUT = -1;
+    static final int IO_ERROR = -2;
+    static final int DROPPED = -3;
+
+    private final LoadTestOptions options;
+    private final URI baseUri;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String authorization;
+    private String catalogETag;
+
+    private LoadTest(LoadTestOptions options, URI baseUri) {
+        this.options = options;
+        this.baseUri = baseUri;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(options.timeoutMs))
+                .build();
+        this.authorization = options.credentials == null ? null : "Basic " + Base64.getEncoder()
+                .encodeToString(options.credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.fromSystemProperties();
+        Map<String, Object> results;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(RentalToolManagementApplication.class)
+                .profiles("loadtest")
+                .run(args)) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            results = new LoadTest(options, URI.create("http://localhost:" + port)).run();
+        }
+        Files.createDirectories(options.output.toAbsolutePath().getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(options.output.toFile(), results);
+        LoadTestResults.print(results, System.out);
+        System.out.println("Results written to " + options.output.toAbsolutePath());
+        // The HTTP client's selector thread would otherwise keep the JVM alive until it idles out
+        System.exit(0);
+    }
+
+    private Map<String, Object> run() throws IOException, InterruptedException {
+        if (options.token && authorization != null) {
+            authorization = "Bearer " + requestToken();
+        }
+        if (options.mix.containsKey(Scenario.CATALOG)) {
+            catalogETag = client.send(HttpRequest.newBuilder(baseUri.resolve(Scenario.CATALOG.path())).GET().build(),
+                    HttpResponse.BodyHandlers.discarding()).headers().firstValue("ETag").orElseThrow();
+        }
+        int warmupCount = options.rate * options.warmupSeconds;
+        List<GeneratedRequest> requests = generate(warmupCount + options.rate * options.durationSeconds);
+        int total = requests.size();
+        long[] latencies = new long[total];
+        int[] outcomes = new int[total];
+        long[] completedAt = new long[total];
+        CountDownLatch completed = new CountDownLatch(total);
+        AtomicInteger inFlight = new AtomicInteger();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+
+        System.out.printf("Offering %d requests/s for %ds warmup + %ds measurement against %s%n",
+                options.rate, options.warmupSeconds, options.durationSeconds, baseUri);
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long due = start + i * intervalNanos;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= options.maxInFlight) {
+                outcomes[i] = DROPPED;
+                completedAt[i] = System.nanoTime();
+                completed.countDown();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            int index = i;
+            client.sendAsync(toHttpRequest(requests.get(i)), HttpResponse.BodyHandlers.ofByteArray())
+                    .handle((response, failure) -> {
+                        long now = System.nanoTime();
+                        latencies[index] = now - due;
+                        completedAt[index] = now;
+                        outcomes[index] = failure == null ? outcomeOf(response) : outcomeOf(failure);
+                        inFlight.decrementAndGet();
+                        completed.countDown();
+                        return null;
+                    });
+        }
+        if (!completed.await(options.timeoutMs + 5000L, TimeUnit.MILLISECONDS)) {
+            System.out.println("Some requests did not complete within the timeout; they are not reported");
+        }
+
+        long measurementStart = start + warmupCount * intervalNanos;
+        return LoadTestResults.summarize(options, requests, warmupCount, latencies, outcomes, completedAt, measurementStart);
+    }
+
+    /**
+     * @return an access token for the configured credentials, valid for longer than a typical run
+     */
+    private String requestToken() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(baseUri.resolve("/api/auth/token"))
+                        .header("Authorization", authorization)
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Token request failed with status " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("access_token").asText();
+    }
+
+    private List<GeneratedRequest> generate(int count) {
+        Random random = new Random(options.seed);
+        List<Scenario> weighted = new ArrayList<>();
+        options.mix.forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(scenario);
+            }
+        });
+        String[] toolCodes = {"CHNS", "LADW", "JAKD", "JAKR"};
+        LocalDate today = LocalDate.now();
+        List<GeneratedRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Scenario scenario = weighted.get(random.nextInt(weighted.size()));
+            String toolCode = scenario == Scenario.INVALID_CODE
+                    ? "X" + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26))
+                    : toolCodes[random.nextInt(toolCodes.length)];
+            String body = "{\"toolCode\":\"" + toolCode + "\""
+                    + ",\"rentalDays\":" + (1 + random.nextInt(14))
+                    + ",\"discountPercent\":" + (random.nextInt(11) * 5)
+                    + ",\"checkoutDate\":\"" + today.plusDays(1 + random.nextInt(365)) + "\"}";
+            requests.add(new GeneratedRequest(scenario, body.getBytes(StandardCharsets.UTF_8)));
+        }
+        return requests;
+    }
+
+    private HttpRequest toHttpRequest(GeneratedRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(request.scenario.path()))
+                .timeout(Duration.ofMillis(options.timeoutMs));
+        if (request.scenario == Scenario.CATALOG) {
+            builder.header("If-None-Match", catalogETag).GET();
+        } else {
+            builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(request.body));
+        }
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        return builder.build();
+    }
+
+    // Rental endpoints report business errors in the body's status with HTTP 200, so that status counts
+    private int outcomeOf(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            return response.statusCode();
+        }
+        try {
+            JsonNode status = objectMapper.readTree(response.body()).get("status");
+            return status != null && status.canConvertToInt() ? status.intValue() : 200;
+        } catch (IOException ex) {
+            return IO_ERROR;
+        }
+    }
+
+    private static int outcomeOf(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return cause instanceof HttpTimeoutException ? TIMEOUT : IO_ERROR;
+    }
+
+    static final class GeneratedRequest {
+        final Scenario scenario;
+        final byte[] body;
+
+        private GeneratedRequest(Scenario scenario, byte[] body) {
+            this.scenario = scenario;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.rental.tool.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.*} system properties. The Gradle task maps
+ * its {@code -Pload*} project properties onto these.
+ */
+final class LoadTestOptions {
+
+    /** Requests started per second, regardless of how quickly earlier ones complete. */
+    final int rate;
+    final int warmupSeconds;
+    final int durationSeconds;
+    /** Relative weight of each scenario in the traffic. */
+    final Map<Scenario, Integer> mix;
+    /** Seed for the generated requests, so two runs send the same sequence. */
+    final long seed;
+    final int timeoutMs;
+    /** Requests outstanding at once before new arrivals are dropped instead of sent. */
+    final int maxInFlight;
+    /** {@code user:password} sent as Basic authentication, or null to send none. */
+    final String credentials;
+    /** Whether the credentials are exchanged once for a bearer token sent instead of them. */
+    final boolean token;
+    final Path output;
+
+    private LoadTestOptions(Map<String, String> properties) {
+        rate = positive(properties, "rate", "50");
+        warmupSeconds = Integer.parseInt(properties.getOrDefault("warmup", "10"));
+        durationSeconds = positive(properties, "duration", "30");
+        mix = parseMix(properties.getOrDefault("mix", "quote:60,checkout:30,invalid:10"));
+        seed = Long.parseLong(properties.getOrDefault("seed", "42"));
+        timeoutMs = positive(properties, "timeoutMs", "10000");
+        maxInFlight = positive(properties, "maxInFlight", "2000");
+        String user = properties.getOrDefault("credentials", "doguscan:doguscan");
+        credentials = "none".equals(user) ? null : user;
+        String auth = properties.getOrDefault("auth", "basic");
+        if (!"basic".equals(auth) && !"token".equals(auth)) {
+            throw new IllegalArgumentException("loadtest.auth must be basic or token, was " + auth);
+        }
+        token = "token".equals(auth);
+        output = Paths.get(properties.getOrDefault("output", "build/reports/loadtest/results.json"));
+    }
+
+    static LoadTestOptions fromSystemProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("loadtest."))
+                .filter(name -> !System.getProperty(name).isBlank())
+                .forEach(name -> properties.put(name.substring("loadtest.".length()), System.getProperty(name)));
+        return new LoadTestOptions(properties);
+    }
+
+    /**
+     * @return the settings as written to the results, so runs with different settings are not compared blindly
+     */
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("rate", rate);
+        description.put("warmupSeconds", warmupSeconds);
+        description.put("durationSeconds", durationSeconds);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        mix.forEach((scenario, weight) -> weights.put(scenario.key(), weight));
+        description.put("mix", weights);
+        description.put("seed", seed);
+        description.put("timeoutMs", timeoutMs);
+        description.put("maxInFlight", maxInFlight);
+        description.put("authenticated", credentials != null);
+        description.put("auth", credentials == null ? "none" : token ? "token" : "basic");
+        return description;
+    }
+
+    private static Map<Scenario, Integer> parseMix(String value) {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String part : value.split(",")) {
+            String[] entry = part.trim().split(":");
+            if (entry.length != 2) {
+                throw new IllegalArgumentException("Invalid traffic mix entry '" + part + "', expected scenario:weight");
+            }
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Traffic mix weight must not be negative: " + part);
+            }
+            mix.put(Scenario.of(entry[0].trim()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Traffic mix has no weight: " + value);
+        }
+        return mix;
+    }
+
+    private static int positive(Map<String, String> properties, String name, String defaultValue) {
+        int value = Integer.parseInt(properties.getOrDefault(name, defaultValue));
+        if (value <= 0) {
+            throw new IllegalArgumentException("loadtest." + name + " must be positive, was " + value);
+        }
+        return value;
+    }
+}
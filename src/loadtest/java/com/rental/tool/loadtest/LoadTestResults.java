@@ -0,0 +1,152 @@
+package com.rental.tool.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns the per-request measurements of a run into the results document: throughput, latency
+ * percentiles and error rates, overall and per scenario.
+ */
+final class LoadTestResults {
+
+    private static final double[] PERCENTILES = {0.50, 0.90, 0.99, 0.999};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private LoadTestResults() {
+    }
+
+    /**
+     * Summarizes the measured requests, those after the warmup.
+     * <p>
+     * A request is an error unless it got the status its scenario expects. Latency covers every
+     * request that was sent, errors and timeouts included; dropped requests were never sent.
+     * Throughput counts successful requests per second of the measurement phase, which ends when
+     * its last response arrives.
+     */
+    static Map<String, Object> summarize(LoadTestOptions options, List<LoadTest.GeneratedRequest> requests,
+                                         int warmupCount, long[] latencies, int[] outcomes, long[] completedAt,
+                                         long measurementStart) {
+        Stats overall = new Stats();
+        Map<Scenario, Stats> byScenario = new EnumMap<>(Scenario.class);
+        long measurementEnd = measurementStart;
+        for (int i = warmupCount; i < requests.size(); i++) {
+            Scenario scenario = requests.get(i).scenario;
+            overall.add(scenario, latencies[i], outcomes[i]);
+            byScenario.computeIfAbsent(scenario, s -> new Stats()).add(scenario, latencies[i], outcomes[i]);
+            measurementEnd = Math.max(measurementEnd, completedAt[i]);
+        }
+        double seconds = Math.max(measurementEnd - measurementStart, 1) / 1e9;
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("options", options.describe());
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("javaVersion", System.getProperty("java.version"));
+        environment.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        environment.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        results.put("environment", environment);
+        results.put("measurementSeconds", round(seconds));
+        results.put("overall", overall.describe(seconds));
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        byScenario.forEach((scenario, stats) -> scenarios.put(scenario.key(), stats.describe(seconds)));
+        results.put("scenarios", scenarios);
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void print(Map<String, Object> results, PrintStream out) {
+        out.printf("%-10s %9s %10s %8s %9s %9s %9s %9s%n",
+                "scenario", "requests", "ok/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        print(out, "overall", (Map<String, Object>) results.get("overall"));
+        ((Map<String, Object>) results.get("scenarios"))
+                .forEach((name, stats) -> print(out, name, (Map<String, Object>) stats));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(PrintStream out, String name, Map<String, Object> stats) {
+        Map<String, Object> latency = (Map<String, Object>) stats.get("latencyMs");
+        out.printf("%-10s %9d %10.1f %7.2f%% %9s %9s %9s %9s%n", name, stats.get("requests"),
+                stats.get("throughput"), (double) stats.get("errorRate") * 100,
+                latency.get("p50"), latency.get("p99"), latency.get("p999"), latency.get("max"));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * Measurements of one group of requests.
+     */
+    private static final class Stats {
+        private long[] latencies = new long[1024];
+        private int latencyCount;
+        private int requests;
+        private int successes;
+        private final Map<String, Integer> outcomes = new TreeMap<>();
+
+        private void add(Scenario scenario, long latencyNanos, int outcome) {
+            requests++;
+            outcomes.merge(describe(outcome), 1, Integer::sum);
+            if (outcome == scenario.expectedStatus()) {
+                successes++;
+            }
+            if (outcome != LoadTest.DROPPED && outcome != 0) {
+                if (latencyCount == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, latencyCount * 2);
+                }
+                latencies[latencyCount++] = latencyNanos;
+            }
+        }
+
+        private Map<String, Object> describe(double seconds) {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("requests", requests);
+            description.put("throughput", round(successes / seconds));
+            description.put("errors", requests - successes);
+            description.put("errorRate", requests == 0 ? 0.0 : round((double) (requests - successes) / requests));
+            description.put("outcomes", outcomes);
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            Map<String, Object> latency = new LinkedHashMap<>();
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                latency.put(PERCENTILE_NAMES[i], millis(percentile(sorted, PERCENTILES[i])));
+            }
+            latency.put("max", millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+            latency.put("mean", millis(sorted.length == 0 ? 0 : (long) Arrays.stream(sorted).average().orElse(0)));
+            description.put("latencyMs", latency);
+            return description;
+        }
+
+        // Nearest rank: the smallest latency at or above the given fraction of requests
+        private static long percentile(long[] sorted, double fraction) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(fraction * sorted.length);
+            return sorted[Math.max(rank - 1, 0)];
+        }
+
+        private static double millis(long nanos) {
+            return round(nanos / 1e6);
+        }
+
+        private static String describe(int outcome) {
+            switch (outcome) {
+                case LoadTest.TIMEOUT:
+                    return "timeout";
+                case LoadTest.IO_ERROR:
+                    return "io_error";
+                case LoadTest.DROPPED:
+                    return "dropped";
+                case 0:
+                    return "incomplete";
+                default:
+                    return String.valueOf(outcome);
+            }
+        }
+    }
+}
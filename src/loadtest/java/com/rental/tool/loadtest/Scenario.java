@@ -0,0 +1,49 @@
+package com.rental.tool.loadtest;
+
+/**
+ * Kinds of request in the generated traffic, each with the result a healthy service returns for it.
+ */
+enum Scenario {
+    /** A quote for a catalog tool. */
+    QUOTE("quote", "/api/rentals/quote", 200),
+    /** A checkout of a catalog tool in the future, so it books availability but not today's stock. */
+    CHECKOUT("checkout", "/api/rentals/checkout", 200),
+    /** A checkout of a tool code that is not in the catalog. */
+    INVALID_CODE("invalid", "/api/rentals/checkout", 404),
+    /** A polling client revalidating its copy of the catalog, which has not changed. */
+    CATALOG("catalog", "/api/tools", 304);
+
+    private final String key;
+    private final String path;
+    private final int expectedStatus;
+
+    Scenario(String key, String path, int expectedStatus) {
+        this.key = key;
+        this.path = path;
+        this.expectedStatus = expectedStatus;
+    }
+
+    /**
+     * @return the name used for this scenario in {@code -PloadMix} and in the results
+     */
+    String key() {
+        return key;
+    }
+
+    String path() {
+        return path;
+    }
+
+    int expectedStatus() {
+        return expectedStatus;
+    }
+
+    static Scenario of(String key) {
+        for (Scenario scenario : values()) {
+            if (scenario.key.equals(key)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + key + ", expected quote, checkout, invalid or catalog");
+    }
+}
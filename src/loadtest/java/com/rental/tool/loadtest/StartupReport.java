@@ -0,0 +1,233 @@
+package com.rental.tool.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the packaged application takes from process start to its first successful
+ * request, in each launch mode: plain, with Spring AOT, and with Spring AOT plus the CDS archive.
+ * <p>
+ * Each mode is started several times on an in-memory database. After the first successful quote,
+ * the startup timeline is read from {@code /actuator/startup} to break the time down: context
+ * refresh and the slowest bean instantiations. Results are written as JSON. Run it with
+ * {@code ./gradlew startupReport}.
+ */
+public final class StartupReport {
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(3);
+    private static final int SLOWEST_STEPS = 10;
+
+    /**
+     * Ways to launch the application; each adds JVM options to the plain launch.
+     */
+    private enum Mode {
+        DEFAULT("default"),
+        AOT("aot", "-Dspring.aot.enabled=true"),
+        AOT_CDS("aot+cds", "-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=%s", "-Xlog:cds=error");
+
+        private final String key;
+        private final String[] jvmArgs;
+
+        Mode(String key, String... jvmArgs) {
+            this.key = key;
+            this.jvmArgs = jvmArgs;
+        }
+    }
+
+    private final String java = System.getProperty("startup.java", "java");
+    private final String jar = System.getProperty("startup.jar", "build/cds/application.jar");
+    private final String archive = System.getProperty("startup.archive", "build/cds/application.jsa");
+    private final int runs = Integer.parseInt(System.getProperty("startup.runs", "3"));
+    private final Path output = Paths.get(System.getProperty("startup.output", "build/reports/startup/results.json"));
+    private final List<String> applicationArgs;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private StartupReport(List<String> applicationArgs) {
+        this.applicationArgs = applicationArgs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new StartupReport(Arrays.asList(args)).run();
+    }
+
+    private void run() throws Exception {
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Map<String, Object> modes = new LinkedHashMap<>();
+        Map<Mode, Long> medians = new LinkedHashMap<>();
+        for (Mode mode : Mode.values()) {
+            List<Long> samples = new ArrayList<>();
+            List<Long> refreshes = new ArrayList<>();
+            List<Map<String, Object>> slowest = List.of();
+            for (int run = 1; run <= runs; run++) {
+                Measurement measurement = measure(mode, run);
+                System.out.printf("%-8s run %d: first request after %d ms, context refresh %d ms%n",
+                        mode.key, run, measurement.firstRequestMs, measurement.contextRefreshMs);
+                samples.add(measurement.firstRequestMs);
+                refreshes.add(measurement.contextRefreshMs);
+                slowest = measurement.slowestSteps;
+            }
+            long median = median(samples);
+            medians.put(mode, median);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("timeToFirstRequestMs", Map.of("median", median, "min", samples.stream().min(Long::compare).get(),
+                    "max", samples.stream().max(Long::compare).get(), "samples", samples));
+            result.put("contextRefreshMs", median(refreshes));
+            result.put("slowestSteps", slowest);
+            modes.put(mode.key, result);
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("runs", runs);
+        results.put("javaVersion", System.getProperty("java.version"));
+        results.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        results.put("modes", modes);
+        results.put("speedup", Math.round(100.0 * medians.get(Mode.DEFAULT) / medians.get(Mode.AOT_CDS)) / 100.0);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), results);
+
+        System.out.printf("%nTime to first request (median of %d): ", runs);
+        medians.forEach((mode, median) -> System.out.printf("%s %d ms  ", mode.key, median));
+        System.out.printf("%nResults written to %s%n", output.toAbsolutePath());
+    }
+
+    private Measurement measure(Mode mode, int run) throws IOException, InterruptedException {
+        int port = freePort();
+        Path workDir = Files.createTempDirectory("startup-" + mode.name().toLowerCase() + "-");
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        for (String jvmArg : mode.jvmArgs) {
+            command.add(String.format(jvmArg, archive));
+        }
+        command.addAll(List.of("-jar", jar, "--server.port=" + port,
+                "--rental.journal.path=" + workDir.resolve("rental-journal.ndjson"),
+                "--rental.events.path=" + workDir.resolve("rental-events")));
+        command.addAll(applicationArgs);
+        File log = output.toAbsolutePath().getParent().resolve(mode.name().toLowerCase() + "-" + run + ".log").toFile();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        try {
+            URI base = URI.create("http://localhost:" + port);
+            awaitFirstQuote(process, base, log);
+            long firstRequestMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            JsonNode timeline = fetchTimeline(base);
+            return new Measurement(firstRequestMs, contextRefreshMs(timeline), slowestSteps(timeline));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void awaitFirstQuote(Process process, URI base, File log) throws InterruptedException {
+        String body = "{\"toolCode\":\"LADW\",\"rentalDays\":3,\"discountPercent\":10,\"checkoutDate\":\""
+                + LocalDate.now().plusDays(30) + "\"}";
+        HttpRequest quote = HttpRequest.newBuilder(base.resolve("/api/rentals/quote"))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        long deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+            }
+            try {
+                if (client.send(quote, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // Not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("Application did not answer within " + START_TIMEOUT + ", see " + log);
+    }
+
+    private JsonNode fetchTimeline(URI base) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/actuator/startup"))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString("doguscan:doguscan".getBytes(StandardCharsets.UTF_8)))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /actuator/startup answered " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).path("timeline").path("events");
+    }
+
+    private static long contextRefreshMs(JsonNode events) {
+        for (JsonNode event : events) {
+            if ("spring.context.refresh".equals(event.path("startupStep").path("name").asText())) {
+                return Duration.parse(event.path("duration").asText()).toMillis();
+            }
+        }
+        return -1;
+    }
+
+    // Durations include the steps nested in them, such as the beans a bean depends on
+    private static List<Map<String, Object>> slowestSteps(JsonNode events) {
+        List<Map<String, Object>> steps = new ArrayList<>();
+        for (JsonNode event : events) {
+            JsonNode step = event.path("startupStep");
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("name", step.path("name").asText());
+            for (JsonNode tag : step.path("tags")) {
+                description.put(tag.path("key").asText(), tag.path("value").asText());
+            }
+            description.put("durationMs", Duration.parse(event.path("duration").asText()).toMillis());
+            steps.add(description);
+        }
+        steps.removeIf(step -> !"spring.beans.instantiate".equals(step.get("name")));
+        steps.sort(Comparator.comparing(step -> -(long) step.get("durationMs")));
+        return steps.subList(0, Math.min(SLOWEST_STEPS, steps.size()));
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static final class Measurement {
+        private final long firstRequestMs;
+        private final long contextRefreshMs;
+        private final List<Map<String, Object>> slowestSteps;
+
+        private Measurement(long firstRequestMs, long contextRefreshMs, List<Map<String, Object>> slowestSteps) {
+            this.firstRequestMs = firstRequestMs;
+            this.contextRefreshMs = contextRefreshMs;
+            this.slowestSteps = slowestSteps;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+--liquibase formatted sql
+
+--changeset doguscan:loadtest-seed-1
+-- Enough units that generated checkouts are never turned away as fully booked
+UPDATE tool_inventory SET on_hand = 1000000, available = 1000000;
+
+--changeset doguscan:loadtest-seed-2
+-- A year of returned rentals, so queries run against a rental table that is not empty
+INSERT INTO rental (tool_code, rental_days, checkout_date, due_date, returned_date, discount_percent, pre_discount_charge, discount_amount, final_charge)
+SELECT CASEWHEN(MOD(r.n, 4) = 0, 'CHNS', CASEWHEN(MOD(r.n, 4) = 1, 'LADW', CASEWHEN(MOD(r.n, 4) = 2, 'JAKD', 'JAKR'))),
+       5,
+       DATEADD('DAY', -10 - MOD(r.n, 365), CURRENT_DATE),
+       DATEADD('DAY', -5 - MOD(r.n, 365), CURRENT_DATE),
+       DATEADD('DAY', -5 - MOD(r.n, 365), CURRENT_DATE),
+       10, 9.95, 1.00, 8.95
+FROM SYSTEM_RANGE(1, 20000) r(n);
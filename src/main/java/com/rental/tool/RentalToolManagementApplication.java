@@ -1,15 +1,31 @@
 package com.rental.tool;
 
+import com.rental.tool.config.schema.SchemaMigration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Arrays;
 
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 public class RentalToolManagementApplication {
 
+	// Startup steps kept for /actuator/startup, enough for a full boot; steps beyond it are dropped
+	private static final int STARTUP_STEP_CAPACITY = 4096;
+
 	public static void main(String[] args) {
-		SpringApplication.run(RentalToolManagementApplication.class, args);
+		// "migrate" runs the one-shot schema migration instead of the application
+		if (args.length > 0 && "migrate".equals(args[0])) {
+			SchemaMigration.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		SpringApplication application = new SpringApplication(RentalToolManagementApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEP_CAPACITY));
+		application.run(args);
 	}
 
 }
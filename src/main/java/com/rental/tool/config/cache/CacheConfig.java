@@ -0,0 +1,51 @@
+package com.rental.tool.config.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * In-memory catalog caches, each wrapped so that concurrent misses on a key share one load.
+     *
+     * @return CacheManager for the {@code tools} and {@code toolCharges} caches
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        return new ConcurrentMapCacheManager("tools", "toolCharges") {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new SingleFlightCache((ConcurrentMapCache) super.createConcurrentMapCache(name));
+            }
+        };
+    }
+
+    /**
+     * Publishes executed and coalesced load counts as {@code cache.singleflight.loads} and
+     * {@code cache.singleflight.coalesced}, tagged with the cache name.
+     */
+    @Bean
+    public MeterBinder singleFlightCacheMetrics(CacheManager cacheManager) {
+        return registry -> {
+            for (String name : cacheManager.getCacheNames()) {
+                if (cacheManager.getCache(name) instanceof SingleFlightCache cache) {
+                    FunctionCounter.builder("cache.singleflight.loads", cache, SingleFlightCache::getLoadCount)
+                            .tag("cache", name)
+                            .description("Cache loads that queried the backing store")
+                            .register(registry);
+                    FunctionCounter.builder("cache.singleflight.coalesced", cache, SingleFlightCache::getCoalescedCount)
+                            .tag("cache", name)
+                            .description("Cache misses served by another caller's in-flight load")
+                            .register(registry);
+                }
+            }
+        };
+    }
+}
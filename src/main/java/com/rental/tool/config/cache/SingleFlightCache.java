@@ -0,0 +1,138 @@
+package com.rental.tool.config.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache decorator that runs at most one load per key at a time. Concurrent misses for a key that
+ * is already loading wait on the in-flight load's future and share its value or exception,
+ * instead of each querying the database.
+ * <p>
+ * Only {@link #get(Object, Callable)} coalesces, so caches must be used with
+ * {@code @Cacheable(sync = true)}. Loads of different keys never block each other.
+ */
+public class SingleFlightCache implements Cache {
+
+    private final Cache delegate;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public SingleFlightCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, load);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException ex) {
+                throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+            }
+        }
+
+        try {
+            // A load that finished between the miss above and the claim has already filled the cache
+            cached = delegate.get(key);
+            Object value;
+            if (cached != null) {
+                value = cached.get();
+            } else {
+                loads.incrementAndGet();
+                value = valueLoader.call();
+                delegate.put(key, value);
+            }
+            load.complete(value);
+            return (T) value;
+        } catch (Exception ex) {
+            load.completeExceptionally(ex);
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * Returns the number of loads that actually ran.
+     *
+     * @return loads executed by this cache
+     */
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    /**
+     * Returns the number of misses that waited on another caller's load instead of loading.
+     *
+     * @return coalesced loads
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
@@ -0,0 +1,185 @@
+package com.rental.tool.config.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.rental.tool.dto.RentalAgreementDTO;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Hand-written Jackson serializer and deserializer for {@link RentalAgreementDTO}, used by the
+ * binary wire formats of {@link WireFormatConfig}.
+ * <p>
+ * The agreement keeps the field names and values it has in JSON: dates as ISO strings, amounts as
+ * decimals, so a generic CBOR or Smile decoder reads the same document. Compared with the bean
+ * serializer, the codec writes each field directly from its getter with a pre-encoded name,
+ * leaves out fields that are null (normally only {@code errorMessage}) and announces the number of
+ * fields up front, which CBOR encodes as a definite-length map. The deserializer accepts any field
+ * order, treats a missing field as null or zero and skips unknown fields, so it also reads
+ * agreements written by the bean serializer.
+ */
+public final class AgreementCodec {
+
+    private static final SerializableString TOOL_CODE = new SerializedString("toolCode");
+    private static final SerializableString TOOL_TYPE = new SerializedString("toolType");
+    private static final SerializableString TOOL_BRAND = new SerializedString("toolBrand");
+    private static final SerializableString RENTAL_DAYS = new SerializedString("rentalDays");
+    private static final SerializableString CHECKOUT_DATE = new SerializedString("checkoutDate");
+    private static final SerializableString DUE_DATE = new SerializedString("dueDate");
+    private static final SerializableString DAILY_RENTAL_CHARGE = new SerializedString("dailyRentalCharge");
+    private static final SerializableString WEEKDAY_CHARGE = new SerializedString("weekdayCharge");
+    private static final SerializableString WEEKEND_CHARGE = new SerializedString("weekendCharge");
+    private static final SerializableString HOLIDAY_CHARGE = new SerializedString("holidayCharge");
+    private static final SerializableString CHARGE_DAYS = new SerializedString("chargeDays");
+    private static final SerializableString PRE_DISCOUNT_CHARGE = new SerializedString("preDiscountCharge");
+    private static final SerializableString DISCOUNT_PERCENT = new SerializedString("discountPercent");
+    private static final SerializableString DISCOUNT_AMOUNT = new SerializedString("discountAmount");
+    private static final SerializableString FINAL_CHARGE = new SerializedString("finalCharge");
+    private static final SerializableString PROVISIONAL = new SerializedString("provisional");
+    private static final SerializableString ERROR_MESSAGE = new SerializedString("errorMessage");
+
+    // The int, boolean and long fields, which are never null
+    private static final int PRIMITIVE_FIELDS = 6;
+
+    private AgreementCodec() {
+    }
+
+    /**
+     * Returns a module that registers the codec for {@link RentalAgreementDTO}.
+     *
+     * @return the codec module
+     */
+    public static Module module() {
+        SimpleModule module = new SimpleModule("AgreementCodec");
+        module.addSerializer(RentalAgreementDTO.class, new Serializer());
+        module.addDeserializer(RentalAgreementDTO.class, new Deserializer());
+        return module;
+    }
+
+    static final class Serializer extends StdSerializer<RentalAgreementDTO> {
+
+        Serializer() {
+            super(RentalAgreementDTO.class);
+        }
+
+        @Override
+        public void serialize(RentalAgreementDTO agreement, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(agreement, fieldCount(agreement));
+            writeString(gen, TOOL_CODE, agreement.getToolCode());
+            writeString(gen, TOOL_TYPE, agreement.getToolType());
+            writeString(gen, TOOL_BRAND, agreement.getToolBrand());
+            gen.writeFieldName(RENTAL_DAYS);
+            gen.writeNumber(agreement.getRentalDays());
+            writeDate(gen, CHECKOUT_DATE, agreement.getCheckoutDate());
+            writeDate(gen, DUE_DATE, agreement.getDueDate());
+            writeDecimal(gen, DAILY_RENTAL_CHARGE, agreement.getDailyRentalCharge());
+            gen.writeFieldName(WEEKDAY_CHARGE);
+            gen.writeBoolean(agreement.isWeekdayCharge());
+            gen.writeFieldName(WEEKEND_CHARGE);
+            gen.writeBoolean(agreement.isWeekendCharge());
+            gen.writeFieldName(HOLIDAY_CHARGE);
+            gen.writeBoolean(agreement.isHolidayCharge());
+            gen.writeFieldName(CHARGE_DAYS);
+            gen.writeNumber(agreement.getChargeDays());
+            writeDecimal(gen, PRE_DISCOUNT_CHARGE, agreement.getPreDiscountCharge());
+            writeDecimal(gen, DISCOUNT_PERCENT, agreement.getDiscountPercent());
+            writeDecimal(gen, DISCOUNT_AMOUNT, agreement.getDiscountAmount());
+            writeDecimal(gen, FINAL_CHARGE, agreement.getFinalCharge());
+            gen.writeFieldName(PROVISIONAL);
+            gen.writeBoolean(agreement.isProvisional());
+            writeString(gen, ERROR_MESSAGE, agreement.getErrorMessage());
+            gen.writeEndObject();
+        }
+
+        private static int fieldCount(RentalAgreementDTO agreement) {
+            return PRIMITIVE_FIELDS
+                    + present(agreement.getToolCode()) + present(agreement.getToolType()) + present(agreement.getToolBrand())
+                    + present(agreement.getCheckoutDate()) + present(agreement.getDueDate())
+                    + present(agreement.getDailyRentalCharge()) + present(agreement.getPreDiscountCharge())
+                    + present(agreement.getDiscountPercent()) + present(agreement.getDiscountAmount())
+                    + present(agreement.getFinalCharge()) + present(agreement.getErrorMessage());
+        }
+
+        private static int present(Object value) {
+            return value == null ? 0 : 1;
+        }
+
+        private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+            if (value != null) {
+                gen.writeFieldName(name);
+                gen.writeString(value);
+            }
+        }
+
+        private static void writeDate(JsonGenerator gen, SerializableString name, LocalDate value) throws IOException {
+            if (value != null) {
+                gen.writeFieldName(name);
+                gen.writeString(value.toString());
+            }
+        }
+
+        private static void writeDecimal(JsonGenerator gen, SerializableString name, BigDecimal value) throws IOException {
+            if (value != null) {
+                gen.writeFieldName(name);
+                gen.writeNumber(value);
+            }
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<RentalAgreementDTO> {
+
+        Deserializer() {
+            super(RentalAgreementDTO.class);
+        }
+
+        @Override
+        public RentalAgreementDTO deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = p.nextToken();
+            } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+                return (RentalAgreementDTO) ctxt.handleUnexpectedToken(RentalAgreementDTO.class, p);
+            }
+            RentalAgreementDTO agreement = new RentalAgreementDTO();
+            for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+                String name = p.currentName();
+                JsonToken value = p.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (name) {
+                    case "toolCode" -> agreement.setToolCode(p.getText());
+                    case "toolType" -> agreement.setToolType(p.getText());
+                    case "toolBrand" -> agreement.setToolBrand(p.getText());
+                    case "rentalDays" -> agreement.setRentalDays(p.getIntValue());
+                    case "checkoutDate" -> agreement.setCheckoutDate(LocalDate.parse(p.getText()));
+                    case "dueDate" -> agreement.setDueDate(LocalDate.parse(p.getText()));
+                    case "dailyRentalCharge" -> agreement.setDailyRentalCharge(p.getDecimalValue());
+                    case "weekdayCharge" -> agreement.setWeekdayCharge(p.getBooleanValue());
+                    case "weekendCharge" -> agreement.setWeekendCharge(p.getBooleanValue());
+                    case "holidayCharge" -> agreement.setHolidayCharge(p.getBooleanValue());
+                    case "chargeDays" -> agreement.setChargeDays(p.getLongValue());
+                    case "preDiscountCharge" -> agreement.setPreDiscountCharge(p.getDecimalValue());
+                    case "discountPercent" -> agreement.setDiscountPercent(p.getDecimalValue());
+                    case "discountAmount" -> agreement.setDiscountAmount(p.getDecimalValue());
+                    case "finalCharge" -> agreement.setFinalCharge(p.getDecimalValue());
+                    case "provisional" -> agreement.setProvisional(p.getBooleanValue());
+                    case "errorMessage" -> agreement.setErrorMessage(p.getText());
+                    default -> p.skipChildren();
+                }
+            }
+            return agreement;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.rental.tool.config.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary wire formats for high-volume clients, next to JSON:
+ * <ul>
+ *     <li>{@code application/cbor} - CBOR (RFC 8949), with decoders for most languages</li>
+ *     <li>{@code application/x-jackson-smile} - Smile, for Jackson-based clients</li>
+ * </ul>
+ * A client opts in per request: {@code Content-Type} selects how the request body is read and
+ * {@code Accept} how the response is written. JSON stays the default, also for {@code Accept: *}{@code /*}
+ * and requests without an Accept header, as its converter is registered ahead of these.
+ * <p>
+ * Both mappers start from the application's Jackson configuration, so every body carries the same
+ * fields as in JSON. Rental agreements are written by {@link AgreementCodec} instead of the bean
+ * serializer; JSON responses are unchanged.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * Replaces the CBOR converter Spring MVC registers by default, which ignores {@code spring.jackson.*}.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(binaryMapper(builder, new CBORFactory()));
+    }
+
+    /**
+     * Replaces the Smile converter Spring MVC registers by default, which ignores {@code spring.jackson.*}.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(binaryMapper(builder, new SmileFactory()));
+    }
+
+    private static ObjectMapper binaryMapper(Jackson2ObjectMapperBuilder builder, JsonFactory factory) {
+        // Registered after the builder's modules, so the codec is chosen over the bean serializer
+        return builder.factory(factory)
+                .postConfigurer(mapper -> mapper.registerModule(AgreementCodec.module()))
+                .build();
+    }
+}
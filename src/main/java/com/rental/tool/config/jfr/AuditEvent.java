@@ -0,0 +1,30 @@
+package com.rental.tool.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One audit entry written by {@code AuditService.logAudit}.
+ */
+@Name("com.rental.tool.Audit")
+@Label("Audit Write")
+@Category({"Rental Tool", "Audit"})
+@Description("Insert of an audit entry")
+@StackTrace(false)
+public class AuditEvent extends Event {
+
+    @Label("Transaction Id")
+    public String transactionId;
+
+    @Label("Transaction Success")
+    @Description("Whether the audited transaction succeeded")
+    public boolean success;
+
+    @Label("Outcome")
+    @Description("success, or the simple name of the exception that failed the insert")
+    public String outcome;
+}
@@ -0,0 +1,29 @@
+package com.rental.tool.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One database load of a catalog cache entry by {@code ToolService}, on a cache miss or preload.
+ */
+@Name("com.rental.tool.CacheLoad")
+@Label("Catalog Cache Load")
+@Category({"Rental Tool", "Cache"})
+@Description("Database load of a tools or toolCharges cache entry")
+@StackTrace(false)
+public class CacheLoadEvent extends Event {
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Tool Code")
+    public String toolCode;
+
+    @Label("Outcome")
+    @Description("loaded, not_found or error")
+    public String outcome;
+}
@@ -0,0 +1,32 @@
+package com.rental.tool.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call of {@code RentalService.createRental}, from validation to the rental insert.
+ */
+@Name("com.rental.tool.Checkout")
+@Label("Checkout")
+@Category({"Rental Tool", "Checkout"})
+@Description("Creation of a rental, from input validation to the rental insert")
+@StackTrace(false)
+public class CheckoutEvent extends Event {
+
+    @Label("Tool Code")
+    public String toolCode;
+
+    @Label("Rental Days")
+    public int rentalDays;
+
+    @Label("Charge Days")
+    public int chargeDays;
+
+    @Label("Outcome")
+    @Description("success, or the simple name of the exception that ended the checkout")
+    public String outcome;
+}
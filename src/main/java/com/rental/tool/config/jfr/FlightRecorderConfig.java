@@ -0,0 +1,26 @@
+package com.rental.tool.config.jfr;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+public class FlightRecorderConfig {
+
+    /**
+     * Registers the flight recorder endpoint when it is exposed under {@code management.endpoints}.
+     * Recordings started through it keep at most {@code rental.flight-recorder.max-age} and
+     * {@code rental.flight-recorder.max-size} of data on disk.
+     */
+    @Bean
+    @ConditionalOnAvailableEndpoint
+    public FlightRecorderEndpoint flightRecorderEndpoint(
+            @Value("${rental.flight-recorder.max-age:30m}") Duration maxAge,
+            @Value("${rental.flight-recorder.max-size:250MB}") DataSize maxSize) {
+        return new FlightRecorderEndpoint(maxAge, maxSize.toBytes());
+    }
+}
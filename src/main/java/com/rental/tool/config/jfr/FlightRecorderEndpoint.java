@@ -0,0 +1,201 @@
+package com.rental.tool.config.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for profiling the running service with Java Flight Recorder, without
+ * attaching an agent or opening a JMX port.
+ * <ul>
+ *     <li>{@code GET /actuator/flightrecorder} - lists recordings</li>
+ *     <li>{@code POST /actuator/flightrecorder} - starts a recording</li>
+ *     <li>{@code POST /actuator/flightrecorder/{id}} - stops a recording, keeping its data</li>
+ *     <li>{@code GET /actuator/flightrecorder/{id}} - downloads a recording as a {@code .jfr} file;
+ *     a running recording is dumped up to now and keeps running</li>
+ *     <li>{@code DELETE /actuator/flightrecorder/{id}} - discards a recording</li>
+ * </ul>
+ * Recordings use one of the JDK's settings files ({@code default}, about 1% overhead, or
+ * {@code profile}) with the rental tool events always enabled.
+ */
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderEndpoint.class);
+
+    static final List<Class<? extends jdk.jfr.Event>> EVENTS =
+            List.of(CheckoutEvent.class, PricingEvent.class, CacheLoadEvent.class, AuditEvent.class);
+
+    private final Duration defaultMaxAge;
+    private final long defaultMaxSizeBytes;
+
+    public FlightRecorderEndpoint(Duration defaultMaxAge, long defaultMaxSizeBytes) {
+        this.defaultMaxAge = defaultMaxAge;
+        this.defaultMaxSizeBytes = defaultMaxSizeBytes;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> recordings() {
+        List<Map<String, Object>> recordings = new ArrayList<>();
+        for (Recording recording : FlightRecorder.getFlightRecorder().getRecordings()) {
+            recordings.add(describe(recording));
+        }
+        return recordings;
+    }
+
+    /**
+     * Starts a recording.
+     *
+     * @param name            name of the recording, shown in JDK Mission Control
+     * @param settings        JDK settings file, {@code default} or {@code profile}
+     * @param durationSeconds stop automatically after this many seconds; runs until stopped if absent
+     * @return the started recording
+     */
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> start(@Nullable String name, @Nullable String settings,
+                                                          @Nullable Long durationSeconds) {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings == null ? "default" : settings);
+        } catch (IOException | ParseException ex) {
+            return new WebEndpointResponse<>(Map.of("error", "Unknown JFR settings: " + settings),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        Recording recording = new Recording(configuration);
+        recording.setName(name == null ? "rental-tool" : name);
+        recording.setToDisk(true);
+        recording.setMaxAge(defaultMaxAge);
+        recording.setMaxSize(defaultMaxSizeBytes);
+        if (durationSeconds != null) {
+            recording.setDuration(Duration.ofSeconds(durationSeconds));
+        }
+        for (Class<? extends jdk.jfr.Event> event : EVENTS) {
+            recording.enable(event);
+        }
+        recording.start();
+        logger.info("Started flight recording {} '{}' with {} settings", recording.getId(), recording.getName(),
+                configuration.getName());
+        return new WebEndpointResponse<>(describe(recording));
+    }
+
+    /**
+     * Stops a recording. Its data stays available for download until it is deleted.
+     *
+     * @param id the recording id
+     * @return the stopped recording
+     */
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> stop(@Selector long id) {
+        Recording recording = find(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.getState() == jdk.jfr.RecordingState.RUNNING) {
+            recording.stop();
+            logger.info("Stopped flight recording {}", id);
+        }
+        return new WebEndpointResponse<>(describe(recording));
+    }
+
+    /**
+     * Dumps a recording to a temporary file and streams it; the file is deleted once sent.
+     *
+     * @param id the recording id
+     * @return the recording in JFR format
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector long id) {
+        Recording recording = find(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            Path file = Files.createTempFile("recording-" + id + "-", ".jfr");
+            recording.dump(file);
+            return new WebEndpointResponse<>(new TemporaryFileResource(file));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot dump flight recording " + id, ex);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> delete(@Selector long id) {
+        Recording recording = find(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        recording.close();
+        logger.info("Closed flight recording {}", id);
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+    }
+
+    private static Recording find(long id) {
+        for (Recording recording : FlightRecorder.getFlightRecorder().getRecordings()) {
+            if (recording.getId() == id) {
+                return recording;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("id", recording.getId());
+        description.put("name", recording.getName());
+        description.put("state", recording.getState().name());
+        Instant startTime = recording.getStartTime();
+        description.put("startTime", startTime == null ? null : startTime.toString());
+        description.put("duration", recording.getDuration() == null ? null : recording.getDuration().toString());
+        description.put("maxAge", recording.getMaxAge() == null ? null : recording.getMaxAge().toString());
+        description.put("size", recording.getSize());
+        return description;
+    }
+
+    /**
+     * A dumped recording that deletes its file when the download stream is closed.
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+    }
+}
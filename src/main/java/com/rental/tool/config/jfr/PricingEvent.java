@@ -0,0 +1,31 @@
+package com.rental.tool.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One pricing of a rental by {@code PricingUtils.priceRental}.
+ */
+@Name("com.rental.tool.Pricing")
+@Label("Pricing")
+@Category({"Rental Tool", "Checkout"})
+@Description("Charge day count and charge calculation of a rental")
+@StackTrace(false)
+public class PricingEvent extends Event {
+
+    @Label("Tool Code")
+    public String toolCode;
+
+    @Label("Rental Days")
+    public int rentalDays;
+
+    @Label("Charge Days")
+    public int chargeDays;
+
+    @Label("Final Charge")
+    public String finalCharge;
+}
@@ -0,0 +1,166 @@
+package com.rental.tool.config.limit;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that adapts to observed latency, in the style of a gradient limiter with
+ * multiplicative back-off on failures.
+ * <p>
+ * Two moving averages of request latency are kept: a short one tracking current conditions and a
+ * long one tracking the no-queueing baseline. While the short average stays within
+ * {@code tolerance} of the baseline the limit grows by about the square root of itself per sample;
+ * once requests start queueing (on Tomcat threads or Hikari connections) the ratio drops below one
+ * and the limit shrinks proportionally. A failed request cuts the limit by {@code backoffRatio}.
+ * <p>
+ * Each {@link RequestPriority} may only use its share of the limit, so as the service saturates
+ * reads are rejected first, then quotes, and checkouts last.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_WINDOW_ALPHA = 2.0 / (600 + 1);
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final Map<RequestPriority, Double> shares;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<RequestPriority, AtomicLong> rejected = new EnumMap<>(RequestPriority.class);
+
+    private volatile double limit;
+    // Guarded by this
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                      double smoothing, double backoffRatio, Map<RequestPriority, Double> shares) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+        this.shares = new EnumMap<>(RequestPriority.class);
+        for (RequestPriority priority : RequestPriority.values()) {
+            this.shares.put(priority, shares.getOrDefault(priority, 1.0));
+            this.rejected.put(priority, new AtomicLong());
+        }
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Admits a request if its priority class still has room under the current limit.
+     *
+     * @param priority the class of the request
+     * @return a permit that must be completed exactly once, or null if the request should be shed
+     */
+    public Permit tryAcquire(RequestPriority priority) {
+        int allowed = Math.max(1, (int) (limit * shares.get(priority)));
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejected.get(priority).incrementAndGet();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected(RequestPriority priority) {
+        return rejected.get(priority).get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        samples++;
+        if (samples <= WARMUP_SAMPLES) {
+            // Plain average until both windows have something to work with
+            shortRtt += (rttNanos - shortRtt) / samples;
+            longRtt = shortRtt;
+            return;
+        }
+        shortRtt += SHORT_WINDOW_ALPHA * (rttNanos - shortRtt);
+        longRtt += LONG_WINDOW_ALPHA * (rttNanos - longRtt);
+
+        // Latency recovered well below the baseline: let the baseline follow it down quickly
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        // An under-used limit says nothing about capacity, so it is not raised
+        if (inFlightAtStart < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private synchronized void onDropped() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    /**
+     * An admitted request. Completing it returns its slot and feeds its outcome to the limit.
+     */
+    public final class Permit {
+        private final int inFlightAtStart;
+        private boolean completed;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * The request completed normally.
+         *
+         * @param rttNanos time the request took
+         */
+        public void onSuccess(long rttNanos) {
+            if (release()) {
+                onSample(rttNanos, inFlightAtStart);
+            }
+        }
+
+        /**
+         * The request failed in a way that indicates overload, such as a server error.
+         */
+        public void onFailure() {
+            if (release()) {
+                onDropped();
+            }
+        }
+
+        private boolean release() {
+            if (completed) {
+                return false;
+            }
+            completed = true;
+            inFlight.decrementAndGet();
+            return true;
+        }
+    }
+}
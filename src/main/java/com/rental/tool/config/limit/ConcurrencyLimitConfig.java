@@ -0,0 +1,44 @@
+package com.rental.tool.config.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "rental.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(
+            @Value("${rental.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${rental.concurrency-limit.min-limit:4}") int minLimit,
+            @Value("${rental.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${rental.concurrency-limit.tolerance:1.5}") double tolerance,
+            @Value("${rental.concurrency-limit.smoothing:0.2}") double smoothing,
+            @Value("${rental.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${rental.concurrency-limit.quote-share:0.9}") double quoteShare,
+            @Value("${rental.concurrency-limit.read-share:0.75}") double readShare) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, smoothing, backoffRatio,
+                Map.of(RequestPriority.CHECKOUT, 1.0, RequestPriority.QUOTE, quoteShare, RequestPriority.READ, readShare));
+    }
+
+    /**
+     * Registers the limiter ahead of Spring Security so that shed requests cost as little as possible.
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            AdaptiveConcurrencyLimiter limiter, ObjectMapper objectMapper,
+            @Value("${rental.concurrency-limit.retry-after-seconds:1}") int retryAfterSeconds) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limiter, objectMapper, retryAfterSeconds));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
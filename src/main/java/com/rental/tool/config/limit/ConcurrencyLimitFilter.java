@@ -0,0 +1,82 @@
+package com.rental.tool.config.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.dto.response.RentalResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sheds API requests above the adaptive concurrency limit with 503 and Retry-After, before they
+ * take a Tomcat worker for the whole request or wait on a database connection.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    // Set by RequestOutcomeAdvice on requests answered with a server error in the response body
+    static final String FAILED_ATTRIBUTE = ConcurrencyLimitFilter.class.getName() + ".failed";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final int retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, ObjectMapper objectMapper, int retryAfterSeconds) {
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Bulk checkouts are left out: one stream runs for minutes, which would read as a latency
+     * spike and shrink the limit, and they are bounded by {@code rental.bulk-checkout.max-streams}.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().endsWith("/checkout/bulk");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestPriority priority = RequestPriority.of(request);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire(priority);
+        if (permit == null) {
+            logger.warn("Shedding {} request {} {}: {} in flight, limit {}", priority, request.getMethod(),
+                    request.getRequestURI(), limiter.getInFlight(), limiter.getLimit());
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()
+                    || Boolean.TRUE.equals(request.getAttribute(FAILED_ATTRIBUTE));
+        } finally {
+            if (failed) {
+                permit.onFailure();
+            } else {
+                permit.onSuccess(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        RentalResponse<Object> body = new RentalResponse<>(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service is at capacity, retry after " + retryAfterSeconds + " second(s)", (Object) null);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
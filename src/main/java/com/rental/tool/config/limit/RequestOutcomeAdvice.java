@@ -0,0 +1,41 @@
+package com.rental.tool.config.limit;
+
+import com.rental.tool.dto.response.RentalResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marks requests answered with a server error in the {@link RentalResponse} body for the
+ * {@link ConcurrencyLimitFilter}. The rental endpoints answer HTTP 200 with the outcome in the
+ * body, such as 503 while the catalog is unavailable, so the HTTP status alone would hide the very
+ * failures the limiter backs off on.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "rental.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestOutcomeAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body instanceof RentalResponse<?> rentalResponse
+                && rentalResponse.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()
+                && request instanceof ServletServerHttpRequest servletRequest) {
+            servletRequest.getServletRequest().setAttribute(ConcurrencyLimitFilter.FAILED_ATTRIBUTE, Boolean.TRUE);
+        }
+        return body;
+    }
+}
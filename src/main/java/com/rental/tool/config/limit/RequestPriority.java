@@ -0,0 +1,30 @@
+package com.rental.tool.config.limit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Priority classes for API traffic. When the concurrency limit is nearly exhausted, lower classes
+ * are shed first so the remaining capacity goes to checkouts.
+ */
+public enum RequestPriority {
+    CHECKOUT,
+    QUOTE,
+    READ;
+
+    /**
+     * Classifies a request by method and path.
+     *
+     * @param request the incoming request
+     * @return READ for GET/HEAD, QUOTE for rental quotes, CHECKOUT for everything else
+     */
+    public static RequestPriority of(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return READ;
+        }
+        if (request.getRequestURI().endsWith("/quote")) {
+            return QUOTE;
+        }
+        return CHECKOUT;
+    }
+}
@@ -0,0 +1,119 @@
+package com.rental.tool.config.metrics;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation of the checkout pipeline.
+ * <ul>
+ *     <li>{@code rental.checkout.stage} - timer per pipeline stage, tagged {@code stage}</li>
+ *     <li>{@code rental.checkout} - end-to-end checkout timer, tagged {@code outcome}</li>
+ *     <li>{@code rental.checkout.fallbacks} - circuit breaker fallbacks, tagged {@code result} and
+ *     {@code cause} ({@code circuit_open} when the breaker rejected the call, {@code error} otherwise)</li>
+ *     <li>{@code rental.checkout.bulk} - lines of bulk checkouts, tagged {@code outcome}</li>
+ * </ul>
+ * Percentile histograms are enabled per meter name under {@code management.metrics.distribution}.
+ */
+@Component
+public class CheckoutMetrics {
+
+    /**
+     * Stages of a checkout, in the order they run.
+     */
+    public enum Stage {
+        VALIDATE,
+        CATALOG,
+        PRICE,
+        RESERVE,
+        SAVE,
+        MAP,
+        AUDIT;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+
+    public CheckoutMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("rental.checkout.stage")
+                    .tag("stage", stage.tag)
+                    .description("Time spent in one stage of the checkout pipeline")
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Times a stage that produces a value. The time is recorded even if the stage throws.
+     *
+     * @param stage the stage being run
+     * @param work  the stage
+     * @return the value produced by the stage
+     */
+    public <T> T time(Stage stage, Supplier<T> work) {
+        return stageTimers.get(stage).record(work);
+    }
+
+    /**
+     * Times a stage that produces no value. The time is recorded even if the stage throws.
+     *
+     * @param stage the stage being run
+     * @param work  the stage
+     */
+    public void time(Stage stage, Runnable work) {
+        stageTimers.get(stage).record(work);
+    }
+
+    /**
+     * Starts timing a whole checkout.
+     *
+     * @return the sample to pass to {@link #stop}
+     */
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Records a whole checkout with its outcome, such as {@code success} or {@code not_found}.
+     *
+     * @param sample  the sample returned by {@link #start}
+     * @param outcome the outcome tag
+     */
+    public void stop(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder("rental.checkout")
+                .tag("outcome", outcome)
+                .description("End-to-end checkout time by outcome")
+                .register(registry));
+    }
+
+    /**
+     * Counts a circuit breaker fallback.
+     *
+     * @param result what the fallback did, such as {@code snapshot} or {@code no_snapshot}
+     * @param cause  the exception that triggered the fallback
+     */
+    public void fallback(String result, Throwable cause) {
+        registry.counter("rental.checkout.fallbacks",
+                "result", result,
+                "cause", cause instanceof CallNotPermittedException ? "circuit_open" : "error").increment();
+    }
+
+    /**
+     * Counts one line of a bulk checkout. Bulk lines are not recorded in {@code rental.checkout},
+     * whose latencies are those of single checkouts.
+     *
+     * @param outcome the outcome tag, such as {@code success} or {@code invalid}
+     */
+    public void bulkLine(String outcome) {
+        registry.counter("rental.checkout.bulk", "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,46 @@
+package com.rental.tool.config.schema;
+
+import com.rental.tool.config.shard.ShardDataSources;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces Spring Boot's Liquibase bean with a {@link SchemaManager}, configured from the same
+ * {@code spring.liquibase.*} properties. Spring Boot still orders it before JPA, as it does any
+ * {@code SpringLiquibase} bean. It manages the schema of every shard.
+ */
+@Configuration
+@EnableConfigurationProperties(LiquibaseProperties.class)
+public class SchemaConfig {
+
+    @Bean
+    public SchemaManager liquibase(DataSource dataSource, ShardDataSources shards, LiquibaseProperties properties,
+                                   @Value("${rental.schema.mode:migrate}") String mode) {
+        SchemaManager schemaManager = new SchemaManager(SchemaManager.Mode.of(mode));
+        schemaManager.setDataSource(dataSource);
+        schemaManager.setShardDataSources(shards.getAll());
+        schemaManager.setChangeLog(properties.getChangeLog());
+        schemaManager.setClearCheckSums(properties.isClearChecksums());
+        if (properties.getContexts() != null) {
+            schemaManager.setContexts(String.join(",", properties.getContexts()));
+        }
+        if (properties.getLabelFilter() != null) {
+            schemaManager.setLabelFilter(String.join(",", properties.getLabelFilter()));
+        }
+        schemaManager.setDefaultSchema(properties.getDefaultSchema());
+        schemaManager.setLiquibaseSchema(properties.getLiquibaseSchema());
+        schemaManager.setLiquibaseTablespace(properties.getLiquibaseTablespace());
+        schemaManager.setDatabaseChangeLogTable(properties.getDatabaseChangeLogTable());
+        schemaManager.setDatabaseChangeLogLockTable(properties.getDatabaseChangeLogLockTable());
+        schemaManager.setDropFirst(properties.isDropFirst());
+        schemaManager.setShouldRun(properties.isEnabled());
+        schemaManager.setChangeLogParameters(properties.getParameters());
+        schemaManager.setTag(properties.getTag());
+        return schemaManager;
+    }
+}
@@ -0,0 +1,127 @@
+package com.rental.tool.config.schema;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.changelog.ChangeSet;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Brings the database schema up to date at startup, or only checks that it is, depending on
+ * {@code rental.schema.mode}.
+ * <ul>
+ *     <li>{@code migrate} - validates the checksums of applied changesets and applies the pending
+ *     ones, as Spring Boot's Liquibase integration does</li>
+ *     <li>{@code validate} - validates checksums and fails startup if any changeset is pending,
+ *     without taking the Liquibase lock or running DDL. Used by application instances when
+ *     migrations are run separately with {@link SchemaMigration}.</li>
+ * </ul>
+ * Every shard is migrated or validated in turn, shard 0 first; startup fails on the first shard
+ * that fails.
+ * <p>
+ * The mode is read when the bean initializes rather than through a bean condition, so it can
+ * still be changed for an application built with Spring AOT.
+ */
+public class SchemaManager extends SpringLiquibase {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaManager.class);
+
+    /**
+     * What to do with pending changesets at startup.
+     */
+    public enum Mode {
+        MIGRATE,
+        VALIDATE;
+
+        public static Mode of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown rental.schema.mode: " + name + ", expected migrate or validate");
+            }
+        }
+    }
+
+    private final Mode mode;
+    private List<DataSource> shardDataSources = List.of();
+
+    public SchemaManager(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @param shardDataSources the databases to manage; when empty only the data source is managed
+     */
+    public void setShardDataSources(List<DataSource> shardDataSources) {
+        this.shardDataSources = List.copyOf(shardDataSources);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        if (!shouldRun) {
+            logger.info("Schema management is disabled");
+            return;
+        }
+        if (mode == Mode.VALIDATE && isDropFirst()) {
+            throw new IllegalStateException("spring.liquibase.drop-first cannot be used with rental.schema.mode=validate");
+        }
+        if (shardDataSources.isEmpty()) {
+            manage();
+            return;
+        }
+        DataSource dataSource = getDataSource();
+        try {
+            for (int shard = 0; shard < shardDataSources.size(); shard++) {
+                logger.info("Managing the schema of shard {}", shard);
+                setDataSource(shardDataSources.get(shard));
+                manage();
+            }
+        } finally {
+            setDataSource(dataSource);
+        }
+    }
+
+    private void manage() throws LiquibaseException {
+        if (mode == Mode.MIGRATE) {
+            super.afterPropertiesSet();
+        } else {
+            validate();
+        }
+    }
+
+    /**
+     * Checks that every changeset in the changelog has been applied, with its current checksum.
+     *
+     * @throws LiquibaseException if an applied changeset was modified or cannot be read
+     * @throws IllegalStateException if changesets are pending
+     */
+    public void validate() throws LiquibaseException {
+        try (Connection connection = getDataSource().getConnection()) {
+            Liquibase liquibase = createLiquibase(connection);
+            liquibase.validate();
+            List<ChangeSet> pending = liquibase.listUnrunChangeSets(new Contexts(getContexts()),
+                    new LabelExpression(getLabelFilter()));
+            if (!pending.isEmpty()) {
+                throw new IllegalStateException(pending.size() + " database changesets are pending ("
+                        + pending.stream().map(ChangeSet::toString).collect(Collectors.joining(", "))
+                        + "); run the schema migration before starting the application");
+            }
+            logger.info("Database schema is up to date with {}", getChangeLog());
+        } catch (SQLException ex) {
+            throw new LiquibaseException("Cannot validate the database schema", ex);
+        }
+    }
+}
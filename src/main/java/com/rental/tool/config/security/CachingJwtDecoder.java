@@ -0,0 +1,92 @@
+package com.rental.tool.config.security;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decoder decorator that remembers tokens it has already verified until they expire, so a client
+ * reusing its token pays for parsing, signature and claim checks once instead of on every request.
+ * <p>
+ * Only successfully decoded tokens are cached; rejected ones go to the delegate every time, so
+ * garbage tokens cannot fill the cache. It holds at most {@code maxEntries} tokens. When full, new
+ * tokens are verified without being cached until the earliest cached token expires; only then is
+ * the cache swept for expired entries, so a full cache costs a scan per expiry, not per request.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final int maxEntries;
+    private final Clock clock;
+    private final ConcurrentMap<String, Jwt> verified = new ConcurrentHashMap<>();
+    // No cached token expires before this, so sweeping earlier would find nothing to drop
+    private final AtomicReference<Instant> earliestExpiry = new AtomicReference<>(Instant.MAX);
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, Clock clock) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        Instant now = clock.instant();
+        Jwt cached = verified.get(token);
+        if (cached != null) {
+            if (isLive(cached, now)) {
+                return cached;
+            }
+            // Let the delegate reject it with its usual expiry error
+            verified.remove(token, cached);
+        }
+
+        Jwt jwt = delegate.decode(token);
+        if (jwt.getExpiresAt() != null && isLive(jwt, now)) {
+            if (verified.size() >= maxEntries && !now.isBefore(earliestExpiry.get())) {
+                sweep(now);
+            }
+            if (verified.size() < maxEntries) {
+                verified.put(token, jwt);
+                earliestExpiry.accumulateAndGet(jwt.getExpiresAt(), CachingJwtDecoder::earlier);
+            }
+        }
+        return jwt;
+    }
+
+    // A token cached while the sweep runs may be missed as the earliest; it is dropped by a later sweep
+    private synchronized void sweep(Instant now) {
+        if (now.isBefore(earliestExpiry.get())) {
+            // Swept by another thread meanwhile
+            return;
+        }
+        Instant earliest = Instant.MAX;
+        for (Iterator<Jwt> entries = verified.values().iterator(); entries.hasNext(); ) {
+            Jwt entry = entries.next();
+            if (isLive(entry, now)) {
+                earliest = earlier(earliest, entry.getExpiresAt());
+            } else {
+                entries.remove();
+            }
+        }
+        earliestExpiry.set(earliest);
+    }
+
+    private static Instant earlier(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    int size() {
+        return verified.size();
+    }
+
+    private static boolean isLive(Jwt jwt, Instant now) {
+        return jwt.getExpiresAt() != null && now.isBefore(jwt.getExpiresAt());
+    }
+}
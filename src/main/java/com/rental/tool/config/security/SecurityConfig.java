@@ -5,6 +5,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -21,6 +22,9 @@ public class SecurityConfig {
 
     /**
      * Configure HTTP security, allowing public access to some endpoints and securing others.
+     * Sessions are never created: clients exchange their credentials once for a bearer token at
+     * {@code POST /api/auth/token} and send it with each request (see {@link TokenConfig}).
+     * Basic authentication is still accepted, but checks the password on every request.
      *
      * @param http HttpSecurity configuration object
      * @return SecurityFilterChain
@@ -32,14 +36,22 @@ public class SecurityConfig {
                 .headers().frameOptions().disable();
         http
                 .csrf(csrf -> csrf.disable()) // Disable CSRF protection
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorizeRequests ->
                         authorizeRequests
+                                .requestMatchers(new AntPathRequestMatcher("/api/auth/token")).authenticated()
                                 .requestMatchers(new AntPathRequestMatcher("/api/rentals/checkout")).permitAll()
                                 .requestMatchers(new AntPathRequestMatcher("/swagger-ui/**")).authenticated()
                                 .requestMatchers(new AntPathRequestMatcher("/v3/api-docs/**")).authenticated()
+                                .requestMatchers(new AntPathRequestMatcher("/actuator/flightrecorder/**")).authenticated()
+                                .requestMatchers(new AntPathRequestMatcher("/actuator/startup")).authenticated()
+                                .requestMatchers(new AntPathRequestMatcher("/actuator/metrics/**")).authenticated()
+                                .requestMatchers(new AntPathRequestMatcher("/actuator/prometheus")).authenticated()
+                                .requestMatchers(new AntPathRequestMatcher("/api/events/**")).authenticated()
+                                .requestMatchers(new AntPathRequestMatcher("/api/rentals/*/return")).authenticated()
                                 .anyRequest().permitAll()
                 )
-                .formLogin(withDefaults())
+                .oauth2ResourceServer(resourceServer -> resourceServer.jwt(withDefaults()))
                 .httpBasic(withDefaults());// Equivalent to the previous .httpBasic().enable()
 
         return http.build();
@@ -4,6 +4,7 @@ package com.rental.tool.config.security;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 
 public class SecurityUtils {
 
@@ -13,6 +14,9 @@ public class SecurityUtils {
         if (authentication != null && authentication.getPrincipal() instanceof UserDetails userDetails) {
             return userDetails.getUsername(); // Return the authenticated username
         }
+        if (authentication instanceof JwtAuthenticationToken token) {
+            return token.getName(); // Subject of the bearer token
+        }
         return "anonymous"; // Return 'anonymous' if no user is authenticated
     }
 }
@@ -0,0 +1,65 @@
+package com.rental.tool.config.security;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Signing key, encoder and decoder for the access tokens issued by {@code POST /api/auth/token}.
+ */
+@Configuration
+public class TokenConfig {
+    private static final Logger logger = LoggerFactory.getLogger(TokenConfig.class);
+
+    // HS256 needs a key of at least 256 bits
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private final SecretKey signingKey;
+
+    public TokenConfig(@Value("${rental.security.token.secret:}") String secret) {
+        byte[] key;
+        if (secret.isBlank()) {
+            key = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(key);
+            logger.warn("rental.security.token.secret is not set; using a random key, so tokens are only valid on this instance until it restarts");
+        } else {
+            key = Base64.getDecoder().decode(secret.trim());
+            if (key.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("rental.security.token.secret must be at least " + MIN_SECRET_BYTES
+                        + " bytes, Base64-encoded; was " + key.length);
+            }
+        }
+        signingKey = new SecretKeySpec(key, "HmacSHA256");
+    }
+
+    @Bean
+    public TokenService tokenService(@Value("${rental.security.token.ttl-minutes:15}") long ttlMinutes) {
+        return new TokenService(new NimbusJwtEncoder(new ImmutableSecret<>(signingKey)),
+                Duration.ofMinutes(ttlMinutes), Clock.systemUTC());
+    }
+
+    /**
+     * Verifies bearer tokens against the signing key, caching tokens that passed until they expire.
+     */
+    @Bean
+    public JwtDecoder jwtDecoder(@Value("${rental.security.token.cache-size:10000}") int cacheSize) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(signingKey).macAlgorithm(MacAlgorithm.HS256).build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(TokenService.ISSUER));
+        return new CachingJwtDecoder(decoder, cacheSize, Clock.systemUTC());
+    }
+}
@@ -0,0 +1,59 @@
+package com.rental.tool.config.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Collectors;
+
+/**
+ * Issues short-lived access tokens, HMAC-signed JWTs that {@link CachingJwtDecoder} verifies
+ * locally. A token carries the username as subject and the user's roles as scopes, so requests
+ * bearing it need neither a user lookup nor a password check.
+ */
+public class TokenService {
+
+    static final String ISSUER = "rental-tool";
+
+    private final JwtEncoder encoder;
+    private final Duration ttl;
+    private final Clock clock;
+
+    public TokenService(JwtEncoder encoder, Duration ttl, Clock clock) {
+        this.encoder = encoder;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * @param authentication the user the token is issued to, authenticated by their credentials
+     * @return a signed token valid for the configured TTL
+     */
+    public Jwt issue(Authentication authentication) {
+        Instant now = clock.instant();
+        String scope = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .map(authority -> authority.startsWith("ROLE_") ? authority.substring("ROLE_".length()) : authority)
+                .collect(Collectors.joining(" "));
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(ISSUER)
+                .subject(authentication.getName())
+                .issuedAt(now)
+                .expiresAt(now.plus(ttl))
+                .claim("scope", scope)
+                .build();
+        return encoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims));
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+}
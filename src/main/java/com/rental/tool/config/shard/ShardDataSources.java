@@ -0,0 +1,52 @@
+package com.rental.tool.config.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * The connection pools of all shards, by shard index. Shard 0 is {@code spring.datasource}; it
+ * also holds the data that is not split by store, the stock levels in {@code tool_inventory}.
+ * <p>
+ * The pools are deliberately not beans, so that {@link ShardRoutingDataSource} stays the only
+ * {@link DataSource} that JPA, JdbcTemplate and the SQL statement counter see.
+ */
+public class ShardDataSources implements AutoCloseable {
+
+    private final List<HikariDataSource> pools;
+
+    public ShardDataSources(List<HikariDataSource> pools) {
+        this.pools = List.copyOf(pools);
+    }
+
+    public int size() {
+        return pools.size();
+    }
+
+    public DataSource get(int shard) {
+        return pools.get(shard);
+    }
+
+    public List<DataSource> getAll() {
+        return List.copyOf(pools);
+    }
+
+    /**
+     * Runs the action once per shard, in shard order, with the thread pinned to that shard.
+     *
+     * @param action receives the shard index
+     */
+    public void forEachShard(IntConsumer action) {
+        for (int shard = 0; shard < pools.size(); shard++) {
+            int current = shard;
+            StoreContext.runOnShard(current, () -> action.accept(current));
+        }
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,90 @@
+package com.rental.tool.config.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Assigns stores to shards with a consistent-hash ring. Each shard owns {@code virtualNodes}
+ * points on the ring and a store goes to the shard owning the first point at or after the hash of
+ * its ID, so adding a shard moves only about 1/N of the stores, all of them onto the new shard.
+ * <p>
+ * The default store always stays on shard 0, the original database, which holds all rentals made
+ * before stores existed. A store listed in {@code pinnedStores} skips the ring and goes to its
+ * configured shard, which is how one very busy store is given a database of its own. Moving a
+ * store, by pinning it or by changing the shard count, does not move its existing rentals; they
+ * stay readable only on the old shard.
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+    private final Map<String, Integer> pinnedStores;
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+
+    public ShardRouter(int shardCount, int virtualNodes, Map<String, Integer> pinnedStores) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        pinnedStores.forEach((store, shard) -> {
+            if (shard < 0 || shard >= shardCount) {
+                throw new IllegalArgumentException("Store " + store + " is pinned to shard " + shard
+                        + ", but only shards 0 to " + (shardCount - 1) + " exist");
+            }
+        });
+        this.shardCount = shardCount;
+        this.pinnedStores = Map.copyOf(pinnedStores);
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    /**
+     * @param store a store ID, or null for the default store
+     * @return the index of the shard holding the store's rentals
+     */
+    public int shardFor(String store) {
+        if (store == null || store.equals(StoreContext.DEFAULT_STORE)) {
+            return 0;
+        }
+        Integer pinned = pinnedStores.get(store);
+        if (pinned != null) {
+            return pinned;
+        }
+        if (shardCount == 1) {
+            return 0;
+        }
+        Map.Entry<Long, Integer> owner = ring.ceilingEntry(hash(store));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * @return the shard the current thread is pinned to, or else the shard of its store
+     */
+    public int currentShard() {
+        Integer shard = StoreContext.getShard();
+        return shard != null ? shard : shardFor(StoreContext.getStore());
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    // First 8 bytes of MD5: evenly spread, and stable across JVMs unlike String.hashCode
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("MD5 is not available", ex);
+        }
+    }
+}
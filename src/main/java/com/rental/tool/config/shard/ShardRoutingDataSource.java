@@ -0,0 +1,32 @@
+package com.rental.tool.config.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The application's only data source: hands out connections from the shard of the current
+ * {@link StoreContext}, so JPA, Spring Data and JdbcTemplate all follow the store of the request.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ShardRouter router;
+
+    public ShardRoutingDataSource(ShardRouter router, ShardDataSources shards) {
+        this.router = router;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        // An unknown shard is a routing bug; never silently write to shard 0 instead
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return router.currentShard();
+    }
+}
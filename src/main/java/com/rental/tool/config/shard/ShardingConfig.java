@@ -0,0 +1,84 @@
+package com.rental.tool.config.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces Spring Boot's data source with one connection pool per shard behind a
+ * {@link ShardRoutingDataSource}. Shard 0 is configured by {@code spring.datasource}, further
+ * shards by {@code rental.sharding.shards}; every pool gets the {@code spring.datasource.hikari}
+ * settings. With no extra shards configured the application uses a single database as before.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardDataSources shardDataSources(DataSourceProperties properties, Environment environment,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        Binder binder = Binder.get(environment);
+        List<HikariDataSource> pools = new ArrayList<>();
+        pools.add(properties.initializeDataSourceBuilder().type(HikariDataSource.class).build());
+        for (Shard shard : binder.bind("rental.sharding.shards", Bindable.listOf(Shard.class)).orElse(List.of())) {
+            pools.add(DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername() != null ? shard.getUsername() : properties.determineUsername())
+                    .password(shard.getPassword() != null ? shard.getPassword() : properties.determinePassword())
+                    .build());
+        }
+        // Not beans, so Spring Boot does not publish their pool metrics; each pool does it itself
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        for (int shard = 0; shard < pools.size(); shard++) {
+            HikariDataSource pool = pools.get(shard);
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setPoolName("rental-shard-" + shard);
+            if (registry != null) {
+                pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+        }
+        return new ShardDataSources(pools);
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardDataSources shards, Environment environment,
+                                   @Value("${rental.sharding.virtual-nodes:128}") int virtualNodes) {
+        Map<String, Integer> pinnedStores = Binder.get(environment)
+                .bind("rental.sharding.pinned-stores", Bindable.mapOf(String.class, Integer.class))
+                .orElse(Map.of());
+        return new ShardRouter(shards.size(), virtualNodes, pinnedStores);
+    }
+
+    @Bean
+    public DataSource dataSource(ShardRouter router, ShardDataSources shards) {
+        return new ShardRoutingDataSource(router, shards);
+    }
+
+    /**
+     * Connection settings of one shard after shard 0. Username and password default to those of
+     * {@code spring.datasource}.
+     */
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,119 @@
+package com.rental.tool.config.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * The store the current thread works for, which {@link ShardRoutingDataSource} uses to pick a
+ * shard. Set for each API request by {@link StoreContextFilter}; outside a request no store is set
+ * and connections go to the default store's shard.
+ * <p>
+ * Work that spans stores, such as jobs that scan every shard, pins the thread to a shard instead
+ * with {@link #runOnShard}. The context must be entered before a transaction starts: a transaction
+ * keeps the connection it began with.
+ */
+public final class StoreContext {
+
+    /**
+     * Store of requests without a store header, and of the rentals made before stores existed.
+     */
+    public static final String DEFAULT_STORE = "main";
+
+    private static final ThreadLocal<String> STORE = new ThreadLocal<>();
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private StoreContext() {
+    }
+
+    /**
+     * @return the store of the current request, or null outside one
+     */
+    public static String getStore() {
+        return STORE.get();
+    }
+
+    /**
+     * @return the store of the current request, or the default store outside one
+     */
+    public static String currentStore() {
+        String store = STORE.get();
+        return store != null ? store : DEFAULT_STORE;
+    }
+
+    /**
+     * @return the shard the thread is pinned to, or null if it follows its store
+     */
+    public static Integer getShard() {
+        return SHARD.get();
+    }
+
+    /**
+     * Makes the store current until the returned scope is closed, which restores the previous context.
+     *
+     * @param store the store
+     * @return the scope to close
+     */
+    public static Scope enter(String store) {
+        return enter(store, null);
+    }
+
+    public static void runInStore(String store, Runnable work) {
+        try (Scope ignored = enter(store)) {
+            work.run();
+        }
+    }
+
+    public static <T> T callInStore(String store, Supplier<T> work) {
+        try (Scope ignored = enter(store)) {
+            return work.get();
+        }
+    }
+
+    /**
+     * Runs work against one shard, whatever store is current.
+     *
+     * @param shard the shard index
+     * @param work  the work to run
+     */
+    public static void runOnShard(int shard, Runnable work) {
+        try (Scope ignored = enter(null, shard)) {
+            work.run();
+        }
+    }
+
+    public static <T> T callOnShard(int shard, Supplier<T> work) {
+        try (Scope ignored = enter(null, shard)) {
+            return work.get();
+        }
+    }
+
+    private static Scope enter(String store, Integer shard) {
+        Scope scope = new Scope(STORE.get(), SHARD.get());
+        STORE.set(store);
+        SHARD.set(shard);
+        return scope;
+    }
+
+    /**
+     * Restores the context that was current when it was entered.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final String previousStore;
+        private final Integer previousShard;
+
+        private Scope(String previousStore, Integer previousShard) {
+            this.previousStore = previousStore;
+            this.previousShard = previousShard;
+        }
+
+        @Override
+        public void close() {
+            if (previousStore == null && previousShard == null) {
+                STORE.remove();
+                SHARD.remove();
+            } else {
+                STORE.set(previousStore);
+                SHARD.set(previousShard);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.rental.tool.config.shard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class StoreContextConfig {
+
+    /**
+     * Registers the store filter after the concurrency limiter and statement counter, and before
+     * Spring Security and everything else that may open a connection.
+     */
+    @Bean
+    public FilterRegistrationBean<StoreContextFilter> storeContextFilter(
+            ObjectMapper objectMapper,
+            @Value("${rental.sharding.store-header:X-Store-Id}") String header) {
+        FilterRegistrationBean<StoreContextFilter> registration =
+                new FilterRegistrationBean<>(new StoreContextFilter(header, objectMapper));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 30);
+        return registration;
+    }
+
+    @Bean
+    public StoreKeyGenerator storeKeyGenerator() {
+        return new StoreKeyGenerator();
+    }
+}
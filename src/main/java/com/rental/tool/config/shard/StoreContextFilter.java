@@ -0,0 +1,56 @@
+package com.rental.tool.config.shard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.dto.response.RentalResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Sets the {@link StoreContext} of an API request from its store header, for the whole request.
+ * Requests without the header work for the default store; a malformed store ID gets 400 before
+ * anything touches a database.
+ */
+public class StoreContextFilter extends OncePerRequestFilter {
+
+    // Matches store_id VARCHAR(32); also keeps the ID safe to use in cache keys and log lines
+    private static final Pattern STORE_ID = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    private final String header;
+    private final ObjectMapper objectMapper;
+
+    public StoreContextFilter(String header, ObjectMapper objectMapper) {
+        this.header = header;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String store = request.getHeader(header);
+        if (store == null || store.isBlank()) {
+            store = StoreContext.DEFAULT_STORE;
+        } else if (!STORE_ID.matcher(store).matches()) {
+            reject(response);
+            return;
+        }
+        try (StoreContext.Scope ignored = StoreContext.enter(store)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.BAD_REQUEST.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        RentalResponse<Object> body = new RentalResponse<>(HttpStatus.BAD_REQUEST.value(),
+                header + " must be 1 to 32 letters, digits, '-' or '_'", (Object) null);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
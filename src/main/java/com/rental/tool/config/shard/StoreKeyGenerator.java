@@ -0,0 +1,28 @@
+package com.rental.tool.config.shard;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+
+/**
+ * Keys catalog cache entries by store as well as tool code, so each store has its own partition of
+ * the catalog caches, loaded from its own shard. Entries put into the caches directly must use
+ * {@link #key}.
+ */
+public class StoreKeyGenerator implements KeyGenerator {
+
+    /**
+     * Cache key of a tool code in the current store.
+     *
+     * @param toolCode the tool code
+     * @return the cache key
+     */
+    public static String key(String toolCode) {
+        return StoreContext.currentStore() + ':' + toolCode;
+    }
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        return key((String) params[0]);
+    }
+}
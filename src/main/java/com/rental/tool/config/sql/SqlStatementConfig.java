@@ -0,0 +1,49 @@
+package com.rental.tool.config.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "rental.sql-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatementConfig {
+
+    /**
+     * Wraps the data source so statements are counted at the JDBC level, whichever of JPA,
+     * Spring Data or Liquibase issues them.
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Registers the statement counter right after the concurrency limiter, so that it covers the
+     * whole request including Spring Security.
+     */
+    @Bean
+    public FilterRegistrationBean<SqlStatementFilter> sqlStatementFilter(
+            MeterRegistry registry,
+            @Value("${rental.sql-stats.repeat-threshold:5}") int repeatThreshold) {
+        FilterRegistrationBean<SqlStatementFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementFilter(registry, repeatThreshold));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
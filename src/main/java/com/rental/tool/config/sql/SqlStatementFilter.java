@@ -0,0 +1,78 @@
+package com.rental.tool.config.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SQL statements each API request executes and publishes them per endpoint:
+ * <ul>
+ *     <li>{@code rental.sql.statements} - statements per request</li>
+ *     <li>{@code rental.sql.time} - time per request spent executing statements</li>
+ *     <li>{@code rental.sql.repeated} - requests that executed one statement at least
+ *     {@code rental.sql-stats.repeat-threshold} times, a likely N+1 query, which is also logged</li>
+ * </ul>
+ * All are tagged with the request method and the matched {@code uri} pattern. Bulk checkouts are
+ * not counted, since every line repeats the statements of a single checkout by design.
+ */
+public class SqlStatementFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementFilter.class);
+
+    private final MeterRegistry registry;
+    private final int repeatThreshold;
+
+    public SqlStatementFilter(MeterRegistry registry, int repeatThreshold) {
+        this.registry = registry;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().endsWith("/checkout/bulk");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (SqlStatementScope scope = SqlStatementScope.open()) {
+            filterChain.doFilter(request, response);
+            record(request, scope);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementScope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        String method = request.getMethod();
+
+        DistributionSummary.builder("rental.sql.statements")
+                .tags("method", method, "uri", uri)
+                .description("SQL statements executed per request")
+                .register(registry)
+                .record(scope.getStatementCount());
+        Timer.builder("rental.sql.time")
+                .tags("method", method, "uri", uri)
+                .description("Time per request spent executing SQL statements")
+                .register(registry)
+                .record(scope.getElapsedNanos(), TimeUnit.NANOSECONDS);
+
+        Map<String, Integer> repeated = scope.getRepeatedStatements(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            registry.counter("rental.sql.repeated", "method", method, "uri", uri).increment();
+            repeated.forEach((sql, count) ->
+                    logger.warn("Possible N+1 query: {} {} executed {} times: {}", method, uri, count, sql));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.rental.tool.config.sql;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds the statement count and time of the request so far as {@code X-SQL-Statements} and
+ * {@code X-SQL-Time-Ms}, just before the response body is written and the headers are sent.
+ * Active only when {@code rental.sql-stats.response-header} is true.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "rental.sql-stats.response-header", havingValue = "true")
+public class SqlStatementHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    static final String TIME_HEADER = "X-SQL-Time-Ms";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatementScope scope = SqlStatementScope.current();
+        if (scope != null) {
+            response.getHeaders().set(STATEMENTS_HEADER, String.valueOf(scope.getStatementCount()));
+            response.getHeaders().set(TIME_HEADER, String.valueOf(TimeUnit.NANOSECONDS.toMillis(scope.getElapsedNanos())));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,117 @@
+package com.rental.tool.config.sql;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts and times the JDBC statements executed on the current thread while it is open.
+ * <p>
+ * {@link SqlStatementFilter} opens one per HTTP request; tests open their own to hold code to a
+ * statement budget. Scopes nest: a statement is recorded in every open scope of the thread, so a
+ * test scope still sees the statements of a request it drives. Statements are recorded by
+ * {@link StatementCountingDataSource} and only while a scope is open, so work outside any scope
+ * costs nothing beyond a thread-local lookup.
+ * <p>
+ * A scope belongs to the thread that opened it and must be closed on that thread.
+ */
+public final class SqlStatementScope implements AutoCloseable {
+
+    private static final ThreadLocal<SqlStatementScope> CURRENT = new ThreadLocal<>();
+
+    private final SqlStatementScope parent;
+    private final Map<String, Integer> executions = new HashMap<>();
+    private int statementCount;
+    private long elapsedNanos;
+    private boolean closed;
+
+    private SqlStatementScope(SqlStatementScope parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Opens a scope on the current thread, nested in the scope already open, if any.
+     *
+     * @return the new scope; close it to stop counting
+     */
+    public static SqlStatementScope open() {
+        SqlStatementScope scope = new SqlStatementScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Returns the innermost scope open on the current thread.
+     *
+     * @return the scope, or null if none is open
+     */
+    public static SqlStatementScope current() {
+        return CURRENT.get();
+    }
+
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void record(String sql, long nanos) {
+        for (SqlStatementScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.statementCount++;
+            scope.elapsedNanos += nanos;
+            scope.executions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Returns the number of statements executed in this scope. A JDBC batch counts as one.
+     *
+     * @return executed statements
+     */
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * Returns the time spent executing statements in this scope.
+     *
+     * @return elapsed nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the statements executed at least {@code threshold} times, the signature of an N+1
+     * query where one statement is repeated for every row of an earlier result.
+     *
+     * @param threshold the least number of executions to report
+     * @return SQL text and execution count, most executed first
+     */
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        executions.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return Collections.unmodifiableMap(repeated);
+    }
+
+    /**
+     * Stops counting and makes the enclosing scope current again.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("SQL statement scopes must be closed in reverse order of opening");
+        }
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.rental.tool.config.sql;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps the application data source so that every statement executed on its connections is
+ * recorded in the thread's open {@link SqlStatementScope}s.
+ * <p>
+ * Connections and statements are wrapped in JDK proxies that pass every call through; only the
+ * {@code execute*} methods of a statement are timed. A JDBC batch is recorded as one statement.
+ * The pool underneath is unchanged and can still be reached with {@link #getTargetDataSource()}
+ * or {@code unwrap}.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementCountingDataSource.invoke(target, method, args);
+            Class<?> type;
+            if (result instanceof CallableStatement) {
+                type = CallableStatement.class;
+            } else if (result instanceof PreparedStatement) {
+                type = PreparedStatement.class;
+            } else if (result instanceof Statement) {
+                type = Statement.class;
+            } else {
+                return result;
+            }
+            // prepareStatement and prepareCall take the SQL up front; plain statements get it on execute
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            return Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler((Statement) result, sql));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private String batchSql;
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("addBatch") && args != null && args.length == 1 && batchSql == null) {
+                batchSql = (String) args[0];
+            }
+            if (!name.startsWith("execute") || !SqlStatementScope.isActive()) {
+                return StatementCountingDataSource.invoke(target, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            if (sql == null) {
+                sql = batchSql;
+            }
+            long start = System.nanoTime();
+            try {
+                return StatementCountingDataSource.invoke(target, method, args);
+            } finally {
+                SqlStatementScope.record(sql == null ? "<unknown>" : sql, System.nanoTime() - start);
+                if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                    batchSql = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.rental.tool.controllers;
+
+import com.rental.tool.config.security.TokenService;
+import com.rental.tool.dto.AccessTokenDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/auth")
+@Tag(name = "Authentication", description = "API for obtaining access tokens")
+public class AuthController {
+
+    @Autowired
+    private TokenService tokenService;
+
+    /**
+     * Exchanges the user's credentials, sent with Basic authentication, for a short-lived bearer
+     * token. Requests sending {@code Authorization: Bearer <token>} are then authenticated by
+     * checking the token's signature, without a password check or a session.
+     *
+     * @param authentication the user authenticated by their credentials
+     * @return the token and the seconds until it expires
+     */
+    @PostMapping("/token")
+    @Operation(summary = "Issue Access Token", description = "Returns a bearer token for the authenticated user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Token issued"),
+            @ApiResponse(responseCode = "401", description = "Missing or wrong credentials"),
+            @ApiResponse(responseCode = "403", description = "Authenticated with a token instead of credentials")
+    })
+    public ResponseEntity<AccessTokenDTO> issueToken(Authentication authentication) {
+        // A token must not renew itself, or it would never expire
+        if (authentication instanceof JwtAuthenticationToken) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Jwt token = tokenService.issue(authentication);
+        long expiresIn = Duration.between(token.getIssuedAt(), token.getExpiresAt()).getSeconds();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new AccessTokenDTO(token.getTokenValue(), "Bearer", expiresIn));
+    }
+}
@@ -0,0 +1,69 @@
+package com.rental.tool.controllers;
+
+import com.rental.tool.dto.ToolAvailabilityDTO;
+import com.rental.tool.dto.response.RentalResponse;
+import com.rental.tool.services.ToolAvailabilityIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/availability")
+@Tag(name = "Tool Availability", description = "Date-range availability of tools, served from memory")
+public class AvailabilityController {
+
+    @Autowired
+    private ToolAvailabilityIndex toolAvailabilityIndex;
+
+    /**
+     * Returns the availability of one tool for every day between two dates.
+     *
+     * @param toolCode - the code of the tool
+     * @param from     - first day of the range (yyyy-MM-dd)
+     * @param to       - last day of the range (yyyy-MM-dd)
+     * @return ToolAvailabilityDTO with on-hand, peak booked and free units
+     */
+    @GetMapping("/{toolCode}")
+    @Operation(summary = "Tool availability", description = "Returns whether the tool is free for the whole date range")
+    public RentalResponse<ToolAvailabilityDTO> getToolAvailability(
+            @PathVariable String toolCode,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        validateRange(from, to);
+        return new RentalResponse<>(HttpStatus.OK.value(), "Tool availability",
+                toolAvailabilityIndex.getAvailability(toolCode, from, to));
+    }
+
+    /**
+     * Lists the tools with at least one unit free for every day between two dates.
+     *
+     * @param from - first day of the range (yyyy-MM-dd)
+     * @param to   - last day of the range (yyyy-MM-dd)
+     * @return availability of the free tools
+     */
+    @GetMapping
+    @Operation(summary = "Available tools", description = "Lists the tools that are free for the whole date range")
+    public RentalResponse<List<ToolAvailabilityDTO>> getAvailableTools(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        validateRange(from, to);
+        return new RentalResponse<>(HttpStatus.OK.value(), "Available tools",
+                toolAvailabilityIndex.findAvailableTools(from, to));
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Range end must not be before range start");
+        }
+    }
+}
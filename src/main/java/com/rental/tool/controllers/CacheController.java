@@ -1,5 +1,6 @@
 package com.rental.tool.controllers;
 
+import com.rental.tool.services.CatalogSnapshotService;
 import com.rental.tool.services.ToolService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,12 +18,17 @@ public class CacheController {
     @Autowired
     private ToolService toolService;
 
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
     /**
-     * Clears the cache for Tool entities.
+     * Clears the cache for Tool entities. Like the other invalidations, it also re-reads the catalog
+     * snapshot, so {@code GET /api/tools} reflects the change without waiting for the next refresh.
      */
     @DeleteMapping("/invalidate/tools")
     public ResponseEntity<String> clearToolCache() {
         toolService.evictToolCache();
+        catalogSnapshotService.refresh();
         return ResponseEntity.ok("Tool cache has been successfully cleared.");
     }
 
@@ -34,6 +40,7 @@ public class CacheController {
         logger.info("Clearing ToolCharge cache...");
         toolService.evictToolChargeCache();
         logger.info("ToolCharge cache has been cleared.");
+        catalogSnapshotService.refresh();
         return ResponseEntity.ok("ToolCharge cache has been successfully cleared.");
     }
 
@@ -44,6 +51,7 @@ public class CacheController {
     public ResponseEntity<String> clearAllCaches() {
         toolService.evictToolCache();
         toolService.evictToolChargeCache();
+        catalogSnapshotService.refresh();
         return ResponseEntity.ok("All caches (Tool and ToolCharge) have been successfully cleared.");
     }
 }
@@ -2,6 +2,7 @@ package com.rental.tool.controllers;
 
 import com.rental.tool.dto.ErrorResponse;
 import com.rental.tool.dto.response.RentalResponse;
+import com.rental.tool.exception.InvalidRentalRequestException;
 import com.rental.tool.exception.ResourceNotFoundException;
 import com.rental.tool.exception.ToolNotFoundException;
 import jakarta.validation.ConstraintViolation;
@@ -55,6 +56,11 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleToolNotFound(ToolNotFoundException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
+    @ExceptionHandler(InvalidRentalRequestException.class)
+    @ResponseBody
+    public ResponseEntity<String> handleInvalidRentalRequest(InvalidRentalRequestException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
     @ExceptionHandler(HttpMessageNotReadableException.class)
     @ResponseBody
     public ResponseEntity<String> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
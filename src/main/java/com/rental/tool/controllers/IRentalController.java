@@ -1,13 +1,19 @@
 package com.rental.tool.controllers;
 
 import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.dto.RentalReturnDTO;
 import com.rental.tool.dto.request.RentalRequest;
 import com.rental.tool.dto.response.RentalResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.format.annotation.DateTimeFormat;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
@@ -17,9 +23,53 @@ public interface IRentalController {
      * Checkout a tool and generate a rental agreement.
      *
      * @param request - RentalRequest containing the tool code, rental days, discount percent, and checkout date.
+     * @param idempotencyKey - optional client-generated key; retries with the same key return the original agreement
      * @return RentalAgreementDTO containing details of the rental agreement
      */
     RentalResponse<RentalAgreementDTO> checkoutTool(
-            @RequestBody RentalRequest request);
+            @Valid @RequestBody RentalRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey);
+
+    /**
+     * Check out many tools from one newline-delimited JSON upload, streaming back one result per line.
+     *
+     * @param request - the request, whose body holds one RentalRequest per line
+     * @param response - the response the result lines are streamed to
+     */
+    void bulkCheckout(HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+    /**
+     * Price a tool rental without checking it out.
+     *
+     * @param request - RentalRequest containing the tool code, rental days, discount percent, and checkout date.
+     * @return RentalAgreementDTO the checkout would produce for the same request
+     */
+    RentalResponse<RentalAgreementDTO> quoteTool(
+            @Valid @RequestBody RentalRequest request);
+
+    /**
+     * Return a rented tool, which stops late fees from accruing.
+     *
+     * @param id - the id of the rental
+     * @return the rental's due and return dates
+     */
+    RentalResponse<RentalReturnDTO> returnTool(Long id);
+
+    /**
+     * Get the agreement of a checked-out rental.
+     *
+     * @param id - the id of the rental
+     * @return RentalAgreementDTO of the rental
+     */
+    RentalResponse<RentalAgreementDTO> getRental(Long id);
+
+    /**
+     * Render the agreement of a checked-out rental.
+     *
+     * @param id - the id of the rental
+     * @param format - text or html
+     * @return the rendered rental agreement
+     */
+    ResponseEntity<String> getAgreement(Long id, String format);
 }
 
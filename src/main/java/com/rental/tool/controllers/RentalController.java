@@ -1,28 +1,48 @@
 package com.rental.tool.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.config.metrics.CheckoutMetrics;
 import com.rental.tool.config.security.SecurityUtils;
 import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.dto.RentalReturnDTO;
 import com.rental.tool.dto.request.RentalRequest;
 import com.rental.tool.dto.response.RentalResponse;
 import com.rental.tool.entities.Rental;
+import com.rental.tool.exception.CatalogUnavailableException;
+import com.rental.tool.exception.IdempotencyKeyConflictException;
+import com.rental.tool.exception.IdempotencyKeyMismatchException;
 import com.rental.tool.exception.ResourceNotFoundException;
+import com.rental.tool.exception.ToolUnavailableException;
+import com.rental.tool.services.AgreementRenderService;
 import com.rental.tool.services.AuditService;
+import com.rental.tool.services.BulkCheckoutService;
+import com.rental.tool.services.IdempotencyService;
+import com.rental.tool.services.RentalAgreementViewService;
 import com.rental.tool.services.RentalService;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.function.LongConsumer;
 @RestController
 @RequestMapping("/api/rentals")
 @Tag(name = "Tool Rental Service", description = "API for renting tools")
@@ -31,49 +51,82 @@ public class RentalController implements IRentalController {
 
     private static final Logger logger = LoggerFactory.getLogger(RentalController.class);
 
+    private static final String PROVISIONAL_CHECKOUT_MESSAGE =
+            "Rental checkout accepted provisionally: priced from the last known catalog, it will be recorded once the database is available";
+    private static final String PROVISIONAL_QUOTE_MESSAGE =
+            "Rental quote is provisional: priced from the last known catalog while the database is unavailable";
+
     @Autowired
     private RentalService rentalService;
     @Autowired
     private AuditService auditService;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private CheckoutMetrics checkoutMetrics;
+    @Autowired
+    private AgreementRenderService agreementRenderService;
+    @Autowired
+    private BulkCheckoutService bulkCheckoutService;
+    @Autowired
+    private RentalAgreementViewService rentalAgreementViewService;
+    @Autowired
+    private ObjectMapper objectMapper;
     /**
-     * Checkout a tool and generate a rental agreement.
+     * Checkout a tool and generate a rental agreement. When an Idempotency-Key header is sent,
+     * retries with the same key return the original agreement instead of renting the tool again.
+     * Request and response may be JSON, CBOR or Smile, see {@link com.rental.tool.config.codec.WireFormatConfig}.
      *
      * @param request - RentalRequest containing the tool code, rental days, discount percent, and checkout date.
+     * @param idempotencyKey - optional client-generated key identifying this checkout across retries
      * @return RentalAgreementDTO containing details of the rental agreement
      */
     @PostMapping("/checkout")
     @Operation(summary = "Check Out Rental Tool", description = "Returns the rental agreement instance ")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Check Out successful",
-                    content = @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = RentalAgreementDTO.class))),
+                    content = {
+                            @Content(mediaType = "application/json", schema = @Schema(implementation = RentalAgreementDTO.class)),
+                            @Content(mediaType = "application/cbor", schema = @Schema(implementation = RentalAgreementDTO.class)),
+                            @Content(mediaType = "application/x-jackson-smile", schema = @Schema(implementation = RentalAgreementDTO.class))
+                    }),
             @ApiResponse(responseCode = "400", description = "Bad Input",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Tool unavailable, or a checkout with the same Idempotency-Key is still running",
+                    content = @Content),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key reused with a different request",
                     content = @Content)
     })
-    public RentalResponse<RentalAgreementDTO> checkoutTool(@Valid @RequestBody RentalRequest request) {
+    public RentalResponse<RentalAgreementDTO> checkoutTool(@Valid @RequestBody RentalRequest request,
+                                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
         // Use the helper method from SecurityUtils to get the current username
         String username = SecurityUtils.getCurrentUsername();
         // Generate a unique transaction ID
         String transactionId = auditService.generateTransactionId();
+        // Recorded in the rental.checkout timer, tagged with how the checkout ended
+        Timer.Sample sample = checkoutMetrics.start();
+        String outcome = "error";
         try {
-           // Extract values from the request object
-            String toolCode = request.getToolCode();
-            LocalDate checkoutDate = request.getCheckoutDate();
-
-            // Create the rental object (assuming this exists in your service logic)
-            Rental rental = rentalService.createRental(toolCode, request.getRentalDays(), request.getDiscountPercent(), checkoutDate);
-            logger.info("rental: {}", rental.toString());
-            // Process and retrieve the rental agreement
-            RentalAgreementDTO rentalAgreement = rentalService.processRentalAgreement(rental, toolCode, checkoutDate, transactionId, username);
+            RentalAgreementDTO rentalAgreement;
+            if (idempotencyKey == null) {
+                rentalAgreement = checkout(request, transactionId, username, rentalId -> { });
+            } else {
+                // Duplicates of a key return the first agreement without a new rental or audit entry
+                rentalAgreement = idempotencyService.execute(idempotencyKey, username,
+                        IdempotencyService.fingerprint(request), committed -> checkout(request, transactionId, username, committed),
+                        rentalAgreementViewService::find);
+            }
 
+            outcome = rentalAgreement.isProvisional() ? "provisional" : "success";
             // Return the rental agreement with a 200 OK status
             return new RentalResponse<>(
                     HttpStatus.OK.value(),
-                    "Rental checkout successful",
+                    rentalAgreement.isProvisional() ? PROVISIONAL_CHECKOUT_MESSAGE : "Rental checkout successful",
                     rentalAgreement
             );
         } catch (ResourceNotFoundException ex) {
+            outcome = "not_found";
             logger.error("Error during tool checkout: {}", ex.getMessage());
             // Log the error in the audit service
             auditService.logAudit(transactionId, username, false, ex.getMessage() );
@@ -86,14 +139,200 @@ public class RentalController implements IRentalController {
                     ex.getMessage(),
                     null  // No data for failure case
             );
+        } catch (CatalogUnavailableException ex) {
+            // The database is down, so the failure cannot be audited there either
+            outcome = "catalog_unavailable";
+            logger.error("Tool checkout unavailable: {}", ex.getMessage());
+            return new RentalResponse<>(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(), null);
+        } catch (IdempotencyKeyConflictException ex) {
+            outcome = "idempotency_conflict";
+            logger.warn("Duplicate checkout rejected: {}", ex.getMessage());
+            return new RentalResponse<>(HttpStatus.CONFLICT.value(), ex.getMessage(), null);
+        } catch (IdempotencyKeyMismatchException ex) {
+            outcome = "idempotency_mismatch";
+            logger.warn("Duplicate checkout rejected: {}", ex.getMessage());
+            return new RentalResponse<>(HttpStatus.UNPROCESSABLE_ENTITY.value(), ex.getMessage(), null);
+        } catch (ToolUnavailableException ex) {
+            outcome = "unavailable";
+            logger.warn("Tool checkout rejected: {}", ex.getMessage());
+            auditService.logAudit(transactionId, username, false, ex.getMessage());
+            return new RentalResponse<>(
+                    HttpStatus.CONFLICT.value(),
+                    ex.getMessage(),
+                    null  // No data for failure case
+            );
         } catch (Exception e) {
             logger.error("Error during tool checkout", e);
             auditService.logAudit(transactionId, username, false, "Transaction failed: " + e.getMessage());
             return new RentalResponse<>(HttpStatus.BAD_REQUEST.value(), "Transaction failed: " + e.getMessage(), null);
+        } finally {
+            checkoutMetrics.stop(sample, outcome);
+        }
+        }
+
+    private RentalAgreementDTO checkout(RentalRequest request, String transactionId, String username, LongConsumer committed) {
+        // Extract values from the request object
+        String toolCode = request.getToolCode();
+        LocalDate checkoutDate = request.getCheckoutDate();
+
+        // Create the rental object (assuming this exists in your service logic)
+        Rental rental = rentalService.createRental(toolCode, request.getRentalDays(), request.getDiscountPercent(), checkoutDate);
+        logger.debug("Rental {} created for tool {}", rental.getRental_id(), toolCode);
+        // From here on the rental exists; a provisional one is only journaled and has no id yet
+        if (!rental.isProvisional()) {
+            committed.accept(rental.getRental_id());
+        }
+        // Process and retrieve the rental agreement
+        return rentalService.processRentalAgreement(rental, toolCode, checkoutDate, transactionId, username);
+    }
+
+    /**
+     * Check out many tools from one newline-delimited JSON upload, one RentalRequest per line.
+     * Each line is answered with its own RentalResponse line, in input order, as soon as the
+     * batch it belongs to is committed; see {@link BulkCheckoutService}. The HTTP status is 200
+     * once streaming starts, so the outcome of each line is in its status field.
+     *
+     * @param request - the request, whose body is read line by line
+     * @param response - the response the result lines are streamed to
+     */
+    @PostMapping(value = "/checkout/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Bulk Check Out Rental Tools",
+            description = "Checks out one rental per NDJSON line and streams back one result per line, in order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One RentalResponse line per request line",
+                    content = @Content(mediaType = "application/x-ndjson")),
+            @ApiResponse(responseCode = "503", description = "Too many bulk checkouts are running, retry later",
+                    content = @Content)
+    })
+    public void bulkCheckout(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String username = SecurityUtils.getCurrentUsername();
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        if (!bulkCheckoutService.checkout(request.getInputStream(), response.getOutputStream(), username)) {
+            logger.warn("Bulk checkout by {} rejected, too many bulk checkouts running", username);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "60");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), new RentalResponse<>(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                    "Too many bulk checkouts are running, retry later", (Object) null));
+        }
+    }
+
+    /**
+     * Get the agreement of a checked-out rental, as returned at checkout. Served from a cache of
+     * recent agreements or one primary key read of the denormalized agreement view, without
+     * loading the rental's tool and charges.
+     *
+     * @param id - the id of the rental
+     * @return RentalAgreementDTO of the rental
+     */
+    @GetMapping("/{id}")
+    @Operation(summary = "Get Rental", description = "Returns the rental agreement of a past checkout")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rental agreement",
+                    content = {
+                            @Content(mediaType = "application/json", schema = @Schema(implementation = RentalAgreementDTO.class)),
+                            @Content(mediaType = "application/cbor", schema = @Schema(implementation = RentalAgreementDTO.class)),
+                            @Content(mediaType = "application/x-jackson-smile", schema = @Schema(implementation = RentalAgreementDTO.class))
+                    }),
+            @ApiResponse(responseCode = "404", description = "Rental not found", content = @Content)
+    })
+    public RentalResponse<RentalAgreementDTO> getRental(@PathVariable Long id) {
+        try {
+            return new RentalResponse<>(HttpStatus.OK.value(), "Rental agreement", rentalAgreementViewService.find(id));
+        } catch (ResourceNotFoundException ex) {
+            return new RentalResponse<>(HttpStatus.NOT_FOUND.value(), ex.getMessage(), (RentalAgreementDTO) null);
         }
+    }
+
+    /**
+     * Render the agreement of a checked-out rental. Agreements are rendered on first request and
+     * cached, so checkouts never format or print them.
+     *
+     * @param id - the id of the rental
+     * @param format - text (default) or html for a printable page
+     * @return the rendered rental agreement
+     */
+    @GetMapping("/{id}/agreement")
+    @Operation(summary = "Rental Agreement", description = "Returns the rental agreement as plain text or printable HTML")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rendered agreement"),
+            @ApiResponse(responseCode = "400", description = "Unknown format", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Rental not found", content = @Content)
+    })
+    public ResponseEntity<String> getAgreement(@PathVariable Long id,
+                                               @RequestParam(defaultValue = "text") String format) {
+        AgreementRenderService.Format agreementFormat = AgreementRenderService.Format.of(format);
+        try {
+            return ResponseEntity.ok()
+                    .contentType(agreementFormat == AgreementRenderService.Format.HTML ? MediaType.TEXT_HTML : MediaType.TEXT_PLAIN)
+                    .body(agreementRenderService.render(id, agreementFormat));
+        } catch (ResourceNotFoundException ex) {
+            // Answered as text, since clients of this endpoint may only accept text
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.TEXT_PLAIN).body(ex.getMessage());
         }
     }
 
+    /**
+     * Return a rented tool. Late fees stop accruing on the return date; days after the due date up
+     * to it are charged by the nightly late fee job.
+     *
+     * @param id - the id of the rental
+     * @return the rental's due and return dates
+     */
+    @PostMapping("/{id}/return")
+    @Operation(summary = "Return Rental Tool", description = "Records the return of a rented tool")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Return recorded"),
+            @ApiResponse(responseCode = "404", description = "Rental not found", content = @Content)
+    })
+    public RentalResponse<RentalReturnDTO> returnTool(@PathVariable Long id) {
+        try {
+            Rental rental = rentalService.returnRental(id);
+            long overdueDays = Math.max(0, ChronoUnit.DAYS.between(rental.getDueDate(), rental.getReturnedDate()));
+            return new RentalResponse<>(HttpStatus.OK.value(), "Rental return recorded",
+                    new RentalReturnDTO(rental.getRental_id(), rental.getDueDate(), rental.getReturnedDate(), overdueDays));
+        } catch (ResourceNotFoundException ex) {
+            return new RentalResponse<>(HttpStatus.NOT_FOUND.value(), ex.getMessage(), (RentalReturnDTO) null);
+        }
+    }
+
+    /**
+     * Price a tool rental without checking it out. Nothing is persisted and no audit entry is written.
+     *
+     * @param request - RentalRequest containing the tool code, rental days, discount percent, and checkout date.
+     * @return RentalAgreementDTO the checkout would produce for the same request
+     */
+    @PostMapping("/quote")
+    @Operation(summary = "Quote Rental Tool", description = "Returns the rental agreement a checkout would produce, without persisting it")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Quote successful",
+                    content = {
+                            @Content(mediaType = "application/json", schema = @Schema(implementation = RentalAgreementDTO.class)),
+                            @Content(mediaType = "application/cbor", schema = @Schema(implementation = RentalAgreementDTO.class)),
+                            @Content(mediaType = "application/x-jackson-smile", schema = @Schema(implementation = RentalAgreementDTO.class))
+                    }),
+            @ApiResponse(responseCode = "400", description = "Bad Input",
+                    content = @Content)
+    })
+    public RentalResponse<RentalAgreementDTO> quoteTool(@Valid @RequestBody RentalRequest request) {
+        try {
+            RentalAgreementDTO rentalAgreement = rentalService.quoteRental(request.getToolCode(), request.getRentalDays(),
+                    request.getDiscountPercent(), request.getCheckoutDate());
+            return new RentalResponse<>(HttpStatus.OK.value(),
+                    rentalAgreement.isProvisional() ? PROVISIONAL_QUOTE_MESSAGE : "Rental quote successful", rentalAgreement);
+        } catch (CatalogUnavailableException ex) {
+            logger.error("Tool quote unavailable: {}", ex.getMessage());
+            return new RentalResponse<>(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(), null);
+        } catch (ResourceNotFoundException ex) {
+            logger.error("Error during tool quote: {}", ex.getMessage());
+            return new RentalResponse<>(HttpStatus.NOT_FOUND.value(), ex.getMessage(), null);
+        } catch (Exception e) {
+            logger.error("Error during tool quote", e);
+            return new RentalResponse<>(HttpStatus.BAD_REQUEST.value(), "Quote failed: " + e.getMessage(), null);
+        }
+    }
+    }
+
 
 
 
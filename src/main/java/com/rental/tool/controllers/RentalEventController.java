@@ -0,0 +1,79 @@
+package com.rental.tool.controllers;
+
+import com.rental.tool.dto.RentalEventsDTO;
+import com.rental.tool.dto.response.RentalResponse;
+import com.rental.tool.events.RentalCreatedEvent;
+import com.rental.tool.events.RentalEventDispatcher;
+import com.rental.tool.events.RentalEventLog;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/events")
+@Tag(name = "Rental Events", description = "The local log of created rentals, for consumers and mirroring")
+public class RentalEventController {
+
+    // Most events one read returns
+    static final int MAX_READ_LIMIT = 1000;
+
+    @Autowired
+    private RentalEventLog rentalEventLog;
+
+    @Autowired
+    private RentalEventDispatcher rentalEventDispatcher;
+
+    /**
+     * Reads events from any offset still kept, so an external reader can follow or replay the log.
+     *
+     * @param from  - offset of the first event; older offsets read from the oldest event kept
+     * @param limit - most events returned, 1 to {@value #MAX_READ_LIMIT}
+     * @return the events and the offset to read on from
+     */
+    @GetMapping
+    @Operation(summary = "Read rental events", description = "Returns the RentalCreated events from an offset on")
+    public RentalResponse<RentalEventsDTO> read(@RequestParam(defaultValue = "0") long from,
+                                                @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_READ_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_READ_LIMIT);
+        }
+        long start = rentalEventLog.getStartOffset();
+        List<RentalCreatedEvent> events = rentalEventLog.read(from, limit);
+        long next = events.isEmpty() ? Math.max(from, start) : events.get(events.size() - 1).getOffset() + 1;
+        return new RentalResponse<>(HttpStatus.OK.value(), "Rental events",
+                new RentalEventsDTO(events, next, start, rentalEventLog.getEndOffset()));
+    }
+
+    /**
+     * @return the offset of the next event for each in-process consumer
+     */
+    @GetMapping("/consumers")
+    @Operation(summary = "Consumer offsets", description = "Returns the offset of the next event for each in-process consumer")
+    public RentalResponse<Map<String, Long>> getConsumerOffsets() {
+        return new RentalResponse<>(HttpStatus.OK.value(), "Rental event consumer offsets", rentalEventDispatcher.getOffsets());
+    }
+
+    /**
+     * Moves an in-process consumer to an offset, to replay the events from there.
+     *
+     * @param name   - the consumer name
+     * @param offset - offset of the next event to deliver to it
+     * @return the offset of the next event for each consumer
+     */
+    @PutMapping("/consumers/{name}/offset")
+    @Operation(summary = "Replay to a consumer", description = "Moves a consumer to an offset; events from there on are delivered again")
+    public RentalResponse<Map<String, Long>> seek(@PathVariable String name, @RequestParam long offset) {
+        rentalEventDispatcher.seek(name, offset);
+        return new RentalResponse<>(HttpStatus.OK.value(), "Rental event consumer moved", rentalEventDispatcher.getOffsets());
+    }
+}
@@ -0,0 +1,186 @@
+package com.rental.tool.controllers;
+
+import com.rental.tool.config.codec.WireFormatConfig;
+import com.rental.tool.dto.ToolCatalogDTO;
+import com.rental.tool.dto.ToolSearchDTO;
+import com.rental.tool.dto.response.RentalResponse;
+import com.rental.tool.exception.CatalogUnavailableException;
+import com.rental.tool.services.ToolCatalogService;
+import com.rental.tool.services.ToolSearchIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/tools")
+@Tag(name = "Tool Catalog", description = "Tools and their charges, for clients to cache and sync")
+public class ToolCatalogController {
+
+    // Formats the catalog is served in; JSON bodies are pre-encoded, the others go through the converters
+    private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+            WireFormatConfig.APPLICATION_SMILE);
+    // Most tools one search returns; the total and the counts per type and brand cover all matches
+    static final int MAX_SEARCH_LIMIT = 500;
+
+    @Autowired
+    private ToolCatalogService toolCatalogService;
+
+    /**
+     * Returns the tool catalog with its charges, or with {@code since} only the tools changed and
+     * removed after that version. The ETag is the catalog version, so a client revalidating with
+     * If-None-Match gets 304 Not Modified until the catalog changes. JSON bodies are encoded once
+     * per version and sent gzipped when the client accepts it.
+     *
+     * @param since          - catalog version the client already has
+     * @param accept         - the Accept header; JSON unless CBOR or Smile is preferred
+     * @param acceptEncoding - the Accept-Encoding header
+     * @return the catalog or the changes since the given version
+     */
+    @GetMapping
+    @Operation(summary = "Tool catalog", description = "Returns the tools and their charges, or only the changes since a catalog version")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catalog, or changes since the given version"),
+            @ApiResponse(responseCode = "304", description = "Catalog unchanged since the version in If-None-Match"),
+            @ApiResponse(responseCode = "503", description = "Catalog not loaded yet")
+    })
+    public ResponseEntity<?> getCatalog(
+            @Parameter(description = "Catalog version from a previous response; only later changes are returned")
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ToolCatalogService.Catalog catalog = toolCatalogService.getCatalog();
+        if (catalog == null) {
+            throw new CatalogUnavailableException("Tool catalog has not been loaded yet", null);
+        }
+        String version = Long.toString(catalog.getVersion());
+        // Spring answers 304 itself when If-None-Match holds this response's ETag
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+
+        MediaType format = preferredFormat(accept);
+        if (!format.equals(MediaType.APPLICATION_JSON)) {
+            ToolCatalogDTO dto = catalog.describe(since);
+            return response.eTag(version + '-' + format.getSubtype())
+                    .contentType(format)
+                    .body(ToolCatalogService.wrap(dto));
+        }
+        ToolCatalogService.Body body = catalog.body(since);
+        response.contentType(MediaType.APPLICATION_JSON);
+        if (body.getGzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.eTag(version + "-gzip")
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(body.getGzip());
+        }
+        return response.eTag(version).body(body.getIdentity());
+    }
+
+    // The first of the served formats the client accepts, by specificity and quality; JSON by default
+    static MediaType preferredFormat(String accept) {
+        if (!StringUtils.hasText(accept)) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType acceptedType : accepted) {
+            for (MediaType format : FORMATS) {
+                if (acceptedType.getQualityValue() > 0 && acceptedType.includes(format)) {
+                    return format;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Searches the current catalog by tool type, brand and charge rules. Type and brand match
+     * word by word on prefixes, ignoring case, so {@code type=jack} finds jackhammers. Served from
+     * an in-memory index of the catalog, rebuilt only when the catalog changes.
+     *
+     * @param type           - words the tool type starts with
+     * @param brand          - words the brand starts with
+     * @param weekdayCharge  - whether the tool is charged on weekdays
+     * @param weekendCharge  - whether the tool is charged on weekends
+     * @param holidayCharge  - whether the tool is charged on holidays
+     * @param minDailyCharge - lowest daily charge, inclusive
+     * @param maxDailyCharge - highest daily charge, inclusive
+     * @param limit          - most tools returned, 1 to {@value #MAX_SEARCH_LIMIT}
+     * @return the matching tools in tool code order, their number, and their counts per type and brand
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search tools", description = "Finds tools by type and brand prefix and by charge rules, with counts per type and brand")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching tools"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit or charge range"),
+            @ApiResponse(responseCode = "503", description = "Catalog not loaded yet")
+    })
+    public RentalResponse<ToolSearchDTO> search(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Boolean weekdayCharge,
+            @RequestParam(required = false) Boolean weekendCharge,
+            @RequestParam(required = false) Boolean holidayCharge,
+            @RequestParam(required = false) BigDecimal minDailyCharge,
+            @RequestParam(required = false) BigDecimal maxDailyCharge,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        if (minDailyCharge != null && maxDailyCharge != null && minDailyCharge.compareTo(maxDailyCharge) > 0) {
+            throw new IllegalArgumentException("Minimum daily charge must not be above the maximum");
+        }
+        ToolCatalogService.Catalog catalog = toolCatalogService.getCatalog();
+        if (catalog == null) {
+            throw new CatalogUnavailableException("Tool catalog has not been loaded yet", null);
+        }
+        ToolSearchIndex.Query query = new ToolSearchIndex.Query();
+        query.setType(type);
+        query.setBrand(brand);
+        query.setWeekdayCharge(weekdayCharge);
+        query.setWeekendCharge(weekendCharge);
+        query.setHolidayCharge(holidayCharge);
+        query.setMinDailyCharge(minDailyCharge);
+        query.setMaxDailyCharge(maxDailyCharge);
+        query.setLimit(limit);
+        return new RentalResponse<>(HttpStatus.OK.value(), "Tool search", catalog.search(query));
+    }
+
+    // gzip is acceptable when listed, or covered by *, without q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean refused = parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            if (name.equals("gzip")) {
+                return !refused;
+            }
+            if (name.equals("*")) {
+                wildcard = !refused;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+}
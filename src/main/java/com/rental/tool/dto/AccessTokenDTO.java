@@ -0,0 +1,27 @@
+package com.rental.tool.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Token response of {@code POST /api/auth/token}, with the field names of an OAuth 2.0 token response.
+ */
+@Data
+public class AccessTokenDTO {
+
+    @JsonProperty("access_token")
+    private String accessToken;
+    @JsonProperty("token_type")
+    private String tokenType;
+    // Seconds until the token expires
+    @JsonProperty("expires_in")
+    private long expiresIn;
+
+    public AccessTokenDTO() {}
+
+    public AccessTokenDTO(String accessToken, String tokenType, long expiresIn) {
+        this.accessToken = accessToken;
+        this.tokenType = tokenType;
+        this.expiresIn = expiresIn;
+    }
+}
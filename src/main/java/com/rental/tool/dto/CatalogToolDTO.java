@@ -0,0 +1,20 @@
+package com.rental.tool.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class CatalogToolDTO {
+
+    private String toolCode;
+    private String toolType;
+    private String brand;
+    // Charge rules; null when the tool has no charge configured
+    private BigDecimal dailyRentalCharge;
+    private Boolean weekdayCharge;
+    private Boolean weekendCharge;
+    private Boolean holidayCharge;
+    // Catalog version in which this tool last changed
+    private long version;
+}
@@ -1,8 +1,6 @@
 package com.rental.tool.dto;
 
 import lombok.Data;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -11,7 +9,8 @@ import java.util.Locale;
 
 @Data
 public class RentalAgreementDTO {
-    private static final Logger logger = LoggerFactory.getLogger(RentalAgreementDTO.class);
+    // DateTimeFormatter is immutable and thread-safe, so one instance serves every agreement
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yy");
 
     private String toolCode;
     private String toolType;
@@ -29,6 +28,10 @@ public class RentalAgreementDTO {
     private BigDecimal discountAmount;
     private BigDecimal finalCharge;
 
+    // True when priced from the last catalog snapshot during a database outage; the rental is
+    // journaled locally and recorded once the database is reachable again
+    private boolean provisional;
+
     private String errorMessage;
 
     // Default constructor
@@ -72,26 +75,31 @@ public class RentalAgreementDTO {
      *
      */
     public void printAgreement() {
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yy");
-        logger.info("Values before formatting for Checkout date: {}, Daily rental charge:: {}," +
-                " Pre-discount charge: {} ,Discount amount: {}, Final charge: {}", checkoutDate, dailyRentalCharge,
-                preDiscountCharge,discountAmount,finalCharge);
+        // One write, so concurrent checkouts do not interleave lines or queue on the stdout lock per line
+        System.out.println(toText());
+    }
 
-        System.out.println("Tool code: " + toolCode);
-        System.out.println("Tool type: " + toolType);
-        System.out.println("Brand: " + toolBrand);
-        System.out.println("Rental days: " + rentalDays);
-        System.out.println("Checkout date: " + checkoutDate.format(dateFormatter));
-        System.out.println("Due date: " + dueDate.format(dateFormatter));
-        System.out.println("Daily rental charge: " + formatCurrency(dailyRentalCharge));
-        System.out.println("Weekday charge applicable: " + weekdayCharge);
-        System.out.println("Weekend charge applicable: " + weekendCharge);
-        System.out.println("Holiday charge applicable: " + holidayCharge);
-        System.out.println("Charge days: " + chargeDays);
-        System.out.println("Pre-discount charge: " + formatCurrency(preDiscountCharge));
-        System.out.println("Discount percent: " + formatPercent(discountPercent));
-        System.out.println("Discount amount: " + formatCurrency(discountAmount));
-        System.out.println("Final charge: " + formatCurrency(finalCharge));
+    /**
+     * Renders the agreement as the lines printed by {@link #printAgreement()}, without printing it.
+     *
+     * @return the agreement text, one field per line
+     */
+    public String toText() {
+        return "Tool code: " + toolCode + '\n'
+                + "Tool type: " + toolType + '\n'
+                + "Brand: " + toolBrand + '\n'
+                + "Rental days: " + rentalDays + '\n'
+                + "Checkout date: " + checkoutDate.format(DATE_FORMATTER) + '\n'
+                + "Due date: " + dueDate.format(DATE_FORMATTER) + '\n'
+                + "Daily rental charge: " + formatCurrency(dailyRentalCharge) + '\n'
+                + "Weekday charge applicable: " + weekdayCharge + '\n'
+                + "Weekend charge applicable: " + weekendCharge + '\n'
+                + "Holiday charge applicable: " + holidayCharge + '\n'
+                + "Charge days: " + chargeDays + '\n'
+                + "Pre-discount charge: " + formatCurrency(preDiscountCharge) + '\n'
+                + "Discount percent: " + formatPercent(discountPercent) + '\n'
+                + "Discount amount: " + formatCurrency(discountAmount) + '\n'
+                + "Final charge: " + formatCurrency(finalCharge);
     }
 
     /**
@@ -100,7 +108,7 @@ public class RentalAgreementDTO {
      * @param value The BigDecimal value to format
      * @return A formatted string representing the currency
      */
-    private String formatCurrency(BigDecimal value) {
+    private static String formatCurrency(BigDecimal value) {
         if (value == null) {
             return "$0.00"; // Fallback if the value is null
         }
@@ -113,7 +121,7 @@ public class RentalAgreementDTO {
      * @param value The BigDecimal value to format
      * @return A formatted string representing the percentage
      */
-    private String formatPercent(BigDecimal value) {
+    private static String formatPercent(BigDecimal value) {
         return String.format(Locale.US, "%.0f%%", value);
     }
     // Print the agreement as text
@@ -123,8 +131,8 @@ public class RentalAgreementDTO {
             return "Error: " + errorMessage;
         }
         return String.format("Tool code: %s\nTool type: %s\nBrand: %s\nRental days: %d\nCheckout date: %s\nDue date: %s\nDaily rental charge: $%,.2f\nWeekday charge applicable: %s\nWeekend charge applicable: %s\nHoliday charge applicable: %s\nCharge days: %d\nPre-discount charge: $%,.2f\nDiscount percent: %.0f%%\nDiscount amount: $%,.2f\nFinal charge: $%,.2f",
-                toolCode, toolType, toolBrand, rentalDays, checkoutDate.format(DateTimeFormatter.ofPattern("MM/dd/yy")),
-                dueDate.format(DateTimeFormatter.ofPattern("MM/dd/yy")), dailyRentalCharge, weekdayCharge, weekendCharge,
+                toolCode, toolType, toolBrand, rentalDays, checkoutDate.format(DATE_FORMATTER),
+                dueDate.format(DATE_FORMATTER), dailyRentalCharge, weekdayCharge, weekendCharge,
                 holidayCharge, chargeDays, preDiscountCharge, discountPercent, discountAmount, finalCharge);
     }
 }
@@ -0,0 +1,26 @@
+package com.rental.tool.dto;
+
+import com.rental.tool.events.RentalCreatedEvent;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class RentalEventsDTO {
+
+    private List<RentalCreatedEvent> events;
+    // Pass as ?from= to read on after these events
+    private long nextOffset;
+    // Oldest offset still kept, and the offset the next event will get
+    private long startOffset;
+    private long endOffset;
+
+    public RentalEventsDTO() {}
+
+    public RentalEventsDTO(List<RentalCreatedEvent> events, long nextOffset, long startOffset, long endOffset) {
+        this.events = events;
+        this.nextOffset = nextOffset;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+}
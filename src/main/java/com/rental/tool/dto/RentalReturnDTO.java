@@ -0,0 +1,24 @@
+package com.rental.tool.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class RentalReturnDTO {
+
+    private Long rentalId;
+    private LocalDate dueDate;
+    private LocalDate returnedDate;
+    // Calendar days between the due date and the return; their chargeable days are billed as late fees
+    private long overdueDays;
+
+    public RentalReturnDTO() {}
+
+    public RentalReturnDTO(Long rentalId, LocalDate dueDate, LocalDate returnedDate, long overdueDays) {
+        this.rentalId = rentalId;
+        this.dueDate = dueDate;
+        this.returnedDate = returnedDate;
+        this.overdueDays = overdueDays;
+    }
+}
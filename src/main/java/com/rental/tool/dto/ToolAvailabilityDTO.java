@@ -0,0 +1,34 @@
+package com.rental.tool.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class ToolAvailabilityDTO {
+
+    private String toolCode;
+    private LocalDate from;
+    private LocalDate to;
+    // Units owned; null when the tool is not stock-tracked
+    private Integer onHand;
+    // Most units booked on any single day of the range
+    private int peakBooked;
+    // Units free for the whole range; null when the tool is not stock-tracked
+    private Integer available;
+
+    public ToolAvailabilityDTO() {}
+
+    public ToolAvailabilityDTO(String toolCode, LocalDate from, LocalDate to, Integer onHand, int peakBooked) {
+        this.toolCode = toolCode;
+        this.from = from;
+        this.to = to;
+        this.onHand = onHand;
+        this.peakBooked = peakBooked;
+        this.available = onHand == null ? null : Math.max(0, onHand - peakBooked);
+    }
+
+    public boolean isFree() {
+        return available == null || available > 0;
+    }
+}
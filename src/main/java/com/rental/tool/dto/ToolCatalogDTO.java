@@ -0,0 +1,26 @@
+package com.rental.tool.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ToolCatalogDTO {
+
+    // Version of the catalog this response describes; pass it back as ?since= to get only later changes
+    private long version;
+    // True when tools holds the whole catalog and replaces the client's copy; false for a delta to merge
+    private boolean full;
+    private List<CatalogToolDTO> tools;
+    // Codes of tools removed since the requested version; always empty in a full catalog
+    private List<String> removed;
+
+    public ToolCatalogDTO() {}
+
+    public ToolCatalogDTO(long version, boolean full, List<CatalogToolDTO> tools, List<String> removed) {
+        this.version = version;
+        this.full = full;
+        this.tools = tools;
+        this.removed = removed;
+    }
+}
@@ -0,0 +1,29 @@
+package com.rental.tool.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class ToolSearchDTO {
+
+    // Catalog version searched
+    private long version;
+    // Number of matching tools; tools holds at most the requested limit of them
+    private int total;
+    private List<CatalogToolDTO> tools;
+    // Matching tools per tool type and per brand, including those beyond the limit
+    private Map<String, Integer> types;
+    private Map<String, Integer> brands;
+
+    public ToolSearchDTO() {}
+
+    public ToolSearchDTO(long version, int total, List<CatalogToolDTO> tools, Map<String, Integer> types, Map<String, Integer> brands) {
+        this.version = version;
+        this.total = total;
+        this.tools = tools;
+        this.types = types;
+        this.brands = brands;
+    }
+}
@@ -30,5 +30,8 @@ public class Audit {
     @Column(name = "message")
     private String message;
 
+    @Column(name = "store_id", nullable = false, length = 32)
+    private String storeId;
+
 }
 
@@ -0,0 +1,41 @@
+package com.rental.tool.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "idempotency_key")
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    // Store the checkout was made for; keys of different stores do not collide
+    @Column(name = "store_id", nullable = false, length = 32)
+    private String storeId;
+
+    // Canonical form of the checkout request the key was first used with
+    @Column(name = "request_fingerprint", nullable = false)
+    private String requestFingerprint;
+
+    // Serialized RentalAgreementDTO; null while the first checkout is still running
+    @Column(name = "response")
+    private String response;
+
+    // Rental of a checkout that failed after committing it; retries complete the key from it
+    @Column(name = "rental_id")
+    private Long rentalId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
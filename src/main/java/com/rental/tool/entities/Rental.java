@@ -3,6 +3,8 @@ package com.rental.tool.entities;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -18,6 +20,8 @@ public class Rental {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tool_code", nullable = false)
+    @ToString.Exclude // Logging a rental must not load its tool
+    @EqualsAndHashCode.Exclude
     private Tool tool;
 
     @Column(name = "rental_days", nullable = false)
@@ -33,6 +37,10 @@ public class Rental {
     @DecimalMax(value = "100.0", inclusive = true, message = "Discount percent cannot exceed 100")
     private BigDecimal discountPercent;
 
+    // Daily charge the rental was priced at: the tool's, times the demand multiplier at checkout
+    @Column(name = "daily_charge", precision = 10, scale = 2)
+    private BigDecimal dailyCharge;
+
     @Column(name = "pre_discount_charge",precision = 10, scale = 2)
     @DecimalMin(value = "0.0", inclusive = true, message = "Pre-discount charge cannot be negative")
     private BigDecimal preDiscountCharge;
@@ -47,5 +55,35 @@ public class Rental {
 
     @Column(name = "due_date")
     private LocalDate dueDate;
+
+    // Set when the tool is brought back; until then days after the due date are charged as late fees
+    @Column(name = "returned_date")
+    private LocalDate returnedDate;
+
+    // Store the rental was made for; its rentals live on the shard the store is routed to
+    @Column(name = "store_id", nullable = false, length = 32)
+    private String storeId;
+
+    // Rental journal entry this rental was replayed from, if it was accepted during a database outage
+    @Column(name = "journal_id", unique = true)
+    private String journalId;
+
+    // Priced from the catalog snapshot and not yet persisted
+    @Transient
+    private boolean provisional;
+
+    // Days charged under the tool's weekday/weekend/holiday rules at checkout; null for rentals from before it was recorded
+    @Column(name = "charge_days")
+    private Integer chargeDays;
+
+    // The tool's charge rules at checkout; null for rentals from before they were recorded
+    @Column(name = "weekday_charge")
+    private Boolean weekdayCharge;
+
+    @Column(name = "weekend_charge")
+    private Boolean weekendCharge;
+
+    @Column(name = "holiday_charge")
+    private Boolean holidayCharge;
 }
 
@@ -0,0 +1,122 @@
+package com.rental.tool.entities;
+
+import com.rental.tool.dto.RentalAgreementDTO;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The agreement of one rental, denormalized from rental, tool and tool_charge so it is read by
+ * primary key alone. Written once after checkout and never updated.
+ */
+@Data
+@Entity
+@Table(name = "rental_agreement_view")
+public class RentalAgreementView {
+
+    // The rental's id, on the same shard as the rental
+    @Id
+    @Column(name = "rental_id")
+    private Long rentalId;
+
+    @Column(name = "store_id", nullable = false)
+    private String storeId;
+
+    @Column(name = "tool_code", nullable = false)
+    private String toolCode;
+
+    @Column(name = "tool_type")
+    private String toolType;
+
+    @Column(name = "tool_brand")
+    private String toolBrand;
+
+    @Column(name = "rental_days", nullable = false)
+    private int rentalDays;
+
+    @Column(name = "checkout_date", nullable = false)
+    private LocalDate checkoutDate;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    @Column(name = "daily_rental_charge")
+    private BigDecimal dailyRentalCharge;
+
+    @Column(name = "weekday_charge", nullable = false)
+    private boolean weekdayCharge;
+
+    @Column(name = "weekend_charge", nullable = false)
+    private boolean weekendCharge;
+
+    @Column(name = "holiday_charge", nullable = false)
+    private boolean holidayCharge;
+
+    @Column(name = "charge_days", nullable = false)
+    private long chargeDays;
+
+    @Column(name = "pre_discount_charge")
+    private BigDecimal preDiscountCharge;
+
+    @Column(name = "discount_percent")
+    private BigDecimal discountPercent;
+
+    @Column(name = "discount_amount")
+    private BigDecimal discountAmount;
+
+    @Column(name = "final_charge")
+    private BigDecimal finalCharge;
+
+    /**
+     * @param rentalId  the id of the persisted rental
+     * @param storeId   the store the rental was made for
+     * @param agreement the agreement returned at checkout
+     * @return the row holding the agreement
+     */
+    public static RentalAgreementView of(Long rentalId, String storeId, RentalAgreementDTO agreement) {
+        RentalAgreementView view = new RentalAgreementView();
+        view.setRentalId(rentalId);
+        view.setStoreId(storeId);
+        view.setToolCode(agreement.getToolCode());
+        view.setToolType(agreement.getToolType());
+        view.setToolBrand(agreement.getToolBrand());
+        view.setRentalDays(agreement.getRentalDays());
+        view.setCheckoutDate(agreement.getCheckoutDate());
+        view.setDueDate(agreement.getDueDate());
+        view.setDailyRentalCharge(agreement.getDailyRentalCharge());
+        view.setWeekdayCharge(agreement.isWeekdayCharge());
+        view.setWeekendCharge(agreement.isWeekendCharge());
+        view.setHolidayCharge(agreement.isHolidayCharge());
+        view.setChargeDays(agreement.getChargeDays());
+        view.setPreDiscountCharge(agreement.getPreDiscountCharge());
+        view.setDiscountPercent(agreement.getDiscountPercent());
+        view.setDiscountAmount(agreement.getDiscountAmount());
+        view.setFinalCharge(agreement.getFinalCharge());
+        return view;
+    }
+
+    /**
+     * @return the agreement as returned at checkout
+     */
+    public RentalAgreementDTO toAgreement() {
+        RentalAgreementDTO agreement = new RentalAgreementDTO();
+        agreement.setToolCode(toolCode);
+        agreement.setToolType(toolType);
+        agreement.setToolBrand(toolBrand);
+        agreement.setRentalDays(rentalDays);
+        agreement.setCheckoutDate(checkoutDate);
+        agreement.setDueDate(dueDate);
+        agreement.setDailyRentalCharge(dailyRentalCharge);
+        agreement.setWeekdayCharge(weekdayCharge);
+        agreement.setWeekendCharge(weekendCharge);
+        agreement.setHolidayCharge(holidayCharge);
+        agreement.setChargeDays(chargeDays);
+        agreement.setPreDiscountCharge(preDiscountCharge);
+        agreement.setDiscountPercent(discountPercent);
+        agreement.setDiscountAmount(discountAmount);
+        agreement.setFinalCharge(finalCharge);
+        return agreement;
+    }
+}
@@ -0,0 +1,29 @@
+package com.rental.tool.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "rental_event_outbox")
+public class RentalEventOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "store_id", nullable = false, length = 32)
+    private String storeId;
+
+    @Column(name = "rental_id", nullable = false)
+    private Long rentalId;
+
+    // Serialized RentalCreatedEvent, without its offset
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
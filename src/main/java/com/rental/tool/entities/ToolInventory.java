@@ -0,0 +1,27 @@
+package com.rental.tool.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "tool_inventory")
+public class ToolInventory {
+
+    @Id
+    @Column(name = "tool_code", nullable = false)
+    private String toolCode;
+
+    // Units of this tool the store owns
+    @Column(name = "on_hand", nullable = false)
+    private int onHand;
+
+    // Last persisted snapshot of the in-memory availability counter
+    @Column(name = "available", nullable = false)
+    private int available;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,63 @@
+package com.rental.tool.events;
+
+import com.rental.tool.entities.Rental;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A rental recorded in the {@code rental} table, as written to the {@link RentalEventLog}.
+ */
+@Data
+public class RentalCreatedEvent {
+
+    public static final String TYPE = "RentalCreated";
+
+    // Position in the event log, assigned on append
+    private long offset;
+    private String type = TYPE;
+    // Rental IDs are per shard; together with the store they identify the rental
+    private Long rentalId;
+    private String storeId;
+    private String toolCode;
+    private int rentalDays;
+    private LocalDate checkoutDate;
+    private LocalDate dueDate;
+    private BigDecimal dailyCharge;
+    private BigDecimal discountPercent;
+    private BigDecimal preDiscountCharge;
+    private BigDecimal discountAmount;
+    private BigDecimal finalCharge;
+    // Set for a rental accepted during a database outage and recorded from the rental journal
+    private String journalId;
+    private String username;
+    private LocalDateTime createdAt;
+
+    /**
+     * Describes a saved rental.
+     *
+     * @param rental   the rental, with its ID and tool
+     * @param username the user who checked it out
+     * @return the event, not yet appended
+     */
+    public static RentalCreatedEvent of(Rental rental, String username) {
+        RentalCreatedEvent event = new RentalCreatedEvent();
+        event.setRentalId(rental.getRental_id());
+        event.setStoreId(rental.getStoreId());
+        event.setToolCode(rental.getTool().getToolCode());
+        event.setRentalDays(rental.getRentalDays());
+        event.setCheckoutDate(rental.getCheckoutDate());
+        event.setDueDate(rental.getDueDate());
+        event.setDailyCharge(rental.getDailyCharge());
+        event.setDiscountPercent(rental.getDiscountPercent());
+        event.setPreDiscountCharge(rental.getPreDiscountCharge());
+        event.setDiscountAmount(rental.getDiscountAmount());
+        event.setFinalCharge(rental.getFinalCharge());
+        event.setJournalId(rental.getJournalId());
+        event.setUsername(username);
+        event.setCreatedAt(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,27 @@
+package com.rental.tool.events;
+
+import java.util.List;
+
+/**
+ * An in-process reader of the {@link RentalEventLog}, such as billing or notifications. Beans
+ * implementing it are fed by the {@link RentalEventDispatcher}.
+ * <p>
+ * Delivery is at least once: a batch is redelivered until {@link #onEvents} returns without
+ * throwing, and events since the last committed offset are delivered again after a restart. A
+ * consumer that must not act twice deduplicates on the event offset.
+ */
+public interface RentalEventConsumer {
+
+    /**
+     * @return the name its offset is kept under; letters, digits, {@code -} and {@code _}
+     */
+    String getName();
+
+    /**
+     * Handles events in log order. Throwing leaves the offset where it was, so the whole batch is
+     * delivered again on the next poll.
+     *
+     * @param events consecutive events, the first at the consumer's offset
+     */
+    void onEvents(List<RentalCreatedEvent> events);
+}
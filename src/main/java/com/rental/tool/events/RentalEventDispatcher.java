@@ -0,0 +1,134 @@
+package com.rental.tool.events;
+
+import com.rental.tool.exception.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feeds the {@link RentalEventLog} to every {@link RentalEventConsumer} bean, each from its own
+ * offset.
+ * <p>
+ * Each poll flushes the log and hands each consumer the events after its offset in batches. The
+ * offset is committed only after a batch was handled, so a failed batch, or one handled just
+ * before a crash, is delivered again. {@link #seek} moves a consumer to any retained offset to
+ * replay from there. Retention deletes closed segments older than {@code rental.events.retention-hours}
+ * once every consumer is past them.
+ */
+@Component
+public class RentalEventDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(RentalEventDispatcher.class);
+
+    @Autowired
+    private RentalEventLog rentalEventLog;
+
+    @Autowired(required = false)
+    private List<RentalEventConsumer> consumers = List.of();
+
+    @Value("${rental.events.batch-size:500}")
+    private int batchSize;
+
+    @Value("${rental.events.retention-hours:168}")
+    private long retentionHours;
+
+    private final Map<String, RentalEventConsumer> consumersByName = new LinkedHashMap<>();
+    private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+
+    /**
+     * Picks up each consumer's committed offset.
+     */
+    @PostConstruct
+    public void loadOffsets() {
+        for (RentalEventConsumer consumer : consumers) {
+            if (consumersByName.putIfAbsent(consumer.getName(), consumer) != null) {
+                throw new IllegalStateException("Two rental event consumers are named " + consumer.getName());
+            }
+            long offset = rentalEventLog.committedOffset(consumer.getName());
+            offsets.put(consumer.getName(), offset);
+            logger.info("Rental event consumer {} starts at offset {}", consumer.getName(), offset);
+        }
+    }
+
+    /**
+     * Delivers the events appended since the last poll.
+     */
+    @Scheduled(fixedDelayString = "${rental.events.poll-interval-ms:200}")
+    public synchronized void deliver() {
+        rentalEventLog.flush();
+        for (RentalEventConsumer consumer : consumersByName.values()) {
+            deliver(consumer);
+        }
+    }
+
+    private void deliver(RentalEventConsumer consumer) {
+        String name = consumer.getName();
+        while (true) {
+            List<RentalCreatedEvent> events = rentalEventLog.read(offsets.get(name), batchSize);
+            if (events.isEmpty()) {
+                return;
+            }
+            try {
+                consumer.onEvents(events);
+            } catch (RuntimeException ex) {
+                logger.warn("Rental event consumer {} failed on offsets {} to {}, retrying on the next poll: {}",
+                        name, events.get(0).getOffset(), events.get(events.size() - 1).getOffset(), ex.getMessage());
+                return;
+            }
+            long next = events.get(events.size() - 1).getOffset() + 1;
+            rentalEventLog.commitOffset(name, next);
+            offsets.put(name, next);
+            if (events.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves a consumer to an offset; it is delivered the events from there on, again if it had them.
+     *
+     * @param name   the consumer name
+     * @param offset the offset of the next event to deliver
+     * @throws ResourceNotFoundException if there is no such consumer
+     * @throws IllegalArgumentException  if the offset is not in the log
+     */
+    public synchronized void seek(String name, long offset) {
+        if (!consumersByName.containsKey(name)) {
+            throw new ResourceNotFoundException("No rental event consumer named " + name);
+        }
+        long start = rentalEventLog.getStartOffset();
+        long end = rentalEventLog.getEndOffset();
+        if (offset < start || offset > end) {
+            throw new IllegalArgumentException("Offset must be between " + start + " and " + end);
+        }
+        rentalEventLog.commitOffset(name, offset);
+        offsets.put(name, offset);
+        logger.info("Rental event consumer {} moved to offset {}", name, offset);
+    }
+
+    /**
+     * @return the offset of the next event for each consumer
+     */
+    public Map<String, Long> getOffsets() {
+        return Map.copyOf(offsets);
+    }
+
+    /**
+     * Deletes old segments every consumer has handled.
+     */
+    @Scheduled(fixedDelayString = "${rental.events.retention-check-interval-ms:3600000}")
+    public void applyRetention() {
+        long handled = offsets.values().stream().mapToLong(Long::longValue).min().orElse(rentalEventLog.getEndOffset());
+        rentalEventLog.deleteSegmentsBefore(handled, Instant.now().minus(Duration.ofHours(retentionHours)));
+    }
+}
@@ -0,0 +1,405 @@
+package com.rental.tool.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only local log of {@link RentalCreatedEvent}s, kept in a directory of segment files with
+ * no broker involved.
+ * <p>
+ * Every event gets the next offset, counting from 0 for the life of the log. Events are JSON
+ * lines in segment files named after the offset of their first event; a segment is closed once it
+ * reaches {@code rental.events.segment-bytes}, and whole closed segments are deleted by retention.
+ * The byte position of each event is kept in memory, so a read from any offset is one positional
+ * file read. Appends are written straight away but forced to disk by {@link #flush}, in groups, and
+ * readers only see events up to the last flush: an event a consumer saw survives a crash. A line
+ * torn by a crash while it was written is cut off when the log is opened.
+ * <p>
+ * Consumers' offsets are kept next to the segments, one file per consumer, replaced atomically.
+ * The log can be mirrored to a broker by a consumer, or read over {@code GET /api/events}.
+ */
+@Component
+public class RentalEventLog {
+    private static final Logger logger = LoggerFactory.getLogger(RentalEventLog.class);
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final Pattern CONSUMER_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${rental.events.path:data/rental-events}")
+    private String logPath;
+
+    @Value("${rental.events.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object flushLock = new Object();
+    // Held to read from segments, and exclusively to close them
+    private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    private Path directory;
+    private Path consumerDirectory;
+    private Segment active;
+    private long nextOffset;
+    // Events before this offset are on disk and visible to readers
+    private volatile long flushedOffset;
+
+    /**
+     * Opens the segments left by a previous run, or starts the log at offset 0.
+     */
+    @PostConstruct
+    public synchronized void open() {
+        try {
+            directory = Paths.get(logPath);
+            consumerDirectory = directory.resolve("consumers");
+            Files.createDirectories(consumerDirectory);
+            List<Path> files;
+            try (Stream<Path> list = Files.list(directory)) {
+                // Zero-padded base offsets sort in offset order
+                files = list.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+            }
+            for (Path file : files) {
+                Segment segment = Segment.load(file);
+                segments.put(segment.baseOffset, segment);
+            }
+            if (segments.isEmpty()) {
+                active = Segment.create(directory, 0);
+                segments.put(0L, active);
+            } else {
+                active = segments.lastEntry().getValue();
+            }
+            nextOffset = active.endOffset();
+            flushedOffset = nextOffset;
+            logger.info("Rental event log {} opened with offsets {} to {} in {} segments",
+                    directory, getStartOffset(), nextOffset, segments.size());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open rental event log " + logPath, ex);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        synchronized (this) {
+            segmentLock.writeLock().lock();
+            try {
+                for (Segment segment : segments.values()) {
+                    segment.channel.close();
+                }
+            } finally {
+                segmentLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Appends an event, assigning its offset. It becomes readable after the next {@link #flush}.
+     *
+     * @param event the event to append
+     * @return the event's offset
+     * @throws UncheckedIOException if the event cannot be written
+     */
+    public synchronized long append(RentalCreatedEvent event) {
+        event.setOffset(nextOffset);
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(event) + '\n').getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize rental event", ex);
+        }
+        try {
+            if (active.count > 0 && active.size() + line.length > segmentBytes) {
+                roll();
+            }
+            active.append(line);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write rental event log " + directory, ex);
+        }
+        return nextOffset++;
+    }
+
+    // Closes the active segment, forced to disk, and starts the next one at the next offset
+    private void roll() throws IOException {
+        active.channel.force(false);
+        Segment next = Segment.create(directory, nextOffset);
+        segments.put(nextOffset, next);
+        active = next;
+    }
+
+    /**
+     * Forces appended events to disk and makes them readable.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            long upTo;
+            Segment segment;
+            synchronized (this) {
+                upTo = nextOffset;
+                segment = active;
+            }
+            if (upTo == flushedOffset) {
+                return;
+            }
+            try {
+                // Segments closed since the last flush were forced when they were closed
+                segment.channel.force(false);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot flush rental event log " + directory, ex);
+            }
+            flushedOffset = upTo;
+        }
+    }
+
+    /**
+     * Reads consecutive events.
+     *
+     * @param from the offset of the first event; an offset before {@link #getStartOffset} reads from there
+     * @param max  the most events returned
+     * @return the events from the offset on, empty at the end of the log
+     */
+    public List<RentalCreatedEvent> read(long from, int max) {
+        long end = flushedOffset;
+        List<RentalCreatedEvent> events = new ArrayList<>();
+        // Retention cannot close a segment while it is read
+        segmentLock.readLock().lock();
+        try {
+            long offset = Math.max(from, getStartOffset());
+            while (offset < end && events.size() < max) {
+                Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+                if (entry == null) {
+                    break;
+                }
+                Segment segment = entry.getValue();
+                long until = Math.min(Math.min(end, segment.endOffset()), offset + (max - events.size()));
+                try {
+                    for (byte[] line : segment.read(offset, until)) {
+                        events.add(objectMapper.readValue(line, RentalCreatedEvent.class));
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Cannot read rental event log " + directory + " at offset " + offset, ex);
+                }
+                offset = until;
+            }
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+        return events;
+    }
+
+    /**
+     * @return the offset of the oldest event still kept
+     */
+    public long getStartOffset() {
+        return segments.firstKey();
+    }
+
+    /**
+     * @return the offset the next readable event will get
+     */
+    public long getEndOffset() {
+        return flushedOffset;
+    }
+
+    /**
+     * Deletes closed segments holding only events before an offset, last written before a time.
+     *
+     * @param offset     events from this offset on are kept
+     * @param olderThan  segments written to since then are kept
+     * @return the number of segments deleted
+     */
+    public synchronized int deleteSegmentsBefore(long offset, Instant olderThan) {
+        int deleted = 0;
+        for (Segment segment : segments.values()) {
+            if (segment == active || segment.endOffset() > offset) {
+                break;
+            }
+            try {
+                if (Files.getLastModifiedTime(segment.path).toInstant().isAfter(olderThan)) {
+                    break;
+                }
+                segmentLock.writeLock().lock();
+                try {
+                    segments.remove(segment.baseOffset);
+                    segment.channel.close();
+                } finally {
+                    segmentLock.writeLock().unlock();
+                }
+                Files.delete(segment.path);
+                deleted++;
+            } catch (IOException ex) {
+                logger.warn("Cannot delete rental event log segment {}: {}", segment.path, ex.getMessage());
+                break;
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Deleted {} rental event log segments; the log now starts at offset {}", deleted, getStartOffset());
+        }
+        return deleted;
+    }
+
+    /**
+     * @param consumer the consumer name
+     * @return the offset of the next event for the consumer, or the start of the log for a new consumer
+     */
+    public long committedOffset(String consumer) {
+        Path file = consumerFile(consumer);
+        try {
+            return Files.exists(file) ? Long.parseLong(Files.readString(file).trim()) : getStartOffset();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read offset of rental event consumer " + consumer, ex);
+        }
+    }
+
+    /**
+     * Records the offset of the next event for a consumer.
+     *
+     * @param consumer the consumer name
+     * @param offset   the offset after the last event it handled
+     */
+    public void commitOffset(String consumer, long offset) {
+        Path file = consumerFile(consumer);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, Long.toString(offset));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot record offset of rental event consumer " + consumer, ex);
+        }
+    }
+
+    private Path consumerFile(String consumer) {
+        if (!CONSUMER_NAME.matcher(consumer).matches()) {
+            throw new IllegalArgumentException("Invalid rental event consumer name: " + consumer);
+        }
+        return consumerDirectory.resolve(consumer + ".offset");
+    }
+
+    /**
+     * One segment file and the byte positions of its events.
+     */
+    private static final class Segment {
+        private final Path path;
+        private final long baseOffset;
+        private final FileChannel channel;
+        // positions[i] is where event i starts, positions[count] where the next one will
+        private volatile long[] positions = new long[1024];
+        private volatile int count;
+
+        private Segment(Path path, long baseOffset, FileChannel channel) {
+            this.path = path;
+            this.baseOffset = baseOffset;
+            this.channel = channel;
+        }
+
+        private static Segment create(Path directory, long baseOffset) throws IOException {
+            Path path = directory.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+            return new Segment(path, baseOffset, FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+
+        private static Segment load(Path path) throws IOException {
+            String name = path.getFileName().toString();
+            long baseOffset = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = new Segment(path, baseOffset, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            long position = 0;
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                int b;
+                while ((b = in.read()) != -1) {
+                    position++;
+                    if (b == '\n') {
+                        segment.add(position);
+                    }
+                }
+            }
+            long complete = segment.size();
+            if (position > complete) {
+                logger.warn("Cutting {} bytes of a torn event off rental event log segment {}", position - complete, path);
+                segment.channel.truncate(complete);
+                segment.channel.force(false);
+            }
+            return segment;
+        }
+
+        private long endOffset() {
+            return baseOffset + count;
+        }
+
+        private long size() {
+            return positions[count];
+        }
+
+        private void append(byte[] line) throws IOException {
+            long start = size();
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            // Positional, so a write that failed halfway is overwritten by the next one
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, start + buffer.position());
+            }
+            add(start + line.length);
+        }
+
+        // Records the end of the next event; readers see it once count is published
+        private void add(long end) {
+            long[] current = positions;
+            if (count + 1 == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                positions = current;
+            }
+            current[count + 1] = end;
+            count++;
+        }
+
+        private List<byte[]> read(long from, long until) throws IOException {
+            long[] current = positions;
+            int first = (int) (from - baseOffset);
+            int last = (int) (until - baseOffset);
+            ByteBuffer buffer = ByteBuffer.allocate((int) (current[last] - current[first]));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, current[first] + buffer.position()) < 0) {
+                    throw new IOException("Rental event log segment " + path + " ends early");
+                }
+            }
+            byte[] bytes = buffer.array();
+            List<byte[]> lines = new ArrayList<>(last - first);
+            for (int i = first; i < last; i++) {
+                int start = (int) (current[i] - current[first]);
+                // Without the newline
+                int end = (int) (current[i + 1] - current[first]) - 1;
+                lines.add(Arrays.copyOfRange(bytes, start, end));
+            }
+            return lines;
+        }
+    }
+}
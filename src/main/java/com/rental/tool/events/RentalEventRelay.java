@@ -0,0 +1,144 @@
+package com.rental.tool.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.config.shard.ShardDataSources;
+import com.rental.tool.entities.RentalEventOutbox;
+import com.rental.tool.repository.RentalEventOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional outbox between the {@code rental} table and the {@link RentalEventLog}.
+ * <p>
+ * A checkout or journal replay writes its {@link RentalCreatedEvent} to {@code rental_event_outbox}
+ * in the transaction that saves the rental, so the event commits or rolls back with it. The relay
+ * then appends outbox rows to the log in id order, forces the log to disk and only then deletes the
+ * rows, in one transaction per batch and shard. A crash or I/O error at any point leaves the rows
+ * to be relayed again, so no committed rental loses its event.
+ * <p>
+ * Rows relayed again after a crash between the append and the delete are skipped if their rental
+ * is among the last events in the log, which are remembered by store and rental id.
+ */
+@Component
+public class RentalEventRelay {
+    private static final Logger logger = LoggerFactory.getLogger(RentalEventRelay.class);
+
+    // Far more than one batch per shard, the most a crash can leave both in the log and the outbox
+    private static final int RELAYED_KEYS = 10_000;
+
+    @Autowired
+    private RentalEventOutboxRepository rentalEventOutboxRepository;
+
+    @Autowired
+    private RentalEventLog rentalEventLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${rental.events.batch-size:500}")
+    private int batchSize;
+
+    private final Map<String, Boolean> relayed = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > RELAYED_KEYS;
+        }
+    };
+
+    /**
+     * Remembers the rentals of the last events in the log, which may still be in the outbox.
+     */
+    @PostConstruct
+    public synchronized void loadRelayed() {
+        long from = Math.max(rentalEventLog.getStartOffset(), rentalEventLog.getEndOffset() - RELAYED_KEYS);
+        for (RentalCreatedEvent event : rentalEventLog.read(from, RELAYED_KEYS)) {
+            relayed.put(key(event.getStoreId(), event.getRentalId()), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Writes an event to the outbox in the current transaction. It reaches the log once the
+     * transaction commits and the relay runs.
+     *
+     * @param event the event of a rental saved in the current transaction
+     */
+    public void enqueue(RentalCreatedEvent event) {
+        RentalEventOutbox row = new RentalEventOutbox();
+        row.setStoreId(event.getStoreId());
+        row.setRentalId(event.getRentalId());
+        try {
+            row.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize rental event", ex);
+        }
+        row.setCreatedAt(LocalDateTime.now());
+        rentalEventOutboxRepository.save(row);
+    }
+
+    /**
+     * Moves committed events from the outbox of every shard to the log.
+     */
+    @Scheduled(fixedDelayString = "${rental.events.relay-interval-ms:200}")
+    public synchronized void relay() {
+        shardDataSources.forEachShard(shard -> {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            try {
+                Integer relayedRows;
+                do {
+                    relayedRows = transactionTemplate.execute(status -> relayBatch());
+                } while (relayedRows != null && relayedRows == batchSize);
+            } catch (RuntimeException ex) {
+                logger.warn("Relaying rental events of shard {} failed, retrying on the next run: {}", shard, ex.getMessage());
+            }
+        });
+    }
+
+    private int relayBatch() {
+        List<RentalEventOutbox> rows = rentalEventOutboxRepository.findOldestForRelay(PageRequest.of(0, batchSize));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        for (RentalEventOutbox row : rows) {
+            String key = key(row.getStoreId(), row.getRentalId());
+            if (relayed.containsKey(key)) {
+                logger.info("Rental {} of store {} is already in the event log", row.getRentalId(), row.getStoreId());
+                continue;
+            }
+            try {
+                rentalEventLog.append(objectMapper.readValue(row.getPayload(), RentalCreatedEvent.class));
+            } catch (IOException ex) {
+                throw new IllegalStateException("Cannot read rental event " + row.getId() + " from the outbox", ex);
+            }
+            relayed.put(key, Boolean.TRUE);
+        }
+        // On disk before the rows go; if the delete does not commit, the keys above skip them next time
+        rentalEventLog.flush();
+        rentalEventOutboxRepository.deleteAllInBatch(rows);
+        return rows.size();
+    }
+
+    private static String key(String storeId, Long rentalId) {
+        return storeId + ':' + rentalId;
+    }
+}
@@ -0,0 +1,11 @@
+package com.rental.tool.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CatalogUnavailableException extends RuntimeException {
+    public CatalogUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.rental.tool.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyConflictException extends RuntimeException {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
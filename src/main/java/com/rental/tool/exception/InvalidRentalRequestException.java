@@ -0,0 +1,11 @@
+package com.rental.tool.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRentalRequestException extends RuntimeException {
+    public InvalidRentalRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.rental.tool.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ToolUnavailableException extends RuntimeException {
+    public ToolUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -9,9 +9,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.math.RoundingMode;
 import com.rental.tool.entities.Tool;
+import com.rental.tool.utility.PricingUtils;
 
 @Component
 public class RentalMapper {
@@ -24,17 +24,17 @@ public class RentalMapper {
      * @return RentalAgreementDTO containing rental agreement details
      */
     public RentalAgreementDTO toRentalAgreementDTO(Rental rental) {
-        logger.info("Date of checkout : {}", rental.getCheckoutDate());
-        logger.info("getDiscountAmount: {}", rental.getDiscountAmount());
-        logger.info("getPreDiscountCharge: {}", rental.getPreDiscountCharge());
-        logger.info("getFinalCharge: {}", rental.getFinalCharge());
+        logger.debug("Date of checkout : {}", rental.getCheckoutDate());
+        logger.debug("getDiscountAmount: {}", rental.getDiscountAmount());
+        logger.debug("getPreDiscountCharge: {}", rental.getPreDiscountCharge());
+        logger.debug("getFinalCharge: {}", rental.getFinalCharge());
         RentalAgreementDTO agreementDTO = new RentalAgreementDTO();
         Tool tool = rental.getTool();
 
         if (tool == null) {
             throw new ToolNotFoundException("Tool is missing for rental with ID: " + rental.getRental_id());
         }
-        logger.info("Doca checkout : {}", rental.getCheckoutDate());
+        logger.debug("Doca checkout : {}", rental.getCheckoutDate());
         ToolCharge toolCharge = tool.getToolCharge();
         if (toolCharge == null) {
             throw new ToolNotFoundException("Tool charge information is missing for tool with code: " + tool.getToolCode());
@@ -45,33 +45,39 @@ public class RentalMapper {
         agreementDTO.setToolBrand(tool.getBrand() != null ? tool.getBrand() : "N/A");
 
         // Setting rental charge details
-        agreementDTO.setDailyRentalCharge(toolCharge.getDailyRentalCharge() != null ? toolCharge.getDailyRentalCharge() : BigDecimal.valueOf(0.0));
-        agreementDTO.setWeekdayCharge(toolCharge.isWeekdayCharge());
-        agreementDTO.setWeekendCharge(toolCharge.isWeekendCharge());
-        agreementDTO.setHolidayCharge(toolCharge.isHolidayCharge());
+        // Rentals made before demand pricing did not record their daily charge
+        if (rental.getDailyCharge() != null) {
+            agreementDTO.setDailyRentalCharge(rental.getDailyCharge());
+        } else {
+            agreementDTO.setDailyRentalCharge(toolCharge.getDailyRentalCharge() != null ? toolCharge.getDailyRentalCharge() : BigDecimal.valueOf(0.0));
+        }
+        // The rules the rental was priced with; rentals from before they were recorded show the current ones
+        agreementDTO.setWeekdayCharge(rental.getWeekdayCharge() != null ? rental.getWeekdayCharge() : toolCharge.isWeekdayCharge());
+        agreementDTO.setWeekendCharge(rental.getWeekendCharge() != null ? rental.getWeekendCharge() : toolCharge.isWeekendCharge());
+        agreementDTO.setHolidayCharge(rental.getHolidayCharge() != null ? rental.getHolidayCharge() : toolCharge.isHolidayCharge());
 
         agreementDTO.setRentalDays(rental.getRentalDays());
         agreementDTO.setCheckoutDate(rental.getCheckoutDate());
         agreementDTO.setDueDate(rental.getDueDate());
-        agreementDTO.setChargeDays(calculateChargeDays(rental.getCheckoutDate(), rental.getDueDate()));
+        agreementDTO.setChargeDays(chargeDays(rental, toolCharge));
         agreementDTO.setPreDiscountCharge(rental.getPreDiscountCharge());
         agreementDTO.setDiscountPercent(rental.getDiscountPercent());
         agreementDTO.setDiscountAmount(rental.getDiscountAmount());
         agreementDTO.setFinalCharge(rental.getFinalCharge());
+        agreementDTO.setProvisional(rental.isProvisional());
 
         return agreementDTO;
     }
 
-    /**
-     * Calculate the number of chargeable days between the checkout and due dates.
-     *
-     * @param checkoutDate - Checkout date
-     * @param dueDate - Due date
-     * @return Number of chargeable days
-     */
-    private long calculateChargeDays(LocalDate checkoutDate, LocalDate dueDate) {
-        // You may need to customize this depending on the specific business rules (e.g., holidays, weekends)
-        return ChronoUnit.DAYS.between(checkoutDate, dueDate);
+    // Chargeable days as priced at checkout, derived from the charges for rentals that did not record them
+    private static long chargeDays(Rental rental, ToolCharge toolCharge) {
+        if (rental.getChargeDays() != null) {
+            return rental.getChargeDays();
+        }
+        if (rental.getDailyCharge() != null && rental.getDailyCharge().signum() > 0 && rental.getPreDiscountCharge() != null) {
+            return rental.getPreDiscountCharge().divide(rental.getDailyCharge(), 0, RoundingMode.HALF_UP).longValue();
+        }
+        return PricingUtils.calculateChargeDays(toolCharge, rental.getCheckoutDate(), rental.getDueDate());
     }
 }
 
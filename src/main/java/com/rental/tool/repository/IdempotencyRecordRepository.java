@@ -0,0 +1,23 @@
+package com.rental.tool.repository;
+
+import com.rental.tool.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByStoreIdAndUsernameAndIdempotencyKey(String storeId, String username, String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,14 @@
+package com.rental.tool.repository;
+
+import com.rental.tool.entities.RentalAgreementView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RentalAgreementViewRepository extends JpaRepository<RentalAgreementView, Long> {
+
+    // Rental ids are only unique within a shard, and several stores can share one
+    Optional<RentalAgreementView> findByRentalIdAndStoreId(Long rentalId, String storeId);
+}
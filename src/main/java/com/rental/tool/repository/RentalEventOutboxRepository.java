@@ -0,0 +1,20 @@
+package com.rental.tool.repository;
+
+import com.rental.tool.entities.RentalEventOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RentalEventOutboxRepository extends JpaRepository<RentalEventOutbox, Long> {
+
+    // Oldest events first, locked so that only one instance relays them
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from RentalEventOutbox o order by o.id")
+    List<RentalEventOutbox> findOldestForRelay(Pageable page);
+}
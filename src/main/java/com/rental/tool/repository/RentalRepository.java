@@ -2,8 +2,42 @@ package com.rental.tool.repository;
 
 import com.rental.tool.entities.Rental;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface RentalRepository extends JpaRepository<Rental, Long> {
+
+    // Rentals holding a unit on the given date, as [toolCode, count] rows. A rental holds its unit
+    // from its checkout date until it is returned, overdue or not
+    @Query("select r.tool.toolCode, count(r) from Rental r where r.checkoutDate <= :date and r.returnedDate is null"
+            + " group by r.tool.toolCode")
+    List<Object[]> countOutstandingByToolCode(@Param("date") LocalDate date);
+
+    // Bookings of the rentals still out, as [toolCode, checkoutDate, endDate, storeId, rentalId] rows.
+    // The end date is the due date, extended to the given date while an overdue tool is still out; a
+    // returned tool is free again from the day it came back
+    @Query("select r.tool.toolCode, r.checkoutDate, case when r.dueDate >= :date then r.dueDate else :date end,"
+            + " r.storeId, r.rental_id"
+            + " from Rental r where r.returnedDate is null")
+    List<Object[]> findBookedRanges(@Param("date") LocalDate date);
+
+    boolean existsByJournalId(String journalId);
+
+    // Rental ids are only unique within a shard, and several stores can share one
+    @Query("select r from Rental r where r.rental_id = :id and r.storeId = :storeId")
+    Optional<Rental> findByIdAndStoreId(@Param("id") Long id, @Param("storeId") String storeId);
+
+    // A rental with its tool and charge rules, for rendering its agreement outside a transaction
+    @Query("select r from Rental r join fetch r.tool t left join fetch t.toolCharge where r.rental_id = :id")
+    Optional<Rental> findWithToolById(@Param("id") Long id);
+
+    // As findWithToolById, but only a rental of the given store
+    @Query("select r from Rental r join fetch r.tool t left join fetch t.toolCharge where r.rental_id = :id and r.storeId = :storeId")
+    Optional<Rental> findWithToolByIdAndStoreId(@Param("id") Long id, @Param("storeId") String storeId);
 }
@@ -0,0 +1,20 @@
+package com.rental.tool.repository;
+
+import com.rental.tool.entities.ToolInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ToolInventoryRepository extends JpaRepository<ToolInventory, String> {
+
+    @Transactional
+    @Modifying
+    @Query("update ToolInventory i set i.available = :available, i.updatedAt = :updatedAt where i.toolCode = :toolCode")
+    int updateAvailable(@Param("toolCode") String toolCode, @Param("available") int available, @Param("updatedAt") LocalDateTime updatedAt);
+}
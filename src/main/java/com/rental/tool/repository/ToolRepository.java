@@ -2,9 +2,16 @@ package com.rental.tool.repository;
 
 import com.rental.tool.entities.Tool;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ToolRepository extends JpaRepository<Tool, String> {
+
+    // Whole catalog in one query, with each tool's charge rules
+    @Query("select t from Tool t left join fetch t.toolCharge")
+    List<Tool> findAllWithCharges();
 }
 
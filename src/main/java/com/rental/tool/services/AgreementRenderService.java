@@ -0,0 +1,85 @@
+package com.rental.tool.services;
+
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.Locale;
+
+/**
+ * Renders rental agreements for {@code GET /api/rentals/{id}/agreement}, off the checkout path.
+ * <p>
+ * A checkout only hands over the agreement it already mapped; nothing is formatted or printed
+ * until a rendering is first requested. Agreements come from {@link RentalAgreementViewService},
+ * and each rendering is kept with its cached agreement there, so repeated requests for the same
+ * rental are served without touching the database or formatting again.
+ */
+@Service
+public class AgreementRenderService {
+
+    /**
+     * Output formats of a rendered agreement.
+     */
+    public enum Format {
+        /** The plain text printed by {@link RentalAgreementDTO#printAgreement()}. */
+        TEXT,
+        /** A standalone HTML page, ready to print. */
+        HTML;
+
+        /**
+         * Parses a format name, ignoring case.
+         *
+         * @param name the format name, such as {@code text} or {@code html}
+         * @return the format
+         * @throws IllegalArgumentException if the name is not a known format
+         */
+        public static Format of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown agreement format: " + name + ", expected text or html");
+            }
+        }
+    }
+
+    @Autowired
+    private RentalAgreementViewService rentalAgreementViewService;
+
+    /**
+     * Returns the rendered agreement of a rental, rendering it on first request.
+     *
+     * @param rentalId the id of the rental
+     * @param format   the output format
+     * @return the rendered agreement
+     * @throws ResourceNotFoundException if the current store has no rental with this id
+     */
+    public String render(Long rentalId, Format format) {
+        return rentalAgreementViewService.load(rentalId).render(format);
+    }
+
+    /**
+     * Renders an agreement in the given format.
+     *
+     * @param agreement the agreement to render
+     * @param format    the output format
+     * @return the rendered agreement
+     */
+    static String renderAgreement(RentalAgreementDTO agreement, Format format) {
+        String text = agreement.toText();
+        if (format == Format.TEXT) {
+            return text;
+        }
+        StringBuilder html = new StringBuilder(1024)
+                .append("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>Rental Agreement</title>")
+                .append("<style>body{font-family:sans-serif}td{padding:2px 12px}</style></head>\n")
+                .append("<body><h1>Rental Agreement</h1>\n<table>\n");
+        for (String line : text.split("\n")) {
+            int colon = line.indexOf(": ");
+            html.append("<tr><th align=\"left\">").append(HtmlUtils.htmlEscape(line.substring(0, colon)))
+                    .append("</th><td>").append(HtmlUtils.htmlEscape(line.substring(colon + 2))).append("</td></tr>\n");
+        }
+        return html.append("</table></body></html>\n").toString();
+    }
+}
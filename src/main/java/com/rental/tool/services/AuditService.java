@@ -1,5 +1,7 @@
 package com.rental.tool.services;
 
+import com.rental.tool.config.jfr.AuditEvent;
+import com.rental.tool.config.shard.StoreContext;
 import com.rental.tool.dto.AuditDTO;
 import com.rental.tool.entities.Audit;
 import com.rental.tool.mapper.AuditMapper;
@@ -20,12 +22,27 @@ public class AuditService {
 
     // Method to log audit details and map to DTO
     public void logAudit(String transactionId, String username, boolean success, String message) {
+        AuditEvent auditEvent = new AuditEvent();
+        auditEvent.begin();
+        auditEvent.transactionId = transactionId;
+        auditEvent.success = success;
+
         // Create AuditDTO
         AuditDTO auditDTO = new AuditDTO(null, transactionId, username, LocalDateTime.now(), success, message);
 
         // Convert AuditDTO to Audit entity and save to the database
         Audit audit = AuditMapper.toEntity(auditDTO);
-        auditRepository.save(audit);
+        // Written to the store's shard, next to the rental it audits
+        audit.setStoreId(StoreContext.currentStore());
+        try {
+            auditRepository.save(audit);
+            auditEvent.outcome = "success";
+        } catch (RuntimeException ex) {
+            auditEvent.outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            auditEvent.commit();
+        }
 
         // Optionally log the audit details
         String logMessage = String.format("Transaction ID: %s | User: %s | Time: %s | Success: %b | Message: %s",
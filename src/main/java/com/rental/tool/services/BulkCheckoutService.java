@@ -0,0 +1,327 @@
+package com.rental.tool.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rental.tool.config.metrics.CheckoutMetrics;
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.dto.request.RentalRequest;
+import com.rental.tool.dto.response.RentalResponse;
+import com.rental.tool.exception.InvalidRentalRequestException;
+import com.rental.tool.exception.ResourceNotFoundException;
+import com.rental.tool.exception.ToolNotFoundException;
+import com.rental.tool.exception.ToolUnavailableException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks out a stream of newline-delimited {@link RentalRequest}s, answering each line with its
+ * own {@link RentalResponse}, in the order of the input.
+ * <p>
+ * Lines are read and parsed one at a time, never the whole body, and collected into micro-batches
+ * of {@code rental.bulk-checkout.batch-size} lines that share one transaction. A line that is
+ * invalid, names an unknown tool or finds the tool fully booked gets its error and leaves the rest
+ * of its batch alone. A database failure rolls back the whole batch: its lines are answered with
+ * 503 and the stream ends there, so a client resubmits from the first line without a 200.
+ * <p>
+ * The results of a batch are written and flushed once it commits, before the next batch is read.
+ * Memory therefore stays at one batch whatever the size of the upload, and a client that reads the
+ * results slowly also slows down how fast its requests are consumed.
+ */
+@Service
+public class BulkCheckoutService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkCheckoutService.class);
+
+    // Longer lines are answered with 400 without being buffered; a request line is under 200 bytes
+    static final int MAX_LINE_BYTES = 8 * 1024;
+
+    @Autowired
+    private RentalService rentalService;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private CheckoutMetrics checkoutMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${rental.bulk-checkout.batch-size:100}")
+    private int batchSize;
+
+    @Value("${rental.bulk-checkout.max-streams:2}")
+    private int maxStreams;
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    /**
+     * Checks out every line of the input and writes one result line per non-blank input line.
+     *
+     * @param in       newline-delimited JSON rental requests
+     * @param out      where the newline-delimited results are written
+     * @param username the user submitting the checkouts
+     * @return false, without reading or writing anything, if {@code rental.bulk-checkout.max-streams}
+     * bulk checkouts are already running
+     * @throws IOException if reading the requests or writing the results fails
+     */
+    public boolean checkout(InputStream in, OutputStream out, String username) throws IOException {
+        if (activeStreams.incrementAndGet() > maxStreams) {
+            activeStreams.decrementAndGet();
+            return false;
+        }
+        try {
+            stream(in, out, username);
+            return true;
+        } finally {
+            activeStreams.decrementAndGet();
+        }
+    }
+
+    private void stream(InputStream in, OutputStream out, String username) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(RentalRequest.class);
+        ObjectWriter writer = objectMapper.writer();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        OutputStream results = new BufferedOutputStream(out);
+        LineReader lines = new LineReader(in, MAX_LINE_BYTES);
+
+        long start = System.nanoTime();
+        int lineCount = 0;
+        int checkedOut = 0;
+        List<Line> batch = new ArrayList<>(batchSize);
+        boolean more = true;
+        while (more) {
+            batch.clear();
+            while (batch.size() < batchSize && (more = lines.next())) {
+                if (!lines.isBlank()) {
+                    batch.add(parse(lines, reader));
+                }
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+            lineCount += batch.size();
+
+            boolean committed = checkoutBatch(batch, transactionTemplate, username);
+            for (Line line : batch) {
+                if (line.result.getStatus() == HttpStatus.OK.value()) {
+                    checkedOut++;
+                }
+                checkoutMetrics.bulkLine(line.outcome);
+                results.write(writer.writeValueAsBytes(line.result));
+                results.write('\n');
+            }
+            results.flush();
+            if (!committed) {
+                break;
+            }
+        }
+        logger.info("Bulk checkout by {}: {} lines, {} checked out, in {} ms", username, lineCount, checkedOut,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Parses and validates one line; the returned line carries a request, or already its error
+    private Line parse(LineReader lines, ObjectReader reader) {
+        if (lines.isTooLong()) {
+            return Line.failed("invalid", HttpStatus.BAD_REQUEST, "Request line exceeds " + MAX_LINE_BYTES + " bytes");
+        }
+        RentalRequest request;
+        try {
+            request = reader.readValue(lines.bytes(), 0, lines.length());
+        } catch (JsonProcessingException ex) {
+            return Line.failed("invalid", HttpStatus.BAD_REQUEST, "Invalid request: " + ex.getOriginalMessage());
+        } catch (IOException ex) {
+            return Line.failed("invalid", HttpStatus.BAD_REQUEST, "Invalid request: " + ex.getMessage());
+        }
+        if (request == null) {
+            return Line.failed("invalid", HttpStatus.BAD_REQUEST, "Invalid request: null");
+        }
+        Set<ConstraintViolation<RentalRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            Map<String, String> errors = new TreeMap<>();
+            for (ConstraintViolation<RentalRequest> violation : violations) {
+                errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+            }
+            Line line = new Line(null);
+            line.complete("invalid", new RentalResponse<>(HttpStatus.BAD_REQUEST.value(), "Validation failed for the request", errors));
+            return line;
+        }
+        return new Line(request);
+    }
+
+    /**
+     * Checks out the parsed lines of a batch in one transaction.
+     *
+     * @return false if the transaction failed, in which case none of the batch was checked out
+     */
+    private boolean checkoutBatch(List<Line> batch, TransactionTemplate transactionTemplate, String username) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Line line : batch) {
+                    if (line.request != null) {
+                        checkoutLine(line, username);
+                    }
+                }
+            });
+            return true;
+        } catch (RuntimeException ex) {
+            logger.error("Bulk checkout batch of {} lines rolled back, stopping the stream", batch.size(), ex);
+            for (Line line : batch) {
+                if (line.request != null) {
+                    line.complete("batch_failed", new RentalResponse<>(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                            "Not checked out, the batch was rolled back: " + ex.getMessage(), (RentalAgreementDTO) null));
+                }
+            }
+            return false;
+        }
+    }
+
+    private void checkoutLine(Line line, String username) {
+        String transactionId = auditService.generateTransactionId();
+        try {
+            RentalAgreementDTO agreement = rentalService.checkoutInBatch(line.request, transactionId, username);
+            line.complete("success", new RentalResponse<>(HttpStatus.OK.value(), "Rental checkout successful", agreement));
+        } catch (InvalidRentalRequestException ex) {
+            auditService.logAudit(transactionId, username, false, ex.getMessage());
+            line.complete("invalid", new RentalResponse<>(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), (RentalAgreementDTO) null));
+        } catch (ToolNotFoundException | ResourceNotFoundException ex) {
+            auditService.logAudit(transactionId, username, false, ex.getMessage());
+            line.complete("not_found", new RentalResponse<>(HttpStatus.NOT_FOUND.value(), ex.getMessage(), (RentalAgreementDTO) null));
+        } catch (ToolUnavailableException ex) {
+            auditService.logAudit(transactionId, username, false, ex.getMessage());
+            line.complete("unavailable", new RentalResponse<>(HttpStatus.CONFLICT.value(), ex.getMessage(), (RentalAgreementDTO) null));
+        }
+    }
+
+    /**
+     * One request line of a batch and, once known, its result.
+     */
+    private static final class Line {
+        private final RentalRequest request;
+        private String outcome;
+        private RentalResponse<RentalAgreementDTO> result;
+
+        private Line(RentalRequest request) {
+            this.request = request;
+        }
+
+        private static Line failed(String outcome, HttpStatus status, String message) {
+            Line line = new Line(null);
+            line.complete(outcome, new RentalResponse<>(status.value(), message, (RentalAgreementDTO) null));
+            return line;
+        }
+
+        private void complete(String outcome, RentalResponse<RentalAgreementDTO> result) {
+            this.outcome = outcome;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Splits a byte stream into lines, reusing one buffer. A line longer than the buffer is
+     * skipped to its end and flagged rather than grown.
+     */
+    static final class LineReader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[8192];
+        private final byte[] line;
+        private int position;
+        private int limit;
+        private int length;
+        private boolean tooLong;
+
+        LineReader(InputStream in, int maxLineBytes) {
+            this.in = in;
+            this.line = new byte[maxLineBytes];
+        }
+
+        /**
+         * Reads the next line, without its {@code \n} or {@code \r\n}.
+         *
+         * @return false at the end of the input
+         */
+        boolean next() throws IOException {
+            length = 0;
+            tooLong = false;
+            int b = read();
+            if (b < 0) {
+                return false;
+            }
+            while (b >= 0 && b != '\n') {
+                if (length < line.length) {
+                    line[length++] = (byte) b;
+                } else {
+                    tooLong = true;
+                }
+                b = read();
+            }
+            if (!tooLong && length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            return true;
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        byte[] bytes() {
+            return line;
+        }
+
+        int length() {
+            return length;
+        }
+
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        boolean isBlank() {
+            if (tooLong) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(line[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.rental.tool.services;
+
+import com.rental.tool.config.shard.ShardDataSources;
+import com.rental.tool.config.shard.ShardRouter;
+import com.rental.tool.entities.Tool;
+import com.rental.tool.entities.ToolCharge;
+import com.rental.tool.repository.ToolRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the last catalog successfully read from each shard's database, so checkouts and quotes can
+ * still be priced while that database is unavailable.
+ * <p>
+ * Each shard has its own snapshot, and a lookup is served from the snapshot of the current store's
+ * shard: that is the catalog the checkout would have read had its database been reachable. Unlike
+ * the {@code tools} cache, snapshots are never evicted by {@code CacheController} and a failed
+ * refresh of a shard leaves its previous snapshot in place. Tools are detached copies, safe to use
+ * outside a persistence context. A snapshot older than {@code rental.catalog-snapshot.max-age-minutes}
+ * is not served. Each refresh of shard 0 is also published to {@link ToolCatalogService} for
+ * {@code GET /api/tools}.
+ */
+@Service
+public class CatalogSnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private ToolCatalogService toolCatalogService;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${rental.catalog-snapshot.max-age-minutes:1440}")
+    private long maxAgeMinutes;
+
+    private final Map<Integer, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Takes the first snapshots at startup. A failure here does not prevent startup.
+     */
+    @PostConstruct
+    public void loadSnapshot() {
+        refresh();
+    }
+
+    /**
+     * Replaces the snapshot of each shard with its current catalog, keeping the previous one of a
+     * shard whose database cannot be read.
+     */
+    @Scheduled(fixedDelayString = "${rental.catalog-snapshot.refresh-interval-ms:60000}",
+            initialDelayString = "${rental.catalog-snapshot.refresh-interval-ms:60000}")
+    public void refresh() {
+        shardDataSources.forEachShard(this::refreshShard);
+    }
+
+    private void refreshShard(int shard) {
+        try {
+            Map<String, Tool> tools = new HashMap<>();
+            for (Tool tool : toolRepository.findAllWithCharges()) {
+                tools.put(tool.getToolCode(), detachedCopy(tool));
+            }
+            snapshots.put(shard, new Snapshot(Collections.unmodifiableMap(tools), LocalDateTime.now()));
+            if (shard == 0) {
+                toolCatalogService.update(tools.values());
+            }
+            logger.debug("Catalog snapshot of shard {} refreshed with {} tools", shard, tools.size());
+        } catch (RuntimeException ex) {
+            Snapshot previous = snapshots.get(shard);
+            logger.warn("Catalog snapshot refresh of shard {} failed, keeping snapshot from {}: {}",
+                    shard, previous == null ? "never" : previous.takenAt, ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns a tool, with its charge rules, from the snapshot of the current store's shard.
+     *
+     * @param toolCode The code of the tool.
+     * @return the tool, or empty if it is not in the snapshot or the snapshot is too old
+     */
+    public Optional<Tool> getTool(String toolCode) {
+        Snapshot current = snapshots.get(shardRouter.currentShard());
+        if (current == null || current.takenAt.isBefore(LocalDateTime.now().minusMinutes(maxAgeMinutes))) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(current.tools.get(toolCode));
+    }
+
+    /**
+     * Returns when the snapshot of the current store's shard was taken.
+     *
+     * @return the snapshot time, or null if no snapshot of the shard has been taken yet
+     */
+    public LocalDateTime getTakenAt() {
+        Snapshot current = snapshots.get(shardRouter.currentShard());
+        return current == null ? null : current.takenAt;
+    }
+
+    private static Tool detachedCopy(Tool tool) {
+        Tool copy = Tool.builder()
+                .toolCode(tool.getToolCode())
+                .toolType(tool.getToolType())
+                .brand(tool.getBrand())
+                .build();
+        ToolCharge charge = tool.getToolCharge();
+        if (charge != null) {
+            copy.setToolCharge(ToolCharge.builder()
+                    .toolChargeId(charge.getToolChargeId())
+                    .tool(copy)
+                    .dailyRentalCharge(charge.getDailyRentalCharge())
+                    .weekdayCharge(charge.isWeekdayCharge())
+                    .weekendCharge(charge.isWeekendCharge())
+                    .holidayCharge(charge.isHolidayCharge())
+                    .build());
+        }
+        return copy;
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Tool> tools;
+        private final LocalDateTime takenAt;
+
+        private Snapshot(Map<String, Tool> tools, LocalDateTime takenAt) {
+            this.tools = tools;
+            this.takenAt = takenAt;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.rental.tool.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Surge and discount multipliers on a tool's daily charge, driven by recent checkout demand.
+ * <p>
+ * Every checkout is counted in two {@link DemandSketch}es: a short window of recent demand (an
+ * hour by default) and a long window that serves as the tool's baseline (a day). On a schedule,
+ * each tool among the busiest of either window is priced at
+ * {@code 1 + sensitivity * (recent / expected - 1)}, bounded by the minimum and maximum multiplier,
+ * where {@code expected} is the long window's count scaled to the length of the short one. Tools
+ * with fewer than {@code min-checkouts} in both windows, and all other tools, keep a multiplier of 1.
+ * <p>
+ * The multipliers are published as an immutable map replaced in one volatile write, so pricing
+ * reads them without locks and without touching the {@code rental} table. Quotes and checkouts
+ * read the same table, so a quote matches its checkout unless the table was republished in between.
+ * Counts are kept per instance and start from zero after a restart.
+ */
+@Service
+public class DemandPricingService {
+    private static final Logger logger = LoggerFactory.getLogger(DemandPricingService.class);
+
+    private final boolean enabled;
+    private final long minCheckouts;
+    private final double sensitivity;
+    private final double minMultiplier;
+    private final double maxMultiplier;
+    private final Clock clock;
+    private final DemandSketch recent;
+    private final DemandSketch baseline;
+
+    private volatile Map<String, BigDecimal> multipliers = Map.of();
+
+    @Autowired
+    public DemandPricingService(@Value("${rental.demand-pricing.enabled:true}") boolean enabled,
+                                @Value("${rental.demand-pricing.short-window-minutes:60}") long shortWindowMinutes,
+                                @Value("${rental.demand-pricing.short-buckets:12}") int shortBuckets,
+                                @Value("${rental.demand-pricing.long-window-minutes:1440}") long longWindowMinutes,
+                                @Value("${rental.demand-pricing.long-buckets:24}") int longBuckets,
+                                @Value("${rental.demand-pricing.top-k:100}") int topK,
+                                @Value("${rental.demand-pricing.min-checkouts:10}") long minCheckouts,
+                                @Value("${rental.demand-pricing.sensitivity:0.25}") double sensitivity,
+                                @Value("${rental.demand-pricing.min-multiplier:0.8}") double minMultiplier,
+                                @Value("${rental.demand-pricing.max-multiplier:1.5}") double maxMultiplier,
+                                @Value("${rental.demand-pricing.sketch-width:2048}") int sketchWidth,
+                                @Value("${rental.demand-pricing.sketch-depth:4}") int sketchDepth) {
+        this(enabled, TimeUnit.MINUTES.toMillis(shortWindowMinutes), shortBuckets, TimeUnit.MINUTES.toMillis(longWindowMinutes),
+                longBuckets, topK, minCheckouts, sensitivity, minMultiplier, maxMultiplier, sketchWidth, sketchDepth,
+                Clock.systemUTC());
+    }
+
+    DemandPricingService(boolean enabled, long shortWindowMillis, int shortBuckets, long longWindowMillis, int longBuckets,
+                         int topK, long minCheckouts, double sensitivity, double minMultiplier, double maxMultiplier,
+                         int sketchWidth, int sketchDepth, Clock clock) {
+        if (minMultiplier > 1 || maxMultiplier < 1) {
+            throw new IllegalArgumentException("rental.demand-pricing.min-multiplier must be at most 1 and max-multiplier at least 1");
+        }
+        this.enabled = enabled;
+        this.minCheckouts = minCheckouts;
+        this.sensitivity = sensitivity;
+        this.minMultiplier = minMultiplier;
+        this.maxMultiplier = maxMultiplier;
+        this.clock = clock;
+        long now = clock.millis();
+        this.recent = new DemandSketch(shortWindowMillis, shortBuckets, sketchWidth, sketchDepth, topK, now);
+        this.baseline = new DemandSketch(longWindowMillis, longBuckets, sketchWidth, sketchDepth, topK, now);
+    }
+
+    /**
+     * Counts a checkout of the tool. Lock-free; called on the checkout path.
+     *
+     * @param toolCode the code of the tool checked out
+     */
+    public void recordCheckout(String toolCode) {
+        if (enabled) {
+            recent.add(toolCode);
+            baseline.add(toolCode);
+        }
+    }
+
+    /**
+     * @param toolCode the code of the tool being priced
+     * @return the multiplier on the tool's daily charge, 1 unless its demand moved it
+     */
+    public BigDecimal multiplierFor(String toolCode) {
+        return multipliers.getOrDefault(toolCode, BigDecimal.ONE);
+    }
+
+    /**
+     * @return the tools whose multiplier is not 1, with their multipliers
+     */
+    public Map<String, BigDecimal> getMultipliers() {
+        return multipliers;
+    }
+
+    /**
+     * Slides both windows and publishes freshly computed multipliers.
+     */
+    @Scheduled(fixedDelayString = "${rental.demand-pricing.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.millis();
+        recent.advance(now);
+        baseline.advance(now);
+
+        Set<String> toolCodes = new HashSet<>(recent.topK().keySet());
+        toolCodes.addAll(baseline.topK().keySet());
+        // The baseline's count for as long as the recent window has been counting
+        double scale = (double) recent.coveredMillis(now) / baseline.coveredMillis(now);
+        Map<String, BigDecimal> computed = new HashMap<>();
+        for (String toolCode : toolCodes) {
+            long recentCount = recent.estimate(toolCode);
+            double expected = baseline.estimate(toolCode) * scale;
+            if (recentCount < minCheckouts && expected < minCheckouts) {
+                continue;
+            }
+            BigDecimal multiplier = multiplier(recentCount, expected);
+            if (multiplier.compareTo(BigDecimal.ONE) != 0) {
+                computed.put(toolCode, multiplier);
+            }
+        }
+        Map<String, BigDecimal> published = Map.copyOf(computed);
+        if (!published.equals(multipliers)) {
+            logger.info("Demand multipliers updated for {} tools: {}", published.size(), published);
+        }
+        multipliers = published;
+    }
+
+    // Add-one smoothing keeps a tool with a tiny baseline from jumping to the maximum
+    BigDecimal multiplier(long recentCount, double expected) {
+        double ratio = (recentCount + 1) / (expected + 1);
+        double multiplier = Math.max(minMultiplier, Math.min(maxMultiplier, 1 + sensitivity * (ratio - 1)));
+        return BigDecimal.valueOf(multiplier).setScale(2, RoundingMode.HALF_UP);
+    }
+}
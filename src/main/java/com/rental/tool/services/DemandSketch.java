@@ -0,0 +1,180 @@
+package com.rental.tool.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate checkout counts per tool code over a sliding time window, in memory that does not
+ * grow with the number of tools. Used by {@link DemandPricingService}.
+ * <p>
+ * The window is a ring of time buckets, each a count-min sketch: {@code depth} rows of
+ * {@code width} counters, a key incrementing one counter per row. A key's count in a bucket is the
+ * smallest of its counters, which never undercounts and overcounts by at most about
+ * {@code e / width} of the bucket's total with probability {@code 1 - e^-depth}. The window count is
+ * the sum over the buckets; {@link #advance} clears the oldest bucket and makes it current.
+ * <p>
+ * The sketch cannot list its keys, so it also keeps the keys that may be among the {@code topK}
+ * most counted: every key while there is room, then only keys counted above the smallest of the
+ * last top K. {@link #topK} trims them back to K.
+ * <p>
+ * {@link #add} and {@link #estimate} are lock-free and may be called from any thread;
+ * {@link #advance} and {@link #topK} are called from one thread at a time.
+ */
+public final class DemandSketch {
+
+    private final int width;
+    private final int depth;
+    private final int topK;
+    private final long bucketMillis;
+    private final long startedAt;
+    private final AtomicLongArray[] buckets;
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+
+    private volatile int current;
+    private volatile long currentStart;
+    // Count a key needs to become a candidate once the candidates are full
+    private volatile long admissionThreshold;
+
+    /**
+     * @param windowMillis length of the window
+     * @param bucketCount  buckets the window is counted in; it slides by one bucket at a time
+     * @param width        counters per sketch row
+     * @param depth        sketch rows
+     * @param topK         keys reported by {@link #topK}
+     * @param now          the current time in milliseconds
+     */
+    public DemandSketch(long windowMillis, int bucketCount, int width, int depth, int topK, long now) {
+        if (bucketCount < 1 || width < 1 || depth < 1 || windowMillis < bucketCount) {
+            throw new IllegalArgumentException("Invalid sketch dimensions");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.topK = topK;
+        this.bucketMillis = windowMillis / bucketCount;
+        this.startedAt = now;
+        this.currentStart = now;
+        this.buckets = new AtomicLongArray[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new AtomicLongArray(width * depth);
+        }
+    }
+
+    /**
+     * Counts one occurrence of the key in the current bucket.
+     *
+     * @param key the tool code
+     */
+    public void add(String key) {
+        AtomicLongArray bucket = buckets[current];
+        int hash1 = key.hashCode();
+        int hash2 = mix(hash1);
+        for (int row = 0; row < depth; row++) {
+            bucket.incrementAndGet(row * width + index(hash1, hash2, row));
+        }
+        if (!candidates.contains(key)
+                && (candidates.size() < 2 * topK || estimate(key) > admissionThreshold)) {
+            candidates.add(key);
+        }
+    }
+
+    /**
+     * @param key the tool code
+     * @return the key's count over the window, possibly overcounted, never undercounted
+     */
+    public long estimate(String key) {
+        int hash1 = key.hashCode();
+        int hash2 = mix(hash1);
+        long total = 0;
+        for (AtomicLongArray bucket : buckets) {
+            long min = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                min = Math.min(min, bucket.get(row * width + index(hash1, hash2, row)));
+            }
+            total += min;
+        }
+        return total;
+    }
+
+    /**
+     * Slides the window up to the given time, dropping the buckets that fell out of it.
+     *
+     * @param now the current time in milliseconds
+     */
+    public void advance(long now) {
+        long elapsed = now - currentStart;
+        if (elapsed < bucketMillis) {
+            return;
+        }
+        long steps = elapsed / bucketMillis;
+        // After a long pause the whole window is stale; clear each bucket once
+        for (long step = 0; step < Math.min(steps, buckets.length); step++) {
+            int next = (current + 1) % buckets.length;
+            clear(buckets[next]);
+            current = next;
+        }
+        currentStart += steps * bucketMillis;
+    }
+
+    /**
+     * @param now the current time in milliseconds
+     * @return how much of the window has been counted: the full window, or less right after startup
+     */
+    public long coveredMillis(long now) {
+        long full = (buckets.length - 1) * bucketMillis + (now - currentStart);
+        return Math.max(1, Math.min(full, now - startedAt));
+    }
+
+    /**
+     * Returns the most counted keys and forgets the other candidates.
+     *
+     * @return up to {@code topK} keys with their counts, most counted first
+     */
+    public Map<String, Long> topK() {
+        List<Map.Entry<String, Long>> counted = new ArrayList<>(candidates.size());
+        for (String key : candidates) {
+            long count = estimate(key);
+            if (count > 0) {
+                counted.add(Map.entry(key, count));
+            } else {
+                candidates.remove(key);
+            }
+        }
+        counted.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : counted) {
+            if (top.size() < topK) {
+                top.put(entry.getKey(), entry.getValue());
+            } else {
+                candidates.remove(entry.getKey());
+            }
+        }
+        admissionThreshold = top.size() < topK ? 0 : counted.get(topK - 1).getValue();
+        return top;
+    }
+
+    private int index(int hash1, int hash2, int row) {
+        // Kirsch-Mitzenmacher: row hashes derived from two independent ones
+        return Math.floorMod(hash1 + row * hash2, width);
+    }
+
+    // Murmur3 finalizer, so the second hash is independent enough of String.hashCode
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash | 1;
+    }
+
+    private static void clear(AtomicLongArray bucket) {
+        for (int i = 0; i < bucket.length(); i++) {
+            bucket.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.rental.tool.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.config.shard.ShardDataSources;
+import com.rental.tool.config.shard.StoreContext;
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.dto.request.RentalRequest;
+import com.rental.tool.entities.IdempotencyRecord;
+import com.rental.tool.exception.IdempotencyKeyConflictException;
+import com.rental.tool.exception.IdempotencyKeyMismatchException;
+import com.rental.tool.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+
+/**
+ * Deduplicates checkouts that carry an {@code Idempotency-Key} header, so a client retrying after a
+ * timeout gets the original rental agreement back instead of a second rental.
+ * <p>
+ * Keys are scoped per store and user; a store's keys are kept on its shard. The first request for a key runs the checkout; concurrent duplicates
+ * on this instance wait on its in-flight future rather than pricing and persisting again. Completed
+ * results are held in a bounded in-memory map and in the {@code idempotency_key} table, whose
+ * unique index arbitrates between instances and keeps keys valid across restarts. Both are evicted
+ * once the TTL has passed.
+ * <p>
+ * A checkout that fails before its rental is committed releases its key so that a retry runs
+ * again. One that fails after the commit, while mapping or auditing, keeps its key with the rental's
+ * id, and a retry gets that rental's agreement instead of a second rental. While the database is
+ * unavailable keys are deduplicated in memory only, so provisional checkouts are still protected
+ * against retries on this instance.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final Map<String, Execution> executions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Value("${rental.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${rental.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${rental.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    /**
+     * A checkout run under an idempotency key. It reports its rental's id as soon as the rental is
+     * committed, so a failure after that point keeps the key instead of allowing a second rental.
+     */
+    @FunctionalInterface
+    public interface Checkout {
+        /**
+         * @param committed to be called with the rental's id once it is committed
+         * @return the rental agreement
+         */
+        RentalAgreementDTO run(LongConsumer committed);
+    }
+
+    /**
+     * Runs the checkout once per key and returns its agreement for every request with that key.
+     *
+     * @param idempotencyKey the client-supplied key
+     * @param username       the user the key belongs to
+     * @param fingerprint    canonical form of the request, see {@link #fingerprint(RentalRequest)}
+     * @param checkout       the checkout to run if the key has not been seen before
+     * @param committedAgreement the agreement of a committed rental, for a key whose checkout
+     *                       failed after its rental was committed
+     * @return the agreement produced by the first checkout with this key
+     * @throws IdempotencyKeyMismatchException if the key was used with a different request
+     * @throws IdempotencyKeyConflictException if the first checkout is still running elsewhere
+     */
+    public RentalAgreementDTO execute(String idempotencyKey, String username, String fingerprint,
+                                      Checkout checkout, LongFunction<RentalAgreementDTO> committedAgreement) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = StoreContext.currentStore() + ':' + username + ':' + idempotencyKey;
+        for (;;) {
+            Execution execution = new Execution(fingerprint, LocalDateTime.now());
+            Execution existing = executions.putIfAbsent(scopedKey, execution);
+            if (existing == null) {
+                return runFirst(scopedKey, execution, idempotencyKey, username, checkout, committedAgreement);
+            }
+            if (existing.isExpired(expiryCutoff())) {
+                executions.remove(scopedKey, existing);
+                continue;
+            }
+            checkFingerprint(existing.fingerprint, fingerprint, idempotencyKey);
+            logger.info("Replaying checkout for idempotency key {} of user {}", idempotencyKey, username);
+            return await(existing, idempotencyKey);
+        }
+    }
+
+    /**
+     * Canonical form of a checkout request, used to reject a key reused with a different request.
+     *
+     * @param request the checkout request
+     * @return the request fingerprint
+     */
+    public static String fingerprint(RentalRequest request) {
+        String discount = request.getDiscountPercent() == null
+                ? "" : request.getDiscountPercent().stripTrailingZeros().toPlainString();
+        return request.getToolCode() + '|' + request.getRentalDays() + '|' + discount + '|' + request.getCheckoutDate();
+    }
+
+    /**
+     * Drops results older than the TTL from memory and from the {@code idempotency_key} table.
+     */
+    @Scheduled(fixedDelayString = "${rental.idempotency.evict-interval-ms:60000}")
+    public void evictExpired() {
+        LocalDateTime cutoff = expiryCutoff();
+        executions.entrySet().removeIf(entry -> entry.getValue().isExpired(cutoff));
+        shardDataSources.forEachShard(shard -> {
+            int deleted = idempotencyRecordRepository.deleteCreatedBefore(cutoff);
+            if (deleted > 0) {
+                logger.info("Evicted {} expired idempotency keys on shard {}", deleted, shard);
+            }
+        });
+    }
+
+    private RentalAgreementDTO runFirst(String scopedKey, Execution execution, String idempotencyKey, String username,
+                                        Checkout checkout, LongFunction<RentalAgreementDTO> committedAgreement) {
+        try {
+            RentalAgreementDTO agreement = claimAndRun(idempotencyKey, username, execution, checkout, committedAgreement);
+            execution.result.complete(agreement);
+            evictOverflow();
+            return agreement;
+        } catch (RuntimeException ex) {
+            executions.remove(scopedKey, execution);
+            execution.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private RentalAgreementDTO claimAndRun(String idempotencyKey, String username, Execution execution,
+                                           Checkout checkout, LongFunction<RentalAgreementDTO> committedAgreement) {
+        String store = StoreContext.currentStore();
+        IdempotencyRecord claim;
+        try {
+            // The key may have been completed before a restart, or by another instance
+            Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findByStoreIdAndUsernameAndIdempotencyKey(store, username, idempotencyKey);
+            if (stored.isPresent()) {
+                return replayStored(stored.get(), execution.fingerprint, idempotencyKey, committedAgreement);
+            }
+
+            claim = new IdempotencyRecord();
+            claim.setIdempotencyKey(idempotencyKey);
+            claim.setUsername(username);
+            claim.setStoreId(store);
+            claim.setRequestFingerprint(execution.fingerprint);
+            claim.setCreatedAt(execution.createdAt);
+            claim = idempotencyRecordRepository.saveAndFlush(claim);
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance claimed the key between the lookup and the insert
+            IdempotencyRecord winner = idempotencyRecordRepository.findByStoreIdAndUsernameAndIdempotencyKey(store, username, idempotencyKey)
+                    .orElseThrow(() -> ex);
+            return replayStored(winner, execution.fingerprint, idempotencyKey, committedAgreement);
+        } catch (DataAccessException | TransactionException ex) {
+            logger.warn("Idempotency store unavailable, deduplicating key {} in memory only: {}", idempotencyKey, ex.getMessage());
+            return checkout.run(rentalId -> { });
+        }
+
+        AtomicReference<Long> committedRental = new AtomicReference<>();
+        RentalAgreementDTO agreement;
+        try {
+            agreement = checkout.run(committedRental::set);
+        } catch (RuntimeException ex) {
+            if (committedRental.get() == null) {
+                deleteClaim(claim);
+            } else {
+                keepCommittedClaim(claim, committedRental.get());
+            }
+            throw ex;
+        }
+        storeResponse(claim, agreement);
+        return agreement;
+    }
+
+    private void storeResponse(IdempotencyRecord claim, RentalAgreementDTO agreement) {
+        try {
+            claim.setResponse(objectMapper.writeValueAsString(agreement));
+            idempotencyRecordRepository.save(claim);
+        } catch (JsonProcessingException | RuntimeException ex) {
+            // The rental is already committed; duplicates on this instance are still served from memory
+            logger.error("Failed to store checkout result for idempotency key {}: {}", claim.getIdempotencyKey(), ex.getMessage());
+        }
+    }
+
+    // The rental exists, so a retry must get it back rather than run the checkout again
+    private void keepCommittedClaim(IdempotencyRecord claim, Long rentalId) {
+        logger.error("Checkout for idempotency key {} failed after rental {} was committed; retries get that rental",
+                claim.getIdempotencyKey(), rentalId);
+        try {
+            claim.setRentalId(rentalId);
+            idempotencyRecordRepository.save(claim);
+        } catch (RuntimeException ex) {
+            // Left without a rental id, the claim answers 409 until it expires
+            logger.error("Failed to record rental {} for idempotency key {}: {}", rentalId, claim.getIdempotencyKey(), ex.getMessage());
+        }
+    }
+
+    private void deleteClaim(IdempotencyRecord claim) {
+        try {
+            idempotencyRecordRepository.delete(claim);
+        } catch (RuntimeException ex) {
+            // Left behind, the claim answers 409 until it expires
+            logger.error("Failed to release idempotency key {}: {}", claim.getIdempotencyKey(), ex.getMessage());
+        }
+    }
+
+    private RentalAgreementDTO replayStored(IdempotencyRecord stored, String fingerprint, String idempotencyKey,
+                                            LongFunction<RentalAgreementDTO> committedAgreement) {
+        checkFingerprint(stored.getRequestFingerprint(), fingerprint, idempotencyKey);
+        if (stored.getResponse() == null && stored.getRentalId() != null) {
+            logger.info("Completing checkout for idempotency key {} from its committed rental {}", idempotencyKey, stored.getRentalId());
+            RentalAgreementDTO agreement = committedAgreement.apply(stored.getRentalId());
+            storeResponse(stored, agreement);
+            return agreement;
+        }
+        if (stored.getResponse() == null) {
+            throw new IdempotencyKeyConflictException("A checkout with Idempotency-Key " + idempotencyKey + " is still being processed");
+        }
+        try {
+            logger.info("Replaying stored checkout for idempotency key {}", idempotencyKey);
+            return objectMapper.readValue(stored.getResponse(), RentalAgreementDTO.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Stored checkout result for Idempotency-Key " + idempotencyKey + " is unreadable", ex);
+        }
+    }
+
+    private RentalAgreementDTO await(Execution execution, String idempotencyKey) {
+        try {
+            return execution.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IdempotencyKeyConflictException("A checkout with Idempotency-Key " + idempotencyKey + " is still being processed");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyConflictException("Interrupted while waiting for checkout with Idempotency-Key " + idempotencyKey);
+        }
+    }
+
+    private void checkFingerprint(String expected, String actual, String idempotencyKey) {
+        if (!expected.equals(actual)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key " + idempotencyKey + " was already used with a different checkout request");
+        }
+    }
+
+    // Keeps the map bounded by dropping the oldest completed results; they remain in the table until the TTL
+    private void evictOverflow() {
+        int overflow = executions.size() - maxEntries;
+        if (overflow <= 0) {
+            return;
+        }
+        List<Map.Entry<String, Execution>> completed = new ArrayList<>();
+        for (Map.Entry<String, Execution> entry : executions.entrySet()) {
+            if (entry.getValue().result.isDone()) {
+                completed.add(entry);
+            }
+        }
+        completed.sort(Comparator.comparing(entry -> entry.getValue().createdAt));
+        // Evict a tenth extra so the sort is not repeated on every checkout
+        int toEvict = Math.min(completed.size(), overflow + maxEntries / 10);
+        for (int i = 0; i < toEvict; i++) {
+            executions.remove(completed.get(i).getKey(), completed.get(i).getValue());
+        }
+    }
+
+    private LocalDateTime expiryCutoff() {
+        return LocalDateTime.now().minusMinutes(ttlMinutes);
+    }
+
+    int size() {
+        return executions.size();
+    }
+
+    /**
+     * The first checkout for a key, shared by every duplicate that arrives while it runs.
+     */
+    private static final class Execution {
+        private final String fingerprint;
+        private final LocalDateTime createdAt;
+        private final CompletableFuture<RentalAgreementDTO> result = new CompletableFuture<>();
+
+        private Execution(String fingerprint, LocalDateTime createdAt) {
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(LocalDateTime cutoff) {
+            return result.isDone() && createdAt.isBefore(cutoff);
+        }
+    }
+}
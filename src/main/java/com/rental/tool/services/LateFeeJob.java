@@ -0,0 +1,473 @@
+package com.rental.tool.services;
+
+import com.rental.tool.config.shard.ShardDataSources;
+import com.rental.tool.config.shard.ShardRouter;
+import com.rental.tool.config.shard.StoreContext;
+import com.rental.tool.entities.ToolCharge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.rental.tool.utility.PricingUtils.calculateChargeDays;
+
+/**
+ * Nightly batch job that charges late fees on overdue rentals: rentals whose due date has passed
+ * and whose tool has not been returned, or was returned after the due date.
+ * <p>
+ * A late fee is the tool's daily rental charge for each day after the due date that is chargeable
+ * under the tool's weekday/weekend/holiday rules, the same rules that price a checkout. Fees are
+ * written to {@code late_fee} incrementally: a run for business date D charges each rental from the
+ * day after its last charged day (or its due date) through D, or through its return date if that
+ * is earlier. Running the same date again, or an earlier date after a later one, charges nothing twice.
+ * <p>
+ * A run splits the rental ID range into {@code rental.late-fees.partitions} partitions, recorded in
+ * {@code late_fee_partition} and processed by {@code rental.late-fees.threads} workers. A worker
+ * reads its partition in chunks of {@code rental.late-fees.chunk-size} rentals by ascending ID, and
+ * commits each chunk's fees together with the partition's checkpoint, so a run restarted after a
+ * crash or a failure continues from the last committed chunk. Rentals are read with plain JDBC and
+ * fees are written with batched inserts, so memory stays at one chunk per worker.
+ * <p>
+ * The run for a business date is claimed through its {@code late_fee_job} row, so only one instance
+ * runs it. The row's heartbeat is refreshed while the run is in progress; a run whose heartbeat is
+ * older than {@code rental.late-fees.stale-after-minutes}, or that failed, is taken over by the
+ * next instance to start or by the next nightly run.
+ * <p>
+ * Each shard keeps the job tables for its own rentals; the nightly run and the resume after
+ * startup go through the shards one after another.
+ */
+@Service
+public class LateFeeJob {
+    private static final Logger logger = LoggerFactory.getLogger(LateFeeJob.class);
+
+    static final String RUNNING = "RUNNING";
+    static final String COMPLETED = "COMPLETED";
+    static final String FAILED = "FAILED";
+    static final String PENDING = "PENDING";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${rental.late-fees.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rental.late-fees.partitions:16}")
+    private int partitions;
+
+    @Value("${rental.late-fees.threads:4}")
+    private int threads;
+
+    @Value("${rental.late-fees.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${rental.late-fees.stale-after-minutes:10}")
+    private long staleAfterMinutes;
+
+    // One run at a time on this instance
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Outcome of a run.
+     *
+     * @param jobId        the {@code late_fee_job} row, or -1 if the run was not started
+     * @param status       COMPLETED or FAILED, or the status of a run that could not be claimed
+     * @param rentalsRead  overdue rentals read by this run, including before a restart
+     * @param feesWritten  late fee rows written by this run, including before a restart
+     */
+    public record Result(long jobId, String status, long rentalsRead, long feesWritten) {
+    }
+
+    /**
+     * Resumes any run that did not complete, then charges late days through yesterday, on every shard.
+     */
+    @Scheduled(cron = "${rental.late-fees.cron:0 30 1 * * *}")
+    public void runNightly() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate businessDate = LocalDate.now().minusDays(1);
+        shardDataSources.forEachShard(shard -> {
+            resumeIncomplete();
+            run(businessDate);
+        });
+    }
+
+    /**
+     * Resumes, in the background, runs that an instance crashed or failed in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeAfterStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread resume = new Thread(() -> shardDataSources.forEachShard(shard -> resumeIncomplete()), "late-fee-resume");
+        resume.setDaemon(true);
+        resume.start();
+    }
+
+    /**
+     * Runs every run of the current shard that has not completed, oldest first. Runs still alive on
+     * another instance are left alone.
+     */
+    public void resumeIncomplete() {
+        try {
+            List<LocalDate> incomplete = jdbcTemplate.queryForList(
+                    "select business_date from late_fee_job where status <> ? order by business_date", LocalDate.class, COMPLETED);
+            for (LocalDate businessDate : incomplete) {
+                run(businessDate);
+            }
+        } catch (RuntimeException ex) {
+            logger.error("Could not resume late fee runs on shard {}", shardRouter.currentShard(), ex);
+        }
+    }
+
+    /**
+     * Charges late fees on the current shard's rentals overdue on the business date, resuming the
+     * date's run from its checkpoints if it was started before.
+     *
+     * @param businessDate the last day charged
+     * @return the outcome; a run that completed earlier or is alive on another instance is not rerun
+     */
+    public Result run(LocalDate businessDate) {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Late fee run for {} skipped, another run is in progress on this instance", businessDate);
+            return new Result(-1, RUNNING, 0, 0);
+        }
+        try {
+            Long jobId = claim(businessDate);
+            if (jobId == null) {
+                String status = jdbcTemplate.queryForObject("select status from late_fee_job where business_date = ?",
+                        String.class, businessDate);
+                logger.info("Late fee run for {} not started, it is {}", businessDate, status);
+                return new Result(-1, status, 0, 0);
+            }
+            return execute(jobId, businessDate);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * @return the run's ID if this instance now owns it, or null if it completed or is alive elsewhere
+     */
+    private Long claim(LocalDate businessDate) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> existing = jdbcTemplate.queryForList("select id from late_fee_job where business_date = ?", Long.class, businessDate);
+        if (existing.isEmpty()) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    KeyHolder keyHolder = new GeneratedKeyHolder();
+                    jdbcTemplate.update(connection -> {
+                        PreparedStatement statement = connection.prepareStatement(
+                                "insert into late_fee_job (business_date, status, started_at, heartbeat_at) values (?, ?, ?, ?)",
+                                Statement.RETURN_GENERATED_KEYS);
+                        statement.setObject(1, businessDate);
+                        statement.setString(2, RUNNING);
+                        statement.setObject(3, now);
+                        statement.setObject(4, now);
+                        return statement;
+                    }, keyHolder);
+                    long jobId = keyHolder.getKey().longValue();
+                    createPartitions(jobId, now);
+                    return jobId;
+                });
+            } catch (DuplicateKeyException ex) {
+                // Another instance created it first
+                return null;
+            }
+        }
+        long jobId = existing.get(0);
+        int claimed = jdbcTemplate.update("update late_fee_job set status = ?, heartbeat_at = ? where id = ?"
+                        + " and (status = ? or (status = ? and heartbeat_at < ?))",
+                RUNNING, now, jobId, FAILED, RUNNING, now.minusMinutes(staleAfterMinutes));
+        if (claimed == 0) {
+            return null;
+        }
+        logger.info("Resuming late fee run {} for {} from its checkpoints", jobId, businessDate);
+        return jobId;
+    }
+
+    /**
+     * Splits the current rental ID range into equal partitions. Rentals created later are checkouts
+     * that cannot be overdue yet.
+     */
+    private void createPartitions(long jobId, LocalDateTime now) {
+        Map<String, Object> range = jdbcTemplate.queryForMap("select min(rental_id) as first_id, max(rental_id) as last_id from rental");
+        if (range.get("first_id") == null) {
+            return;
+        }
+        long firstId = ((Number) range.get("first_id")).longValue();
+        long lastId = ((Number) range.get("last_id")).longValue();
+        long width = Math.max(1, (lastId - firstId + partitions) / partitions);
+        List<Object[]> rows = new ArrayList<>();
+        int partitionNo = 0;
+        for (long start = firstId; start <= lastId; start += width) {
+            long end = Math.min(lastId, start + width - 1);
+            rows.add(new Object[]{jobId, partitionNo++, start, end, start - 1, PENDING, now});
+        }
+        jdbcTemplate.batchUpdate("insert into late_fee_partition (job_id, partition_no, first_id, last_id, checkpoint_id, status, updated_at)"
+                + " values (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private Result execute(long jobId, LocalDate businessDate) {
+        long start = System.nanoTime();
+        // Workers have no store context of their own
+        int shard = shardRouter.currentShard();
+        Map<String, ToolCharge> charges = loadToolCharges();
+        List<Partition> pending = jdbcTemplate.query(
+                "select partition_no, last_id, checkpoint_id from late_fee_partition where job_id = ? and status = ? order by partition_no",
+                (rs, rowNum) -> new Partition(rs.getInt("partition_no"), rs.getLong("last_id"), rs.getLong("checkpoint_id")),
+                jobId, PENDING);
+        logger.info("Late fee run {} for {} on shard {}: {} partitions to process with {} threads",
+                jobId, businessDate, shard, pending.size(), threads);
+
+        AtomicLong rentalsRead = new AtomicLong();
+        AtomicLong feesWritten = new AtomicLong();
+        AtomicInteger failedPartitions = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, pending.size())), new WorkerThreadFactory());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Partition partition : pending) {
+                futures.add(workers.submit(() -> {
+                    try {
+                        StoreContext.runOnShard(shard,
+                                () -> processPartition(jobId, partition, businessDate, charges, rentalsRead, feesWritten));
+                    } catch (RuntimeException ex) {
+                        failedPartitions.incrementAndGet();
+                        logger.error("Late fee run {} partition {} failed after rental {}; it resumes from there on restart",
+                                jobId, partition.partitionNo, partition.checkpointId, ex);
+                    }
+                }));
+            }
+            awaitWithHeartbeat(jobId, futures);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        String status = failedPartitions.get() == 0 ? COMPLETED : FAILED;
+        jdbcTemplate.update("update late_fee_job set status = ?, heartbeat_at = ?, finished_at = ? where id = ?",
+                status, LocalDateTime.now(), COMPLETED.equals(status) ? LocalDateTime.now() : null, jobId);
+        Map<String, Object> totals = jdbcTemplate.queryForMap(
+                "select coalesce(sum(rentals_read), 0) as rentals_read, coalesce(sum(fees_written), 0) as fees_written"
+                        + " from late_fee_partition where job_id = ?", jobId);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Late fee run {} for {} on shard {} {} in {} ms: {} overdue rentals read, {} fees written ({} and {} in this attempt)",
+                jobId, businessDate, shard, status, elapsedMs, totals.get("rentals_read"), totals.get("fees_written"),
+                rentalsRead.get(), feesWritten.get());
+        return new Result(jobId, status, ((Number) totals.get("rentals_read")).longValue(),
+                ((Number) totals.get("fees_written")).longValue());
+    }
+
+    /**
+     * Waits for the workers, refreshing the run's heartbeat so other instances do not take it over.
+     */
+    private void awaitWithHeartbeat(long jobId, List<Future<?>> futures) {
+        long heartbeatMs = Math.max(1000, TimeUnit.MINUTES.toMillis(staleAfterMinutes) / 3);
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get(heartbeatMs, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException ex) {
+                    jdbcTemplate.update("update late_fee_job set heartbeat_at = ? where id = ?", LocalDateTime.now(), jobId);
+                } catch (ExecutionException ex) {
+                    break;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for late fee run " + jobId, ex);
+                }
+            }
+        }
+    }
+
+    private void processPartition(long jobId, Partition partition, LocalDate businessDate, Map<String, ToolCharge> charges,
+                                  AtomicLong rentalsRead, AtomicLong feesWritten) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        while (!Thread.currentThread().isInterrupted()) {
+            Chunk chunk = transactionTemplate.execute(status -> processChunk(jobId, partition, businessDate, charges));
+            rentalsRead.addAndGet(chunk.rentalsRead);
+            feesWritten.addAndGet(chunk.feesWritten);
+            if (chunk.last) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Charges the next chunk of the partition and moves its checkpoint past it, in one transaction.
+     */
+    private Chunk processChunk(long jobId, Partition partition, LocalDate businessDate, Map<String, ToolCharge> charges) {
+        List<OverdueRental> rentals = jdbcTemplate.query(
+                "select rental_id, tool_code, daily_charge, due_date, returned_date from rental"
+                        + " where rental_id > ? and rental_id <= ? and due_date < ? and (returned_date is null or returned_date > due_date)"
+                        + " order by rental_id limit ?",
+                (rs, rowNum) -> new OverdueRental(rs.getLong("rental_id"), rs.getString("tool_code"), rs.getBigDecimal("daily_charge"),
+                        rs.getObject("due_date", LocalDate.class), rs.getObject("returned_date", LocalDate.class)),
+                partition.checkpointId, partition.lastId, businessDate, chunkSize);
+        LocalDateTime now = LocalDateTime.now();
+        if (rentals.isEmpty()) {
+            advance(jobId, partition, partition.lastId, 0, 0, COMPLETED, now);
+            return new Chunk(0, 0, true);
+        }
+
+        long firstRentalId = rentals.get(0).rentalId;
+        long lastRentalId = rentals.get(rentals.size() - 1).rentalId;
+        Map<Long, LocalDate> chargedThrough = new HashMap<>();
+        jdbcTemplate.query("select rental_id, max(through_date) as through_date from late_fee where rental_id between ? and ? group by rental_id",
+                rs -> {
+                    chargedThrough.put(rs.getLong("rental_id"), rs.getObject("through_date", LocalDate.class));
+                }, firstRentalId, lastRentalId);
+
+        List<Object[]> fees = new ArrayList<>();
+        for (OverdueRental rental : rentals) {
+            ToolCharge toolCharge = charges.get(rental.toolCode);
+            if (toolCharge == null) {
+                logger.warn("Rental {} is overdue but tool {} has no charge; no late fee charged", rental.rentalId, rental.toolCode);
+                continue;
+            }
+            LateFee fee = lateFee(toolCharge, rental.dailyCharge, rental.dueDate, rental.returnedDate, chargedThrough.get(rental.rentalId), businessDate);
+            if (fee != null) {
+                fees.add(new Object[]{rental.rentalId, fee.fromDate, fee.throughDate, fee.chargeDays, fee.amount, jobId, now});
+            }
+        }
+        if (!fees.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into late_fee (rental_id, from_date, through_date, charge_days, amount, job_id, created_at)"
+                    + " values (?, ?, ?, ?, ?, ?, ?)", fees);
+        }
+        boolean last = rentals.size() < chunkSize || lastRentalId >= partition.lastId;
+        advance(jobId, partition, last ? partition.lastId : lastRentalId, rentals.size(), fees.size(), last ? COMPLETED : PENDING, now);
+        return new Chunk(rentals.size(), fees.size(), last);
+    }
+
+    /**
+     * Moves the partition's checkpoint. The update only applies if the checkpoint is still where this
+     * worker read from; otherwise another instance processed the chunk and this one is rolled back.
+     */
+    private void advance(long jobId, Partition partition, long checkpointId, int rentalsRead, int feesWritten, String status,
+                         LocalDateTime now) {
+        int updated = jdbcTemplate.update("update late_fee_partition set checkpoint_id = ?, status = ?, rentals_read = rentals_read + ?,"
+                        + " fees_written = fees_written + ?, updated_at = ? where job_id = ? and partition_no = ? and checkpoint_id = ?",
+                checkpointId, status, rentalsRead, feesWritten, now, jobId, partition.partitionNo, partition.checkpointId);
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Late fee run " + jobId + " partition " + partition.partitionNo
+                    + " was advanced past rental " + partition.checkpointId + " by another worker");
+        }
+        partition.checkpointId = checkpointId;
+    }
+
+    /**
+     * Computes the late fee not yet charged for a rental.
+     *
+     * @param toolCharge     the charge rules of the rental's tool
+     * @param dailyCharge    the daily charge the rental was priced at, or null to use the tool's catalog charge
+     * @param dueDate        the rental's due date
+     * @param returnedDate   when the tool was returned, or null if it is still out
+     * @param chargedThrough the last day already charged, or null if none was
+     * @param businessDate   the last day to charge
+     * @return the fee, or null if there are no chargeable days left to charge
+     */
+    static LateFee lateFee(ToolCharge toolCharge, BigDecimal dailyCharge, LocalDate dueDate, LocalDate returnedDate,
+                           LocalDate chargedThrough, LocalDate businessDate) {
+        LocalDate after = chargedThrough != null && chargedThrough.isAfter(dueDate) ? chargedThrough : dueDate;
+        LocalDate through = returnedDate != null && returnedDate.isBefore(businessDate) ? returnedDate : businessDate;
+        if (!through.isAfter(after)) {
+            return null;
+        }
+        int chargeDays = calculateChargeDays(toolCharge, after, through);
+        if (chargeDays == 0) {
+            return null;
+        }
+        // Late days cost what the rental's own days cost; rentals from before demand pricing have no daily charge
+        BigDecimal rate = dailyCharge != null ? dailyCharge : toolCharge.getDailyRentalCharge();
+        BigDecimal amount = rate.multiply(BigDecimal.valueOf(chargeDays));
+        return new LateFee(after.plusDays(1), through, chargeDays, amount);
+    }
+
+    private Map<String, ToolCharge> loadToolCharges() {
+        Map<String, ToolCharge> charges = new HashMap<>();
+        jdbcTemplate.query("select tool_code, daily_rental_charge, weekday_charge, weekend_charge, holiday_charge from tool_charge",
+                rs -> {
+                    charges.put(rs.getString("tool_code"), ToolCharge.builder()
+                            .dailyRentalCharge(rs.getBigDecimal("daily_rental_charge"))
+                            .weekdayCharge(rs.getBoolean("weekday_charge"))
+                            .weekendCharge(rs.getBoolean("weekend_charge"))
+                            .holidayCharge(rs.getBoolean("holiday_charge"))
+                            .build());
+                });
+        return charges;
+    }
+
+    record LateFee(LocalDate fromDate, LocalDate throughDate, int chargeDays, BigDecimal amount) {
+    }
+
+    private record OverdueRental(long rentalId, String toolCode, BigDecimal dailyCharge, LocalDate dueDate, LocalDate returnedDate) {
+    }
+
+    private record Chunk(int rentalsRead, int feesWritten, boolean last) {
+    }
+
+    private static final class Partition {
+        private final int partitionNo;
+        private final long lastId;
+        // Last rental ID committed; only touched by the partition's worker
+        private long checkpointId;
+
+        private Partition(int partitionNo, long lastId, long checkpointId) {
+            this.partitionNo = partitionNo;
+            this.lastId = lastId;
+            this.checkpointId = checkpointId;
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "late-fee-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
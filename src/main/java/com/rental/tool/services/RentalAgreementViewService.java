@@ -0,0 +1,181 @@
+package com.rental.tool.services;
+
+import com.rental.tool.config.shard.StoreContext;
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.entities.Rental;
+import com.rental.tool.entities.RentalAgreementView;
+import com.rental.tool.exception.ResourceNotFoundException;
+import com.rental.tool.mapper.RentalMapper;
+import com.rental.tool.repository.RentalAgreementViewRepository;
+import com.rental.tool.repository.RentalRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves {@code GET /api/rentals/{id}} from the {@code rental_agreement_view} read model, and
+ * holds the one cache of agreements, which {@link AgreementRenderService} renders from.
+ * <p>
+ * A checkout hands over the agreement it already mapped, which is cached and queued for one
+ * background writer, so the checkout does not wait for the extra insert. Reads are answered from
+ * the cache of the {@code rental.agreement-view.cache-size} most recently used agreements, else
+ * by one primary key read of the view. Rentals without a view row, checked out before the view
+ * existed, replayed from the journal, or whose write was dropped because the queue was full, are
+ * read once from {@code rental} with their tool and added to the view.
+ * <p>
+ * An agreement is the terms fixed at checkout. A return or a late fee does not change it; those
+ * are kept in {@code rental.returned_date} and {@code late_fee}, so neither the cache nor the view
+ * goes stale. Rental IDs are only unique within a shard, and several stores can share a shard, so
+ * agreements are looked up and cached by store and written on the store's shard.
+ */
+@Service
+public class RentalAgreementViewService {
+    private static final Logger logger = LoggerFactory.getLogger(RentalAgreementViewService.class);
+
+    @Autowired
+    private RentalAgreementViewRepository rentalAgreementViewRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private RentalMapper rentalMapper;
+
+    private final Map<String, CachedAgreement> agreements;
+    // One writer, so view inserts queue behind each other instead of taking connections from checkouts
+    private final ThreadPoolExecutor writer;
+
+    public RentalAgreementViewService(@Value("${rental.agreement-view.cache-size:10000}") int cacheSize,
+                                      @Value("${rental.agreement-view.queue-capacity:10000}") int queueCapacity) {
+        // Access-ordered, so the least recently requested agreement is dropped first
+        this.agreements = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedAgreement> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "agreement-view-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A dropped row is rebuilt from the rental on its first read
+                (runnable, executor) -> logger.warn("Agreement view write queue is full, dropping a view write"));
+    }
+
+    /**
+     * Caches the agreement of a committed checkout and queues it for the view. Call after the
+     * rental's transaction commits.
+     *
+     * @param rentalId  the id of the persisted rental
+     * @param agreement the agreement returned to the client at checkout
+     */
+    public void record(Long rentalId, RentalAgreementDTO agreement) {
+        if (rentalId == null) {
+            return;
+        }
+        String store = StoreContext.currentStore();
+        agreements.put(key(store, rentalId), new CachedAgreement(agreement));
+        write(RentalAgreementView.of(rentalId, store, agreement));
+    }
+
+    /**
+     * Returns the agreement of a rental.
+     *
+     * @param rentalId the id of the rental
+     * @return the agreement as returned at checkout
+     * @throws ResourceNotFoundException if the current store has no rental with this id
+     */
+    public RentalAgreementDTO find(Long rentalId) {
+        return load(rentalId).dto;
+    }
+
+    /**
+     * Returns the cached agreement of a rental of the current store, loading it on a miss.
+     *
+     * @param rentalId the id of the rental
+     * @return the agreement with the renderings made of it so far
+     * @throws ResourceNotFoundException if the current store has no rental with this id
+     */
+    CachedAgreement load(Long rentalId) {
+        String store = StoreContext.currentStore();
+        String key = key(store, rentalId);
+        CachedAgreement cached = agreements.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Concurrent misses for the same rental may both load it; the result is identical
+        RentalAgreementDTO agreement = rentalAgreementViewRepository.findByRentalIdAndStoreId(rentalId, store)
+                .map(RentalAgreementView::toAgreement)
+                .orElse(null);
+        if (agreement == null) {
+            Rental rental = rentalRepository.findWithToolByIdAndStoreId(rentalId, store)
+                    .orElseThrow(() -> new ResourceNotFoundException("Rental not found with id: " + rentalId));
+            agreement = rentalMapper.toRentalAgreementDTO(rental);
+            logger.debug("Agreement of rental {} of store {} not in the view, adding it", rentalId, store);
+            write(RentalAgreementView.of(rentalId, store, agreement));
+        }
+        cached = new CachedAgreement(agreement);
+        agreements.put(key, cached);
+        return cached;
+    }
+
+    private void write(RentalAgreementView view) {
+        writer.execute(() -> {
+            try {
+                // Routed to the shard of the rental's store
+                StoreContext.runInStore(view.getStoreId(), () -> rentalAgreementViewRepository.save(view));
+            } catch (RuntimeException ex) {
+                logger.warn("Agreement view of rental {} of store {} not written, it is rebuilt on its next read: {}",
+                        view.getRentalId(), view.getStoreId(), ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Writes the queued view rows before shutdown.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        writer.shutdown();
+        if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("{} agreement view writes dropped at shutdown", writer.shutdownNow().size());
+        }
+    }
+
+    int size() {
+        return agreements.size();
+    }
+
+    private static String key(String store, Long rentalId) {
+        return store + ':' + rentalId;
+    }
+
+    /**
+     * An agreement and the renderings produced for it so far.
+     */
+    static final class CachedAgreement {
+        private final RentalAgreementDTO dto;
+        private final Map<AgreementRenderService.Format, String> rendered = new ConcurrentHashMap<>(2);
+
+        private CachedAgreement(RentalAgreementDTO dto) {
+            this.dto = dto;
+        }
+
+        String render(AgreementRenderService.Format format) {
+            return rendered.computeIfAbsent(format, f -> AgreementRenderService.renderAgreement(dto, f));
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.rental.tool.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.config.shard.StoreContext;
+import com.rental.tool.entities.Rental;
+import com.rental.tool.events.RentalCreatedEvent;
+import com.rental.tool.events.RentalEventRelay;
+import com.rental.tool.repository.RentalRepository;
+import com.rental.tool.repository.ToolRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Durable local journal of rentals accepted while the database was unavailable.
+ * <p>
+ * Each provisional rental is appended as one JSON line and forced to disk before the checkout
+ * returns, so it survives a restart. A scheduled replay writes pending entries to the {@code rental}
+ * table, each in one transaction with its audit entry, once the database is reachable again, and
+ * then compacts them out of the file. Replayed rentals carry their journal id under a unique index, so an entry replayed
+ * twice (for example after a crash during compaction) is only stored once.
+ */
+@Service
+public class RentalJournal {
+    private static final Logger logger = LoggerFactory.getLogger(RentalJournal.class);
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RentalEventRelay rentalEventRelay;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${rental.journal.path:data/rental-journal.ndjson}")
+    private String journalPath;
+
+    private Path path;
+    private FileChannel channel;
+    private int pending;
+
+    /**
+     * Opens the journal, counting entries left pending by a previous run.
+     */
+    @PostConstruct
+    public synchronized void open() {
+        try {
+            path = Paths.get(journalPath);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            pending = readEntries().size();
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (pending > 0) {
+                logger.warn("Rental journal {} has {} provisional rentals waiting to be replayed", path, pending);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open rental journal " + journalPath, ex);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Durably records a provisional rental.
+     *
+     * @param rental   the priced, unsaved rental
+     * @param username the user who checked it out
+     * @return the journal id assigned to the rental
+     * @throws UncheckedIOException if the entry cannot be written to disk
+     */
+    public String append(Rental rental, String username) {
+        Entry entry = new Entry();
+        entry.setJournalId(UUID.randomUUID().toString());
+        entry.setToolCode(rental.getTool().getToolCode());
+        entry.setRentalDays(rental.getRentalDays());
+        entry.setCheckoutDate(rental.getCheckoutDate());
+        entry.setDueDate(rental.getDueDate());
+        entry.setDiscountPercent(rental.getDiscountPercent());
+        entry.setDailyCharge(rental.getDailyCharge());
+        entry.setChargeDays(rental.getChargeDays());
+        entry.setWeekdayCharge(rental.getWeekdayCharge());
+        entry.setWeekendCharge(rental.getWeekendCharge());
+        entry.setHolidayCharge(rental.getHolidayCharge());
+        entry.setPreDiscountCharge(rental.getPreDiscountCharge());
+        entry.setDiscountAmount(rental.getDiscountAmount());
+        entry.setFinalCharge(rental.getFinalCharge());
+        entry.setUsername(username);
+        entry.setStoreId(rental.getStoreId());
+        entry.setCreatedAt(LocalDateTime.now());
+
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(entry) + '\n').getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize rental journal entry", ex);
+        }
+        synchronized (this) {
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                pending++;
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot write rental journal " + path, ex);
+            }
+        }
+        logger.warn("Provisional rental {} for tool {} journaled; {} pending", entry.getJournalId(), entry.getToolCode(), getPendingCount());
+        return entry.getJournalId();
+    }
+
+    /**
+     * Returns the number of journaled rentals not yet written to the database.
+     *
+     * @return pending entries
+     */
+    public synchronized int getPendingCount() {
+        return pending;
+    }
+
+    /**
+     * Writes pending entries to the database in journal order, stopping at the first failure, and
+     * removes the written ones from the journal.
+     */
+    @Scheduled(fixedDelayString = "${rental.journal.replay-interval-ms:10000}")
+    public void replay() {
+        List<Entry> entries;
+        synchronized (this) {
+            if (pending == 0) {
+                return;
+            }
+            entries = readEntries();
+        }
+
+        Set<String> replayed = new HashSet<>();
+        for (Entry entry : entries) {
+            try {
+                persist(entry);
+                replayed.add(entry.getJournalId());
+            } catch (RuntimeException ex) {
+                logger.warn("Rental journal replay stopped, {} entries still pending: {}", entries.size() - replayed.size(), ex.getMessage());
+                break;
+            }
+        }
+        if (!replayed.isEmpty()) {
+            compact(replayed);
+            logger.info("Replayed {} provisional rentals from the rental journal", replayed.size());
+        }
+    }
+
+    // On the shard of the entry's store, where the checkout would have written it
+    private void persist(Entry entry) {
+        StoreContext.runInStore(entry.getStoreId(), () -> persistInStore(entry));
+    }
+
+    // The rental, its audit entry and its event are stored together, so a failed audit leaves the entry to replay
+    private void persistInStore(Entry entry) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> saveWithAudit(entry));
+    }
+
+    // Does nothing if the entry was already stored by an earlier replay
+    private void saveWithAudit(Entry entry) {
+        if (rentalRepository.existsByJournalId(entry.getJournalId())) {
+            return;
+        }
+        Rental rental = new Rental();
+        rental.setTool(toolRepository.getReferenceById(entry.getToolCode()));
+        rental.setRentalDays(entry.getRentalDays());
+        rental.setCheckoutDate(entry.getCheckoutDate());
+        rental.setDueDate(entry.getDueDate());
+        rental.setDiscountPercent(entry.getDiscountPercent());
+        rental.setDailyCharge(entry.getDailyCharge());
+        rental.setChargeDays(entry.getChargeDays());
+        rental.setWeekdayCharge(entry.getWeekdayCharge());
+        rental.setWeekendCharge(entry.getWeekendCharge());
+        rental.setHolidayCharge(entry.getHolidayCharge());
+        rental.setPreDiscountCharge(entry.getPreDiscountCharge());
+        rental.setDiscountAmount(entry.getDiscountAmount());
+        rental.setFinalCharge(entry.getFinalCharge());
+        rental.setJournalId(entry.getJournalId());
+        rental.setStoreId(StoreContext.currentStore());
+        rentalRepository.save(rental);
+        auditService.logAudit(entry.getJournalId(), entry.getUsername(), true,
+                "Provisional rental recorded from journal for toolCode: " + entry.getToolCode());
+        // Created for consumers with the rental, carrying its journal id
+        rentalEventRelay.enqueue(RentalCreatedEvent.of(rental, entry.getUsername()));
+    }
+
+    // Rewrites the journal without the replayed entries; entries appended meanwhile are kept
+    private synchronized void compact(Set<String> replayed) {
+        try {
+            List<Entry> remaining = new ArrayList<>();
+            for (Entry entry : readEntries()) {
+                if (!replayed.contains(entry.getJournalId())) {
+                    remaining.add(entry);
+                }
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Entry entry : remaining) {
+                    out.write(ByteBuffer.wrap((objectMapper.writeValueAsString(entry) + '\n').getBytes(StandardCharsets.UTF_8)));
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            pending = remaining.size();
+        } catch (IOException ex) {
+            // Replayed entries stay in the file; the unique journal id makes replaying them again harmless
+            logger.error("Failed to compact rental journal {}: {}", path, ex.getMessage());
+        }
+    }
+
+    private List<Entry> readEntries() {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    entries.add(objectMapper.readValue(line, Entry.class));
+                } catch (JsonProcessingException ex) {
+                    // A torn last line from a crash mid-append; the checkout never returned for it
+                    logger.error("Skipping unreadable rental journal entry: {}", ex.getMessage());
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read rental journal " + path, ex);
+        }
+        return entries;
+    }
+
+    /**
+     * One journaled rental, priced at checkout time.
+     */
+    @Data
+    public static class Entry {
+        private String journalId;
+        private String toolCode;
+        private int rentalDays;
+        private LocalDate checkoutDate;
+        private LocalDate dueDate;
+        private BigDecimal discountPercent;
+        // Null in entries journaled before demand pricing
+        private BigDecimal dailyCharge;
+        // Null in entries journaled before charge days and rules were recorded
+        private Integer chargeDays;
+        private Boolean weekdayCharge;
+        private Boolean weekendCharge;
+        private Boolean holidayCharge;
+        private BigDecimal preDiscountCharge;
+        private BigDecimal discountAmount;
+        private BigDecimal finalCharge;
+        private String username;
+        // Null for the default store in entries journaled before stores existed
+        private String storeId;
+        private LocalDateTime createdAt;
+    }
+}
@@ -1,10 +1,21 @@
 package com.rental.tool.services;
 
+import com.rental.tool.config.jfr.CheckoutEvent;
+import com.rental.tool.config.metrics.CheckoutMetrics;
+import com.rental.tool.config.metrics.CheckoutMetrics.Stage;
+import com.rental.tool.config.security.SecurityUtils;
+import com.rental.tool.config.shard.StoreContext;
 import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.dto.request.RentalRequest;
 import com.rental.tool.entities.Rental;
 import com.rental.tool.entities.Tool;
-import com.rental.tool.entities.ToolCharge;
+import com.rental.tool.events.RentalCreatedEvent;
+import com.rental.tool.events.RentalEventRelay;
+import com.rental.tool.exception.CatalogUnavailableException;
+import com.rental.tool.exception.InvalidRentalRequestException;
+import com.rental.tool.exception.ResourceNotFoundException;
 import com.rental.tool.exception.ToolNotFoundException;
+import com.rental.tool.exception.ToolUnavailableException;
 import com.rental.tool.mapper.RentalMapper;
 import com.rental.tool.repository.RentalRepository;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
@@ -12,15 +23,19 @@ import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 
-import static com.rental.tool.utility.HolidayUtils.isHoliday;
+import static com.rental.tool.utility.PricingUtils.priceRental;
+import static com.rental.tool.utility.PricingUtils.validateRentalInput;
 
 
 @Service
@@ -42,6 +57,30 @@ public class RentalService {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private ToolInventoryService toolInventoryService;
+
+    @Autowired
+    private ToolAvailabilityIndex toolAvailabilityIndex;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private RentalJournal rentalJournal;
+
+    @Autowired
+    private CheckoutMetrics checkoutMetrics;
+
+    @Autowired
+    private DemandPricingService demandPricingService;
+
+    @Autowired
+    private RentalEventRelay rentalEventRelay;
+
+    @Autowired
+    private RentalAgreementViewService rentalAgreementViewService;
+
     /**
      * Creates a rental entry for a given tool, calculating charges and applying discounts.
      *
@@ -54,49 +93,46 @@ public class RentalService {
     @CircuitBreaker(name = "rentalService", fallbackMethod = "createRentalFallback")
     @Transactional
     public Rental createRental(String toolCode, int rentalDays, BigDecimal discountPercent, LocalDate checkoutDate) {
-        validateInput(toolCode, rentalDays, discountPercent, checkoutDate);
-
-
-        Tool tool = toolService.getToolFromCache(toolCode);
-        ToolCharge toolCharge = tool.getToolCharge();
-        if (toolCharge == null) {
-            throw new ToolNotFoundException("Tool charge information is missing for tool with code: " + toolCode);
-        }
-        Rental rental = new Rental();
-        rental.setTool(tool);
-        rental.setRentalDays(rentalDays);
-        rental.setCheckoutDate(checkoutDate);
-        rental.setDiscountPercent(discountPercent);
-
-        LocalDate dueDate = checkoutDate.plusDays(rentalDays);
-        rental.setDueDate(dueDate);
-
-        int chargeDays = calculateChargeDays(toolCharge, checkoutDate, dueDate);
-        // Check for possible null values in Tool object
-        BigDecimal dailyRentalCharge = toolCharge.getDailyRentalCharge();
-        if (dailyRentalCharge == null) {
-            throw new IllegalStateException("Daily rental charge cannot be null for the tool");
+        // Recorded only while a flight recording with this event enabled is running
+        CheckoutEvent checkoutEvent = new CheckoutEvent();
+        checkoutEvent.begin();
+        checkoutEvent.toolCode = toolCode;
+        checkoutEvent.rentalDays = rentalDays;
+        try {
+            Rental savedRental = priceAndSaveRental(toolCode, rentalDays, discountPercent, checkoutDate);
+            checkoutEvent.chargeDays = savedRental.getChargeDays() != null ? savedRental.getChargeDays() : 0;
+            checkoutEvent.outcome = "success";
+            return savedRental;
+        } catch (RuntimeException ex) {
+            checkoutEvent.outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            checkoutEvent.commit();
         }
+    }
 
-        BigDecimal preDiscountCharge = dailyRentalCharge.multiply(BigDecimal.valueOf(chargeDays));
-        logger.info("preDiscountCharge: {}", preDiscountCharge);
+    private Rental priceAndSaveRental(String toolCode, int rentalDays, BigDecimal discountPercent, LocalDate checkoutDate) {
+        checkoutMetrics.time(Stage.VALIDATE, () -> validateRentalInput(toolCode, rentalDays, discountPercent, checkoutDate));
 
-        rental.setPreDiscountCharge(preDiscountCharge);
-        BigDecimal discountAmount = preDiscountCharge
-                                                    .multiply(discountPercent)
-                                                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-        logger.info("discountAmount: {}", discountAmount);
-        rental.setDiscountAmount(discountAmount);
 
-        BigDecimal finalCharge = preDiscountCharge.subtract(discountAmount);
-        logger.info("finalCharge: {}", finalCharge);
-        rental.setFinalCharge(finalCharge);
+        Tool tool = checkoutMetrics.time(Stage.CATALOG, () -> toolService.getToolFromCache(toolCode));
+        Rental rental = checkoutMetrics.time(Stage.PRICE,
+                () -> priceRental(tool, rentalDays, discountPercent, checkoutDate, demandPricingService.multiplierFor(toolCode)));
+        rental.setStoreId(StoreContext.currentStore());
+        BigDecimal preDiscountCharge = rental.getPreDiscountCharge();
+        BigDecimal discountAmount = rental.getDiscountAmount();
+        BigDecimal finalCharge = rental.getFinalCharge();
+        logger.debug("preDiscountCharge: {}", preDiscountCharge);
+        logger.debug("discountAmount: {}", discountAmount);
+        logger.debug("finalCharge: {}", finalCharge);
         // Save the rental and handle possible null rental repository
         if (rentalRepository == null) {
             throw new IllegalStateException("Rental repository is not initialized");
         }
         logger.info("Creating rental for tool code: {}, rental days: {}, discount percent: {}", toolCode, rentalDays, discountPercent);
         logger.info("Saving rental with pre-discount charge: {}, discount amount: {}, final charge: {}", preDiscountCharge, discountAmount, finalCharge);
+        // Book the date range and take a unit of stock; both are returned if the transaction does not commit
+        checkoutMetrics.time(Stage.RESERVE, () -> settleWithTransaction(reserveUnit(toolCode, checkoutDate, rental.getDueDate()), rental));
         // Save rental to the repository
         // Save the rental using EntityManager to force flush and detect issues
 //        entityManager.persist(rental);
@@ -104,50 +140,174 @@ public class RentalService {
 //        logger.debug("Rental object after saving: {}", rental);
 
         //return rental;
-        Rental savedRental = rentalRepository.save(rental);
+        // A reference, because persisting with the detached cached tool makes Hibernate select it to check it exists
+        rental.setTool(entityManager.getReference(Tool.class, toolCode));
+        Rental savedRental = checkoutMetrics.time(Stage.SAVE, () -> rentalRepository.save(rental));
+        // Inserted already (identity key); detached, the rental can carry the cached tool without Hibernate re-reading it on flush
+        entityManager.detach(savedRental);
+        savedRental.setTool(tool);
         logger.info("Rental saved with ID: {}", savedRental.getRental_id());
+        // Committed or rolled back with the rental, so consumers get every rental and never one that was rolled back
+        rentalEventRelay.enqueue(RentalCreatedEvent.of(savedRental, SecurityUtils.getCurrentUsername()));
         return savedRental;
     }
+
+    /**
+     * Runs work once the current transaction commits, or straight away outside a transaction.
+     *
+     * @param work the work to run
+     */
+    private static void afterCommit(Runnable work) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    work.run();
+                }
+            });
+        } else {
+            work.run();
+        }
+    }
+
+    /**
+     * Fallback for a sold-out tool. Running out of stock is a normal business outcome, not a
+     * service failure, so it is passed on to the caller instead of producing a fallback rental.
+     *
+     * @param toolCode        the code of the tool to be rented
+     * @param rentalDays      the number of days the tool will be rented
+     * @param discountPercent the discount percent applied to the rental
+     * @param checkoutDate    the date of checkout for the rental
+     * @param ex              the sold-out exception
+     * @return never returns normally
+     */
+    public Rental createRentalFallback(String toolCode, int rentalDays, BigDecimal discountPercent, LocalDate checkoutDate, ToolUnavailableException ex) {
+        throw ex;
+    }
+
     /**
      * Fallback method for createRental, invoked if the circuit breaker is triggered
      * due to a failure in accessing the main services.
+     * <p>
+     * The rental is priced from the last catalog snapshot, booked in the in-memory availability
+     * index and inventory, and written to the local {@link RentalJournal} instead of the database.
+     * It is returned marked provisional and recorded in the {@code rental} table when the journal
+     * is replayed. Invalid input is not a service failure and is passed on unchanged.
      *
      * @param toolCode        the code of the tool to be rented
      * @param rentalDays      the number of days the tool will be rented
      * @param discountPercent the discount percent applied to the rental
      * @param checkoutDate    the date of checkout for the rental
      * @param ex              the exception that caused the fallback
-     * @return a Rental object with default values to indicate fallback state
+     * @return a provisional Rental priced from the catalog snapshot
+     * @throws CatalogUnavailableException if the tool is not in a recent enough catalog snapshot
      */
-    @Transactional
     public Rental createRentalFallback(String toolCode, int rentalDays, BigDecimal discountPercent, LocalDate checkoutDate, Throwable ex) {
+        if (ex instanceof InvalidRentalRequestException || ex instanceof ToolNotFoundException || ex instanceof ResourceNotFoundException) {
+            throw (RuntimeException) ex;
+        }
         logger.error("Circuit breaker triggered for createRental with toolCode {}, rentalDays {}, due to exception: {}",
                 toolCode, rentalDays, ex.getMessage());
-        logger.error("Fallback: Circuit breaker triggered for createRental due to: {}", ex.getMessage());
-
-        // Construct a fallback Rental object
-        Rental fallbackRental = new Rental();
 
-        // Set known values for the fallback object
-        fallbackRental.setTool(null); // Tool cannot be fetched, so set to null
-        fallbackRental.setRentalDays(rentalDays);
-        fallbackRental.setCheckoutDate(checkoutDate);
-        fallbackRental.setDiscountPercent(discountPercent);
-
-        // Set charges to zero as the actual tool data couldn't be retrieved
-        fallbackRental.setPreDiscountCharge(BigDecimal.ZERO);
-        fallbackRental.setDiscountAmount(BigDecimal.ZERO);
-        fallbackRental.setFinalCharge(BigDecimal.ZERO);
+        Tool tool = catalogSnapshotService.getTool(toolCode).orElse(null);
+        if (tool == null) {
+            checkoutMetrics.fallback("no_snapshot", ex);
+            throw new CatalogUnavailableException(
+                    "Checkout is temporarily unavailable: no recent catalog snapshot for tool " + toolCode, ex);
+        }
+        Rental rental = priceRental(tool, rentalDays, discountPercent, checkoutDate, demandPricingService.multiplierFor(toolCode));
+        rental.setStoreId(StoreContext.currentStore());
+        rental.setProvisional(true);
+
+        UnitReservation reservation = reserveUnit(toolCode, checkoutDate, rental.getDueDate());
+        try {
+            rental.setJournalId(rentalJournal.append(rental, SecurityUtils.getCurrentUsername()));
+        } catch (RuntimeException journalFailure) {
+            reservation.release();
+            checkoutMetrics.fallback("journal_failure", ex);
+            throw new CatalogUnavailableException("Checkout is temporarily unavailable: " + journalFailure.getMessage(), journalFailure);
+        }
+        reservation.confirm(rental);
+        checkoutMetrics.fallback("snapshot", ex);
 
-        // Mark due date based on checkout date + rental days
-        LocalDate fallbackDueDate = checkoutDate.plusDays(rentalDays);
-        fallbackRental.setDueDate(fallbackDueDate);
+        logger.warn("Rental creation fallback invoked for toolCode {}. Provisional rental {} priced from catalog snapshot of {}, final charge: {}",
+                toolCode, rental.getJournalId(), catalogSnapshotService.getTakenAt(), rental.getFinalCharge());
+        return rental;
+    }
 
-        // Log the return of fallback rental object
-        logger.warn("Rental creation fallback invoked for toolCode {}. Returning default Rental object with zero charges.", toolCode);
+    /**
+     * Books the rental's date range in the availability index and, for a rental starting today,
+     * takes one unit from the in-memory inventory. The caller settles the returned reservation.
+     *
+     * @param toolCode     the code of the tool being checked out
+     * @param checkoutDate the first day of the rental
+     * @param dueDate      the last day of the rental
+     * @return the reservation to confirm or release
+     * @throws ToolUnavailableException if the tool is fully booked in the range or sold out today
+     */
+    private UnitReservation reserveUnit(String toolCode, LocalDate checkoutDate, LocalDate dueDate) {
+        Long bookingId = toolAvailabilityIndex.tryBook(toolCode, checkoutDate, dueDate);
+        if (bookingId == null) {
+            throw new ToolUnavailableException("Tool " + toolCode + " is fully booked between " + checkoutDate + " and " + dueDate);
+        }
+        boolean startsToday = !checkoutDate.isAfter(LocalDate.now());
+        if (startsToday && !toolInventoryService.tryReserve(toolCode)) {
+            toolAvailabilityIndex.release(toolCode, bookingId);
+            throw new ToolUnavailableException("No units of tool " + toolCode + " are available for checkout");
+        }
+        return new UnitReservation(toolCode, bookingId, dueDate, startsToday);
+    }
 
+    /**
+     * Ties a reservation to the current transaction: confirmed on commit and released on rollback.
+     *
+     * @param reservation the reservation taken for the rental being saved
+     * @param rental      the rental being saved, which has its id by the time the transaction commits
+     */
+    private void settleWithTransaction(UnitReservation reservation, Rental rental) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        reservation.confirm(rental);
+                    } else {
+                        reservation.release();
+                    }
+                }
+            });
+        } else {
+            reservation.confirm(rental);
+        }
+    }
 
-        return fallbackRental;
+    /**
+     * Prices a rental without persisting it or writing an audit entry. The quote uses the same
+     * catalog cache, pricing rules and demand multipliers as {@link #createRental}, so a quote and
+     * the subsequent checkout for the same input agree unless the multipliers are refreshed in between.
+     *
+     * @param toolCode        the code of the tool to be quoted
+     * @param rentalDays      the number of days the tool would be rented
+     * @param discountPercent the discount percent applied to the rental
+     * @param checkoutDate    the date of checkout for the rental
+     * @return the RentalAgreementDTO the checkout would produce
+     */
+    public RentalAgreementDTO quoteRental(String toolCode, int rentalDays, BigDecimal discountPercent, LocalDate checkoutDate) {
+        validateRentalInput(toolCode, rentalDays, discountPercent, checkoutDate);
+        Tool tool;
+        boolean provisional = false;
+        try {
+            tool = toolService.getToolFromCache(toolCode);
+        } catch (DataAccessException | TransactionException ex) {
+            // Keep quoting through a database outage from the last known catalog
+            tool = catalogSnapshotService.getTool(toolCode).orElseThrow(() -> new CatalogUnavailableException(
+                    "Quote is temporarily unavailable: no recent catalog snapshot for tool " + toolCode, ex));
+            provisional = true;
+        }
+        Rental rental = priceRental(tool, rentalDays, discountPercent, checkoutDate, demandPricingService.multiplierFor(toolCode));
+        rental.setProvisional(provisional);
+        logger.info("Quoted tool code: {}, rental days: {}, final charge: {}", toolCode, rentalDays, rental.getFinalCharge());
+        return rentalMapper.toRentalAgreementDTO(rental);
     }
 
     /**
@@ -161,10 +321,9 @@ public class RentalService {
      * @return the mapped RentalAgreementDTO
      */
     public RentalAgreementDTO processRentalAgreement(Rental rental, String toolCode, LocalDate checkoutDate, String transactionId, String username) {
-        logger.info("processRentalAgreement Executed: {} ",rental.toString());
-        logger.info("processRentalAgreement Executed: ");
-        // Fetch tool from the toolService based on toolCode
-        Tool tool = toolService.getToolFromCache(toolCode);
+        logger.debug("processRentalAgreement executed for rental {}", rental.getRental_id());
+        // Fetch tool from the toolService based on toolCode; a provisional rental already carries its snapshot tool
+        Tool tool = rental.isProvisional() ? rental.getTool() : toolService.getToolFromCache(toolCode);
         // Check if the tool exists
         if (tool == null) {
             throw new ToolNotFoundException("Tool not found for code: " + toolCode);
@@ -172,62 +331,132 @@ public class RentalService {
         // Set the fetched tool to the rental entity
         rental.setTool(tool);
 
-        logger.info("Before mapping - Pre-discount charge: {}, Discount amount: {}, Final charge: {}",
+        logger.debug("Before mapping - Pre-discount charge: {}, Discount amount: {}, Final charge: {}",
                 rental.getPreDiscountCharge(), rental.getDiscountAmount(), rental.getFinalCharge());
 
         // Use the RentalMapper to map the Rental entity to RentalAgreementDTO
-        RentalAgreementDTO rentalAgreement = rentalMapper.toRentalAgreementDTO(rental);
+        RentalAgreementDTO rentalAgreement = checkoutMetrics.time(Stage.MAP, () -> rentalMapper.toRentalAgreementDTO(rental));
 
-        // Print the rental agreement to the console
-        rentalAgreement.printAgreement();
+        // Kept for GET /api/rentals/{id} and its rendering, and written to the read model in the background;
+        // a provisional rental has no id yet
+        if (!rental.isProvisional()) {
+            afterCommit(() -> rentalAgreementViewService.record(rental.getRental_id(), rentalAgreement));
+        }
 
         // Log the transaction
         logger.info("Audit Log: checkoutTool requested for toolCode: {}, checkoutDate: {}", toolCode, checkoutDate);
 
-        // Log successful audit
-        auditService.logAudit(transactionId, username, true, "Transaction successful for toolCode: " + toolCode);
+        // Log successful audit; a provisional rental is audited when it is replayed from the journal
+        if (rental.isProvisional()) {
+            logger.warn("Provisional checkout {} for toolCode {} will be audited on journal replay", transactionId, toolCode);
+        } else {
+            checkoutMetrics.time(Stage.AUDIT,
+                    () -> auditService.logAudit(transactionId, username, true, "Transaction successful for toolCode: " + toolCode));
+        }
 
         return rentalAgreement;
     }
 
-    private void validateInput(String toolCode, int rentalDays, BigDecimal discountPercent, LocalDate checkoutDate) {
-        if (toolCode == null || toolCode.trim().isEmpty()) {
-            throw new ToolNotFoundException("Tool code cannot be null or empty");
-        }
-        if (checkoutDate == null) {
-            throw new ToolNotFoundException("Checkout date cannot be null");
-        }
-        if (discountPercent == null) {
-            throw new ToolNotFoundException("Discount percent cannot be null");
-        }
-        if (rentalDays < 1) {
-            throw new ToolNotFoundException("Rental days must be 1 or greater");
-        }
-        if (discountPercent.compareTo(BigDecimal.ZERO) < 0 || discountPercent.compareTo(BigDecimal.valueOf(100)) > 0) {
-            throw new ToolNotFoundException("Discount percent must be between 0 and 100");
+    /**
+     * Records that a rental's tool was brought back today. Days after the due date up to today are
+     * charged by the next run of {@link LateFeeJob}; no late fees accrue after it. Returning a
+     * rental again keeps the first return date.
+     * <p>
+     * When the return commits, the rental's booking is removed from the availability index and, if
+     * the rental had started, its unit goes back to the inventory, so the tool can be checked out
+     * again the same day.
+     *
+     * @param rentalId the id of the rental
+     * @return the rental with its return date
+     * @throws ResourceNotFoundException if the current store has no such rental
+     */
+    @Transactional
+    public Rental returnRental(Long rentalId) {
+        Rental rental = rentalRepository.findByIdAndStoreId(rentalId, StoreContext.currentStore())
+                .orElseThrow(() -> new ResourceNotFoundException("Rental not found for id: " + rentalId));
+        if (rental.getReturnedDate() == null) {
+            LocalDate today = LocalDate.now();
+            rental.setReturnedDate(today);
+            String toolCode = rental.getTool().getToolCode();
+            String storeId = rental.getStoreId();
+            // A rental returned before its checkout date never took a unit
+            boolean heldUnit = !rental.getCheckoutDate().isAfter(today);
+            afterCommit(() -> {
+                toolAvailabilityIndex.releaseRental(storeId, rentalId);
+                if (heldUnit) {
+                    toolInventoryService.returnUnit(toolCode);
+                }
+            });
+            logger.info("Rental {} returned on {}, due {}", rentalId, rental.getReturnedDate(), rental.getDueDate());
         }
+        return rental;
     }
-    private int calculateChargeDays(ToolCharge toolCharge, LocalDate checkoutDate, LocalDate dueDate) {
-        int chargeableDays = 0;
-        for (LocalDate date = checkoutDate.plusDays(1); !date.isAfter(dueDate); date = date.plusDays(1)) {
-            if (isChargeableDay(toolCharge, date)) {
-                chargeableDays++;
+
+    /**
+     * Checks out one line of a bulk checkout inside the caller's transaction, which the other
+     * lines of its batch share. Invalid input, unknown tools and fully booked tools are thrown
+     * before anything is written and leave the transaction usable for the next line. The unit
+     * reservation and the cached agreement only take effect if the transaction commits.
+     * <p>
+     * Unlike {@link #createRental}, there is no circuit breaker fallback: a database failure
+     * rolls back the whole batch instead of journaling provisional rentals.
+     *
+     * @param request       the rental to check out
+     * @param transactionId the transaction ID for the audit entry
+     * @param username      the user submitting the bulk checkout
+     * @return the rental agreement, valid once the transaction commits
+     */
+    @Transactional(propagation = Propagation.MANDATORY,
+            noRollbackFor = {InvalidRentalRequestException.class, ToolNotFoundException.class, ResourceNotFoundException.class,
+                    ToolUnavailableException.class})
+    public RentalAgreementDTO checkoutInBatch(RentalRequest request, String transactionId, String username) {
+        String toolCode = request.getToolCode();
+        Rental rental = priceAndSaveRental(toolCode, request.getRentalDays(), request.getDiscountPercent(), request.getCheckoutDate());
+        RentalAgreementDTO rentalAgreement = checkoutMetrics.time(Stage.MAP, () -> rentalMapper.toRentalAgreementDTO(rental));
+        checkoutMetrics.time(Stage.AUDIT,
+                () -> auditService.logAudit(transactionId, username, true, "Transaction successful for toolCode: " + toolCode));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rentalAgreementViewService.record(rental.getRental_id(), rentalAgreement);
             }
-        }
-        return chargeableDays;
+        });
+        return rentalAgreement;
     }
 
-    private boolean isChargeableDay(ToolCharge toolCharge, LocalDate date) {
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        boolean isWeekend = (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY);
-        boolean isHoliday = isHoliday(date);
+    /**
+     * A booking in the availability index plus, for a rental starting today, one inventory unit.
+     */
+    private final class UnitReservation {
+        private final String toolCode;
+        private final long bookingId;
+        private final LocalDate dueDate;
+        private final boolean holdsUnit;
+
+        private UnitReservation(String toolCode, long bookingId, LocalDate dueDate, boolean holdsUnit) {
+            this.toolCode = toolCode;
+            this.bookingId = bookingId;
+            this.dueDate = dueDate;
+            this.holdsUnit = holdsUnit;
+        }
 
-        if (isHoliday && !toolCharge.isHolidayCharge()) {
-            return false;
+        // Also the point a checkout is counted as demand: after commit, or once journaled in the fallback
+        private void confirm(Rental rental) {
+            if (holdsUnit) {
+                toolInventoryService.confirm(toolCode);
+            }
+            demandPricingService.recordCheckout(toolCode);
+            // A journaled rental has no id until it is replayed
+            if (rental.getRental_id() != null) {
+                toolAvailabilityIndex.bind(rental.getStoreId(), rental.getRental_id(), toolCode, bookingId, dueDate);
+            }
         }
-        if (isWeekend && !toolCharge.isWeekendCharge()) {
-            return false;
+
+        private void release() {
+            toolAvailabilityIndex.release(toolCode, bookingId);
+            if (holdsUnit) {
+                toolInventoryService.release(toolCode);
+            }
         }
-        return toolCharge.isWeekdayCharge();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,224 @@
+package com.rental.tool.services;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of date ranges booked for a single tool, used by {@link ToolAvailabilityIndex}.
+ * <p>
+ * Ranges are closed intervals of epoch days kept sorted by start day, with a max-end segment tree
+ * over them: a range ending on day d leaves day d + 1 free. An overlap query binary-searches the
+ * last range starting on or before the query end, then descends only into subtrees whose maximum
+ * end reaches the query start. Finding the k overlapping ranges visits O((k + 1) log n) nodes, and
+ * sorting them for the sweep adds O(k log k) time and O(k) scratch space.
+ * <p>
+ * Every modification returns a new instance, which lets readers use a snapshot without locking.
+ * The price is on the write side: {@link #with}, {@link #without} and {@link #withoutEndedBefore}
+ * copy the arrays and rebuild the tree, O(n) time and space for n booked ranges. A schedule only
+ * holds one tool's current and future bookings, so n stays in the tens.
+ */
+public final class ReservationSchedule {
+
+    public static final ReservationSchedule EMPTY = new ReservationSchedule(new long[0], new int[0], new int[0]);
+
+    private final long[] ids;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEndTree;
+
+    private ReservationSchedule(long[] ids, int[] starts, int[] ends) {
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEndTree = new int[Math.max(1, 4 * ids.length)];
+        if (ids.length > 0) {
+            build(1, 0, ids.length - 1);
+        }
+    }
+
+    /**
+     * Returns the number of booked ranges.
+     *
+     * @return the number of ranges in this schedule
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns a schedule with one more booked range.
+     *
+     * @param id    identifier used to remove the range later
+     * @param start first booked epoch day, inclusive
+     * @param end   last booked epoch day, inclusive
+     * @return the new schedule
+     */
+    public ReservationSchedule with(long id, int start, int end) {
+        int n = ids.length;
+        int position = upperBound(start);
+        long[] newIds = new long[n + 1];
+        int[] newStarts = new int[n + 1];
+        int[] newEnds = new int[n + 1];
+        System.arraycopy(ids, 0, newIds, 0, position);
+        System.arraycopy(starts, 0, newStarts, 0, position);
+        System.arraycopy(ends, 0, newEnds, 0, position);
+        newIds[position] = id;
+        newStarts[position] = start;
+        newEnds[position] = end;
+        System.arraycopy(ids, position, newIds, position + 1, n - position);
+        System.arraycopy(starts, position, newStarts, position + 1, n - position);
+        System.arraycopy(ends, position, newEnds, position + 1, n - position);
+        return new ReservationSchedule(newIds, newStarts, newEnds);
+    }
+
+    /**
+     * Returns a schedule without the range of the given id, or this schedule if it is not present.
+     *
+     * @param id identifier passed to {@link #with}
+     * @return the new schedule
+     */
+    public ReservationSchedule without(long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return new ReservationSchedule(remove(ids, i), remove(starts, i), remove(ends, i));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns a schedule without the ranges that ended before the given day.
+     *
+     * @param day first epoch day still of interest
+     * @return the new schedule
+     */
+    public ReservationSchedule withoutEndedBefore(int day) {
+        int kept = 0;
+        for (int end : ends) {
+            if (end >= day) {
+                kept++;
+            }
+        }
+        if (kept == ids.length) {
+            return this;
+        }
+        long[] newIds = new long[kept];
+        int[] newStarts = new int[kept];
+        int[] newEnds = new int[kept];
+        int j = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (ends[i] >= day) {
+                newIds[j] = ids[i];
+                newStarts[j] = starts[i];
+                newEnds[j] = ends[i];
+                j++;
+            }
+        }
+        return new ReservationSchedule(newIds, newStarts, newEnds);
+    }
+
+    /**
+     * Returns the largest number of ranges booked on any single day within [from, to].
+     *
+     * @param from first epoch day of the query, inclusive
+     * @param to   last epoch day of the query, inclusive
+     * @return peak concurrent bookings in the query range, 0 if the tool is free throughout
+     */
+    public int peakOverlap(int from, int to) {
+        int candidates = upperBound(to);
+        if (candidates == 0) {
+            return 0;
+        }
+        int found = count(1, 0, ids.length - 1, candidates - 1, from);
+        if (found <= 1) {
+            return found;
+        }
+        int[] clippedStarts = new int[found];
+        int[] clippedEnds = new int[found];
+        collect(1, 0, ids.length - 1, candidates - 1, from, to, clippedStarts, clippedEnds, 0);
+        Arrays.sort(clippedStarts, 0, found);
+        Arrays.sort(clippedEnds, 0, found);
+        int peak = 0;
+        int current = 0;
+        int s = 0;
+        int e = 0;
+        while (s < found) {
+            if (clippedStarts[s] <= clippedEnds[e]) {
+                current++;
+                s++;
+                peak = Math.max(peak, current);
+            } else {
+                current--;
+                e++;
+            }
+        }
+        return peak;
+    }
+
+    private void build(int node, int low, int high) {
+        if (low == high) {
+            maxEndTree[node] = ends[low];
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        build(2 * node, low, mid);
+        build(2 * node + 1, mid + 1, high);
+        maxEndTree[node] = Math.max(maxEndTree[2 * node], maxEndTree[2 * node + 1]);
+    }
+
+    // Number of ranges in positions [0, last] that end on or after 'from'
+    private int count(int node, int low, int high, int last, int from) {
+        if (low > last || maxEndTree[node] < from) {
+            return 0;
+        }
+        if (low == high) {
+            return 1;
+        }
+        int mid = (low + high) >>> 1;
+        return count(2 * node, low, mid, last, from) + count(2 * node + 1, mid + 1, high, last, from);
+    }
+
+    // Collects ranges in positions [0, last] that end on or after 'from', clipped to [from, to]
+    private int collect(int node, int low, int high, int last, int from, int to,
+                        int[] clippedStarts, int[] clippedEnds, int count) {
+        if (low > last || maxEndTree[node] < from) {
+            return count;
+        }
+        if (low == high) {
+            clippedStarts[count] = Math.max(starts[low], from);
+            clippedEnds[count] = Math.min(ends[low], to);
+            return count + 1;
+        }
+        int mid = (low + high) >>> 1;
+        count = collect(2 * node, low, mid, last, from, to, clippedStarts, clippedEnds, count);
+        return collect(2 * node + 1, mid + 1, high, last, from, to, clippedStarts, clippedEnds, count);
+    }
+
+    // Number of ranges whose start is on or before the given day
+    private int upperBound(int day) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long[] remove(long[] values, int index) {
+        long[] result = new long[values.length - 1];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+        return result;
+    }
+
+    private static int[] remove(int[] values, int index) {
+        int[] result = new int[values.length - 1];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+        return result;
+    }
+}
@@ -0,0 +1,199 @@
+package com.rental.tool.services;
+
+import com.rental.tool.config.shard.ShardDataSources;
+import com.rental.tool.dto.ToolAvailabilityDTO;
+import com.rental.tool.repository.RentalRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory date-range availability index. Every rental, current or future, is a booked range
+ * [checkout date, due date] in its tool's {@link ReservationSchedule}. The index is built from the
+ * {@code rental} tables of all shards at startup and updated on each checkout and return, so "is JAKD free from 07/02 to
+ * 07/09?" and "which tools are free for range X?" are answered without SQL. A returned rental frees
+ * its booking on the day it comes back; when built, an overdue one still out ends today.
+ * <p>
+ * Bookings are admitted against the tool's on-hand units from {@link ToolInventoryService}. Each
+ * tool's schedule is swapped with a compare-and-set, so there are no locks on either path.
+ */
+@Service
+public class ToolAvailabilityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ToolAvailabilityIndex.class);
+
+    private final Map<String, AtomicReference<ReservationSchedule>> schedules = new ConcurrentHashMap<>();
+    private final AtomicLong bookingSequence = new AtomicLong();
+    // Booking of each committed rental, by store and rental id, so a return can release it
+    private final Map<String, RentalBooking> rentalBookings = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private ToolInventoryService toolInventoryService;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    /**
+     * Builds the per-tool schedules from all rentals that have not ended yet.
+     */
+    @PostConstruct
+    public void loadSchedules() {
+        logger.info("Building tool availability index from rentals.");
+        Map<String, ReservationSchedule> loaded = new HashMap<>();
+        AtomicInteger count = new AtomicInteger();
+        // Units are shared by all stores, so bookings of every shard compete for them
+        shardDataSources.forEachShard(shard -> {
+            for (Object[] row : rentalRepository.findBookedRanges(LocalDate.now())) {
+                String toolCode = (String) row[0];
+                int start = (int) ((LocalDate) row[1]).toEpochDay();
+                int end = (int) ((LocalDate) row[2]).toEpochDay();
+                long bookingId = bookingSequence.incrementAndGet();
+                ReservationSchedule schedule = loaded.getOrDefault(toolCode, ReservationSchedule.EMPTY);
+                loaded.put(toolCode, schedule.with(bookingId, start, end));
+                rentalBookings.put(rentalKey((String) row[3], ((Number) row[4]).longValue()), new RentalBooking(toolCode, bookingId, end));
+                count.incrementAndGet();
+            }
+        });
+        loaded.forEach((toolCode, schedule) -> schedules.put(toolCode, new AtomicReference<>(schedule)));
+        for (String toolCode : toolInventoryService.getTrackedToolCodes()) {
+            scheduleOf(toolCode);
+        }
+        logger.info("Tool availability index built with {} bookings for {} tools.", count.get(), schedules.size());
+    }
+
+    /**
+     * Books the range for the tool if at least one unit is free on every day of it.
+     *
+     * @param toolCode     The code of the tool to book.
+     * @param checkoutDate First day of the booking.
+     * @param dueDate      Last day of the booking.
+     * @return a booking id to pass to {@link #release}, or null if the tool is fully booked in the range
+     */
+    public Long tryBook(String toolCode, LocalDate checkoutDate, LocalDate dueDate) {
+        int start = (int) checkoutDate.toEpochDay();
+        int end = (int) dueDate.toEpochDay();
+        Integer capacity = toolInventoryService.getOnHand(toolCode);
+        long bookingId = bookingSequence.incrementAndGet();
+        AtomicReference<ReservationSchedule> reference = scheduleOf(toolCode);
+        for (;;) {
+            ReservationSchedule current = reference.get();
+            if (capacity != null && current.peakOverlap(start, end) >= capacity) {
+                return null;
+            }
+            if (reference.compareAndSet(current, current.with(bookingId, start, end))) {
+                return bookingId;
+            }
+        }
+    }
+
+    /**
+     * Removes a booking whose rental was not persisted.
+     *
+     * @param toolCode  The code of the booked tool.
+     * @param bookingId The id returned by {@link #tryBook}.
+     */
+    public void release(String toolCode, long bookingId) {
+        AtomicReference<ReservationSchedule> reference = schedules.get(toolCode);
+        if (reference != null) {
+            reference.updateAndGet(schedule -> schedule.without(bookingId));
+        }
+    }
+
+    /**
+     * Records which rental a booking was made for, once the rental is committed.
+     *
+     * @param storeId   The store of the rental.
+     * @param rentalId  The id of the rental.
+     * @param toolCode  The code of the booked tool.
+     * @param bookingId The id returned by {@link #tryBook}.
+     * @param dueDate   Last day of the booking.
+     */
+    public void bind(String storeId, long rentalId, String toolCode, long bookingId, LocalDate dueDate) {
+        rentalBookings.put(rentalKey(storeId, rentalId), new RentalBooking(toolCode, bookingId, (int) dueDate.toEpochDay()));
+    }
+
+    /**
+     * Removes the booking of a returned rental. A rental replayed from the journal since startup
+     * has no recorded booking; it keeps its range until the booking ends or the index is rebuilt.
+     *
+     * @param storeId  The store of the rental.
+     * @param rentalId The id of the rental.
+     */
+    public void releaseRental(String storeId, long rentalId) {
+        RentalBooking booking = rentalBookings.remove(rentalKey(storeId, rentalId));
+        if (booking != null) {
+            release(booking.toolCode(), booking.bookingId());
+        }
+    }
+
+    /**
+     * Returns the availability of one tool over a date range.
+     *
+     * @param toolCode The code of the tool.
+     * @param from     First day of the range.
+     * @param to       Last day of the range.
+     * @return ToolAvailabilityDTO with on-hand, peak booked and free units
+     */
+    public ToolAvailabilityDTO getAvailability(String toolCode, LocalDate from, LocalDate to) {
+        AtomicReference<ReservationSchedule> reference = schedules.get(toolCode);
+        int peak = reference == null ? 0 : reference.get().peakOverlap((int) from.toEpochDay(), (int) to.toEpochDay());
+        return new ToolAvailabilityDTO(toolCode, from, to, toolInventoryService.getOnHand(toolCode), peak);
+    }
+
+    /**
+     * Lists the indexed tools that have at least one unit free on every day of the range.
+     *
+     * @param from First day of the range.
+     * @param to   Last day of the range.
+     * @return availability of the free tools, ordered by tool code
+     */
+    public List<ToolAvailabilityDTO> findAvailableTools(LocalDate from, LocalDate to) {
+        List<ToolAvailabilityDTO> available = new ArrayList<>();
+        for (String toolCode : new TreeSet<>(schedules.keySet())) {
+            ToolAvailabilityDTO availability = getAvailability(toolCode, from, to);
+            if (availability.isFree()) {
+                available.add(availability);
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Drops bookings that ended before today so schedules only hold current and future rentals.
+     */
+    @Scheduled(cron = "${rental.availability.prune-cron:0 5 0 * * *}")
+    public void pruneEndedBookings() {
+        int today = (int) LocalDate.now().toEpochDay();
+        schedules.values().forEach(reference -> reference.updateAndGet(schedule -> schedule.withoutEndedBefore(today)));
+        rentalBookings.values().removeIf(booking -> booking.end() < today);
+        logger.info("Pruned ended bookings from the tool availability index.");
+    }
+
+    private AtomicReference<ReservationSchedule> scheduleOf(String toolCode) {
+        return schedules.computeIfAbsent(toolCode, code -> new AtomicReference<>(ReservationSchedule.EMPTY));
+    }
+
+    // Rental ids are only unique within a shard, and each store lives on one shard
+    private static String rentalKey(String storeId, long rentalId) {
+        return storeId + '/' + rentalId;
+    }
+
+    private record RentalBooking(String toolCode, long bookingId, int end) {
+    }
+}
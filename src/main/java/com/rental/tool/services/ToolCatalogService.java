@@ -0,0 +1,274 @@
+package com.rental.tool.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.dto.CatalogToolDTO;
+import com.rental.tool.dto.ToolCatalogDTO;
+import com.rental.tool.dto.ToolSearchDTO;
+import com.rental.tool.dto.response.RentalResponse;
+import com.rental.tool.entities.Tool;
+import com.rental.tool.entities.ToolCharge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Versioned view of the tool catalog for {@code GET /api/tools}, rebuilt from each catalog snapshot.
+ * <p>
+ * A refreshed snapshot is compared with the current view tool by tool. If anything changed, the
+ * catalog gets a new version, each changed tool is stamped with it and each removed tool leaves a
+ * tombstone with it; otherwise the view, and every body already encoded for it, is kept. Versions
+ * are clock milliseconds, strictly increasing, so they also increase across restarts.
+ * <p>
+ * Response bodies are serialized, and gzipped when large enough, once per version (for the full
+ * catalog) or once per version and {@code since} (for deltas), so a polling client costs a map
+ * lookup. Change history starts at the first view this instance built: a {@code since} older than
+ * that, or newer than the current version, is answered with the full catalog.
+ * <p>
+ * Each version also gets a {@link ToolSearchIndex} for {@code GET /api/tools/search}, built along
+ * with it, so searches see the same catalog as the version they report.
+ */
+@Service
+public class ToolCatalogService {
+    private static final Logger logger = LoggerFactory.getLogger(ToolCatalogService.class);
+
+    // Below this, gzip saves too little to be worth a Content-Encoding
+    static final int MIN_GZIP_BYTES = 512;
+    // Polling clients are mostly one or two versions behind, so few distinct deltas are requested
+    private static final int MAX_CACHED_DELTAS = 32;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile Catalog catalog;
+
+    /**
+     * Returns the current catalog view.
+     *
+     * @return the catalog, or null if no snapshot has been published yet
+     */
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Publishes a freshly read catalog, bumping the version if any tool changed, appeared or
+     * disappeared since the last one.
+     *
+     * @param tools every tool of the catalog, with its charge rules
+     */
+    public synchronized void update(Collection<Tool> tools) {
+        Catalog previous = catalog;
+        long version = previous == null ? System.currentTimeMillis()
+                : Math.max(System.currentTimeMillis(), previous.version + 1);
+
+        Map<String, CatalogToolDTO> entries = new TreeMap<>();
+        boolean changed = previous == null;
+        for (Tool tool : tools) {
+            CatalogToolDTO entry = toEntry(tool);
+            CatalogToolDTO old = previous == null ? null : previous.entries.get(tool.getToolCode());
+            if (old != null) {
+                entry.setVersion(old.getVersion());
+            }
+            if (entry.equals(old)) {
+                entries.put(tool.getToolCode(), old);
+            } else {
+                entry.setVersion(version);
+                entries.put(tool.getToolCode(), entry);
+                changed = true;
+            }
+        }
+
+        Map<String, Long> removed = new TreeMap<>();
+        if (previous != null) {
+            previous.removed.forEach((code, removedIn) -> {
+                if (!entries.containsKey(code)) {
+                    removed.put(code, removedIn);
+                }
+            });
+            for (String code : previous.entries.keySet()) {
+                if (!entries.containsKey(code)) {
+                    removed.put(code, version);
+                    changed = true;
+                }
+            }
+        }
+
+        if (changed) {
+            long baseVersion = previous == null ? version : previous.baseVersion;
+            catalog = new Catalog(version, baseVersion, Collections.unmodifiableMap(entries),
+                    Collections.unmodifiableMap(removed));
+            logger.info("Tool catalog version {} published with {} tools", version, entries.size());
+        }
+    }
+
+    private static CatalogToolDTO toEntry(Tool tool) {
+        CatalogToolDTO entry = new CatalogToolDTO();
+        entry.setToolCode(tool.getToolCode());
+        entry.setToolType(tool.getToolType());
+        entry.setBrand(tool.getBrand());
+        ToolCharge charge = tool.getToolCharge();
+        if (charge != null) {
+            entry.setDailyRentalCharge(charge.getDailyRentalCharge());
+            entry.setWeekdayCharge(charge.isWeekdayCharge());
+            entry.setWeekendCharge(charge.isWeekendCharge());
+            entry.setHolidayCharge(charge.isHolidayCharge());
+        }
+        return entry;
+    }
+
+    private byte[] encode(ToolCatalogDTO dto) {
+        try {
+            return objectMapper.writeValueAsBytes(wrap(dto));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize tool catalog", ex);
+        }
+    }
+
+    /**
+     * Wraps a catalog or delta in the response envelope of the API.
+     *
+     * @param dto the catalog or delta
+     * @return the response body
+     */
+    public static RentalResponse<ToolCatalogDTO> wrap(ToolCatalogDTO dto) {
+        return new RentalResponse<>(HttpStatus.OK.value(), dto.isFull() ? "Tool catalog" : "Tool catalog changes", dto);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        if (body.length < MIN_GZIP_BYTES) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * One immutable version of the catalog, with the response bodies encoded for it so far.
+     */
+    public final class Catalog {
+        private final long version;
+        private final long baseVersion;
+        private final Map<String, CatalogToolDTO> entries;
+        private final Map<String, Long> removed;
+        private final ToolSearchIndex searchIndex;
+        private final Map<Long, Body> deltas = new ConcurrentHashMap<>();
+        private volatile Body full;
+
+        private Catalog(long version, long baseVersion, Map<String, CatalogToolDTO> entries, Map<String, Long> removed) {
+            this.version = version;
+            this.baseVersion = baseVersion;
+            this.entries = entries;
+            this.removed = removed;
+            this.searchIndex = new ToolSearchIndex(version, entries.values());
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Searches this version of the catalog.
+         *
+         * @param query the search filters
+         * @return the matching tools with their counts per type and brand
+         */
+        public ToolSearchDTO search(ToolSearchIndex.Query query) {
+            return searchIndex.search(query);
+        }
+
+        /**
+         * Returns the whole catalog, or only what changed after a version the client already has.
+         *
+         * @param since the client's catalog version, or null for the whole catalog
+         * @return the catalog or delta; a full catalog when this instance cannot tell what changed
+         */
+        public ToolCatalogDTO describe(Long since) {
+            if (since == null || since < baseVersion || since > version) {
+                return new ToolCatalogDTO(version, true, new ArrayList<>(entries.values()), List.of());
+            }
+            List<CatalogToolDTO> changed = new ArrayList<>();
+            for (CatalogToolDTO entry : entries.values()) {
+                if (entry.getVersion() > since) {
+                    changed.add(entry);
+                }
+            }
+            List<String> gone = new ArrayList<>();
+            removed.forEach((code, removedIn) -> {
+                if (removedIn > since) {
+                    gone.add(code);
+                }
+            });
+            return new ToolCatalogDTO(version, false, changed, gone);
+        }
+
+        /**
+         * Returns the JSON response body for {@link #describe(Long)}, encoded on first request.
+         *
+         * @param since the client's catalog version, or null for the whole catalog
+         * @return the encoded body
+         */
+        public Body body(Long since) {
+            if (since == null || since < baseVersion || since > version) {
+                Body body = full;
+                if (body == null) {
+                    // Concurrent first requests may both encode it; the result is identical
+                    body = new Body(encode(describe(null)));
+                    full = body;
+                }
+                return body;
+            }
+            Body body = deltas.get(since);
+            if (body == null) {
+                body = new Body(encode(describe(since)));
+                if (deltas.size() < MAX_CACHED_DELTAS) {
+                    deltas.put(since, body);
+                }
+            }
+            return body;
+        }
+    }
+
+    /**
+     * A JSON response body, with its gzip encoding when that is worth sending.
+     */
+    public static final class Body {
+        private final byte[] identity;
+        private final byte[] gzip;
+
+        Body(byte[] identity) {
+            this.identity = identity;
+            this.gzip = ToolCatalogService.gzip(identity);
+        }
+
+        public byte[] getIdentity() {
+            return identity;
+        }
+
+        /**
+         * @return the gzipped body, or null when the body is too small to compress
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+    }
+}
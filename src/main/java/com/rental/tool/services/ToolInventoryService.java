@@ -0,0 +1,278 @@
+package com.rental.tool.services;
+
+import com.rental.tool.config.shard.ShardDataSources;
+import com.rental.tool.entities.ToolInventory;
+import com.rental.tool.repository.RentalRepository;
+import com.rental.tool.repository.ToolInventoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service responsible for per-tool stock admission for rentals starting today. Availability is
+ * held in lock-free in-memory counters that are authoritative for checkout admission; the
+ * database only receives periodic snapshots, so a popular tool never turns into a row-lock hotspot.
+ * <p>
+ * A reservation moves through two steps: {@link #tryReserve} takes a unit when the checkout is
+ * admitted, then {@link #confirm} (rental committed) or {@link #release} (rental rolled back)
+ * settles it. A committed return puts its unit back with {@link #returnUnit}, and counters are
+ * periodically reconciled against the {@code rental} table to correct any drift. An overdue rental
+ * keeps its unit until it is returned.
+ * <p>
+ * Tools without a {@code tool_inventory} row are not stock-tracked and are always admitted.
+ * Stock is shared by all stores: {@code tool_inventory} is read and written on shard 0, and rentals
+ * of every shard count against it.
+ */
+@Service
+public class ToolInventoryService {
+    private static final Logger logger = LoggerFactory.getLogger(ToolInventoryService.class);
+
+    private final Map<String, InventoryCounter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    /**
+     * Builds the counters at application startup from the inventory table and outstanding rentals.
+     */
+    @PostConstruct
+    public void loadCounters() {
+        logger.info("Loading tool inventory counters.");
+        reconcile();
+        logger.info("{} tool inventory counters loaded.", counters.size());
+    }
+
+    /**
+     * Tries to take one unit of the tool for a checkout. Never blocks: a CAS loop on the
+     * tool's counter either decrements it or observes that it is sold out.
+     *
+     * @param toolCode The code of the tool being checked out.
+     * @return true if a unit was reserved (or the tool is not stock-tracked), false if sold out
+     */
+    public boolean tryReserve(String toolCode) {
+        InventoryCounter counter = counters.get(toolCode);
+        return counter == null || counter.tryReserve();
+    }
+
+    /**
+     * Settles a reservation whose rental was committed. The unit stays out until the rental is
+     * returned. Future-dated bookings are admitted by
+     * {@link ToolAvailabilityIndex} and do not take a unit here.
+     *
+     * @param toolCode The code of the reserved tool.
+     */
+    public void confirm(String toolCode) {
+        InventoryCounter counter = counters.get(toolCode);
+        if (counter != null) {
+            counter.confirm();
+        }
+    }
+
+    /**
+     * Returns the unit of a reservation whose rental was not persisted.
+     *
+     * @param toolCode The code of the reserved tool.
+     */
+    public void release(String toolCode) {
+        InventoryCounter counter = counters.get(toolCode);
+        if (counter != null) {
+            counter.release();
+        }
+    }
+
+    /**
+     * Puts back the unit of a committed rental returned while it was out.
+     *
+     * @param toolCode The code of the returned tool.
+     */
+    public void returnUnit(String toolCode) {
+        InventoryCounter counter = counters.get(toolCode);
+        if (counter != null) {
+            counter.returnUnit();
+        }
+    }
+
+    /**
+     * Returns the number of units currently available for admission.
+     *
+     * @param toolCode The code of the tool.
+     * @return available units, or null if the tool is not stock-tracked
+     */
+    public Integer getAvailable(String toolCode) {
+        InventoryCounter counter = counters.get(toolCode);
+        return counter == null ? null : Math.max(0, counter.available());
+    }
+
+    /**
+     * Returns the number of units the store owns.
+     *
+     * @param toolCode The code of the tool.
+     * @return units on hand, or null if the tool is not stock-tracked
+     */
+    public Integer getOnHand(String toolCode) {
+        InventoryCounter counter = counters.get(toolCode);
+        return counter == null ? null : counter.onHand;
+    }
+
+    /**
+     * Returns the codes of all stock-tracked tools.
+     *
+     * @return tracked tool codes
+     */
+    public Set<String> getTrackedToolCodes() {
+        return Collections.unmodifiableSet(counters.keySet());
+    }
+
+    /**
+     * Writes the counters that changed since the last flush back to {@code tool_inventory}.
+     * Runs off the request path; checkouts never wait on this write.
+     */
+    @Scheduled(fixedDelayString = "${rental.inventory.flush-interval-ms:5000}")
+    public void flushCounters() {
+        LocalDateTime now = LocalDateTime.now();
+        counters.forEach((toolCode, counter) -> {
+            if (counter.dirty.compareAndSet(true, false)) {
+                try {
+                    toolInventoryRepository.updateAvailable(toolCode, Math.max(0, counter.available()), now);
+                } catch (RuntimeException ex) {
+                    counter.dirty.set(true);
+                    logger.error("Failed to persist inventory counter for tool {}: {}", toolCode, ex.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Recomputes availability as on-hand units minus rentals out today (checked out on or before
+     * today and not returned yet) minus reservations whose transactions have not completed yet,
+     * and corrects any drift.
+     * <p>
+     * Checkouts keep reserving and confirming while the rentals are counted, so the counters are
+     * snapshotted first and corrected by a delta against that snapshot, never overwritten. A
+     * reservation pending at the snapshot, or taken after it, is held back even if its rental was
+     * already counted; that only underestimates availability until the next run.
+     */
+    @Scheduled(fixedDelayString = "${rental.inventory.reconcile-interval-ms:60000}",
+            initialDelayString = "${rental.inventory.reconcile-interval-ms:60000}")
+    public synchronized void reconcile() {
+        Map<String, Long> snapshots = new HashMap<>();
+        counters.forEach((toolCode, counter) -> snapshots.put(toolCode, counter.snapshot()));
+        Map<String, Integer> outstanding = new HashMap<>();
+        shardDataSources.forEachShard(shard -> {
+            for (Object[] row : rentalRepository.countOutstandingByToolCode(LocalDate.now())) {
+                outstanding.merge((String) row[0], ((Number) row[1]).intValue(), Integer::sum);
+            }
+        });
+        for (ToolInventory inventory : toolInventoryRepository.findAll()) {
+            String toolCode = inventory.getToolCode();
+            InventoryCounter counter = counters.computeIfAbsent(toolCode, code -> new InventoryCounter());
+            // A counter created just now had nothing reserved before the rentals were counted
+            long snapshot = snapshots.getOrDefault(toolCode, 0L);
+            int correction = counter.reconcile(inventory.getOnHand(), outstanding.getOrDefault(toolCode, 0), snapshot);
+            if (correction != 0) {
+                logger.info("Reconciled inventory for tool {}: available corrected by {} to {}",
+                        toolCode, correction, counter.available());
+            }
+        }
+    }
+
+    /**
+     * Availability counter for a single tool. Available units and pending reservations, whose
+     * rental transaction has not completed, share one word, so a reservation moves a unit from one
+     * to the other atomically and reconciliation sees both at the same instant. Available units are
+     * the high 32 bits and may go below zero after a correction; pending reservations are the low 32.
+     */
+    static final class InventoryCounter {
+        private static final long ONE_AVAILABLE = 1L << 32;
+
+        private final AtomicLong state = new AtomicLong();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private volatile int onHand;
+
+        static int available(long state) {
+            return (int) (state >> 32);
+        }
+
+        static int pending(long state) {
+            return (int) state;
+        }
+
+        int available() {
+            return available(state.get());
+        }
+
+        int pending() {
+            return pending(state.get());
+        }
+
+        long snapshot() {
+            return state.get();
+        }
+
+        boolean tryReserve() {
+            for (;;) {
+                long current = state.get();
+                if (available(current) <= 0) {
+                    return false;
+                }
+                if (state.compareAndSet(current, current - ONE_AVAILABLE + 1)) {
+                    dirty.set(true);
+                    return true;
+                }
+            }
+        }
+
+        void confirm() {
+            state.decrementAndGet();
+        }
+
+        void release() {
+            state.addAndGet(ONE_AVAILABLE - 1);
+            dirty.set(true);
+        }
+
+        void returnUnit() {
+            state.addAndGet(ONE_AVAILABLE);
+            dirty.set(true);
+        }
+
+        /**
+         * Corrects availability to on-hand units minus outstanding rentals minus the reservations
+         * pending at the snapshot or taken since. Reservations and releases since the snapshot
+         * moved the counter and the target alike, so the correction is fixed by the snapshot.
+         *
+         * @param onHand      units owned
+         * @param outstanding rentals out today, counted after the snapshot was taken
+         * @param snapshot    the state before the rentals were counted
+         * @return the correction applied
+         */
+        int reconcile(int onHand, int outstanding, long snapshot) {
+            this.onHand = onHand;
+            int correction = onHand - outstanding - pending(snapshot) - available(snapshot);
+            if (correction != 0) {
+                state.addAndGet(correction * ONE_AVAILABLE);
+                dirty.set(true);
+            }
+            return correction;
+        }
+    }
+}
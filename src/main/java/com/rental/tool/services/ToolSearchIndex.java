@@ -0,0 +1,277 @@
+package com.rental.tool.services;
+
+import com.rental.tool.dto.CatalogToolDTO;
+import com.rental.tool.dto.ToolSearchDTO;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable inverted index over one version of the tool catalog, for {@code GET /api/tools/search}.
+ * Built by {@link ToolCatalogService} with each catalog version, so it changes only when the
+ * catalog does.
+ * <p>
+ * Tools are numbered in tool code order. Each word of a tool's type and brand points to the
+ * sorted numbers of the tools it appears in; the words are kept sorted, so the words starting with
+ * a prefix are one contiguous run found by binary search. The charge rules are bit sets, and the
+ * daily charges are sorted once so a price range is two binary searches. A query intersects one
+ * bit set per filter and counts the matching types and brands as it reads off the results.
+ */
+public final class ToolSearchIndex {
+
+    private final long version;
+    private final CatalogToolDTO[] tools;
+    private final Field type;
+    private final Field brand;
+    // Tools with charge rules, and those among them charged on each kind of day
+    private final BitSet charged;
+    private final BitSet weekday;
+    private final BitSet weekend;
+    private final BitSet holiday;
+    // Numbers of the charged tools by ascending daily charge, and their charges in the same order
+    private final int[] byCharge;
+    private final BigDecimal[] charges;
+
+    /**
+     * @param version the catalog version
+     * @param entries the tools of the catalog version, in tool code order
+     */
+    public ToolSearchIndex(long version, Collection<CatalogToolDTO> entries) {
+        this.version = version;
+        tools = entries.toArray(new CatalogToolDTO[0]);
+        type = new Field(tools, CatalogToolDTO::getToolType);
+        brand = new Field(tools, CatalogToolDTO::getBrand);
+        charged = new BitSet(tools.length);
+        weekday = new BitSet(tools.length);
+        weekend = new BitSet(tools.length);
+        holiday = new BitSet(tools.length);
+        for (int i = 0; i < tools.length; i++) {
+            CatalogToolDTO tool = tools[i];
+            if (tool.getDailyRentalCharge() != null) {
+                charged.set(i);
+                weekday.set(i, Boolean.TRUE.equals(tool.getWeekdayCharge()));
+                weekend.set(i, Boolean.TRUE.equals(tool.getWeekendCharge()));
+                holiday.set(i, Boolean.TRUE.equals(tool.getHolidayCharge()));
+            }
+        }
+        byCharge = charged.stream()
+                .boxed()
+                .sorted(Comparator.comparing(i -> tools[i].getDailyRentalCharge()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        charges = Arrays.stream(byCharge).mapToObj(i -> tools[i].getDailyRentalCharge()).toArray(BigDecimal[]::new);
+    }
+
+    /**
+     * @return the number of tools indexed
+     */
+    public int size() {
+        return tools.length;
+    }
+
+    /**
+     * Finds the tools matching every filter of the query.
+     *
+     * @param query the filters; unset ones match every tool
+     * @return the first {@code limit} matches in tool code order, the number of matches, and the
+     *         matches per type and brand
+     */
+    public ToolSearchDTO search(Query query) {
+        BitSet matches = new BitSet(tools.length);
+        matches.set(0, tools.length);
+        and(matches, type.matching(query.getType()));
+        and(matches, brand.matching(query.getBrand()));
+        and(matches, charged(weekday, query.getWeekdayCharge()));
+        and(matches, charged(weekend, query.getWeekendCharge()));
+        and(matches, charged(holiday, query.getHolidayCharge()));
+        and(matches, chargedBetween(query.getMinDailyCharge(), query.getMaxDailyCharge()));
+
+        List<CatalogToolDTO> found = new ArrayList<>(Math.min(query.getLimit(), tools.length));
+        int[] typeCounts = new int[type.values.length];
+        int[] brandCounts = new int[brand.values.length];
+        int total = 0;
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            if (found.size() < query.getLimit()) {
+                found.add(tools[i]);
+            }
+            count(typeCounts, type.valueOf[i]);
+            count(brandCounts, brand.valueOf[i]);
+            total++;
+        }
+        return new ToolSearchDTO(version, total, found, type.facet(typeCounts), brand.facet(brandCounts));
+    }
+
+    private static void and(BitSet matches, BitSet filter) {
+        if (filter != null) {
+            matches.and(filter);
+        }
+    }
+
+    private static void count(int[] counts, int value) {
+        if (value >= 0) {
+            counts[value]++;
+        }
+    }
+
+    // Tools charged, or not charged, on a kind of day; tools without charge rules match neither
+    private BitSet charged(BitSet days, Boolean wanted) {
+        if (wanted == null) {
+            return null;
+        }
+        BitSet result = (BitSet) charged.clone();
+        if (wanted) {
+            result.and(days);
+        } else {
+            result.andNot(days);
+        }
+        return result;
+    }
+
+    private BitSet chargedBetween(BigDecimal min, BigDecimal max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        int from = min == null ? 0 : firstAtLeast(min, false);
+        int to = max == null ? charges.length : firstAtLeast(max, true);
+        BitSet result = new BitSet(tools.length);
+        for (int k = from; k < to; k++) {
+            result.set(byCharge[k]);
+        }
+        return result;
+    }
+
+    // Position of the first charge at least the bound, or above it when strict
+    private int firstAtLeast(BigDecimal bound, boolean strict) {
+        int low = 0;
+        int high = charges.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = charges[mid].compareTo(bound);
+            if (cmp < 0 || (strict && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String[] words(String text) {
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{Alnum}]+"))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * One indexed text field of the tools.
+     */
+    private static final class Field {
+        // Distinct values as written, and the value of each tool (-1 for none)
+        private final String[] values;
+        private final int[] valueOf;
+        // Distinct lower-case words of the values, sorted, and the sorted numbers of the tools containing each
+        private final String[] terms;
+        private final int[][] postings;
+        private final int size;
+
+        private Field(CatalogToolDTO[] tools, Function<CatalogToolDTO, String> getter) {
+            size = tools.length;
+            Map<String, Integer> valueIds = new HashMap<>();
+            Map<String, List<Integer>> toolsByTerm = new TreeMap<>();
+            valueOf = new int[tools.length];
+            for (int i = 0; i < tools.length; i++) {
+                String value = getter.apply(tools[i]);
+                if (value == null || value.isBlank()) {
+                    valueOf[i] = -1;
+                    continue;
+                }
+                valueOf[i] = valueIds.computeIfAbsent(value, v -> valueIds.size());
+                for (String word : words(value)) {
+                    List<Integer> posting = toolsByTerm.computeIfAbsent(word, w -> new ArrayList<>());
+                    // A word repeated within one value is posted once
+                    if (posting.isEmpty() || posting.get(posting.size() - 1) != i) {
+                        posting.add(i);
+                    }
+                }
+            }
+            values = new String[valueIds.size()];
+            valueIds.forEach((value, id) -> values[id] = value);
+            terms = toolsByTerm.keySet().toArray(new String[0]);
+            postings = toolsByTerm.values().stream()
+                    .map(posting -> posting.stream().mapToInt(Integer::intValue).toArray())
+                    .toArray(int[][]::new);
+        }
+
+        /**
+         * @param text the words to look for; the last may be typed partially
+         * @return the tools with a word starting with each word of the text, or null to match every tool
+         */
+        private BitSet matching(String text) {
+            if (text == null) {
+                return null;
+            }
+            String[] queryWords = words(text);
+            if (queryWords.length == 0) {
+                return null;
+            }
+            BitSet result = null;
+            for (String prefix : queryWords) {
+                BitSet withPrefix = new BitSet(size);
+                for (int t = firstAtLeast(prefix); t < terms.length && terms[t].startsWith(prefix); t++) {
+                    for (int tool : postings[t]) {
+                        withPrefix.set(tool);
+                    }
+                }
+                if (result == null) {
+                    result = withPrefix;
+                } else {
+                    result.and(withPrefix);
+                }
+            }
+            return result;
+        }
+
+        private int firstAtLeast(String prefix) {
+            int position = Arrays.binarySearch(terms, prefix);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        // Matches per value, by value, leaving out values with none
+        private Map<String, Integer> facet(int[] counts) {
+            Map<String, Integer> facet = new TreeMap<>();
+            IntStream.range(0, counts.length)
+                    .filter(value -> counts[value] > 0)
+                    .forEach(value -> facet.put(values[value], counts[value]));
+            return facet;
+        }
+    }
+
+    /**
+     * Filters of a tool search. Text filters match words by prefix, ignoring case; every set
+     * filter must match.
+     */
+    @Data
+    public static class Query {
+        private String type;
+        private String brand;
+        private Boolean weekdayCharge;
+        private Boolean weekendCharge;
+        private Boolean holidayCharge;
+        // Inclusive bounds on the daily charge; tools without a charge match only when both are unset
+        private BigDecimal minDailyCharge;
+        private BigDecimal maxDailyCharge;
+        private int limit = 50;
+    }
+}
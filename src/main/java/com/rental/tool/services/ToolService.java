@@ -1,5 +1,7 @@
 package com.rental.tool.services;
 
+import com.rental.tool.config.jfr.CacheLoadEvent;
+import com.rental.tool.config.shard.StoreKeyGenerator;
 import com.rental.tool.entities.Tool;
 import com.rental.tool.entities.ToolCharge;
 import com.rental.tool.exception.ResourceNotFoundException;
@@ -8,6 +10,7 @@ import com.rental.tool.repository.ToolRepository;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -16,7 +19,8 @@ import java.util.Optional;
 
 /**
  * Service class responsible for managing tools and their charges,
- * providing caching support for efficient retrieval.
+ * providing caching support for efficient retrieval. Cache entries are kept per store and loaded
+ * from the store's shard, so stores on different shards can have different catalogs.
  */
 @Service
 public class ToolService {
@@ -32,24 +36,31 @@ public class ToolService {
      */
     @Autowired
     private ToolChargeRepository toolChargeRepository;
+    /**
+     * Cache manager used to fill the caches directly at startup.
+     */
+    @Autowired
+    private CacheManager cacheManager;
 
     /**
      * Preloads all tools and tool charges into the cache at application startup.
      * This method iterates through all Tool entities in the database,
      * fetching associated ToolCharge entries if they exist and loading both
-     * into the cache for quick access during runtime.
+     * into the cache for quick access during runtime. Only the default store's catalog is
+     * preloaded; other stores load theirs on first use.
      */
     @PostConstruct
     public void preloadCache() {
         try {
             logger.info("Preloading Tool and ToolCharge entities into cache.");
+            // Calls through 'this' bypass the caching proxy, so entries are put into the caches directly
             toolRepository.findAll().forEach(tool -> {
                 // Load Tool into cache
-                this.loadToolToCache(tool.getToolCode());
+                cacheManager.getCache("tools").put(StoreKeyGenerator.key(tool.getToolCode()), this.loadToolToCache(tool.getToolCode()));
 
                 // Load ToolCharge into cache if it exists
                 if (toolChargeRepository.existsById(tool.getToolCode())) {
-                    this.loadToolChargeToCache(tool.getToolCode());
+                    cacheManager.getCache("toolCharges").put(StoreKeyGenerator.key(tool.getToolCode()), this.loadToolChargeToCache(tool.getToolCode()));
                 }
             });
             logger.info("Tool and ToolCharge entities successfully cached.");
@@ -60,13 +71,14 @@ public class ToolService {
     }
     /**
      * Retrieves a Tool entity by its tool code from the cache. If the Tool is not present in the cache,
-     * it fetches it from the database, caches it for future accesses, and returns it.
+     * it fetches it from the database, caches it for future accesses, and returns it. Concurrent
+     * misses for the same tool code share a single database load.
      *
      * @param toolCode The unique identifier of the tool to retrieve.
      * @return The Tool entity corresponding to the provided tool code.
      * @throws ResourceNotFoundException if no Tool is found for the given tool code.
      */
-    @Cacheable("tools")
+    @Cacheable(value = "tools", keyGenerator = "storeKeyGenerator", sync = true)
     public Tool getToolFromCache(String toolCode) {
         return loadToolToCache(toolCode);
     }
@@ -74,12 +86,13 @@ public class ToolService {
     /**
      * Retrieves a ToolCharge entity by its tool code from the cache. If the ToolCharge is not present
      * in the cache, it fetches it from the database, caches it for future accesses, and returns it.
+     * Concurrent misses for the same tool code share a single database load.
      *
      * @param toolCode The unique identifier of the tool charge (same as the tool code).
      * @return The ToolCharge entity corresponding to the provided tool code.
      * @throws ResourceNotFoundException if no ToolCharge is found for the given tool code.
      */
-    @Cacheable("toolCharges")
+    @Cacheable(value = "toolCharges", keyGenerator = "storeKeyGenerator", sync = true)
     public ToolCharge getToolChargeFromCache(String toolCode) {
         return loadToolChargeToCache(toolCode);
     }
@@ -94,14 +107,20 @@ public class ToolService {
      * @throws ResourceNotFoundException if no Tool is found for the given tool code.
      */
     private Tool loadToolToCache(String toolCode) {
-    try {
-        return toolRepository.findById(toolCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Tool not found with code: " + toolCode));
-    } catch (ResourceNotFoundException ex) {
-        // Handle the exception by logging and returning a structured response
-        logger.error("Error loading tool to cache: {}", ex.getMessage());
-        throw ex; // Re-throw the exception so that it can be handled globally in the controller
-    }
+        CacheLoadEvent loadEvent = startLoadEvent("tools", toolCode);
+        try {
+            Tool tool = toolRepository.findById(toolCode)
+                    .orElseThrow(() -> new ResourceNotFoundException("Tool not found with code: " + toolCode));
+            loadEvent.outcome = "loaded";
+            return tool;
+        } catch (ResourceNotFoundException ex) {
+            loadEvent.outcome = "not_found";
+            // Handle the exception by logging and returning a structured response
+            logger.error("Error loading tool to cache: {}", ex.getMessage());
+            throw ex; // Re-throw the exception so that it can be handled globally in the controller
+        } finally {
+            loadEvent.commit();
+        }
     }
 
     /**
@@ -114,8 +133,28 @@ public class ToolService {
      * @throws ResourceNotFoundException if no ToolCharge is found for the given tool code.
      */
     private ToolCharge loadToolChargeToCache(String toolCode) {
-        return toolChargeRepository.findById(toolCode)
-                .orElseThrow(() -> new ResourceNotFoundException("ToolCharge not found for tool code: " + toolCode));
+        CacheLoadEvent loadEvent = startLoadEvent("toolCharges", toolCode);
+        try {
+            ToolCharge toolCharge = toolChargeRepository.findById(toolCode)
+                    .orElseThrow(() -> new ResourceNotFoundException("ToolCharge not found for tool code: " + toolCode));
+            loadEvent.outcome = "loaded";
+            return toolCharge;
+        } catch (ResourceNotFoundException ex) {
+            loadEvent.outcome = "not_found";
+            throw ex;
+        } finally {
+            loadEvent.commit();
+        }
+    }
+
+    // The outcome stays "error" unless the load sets it
+    private static CacheLoadEvent startLoadEvent(String cache, String toolCode) {
+        CacheLoadEvent loadEvent = new CacheLoadEvent();
+        loadEvent.begin();
+        loadEvent.cache = cache;
+        loadEvent.toolCode = toolCode;
+        loadEvent.outcome = "error";
+        return loadEvent;
     }
     // New method to clear all Tool cache entries
     @CacheEvict(value = "tools", allEntries = true)
@@ -0,0 +1,175 @@
+package com.rental.tool.utility;
+
+import com.rental.tool.config.jfr.PricingEvent;
+import com.rental.tool.entities.Rental;
+import com.rental.tool.entities.Tool;
+import com.rental.tool.entities.ToolCharge;
+import com.rental.tool.exception.InvalidRentalRequestException;
+import com.rental.tool.exception.ToolNotFoundException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static com.rental.tool.utility.HolidayUtils.isHoliday;
+
+public class PricingUtils {
+
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+
+    /**
+     * Validates the raw rental input before any catalog lookup or pricing takes place.
+     *
+     * @param toolCode        the code of the tool to be rented
+     * @param rentalDays      the number of days the tool will be rented
+     * @param discountPercent the discount percent applied to the rental
+     * @param checkoutDate    the date of checkout for the rental
+     * @throws InvalidRentalRequestException if any of the values is missing or out of range
+     */
+    public static void validateRentalInput(String toolCode, int rentalDays, BigDecimal discountPercent, LocalDate checkoutDate) {
+        if (toolCode == null || toolCode.trim().isEmpty()) {
+            throw new InvalidRentalRequestException("Tool code cannot be null or empty");
+        }
+        if (checkoutDate == null) {
+            throw new InvalidRentalRequestException("Checkout date cannot be null");
+        }
+        if (discountPercent == null) {
+            throw new InvalidRentalRequestException("Discount percent cannot be null");
+        }
+        if (rentalDays < 1) {
+            throw new InvalidRentalRequestException("Rental days must be 1 or greater");
+        }
+        if (discountPercent.compareTo(BigDecimal.ZERO) < 0 || discountPercent.compareTo(ONE_HUNDRED) > 0) {
+            throw new InvalidRentalRequestException("Discount percent must be between 0 and 100");
+        }
+    }
+
+    /**
+     * Builds an unsaved Rental for the given tool with due date, pre-discount charge,
+     * discount amount and final charge filled in. This is pure CPU work and is shared by
+     * checkout and the reactive quote path.
+     *
+     * @param tool            the tool being rented, with its ToolCharge attached
+     * @param rentalDays      the number of days the tool will be rented
+     * @param discountPercent the discount percent applied to the rental
+     * @param checkoutDate    the date of checkout for the rental
+     * @return a priced Rental that has not been persisted yet
+     * @throws ToolNotFoundException if the tool has no charge information
+     */
+    public static Rental priceRental(Tool tool, int rentalDays, BigDecimal discountPercent, LocalDate checkoutDate) {
+        return priceRental(tool, rentalDays, discountPercent, checkoutDate, BigDecimal.ONE);
+    }
+
+    /**
+     * Builds an unsaved Rental like {@link #priceRental(Tool, int, BigDecimal, LocalDate)}, with the
+     * tool's daily charge multiplied by a demand multiplier and rounded half up to cents.
+     *
+     * @param tool             the tool being rented, with its ToolCharge attached
+     * @param rentalDays       the number of days the tool will be rented
+     * @param discountPercent  the discount percent applied to the rental
+     * @param checkoutDate     the date of checkout for the rental
+     * @param demandMultiplier the multiplier on the daily charge, 1 for the catalog price
+     * @return a priced Rental that has not been persisted yet
+     * @throws ToolNotFoundException if the tool has no charge information
+     */
+    public static Rental priceRental(Tool tool, int rentalDays, BigDecimal discountPercent, LocalDate checkoutDate,
+                                     BigDecimal demandMultiplier) {
+        ToolCharge toolCharge = tool.getToolCharge();
+        if (toolCharge == null) {
+            throw new ToolNotFoundException("Tool charge information is missing for tool with code: " + tool.getToolCode());
+        }
+        BigDecimal dailyRentalCharge = toolCharge.getDailyRentalCharge();
+        if (dailyRentalCharge == null) {
+            throw new IllegalStateException("Daily rental charge cannot be null for the tool");
+        }
+        if (demandMultiplier.compareTo(BigDecimal.ONE) != 0) {
+            dailyRentalCharge = dailyRentalCharge.multiply(demandMultiplier).setScale(2, RoundingMode.HALF_UP);
+        }
+
+        PricingEvent pricingEvent = new PricingEvent();
+        pricingEvent.begin();
+
+        Rental rental = new Rental();
+        rental.setTool(tool);
+        rental.setRentalDays(rentalDays);
+        rental.setCheckoutDate(checkoutDate);
+        rental.setDiscountPercent(discountPercent);
+        rental.setDailyCharge(dailyRentalCharge);
+        rental.setWeekdayCharge(toolCharge.isWeekdayCharge());
+        rental.setWeekendCharge(toolCharge.isWeekendCharge());
+        rental.setHolidayCharge(toolCharge.isHolidayCharge());
+
+        LocalDate dueDate = checkoutDate.plusDays(rentalDays);
+        rental.setDueDate(dueDate);
+
+        int chargeDays = calculateChargeDays(toolCharge, checkoutDate, dueDate);
+        rental.setChargeDays(chargeDays);
+        BigDecimal preDiscountCharge = dailyRentalCharge.multiply(BigDecimal.valueOf(chargeDays));
+        BigDecimal discountAmount = calculateDiscountAmount(preDiscountCharge, discountPercent);
+
+        rental.setPreDiscountCharge(preDiscountCharge);
+        rental.setDiscountAmount(discountAmount);
+        rental.setFinalCharge(preDiscountCharge.subtract(discountAmount));
+
+        if (pricingEvent.shouldCommit()) {
+            pricingEvent.toolCode = tool.getToolCode();
+            pricingEvent.rentalDays = rentalDays;
+            pricingEvent.chargeDays = chargeDays;
+            pricingEvent.finalCharge = rental.getFinalCharge().toPlainString();
+            pricingEvent.commit();
+        }
+        return rental;
+    }
+
+    /**
+     * Calculates the discount on a charge, rounded half up to cents.
+     *
+     * @param preDiscountCharge - the charge before discount
+     * @param discountPercent   - the discount percent, 0 to 100
+     * @return the discount amount
+     */
+    public static BigDecimal calculateDiscountAmount(BigDecimal preDiscountCharge, BigDecimal discountPercent) {
+        return preDiscountCharge
+                .multiply(discountPercent)
+                .divide(ONE_HUNDRED, 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Counts the chargeable days from the day after checkout through the due date, inclusive.
+     *
+     * @param toolCharge   - the charge rules of the tool
+     * @param checkoutDate - Checkout date
+     * @param dueDate      - Due date
+     * @return Number of chargeable days
+     */
+    public static int calculateChargeDays(ToolCharge toolCharge, LocalDate checkoutDate, LocalDate dueDate) {
+        int chargeableDays = 0;
+        for (LocalDate date = checkoutDate.plusDays(1); !date.isAfter(dueDate); date = date.plusDays(1)) {
+            if (isChargeableDay(toolCharge, date)) {
+                chargeableDays++;
+            }
+        }
+        return chargeableDays;
+    }
+
+    /**
+     * Determines if the given date is charged under the tool's weekday/weekend/holiday rules.
+     *
+     * @param toolCharge - the charge rules of the tool
+     * @param date       - The date to check
+     * @return true if the date is chargeable, false otherwise
+     */
+    public static boolean isChargeableDay(ToolCharge toolCharge, LocalDate date) {
+        DayOfWeek dayOfWeek = date.getDayOfWeek();
+        boolean isWeekend = (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY);
+
+        if (isHoliday(date) && !toolCharge.isHolidayCharge()) {
+            return false;
+        }
+        if (isWeekend && !toolCharge.isWeekendCharge()) {
+            return false;
+        }
+        return toolCharge.isWeekdayCharge();
+    }
+}
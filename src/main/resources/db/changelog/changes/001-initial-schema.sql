@@ -1,16 +1,5 @@
 --liquibase formatted sql
 
---changeset doguscan:create-database
---validCheckSum: 9:4d73db962551de73f0f7518cca4ebc7a
---GRANT ALL PRIVILEGES ON my_database.* TO 'username'@'localhost' IDENTIFIED BY 'password';
-
--- UPDATE DATABASECHANGELOG
--- SET MD5SUM = NULL
--- WHERE ID = '001' AND AUTHOR = 'doguscan' AND FILENAME = 'db/changelog/changes/001-initial-schema.sql';
-
--- Clear the DATABASECHANGELOG table to reset Liquibase state (use carefully, for dev/test only)
-DELETE FROM DATABASECHANGELOG;
-
 --changeset doguscan:sql-1
 --validCheckSum: 9:eb5e1d7df63834329149f2a52541f711
 -- Create Tool Table
@@ -61,13 +50,13 @@ CREATE TABLE IF NOT EXISTS audit (
                        success BOOLEAN NOT NULL,
                        message TEXT
 );
---changeset doguscan:sql-5
+--changeset doguscan:sql-5 context:seed
 -- Insert data into the Tool table first
 INSERT INTO tool (tool_code, tool_type, brand) VALUES ('CHNS', 'Chainsaw', 'Stihl');
 INSERT INTO tool (tool_code, tool_type, brand) VALUES ('LADW', 'Ladder', 'Werner');
 INSERT INTO tool (tool_code, tool_type, brand) VALUES ('JAKD', 'Jackhammer', 'DeWalt');
 INSERT INTO tool (tool_code, tool_type, brand) VALUES ('JAKR', 'Jackhammer', 'Ridgid');
---changeset doguscan:sql-6
+--changeset doguscan:sql-6 context:seed
 -- Then insert data into the ToolCharge table, referencing tool_code values that already exist in the Tool table
 INSERT INTO tool_charge (tool_charge_id, tool_code, daily_rental_charge, weekday_charge, weekend_charge, holiday_charge) VALUES ('C001','CHNS', 1.49, 1, 0, 1);
 INSERT INTO tool_charge (tool_charge_id, tool_code, daily_rental_charge, weekday_charge, weekend_charge, holiday_charge) VALUES ('L001','LADW', 1.99, 1, 1, 0);
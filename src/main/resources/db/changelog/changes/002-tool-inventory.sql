@@ -0,0 +1,19 @@
+--liquibase formatted sql
+
+--changeset doguscan:inventory-1
+-- Per-tool stock. on_hand is the number of units owned, available is the last persisted
+-- snapshot of the in-memory admission counter (rewritten asynchronously, never locked per checkout).
+CREATE TABLE IF NOT EXISTS tool_inventory (
+                        tool_code VARCHAR(4) PRIMARY KEY NOT NULL,
+                        on_hand INT NOT NULL,
+                        available INT NOT NULL,
+                        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        CONSTRAINT fk_tool_inventory_tool FOREIGN KEY (tool_code) REFERENCES tool(tool_code)
+                            ON DELETE CASCADE
+);
+
+--changeset doguscan:inventory-2 context:seed
+INSERT INTO tool_inventory (tool_code, on_hand, available) VALUES ('CHNS', 5, 5);
+INSERT INTO tool_inventory (tool_code, on_hand, available) VALUES ('LADW', 10, 10);
+INSERT INTO tool_inventory (tool_code, on_hand, available) VALUES ('JAKD', 3, 3);
+INSERT INTO tool_inventory (tool_code, on_hand, available) VALUES ('JAKR', 3, 3);
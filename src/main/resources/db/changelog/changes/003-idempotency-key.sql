@@ -0,0 +1,21 @@
+--liquibase formatted sql
+
+--changeset doguscan:idempotency-1
+-- Checkout results keyed by the client's Idempotency-Key header. A row is claimed before the
+-- checkout runs (response NULL) and completed with the serialized rental agreement afterwards;
+-- the unique key makes the claim safe across application instances.
+CREATE TABLE IF NOT EXISTS idempotency_key (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                        idempotency_key VARCHAR(255) NOT NULL,
+                        username VARCHAR(255) NOT NULL,
+                        request_fingerprint VARCHAR(255) NOT NULL,
+                        response TEXT,
+                        created_at TIMESTAMP NOT NULL,
+                        CONSTRAINT uk_idempotency_key_username_key UNIQUE (username, idempotency_key)
+);
+CREATE INDEX idx_idempotency_key_created_at ON idempotency_key (created_at);
+
+--changeset doguscan:idempotency-2
+-- Rental committed by a checkout that failed afterwards, while mapping or auditing. The key is
+-- kept with it, so a retry returns that rental's agreement instead of renting the tool again.
+ALTER TABLE idempotency_key ADD COLUMN rental_id BIGINT NULL;
@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset doguscan:rental-journal-1
+-- Set on rentals accepted provisionally during a database outage and written later from the local
+-- rental journal. The unique index makes replaying the same journal entry twice a no-op.
+ALTER TABLE rental ADD COLUMN journal_id VARCHAR(36) NULL;
+CREATE UNIQUE INDEX uk_rental_journal_id ON rental (journal_id);
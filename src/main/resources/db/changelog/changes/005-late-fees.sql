@@ -0,0 +1,53 @@
+--liquibase formatted sql
+
+--changeset doguscan:late-fees-1
+--validCheckSum: 9:e463f2bdd999f6dd0cb0c3a2ef4517ed
+-- Date the tool was brought back. Nothing recorded returns before this column existed, so it is
+-- left empty for existing rentals: an overdue one is still out, accrues late fees and keeps its
+-- unit until it is returned.
+ALTER TABLE rental ADD COLUMN returned_date DATE NULL;
+
+--changeset doguscan:late-fees-2
+-- Late fees charged by the nightly overdue job. Each row covers the chargeable days of one rental
+-- from from_date through through_date; the next run continues from the day after the latest row.
+CREATE TABLE IF NOT EXISTS late_fee (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                        rental_id BIGINT NOT NULL,
+                        from_date DATE NOT NULL,
+                        through_date DATE NOT NULL,
+                        charge_days INT NOT NULL,
+                        amount DECIMAL(10,2) NOT NULL,
+                        job_id BIGINT NOT NULL,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        CONSTRAINT uk_late_fee_rental_through UNIQUE (rental_id, through_date),
+                        CONSTRAINT fk_late_fee_rental FOREIGN KEY (rental_id) REFERENCES rental(rental_id)
+);
+
+--changeset doguscan:late-fees-3
+-- One row per run of the overdue job, claimed by the instance that runs it. heartbeat_at is
+-- refreshed while it runs, so another instance can take over a run whose instance died.
+CREATE TABLE IF NOT EXISTS late_fee_job (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                        business_date DATE NOT NULL,
+                        status VARCHAR(16) NOT NULL,
+                        started_at TIMESTAMP NOT NULL,
+                        heartbeat_at TIMESTAMP NOT NULL,
+                        finished_at TIMESTAMP NULL,
+                        CONSTRAINT uk_late_fee_job_business_date UNIQUE (business_date)
+);
+-- Rental ID ranges of a run, processed in parallel. checkpoint_id is the last rental ID committed,
+-- so a restarted run continues after it.
+CREATE TABLE IF NOT EXISTS late_fee_partition (
+                        job_id BIGINT NOT NULL,
+                        partition_no INT NOT NULL,
+                        first_id BIGINT NOT NULL,
+                        last_id BIGINT NOT NULL,
+                        checkpoint_id BIGINT NOT NULL,
+                        status VARCHAR(16) NOT NULL,
+                        rentals_read BIGINT DEFAULT 0 NOT NULL,
+                        fees_written BIGINT DEFAULT 0 NOT NULL,
+                        updated_at TIMESTAMP NOT NULL,
+                        PRIMARY KEY (job_id, partition_no),
+                        CONSTRAINT fk_late_fee_partition_job FOREIGN KEY (job_id) REFERENCES late_fee_job(id)
+                            ON DELETE CASCADE
+);
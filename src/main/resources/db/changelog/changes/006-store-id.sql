@@ -0,0 +1,18 @@
+--liquibase formatted sql
+
+--changeset doguscan:store-id-1
+-- Store each rental and audit entry was made for. A store's rows live on the shard its ID hashes
+-- to; the column keeps them attributable when stores are moved between shards. Existing rows
+-- belong to the default store.
+ALTER TABLE rental ADD COLUMN store_id VARCHAR(32) NOT NULL DEFAULT 'main';
+ALTER TABLE audit ADD COLUMN store_id VARCHAR(32) NOT NULL DEFAULT 'main';
+CREATE INDEX idx_rental_store_checkout ON rental (store_id, checkout_date);
+
+--changeset doguscan:store-id-2
+--validCheckSum: 9:bd7818aa7644ec3d720afdbfca4e8297
+-- Idempotency keys are scoped by store as well as user: stores sharing a shard must not replay
+-- each other's checkouts. Existing keys belong to the default store. MySQL implements the old
+-- unique constraint as an index, and only 8.0.19 and later accept DROP CONSTRAINT for it.
+ALTER TABLE idempotency_key ADD COLUMN store_id VARCHAR(32) NOT NULL DEFAULT 'main';
+ALTER TABLE idempotency_key DROP INDEX uk_idempotency_key_username_key;
+ALTER TABLE idempotency_key ADD CONSTRAINT uk_idempotency_key_store_username_key UNIQUE (store_id, username, idempotency_key);
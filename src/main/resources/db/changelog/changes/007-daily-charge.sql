@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset doguscan:daily-charge-1
+-- Daily charge each rental was priced at. It differs from the tool's catalog charge when demand
+-- pricing applied a multiplier at checkout; rows from before demand pricing stay NULL and are
+-- shown with the catalog charge.
+ALTER TABLE rental ADD COLUMN daily_charge DECIMAL(10,2) NULL;
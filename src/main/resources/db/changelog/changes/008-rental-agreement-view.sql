@@ -0,0 +1,25 @@
+--liquibase formatted sql
+
+--changeset doguscan:rental-agreement-view-1
+-- The agreement of each rental as returned at checkout, one flat row per rental on the rental's
+-- shard, so GET /api/rentals/{id} is a primary key read without joining tool and tool_charge.
+-- Written after the checkout commits; rentals without a row are read from rental and added.
+CREATE TABLE IF NOT EXISTS rental_agreement_view (
+                        rental_id BIGINT PRIMARY KEY NOT NULL,
+                        store_id VARCHAR(32) NOT NULL,
+                        tool_code VARCHAR(4) NOT NULL,
+                        tool_type VARCHAR(255),
+                        tool_brand VARCHAR(255),
+                        rental_days INT NOT NULL,
+                        checkout_date DATE NOT NULL,
+                        due_date DATE NOT NULL,
+                        daily_rental_charge DECIMAL(10,2),
+                        weekday_charge BOOLEAN NOT NULL,
+                        weekend_charge BOOLEAN NOT NULL,
+                        holiday_charge BOOLEAN NOT NULL,
+                        charge_days BIGINT NOT NULL,
+                        pre_discount_charge DECIMAL(10,2),
+                        discount_percent DECIMAL(5,2),
+                        discount_amount DECIMAL(10,2),
+                        final_charge DECIMAL(10,2)
+);
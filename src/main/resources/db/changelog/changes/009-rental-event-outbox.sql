@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset doguscan:rental-event-outbox-1
+-- RentalCreated events written in the transaction of their rental, on the rental's shard, so an
+-- event exists exactly when its rental does. RentalEventRelay appends them to the event log and
+-- deletes them once the log is forced to disk. One row per rental.
+CREATE TABLE IF NOT EXISTS rental_event_outbox (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+                        store_id VARCHAR(32) NOT NULL,
+                        rental_id BIGINT NOT NULL,
+                        payload TEXT NOT NULL,
+                        created_at TIMESTAMP NOT NULL,
+                        CONSTRAINT uk_rental_event_outbox_store_rental UNIQUE (store_id, rental_id)
+);
@@ -0,0 +1,11 @@
+--liquibase formatted sql
+
+--changeset doguscan:charge-rules-1
+-- Chargeable days and the tool's weekday/weekend/holiday rules each rental was priced with, so an
+-- agreement rebuilt after the catalog changes still shows what was charged. Rows from before stay
+-- NULL: their charge days are derived from pre_discount_charge / daily_charge and they show the
+-- current rules.
+ALTER TABLE rental ADD COLUMN charge_days INT NULL;
+ALTER TABLE rental ADD COLUMN weekday_charge BOOLEAN NULL;
+ALTER TABLE rental ADD COLUMN weekend_charge BOOLEAN NULL;
+ALTER TABLE rental ADD COLUMN holiday_charge BOOLEAN NULL;
@@ -0,0 +1,99 @@
+package com.rental.tool.config.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightCacheTest {
+
+    /**
+     * Concurrent misses on one key run a single load and all receive its value.
+     */
+    @Test
+    public void concurrentMissesShareOneLoad() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("tools"));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> cache.get("LADW", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return "Ladder";
+        })));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 15; i++) {
+            results.add(executor.submit(() -> cache.get("LADW", () -> {
+                loads.incrementAndGet();
+                return "Ladder";
+            })));
+        }
+        // Let the waiters reach the in-flight load before it completes
+        while (cache.getCoalescedCount() < 15) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("Ladder", result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getLoadCount());
+        assertEquals(15, cache.getCoalescedCount());
+        assertEquals("Ladder", cache.get("LADW").get());
+    }
+
+    /**
+     * A failed load is reported to every waiter and is not cached, so the next miss loads again.
+     */
+    @Test
+    public void failedLoadIsNotCached() {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("tools"));
+
+        Cache.ValueRetrievalException ex = assertThrows(Cache.ValueRetrievalException.class, () ->
+                cache.get("XXXX", () -> {
+                    throw new IllegalStateException("Tool not found with code: XXXX");
+                }));
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+        assertNull(cache.get("XXXX"));
+
+        assertEquals("Chainsaw", cache.get("XXXX", () -> "Chainsaw"));
+        assertEquals(2, cache.getLoadCount());
+    }
+
+    /**
+     * Loads of different keys do not wait for each other.
+     */
+    @Test
+    public void differentKeysLoadIndependently() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("tools"));
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<String> blocked = executor.submit(() -> cache.get("LADW", () -> {
+            release.await();
+            return "Ladder";
+        }));
+        assertEquals("Chainsaw", cache.get("CHNS", () -> "Chainsaw"));
+        release.countDown();
+
+        assertEquals("Ladder", blocked.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(0, cache.getCoalescedCount());
+    }
+}
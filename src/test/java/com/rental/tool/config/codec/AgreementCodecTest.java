@@ -0,0 +1,102 @@
+package com.rental.tool.config.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rental.tool.dto.RentalAgreementDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AgreementCodecTest {
+
+    // Configured like Spring Boot's mappers: java.time support, dates as ISO strings
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    private final ObjectMapper cborBean = Jackson2ObjectMapperBuilder.cbor()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    private final ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .postConfigurer(mapper -> mapper.registerModule(AgreementCodec.module())).build();
+    private final ObjectMapper smile = Jackson2ObjectMapperBuilder.smile()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .postConfigurer(mapper -> mapper.registerModule(AgreementCodec.module())).build();
+
+    private static RentalAgreementDTO agreement() {
+        RentalAgreementDTO agreement = new RentalAgreementDTO();
+        agreement.setToolCode("JAKR");
+        agreement.setToolType("Jackhammer");
+        agreement.setToolBrand("Ridgid");
+        agreement.setRentalDays(5);
+        agreement.setCheckoutDate(LocalDate.of(2024, 7, 1));
+        agreement.setDueDate(LocalDate.of(2024, 7, 6));
+        agreement.setDailyRentalCharge(new BigDecimal("2.99"));
+        agreement.setWeekdayCharge(true);
+        agreement.setChargeDays(4);
+        agreement.setPreDiscountCharge(new BigDecimal("11.96"));
+        agreement.setDiscountPercent(new BigDecimal("10"));
+        agreement.setDiscountAmount(new BigDecimal("1.20"));
+        agreement.setFinalCharge(new BigDecimal("10.76"));
+        agreement.setProvisional(true);
+        return agreement;
+    }
+
+    @Test
+    public void cborRoundTrip() throws Exception {
+        RentalAgreementDTO agreement = agreement();
+        assertEquals(agreement, cbor.readValue(cbor.writeValueAsBytes(agreement), RentalAgreementDTO.class));
+    }
+
+    @Test
+    public void smileRoundTrip() throws Exception {
+        RentalAgreementDTO agreement = agreement();
+        assertEquals(agreement, smile.readValue(smile.writeValueAsBytes(agreement), RentalAgreementDTO.class));
+    }
+
+    @Test
+    public void errorOnlyAgreementRoundTrip() throws Exception {
+        RentalAgreementDTO agreement = new RentalAgreementDTO("Tool not found");
+        assertEquals(agreement, cbor.readValue(cbor.writeValueAsBytes(agreement), RentalAgreementDTO.class));
+    }
+
+    /**
+     * A client without the codec reads the same agreement from the codec's output.
+     */
+    @Test
+    public void codecOutputReadsWithBeanDeserializer() throws Exception {
+        RentalAgreementDTO agreement = agreement();
+        assertEquals(agreement, cborBean.readValue(cbor.writeValueAsBytes(agreement), RentalAgreementDTO.class));
+    }
+
+    /**
+     * The codec reads agreements written by the bean serializer, including null fields.
+     */
+    @Test
+    public void codecReadsBeanSerializerOutput() throws Exception {
+        RentalAgreementDTO agreement = agreement();
+        assertEquals(agreement, cbor.readValue(cborBean.writeValueAsBytes(agreement), RentalAgreementDTO.class));
+    }
+
+    @Test
+    public void codecSkipsUnknownFields() throws Exception {
+        byte[] payload = cborBean.writeValueAsBytes(Map.of(
+                "toolCode", "LADW", "lateFee", Map.of("amount", 5), "rentalDays", 3));
+        RentalAgreementDTO agreement = cbor.readValue(payload, RentalAgreementDTO.class);
+        assertEquals("LADW", agreement.getToolCode());
+        assertEquals(3, agreement.getRentalDays());
+    }
+
+    @Test
+    public void codecIsSmallerThanJsonAndBeanCbor() throws Exception {
+        RentalAgreementDTO agreement = agreement();
+        int jsonSize = json.writeValueAsBytes(agreement).length;
+        int beanSize = cborBean.writeValueAsBytes(agreement).length;
+        int codecSize = cbor.writeValueAsBytes(agreement).length;
+        assertTrue(codecSize < beanSize, "codec " + codecSize + " bytes, bean CBOR " + beanSize + " bytes");
+        assertTrue(beanSize < jsonSize, "bean CBOR " + beanSize + " bytes, JSON " + jsonSize + " bytes");
+    }
+}
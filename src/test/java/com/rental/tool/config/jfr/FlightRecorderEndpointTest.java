@@ -0,0 +1,66 @@
+package com.rental.tool.config.jfr;
+
+import com.rental.tool.entities.Tool;
+import com.rental.tool.entities.ToolCharge;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static com.rental.tool.utility.PricingUtils.priceRental;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightRecorderEndpointTest {
+
+    private final FlightRecorderEndpoint endpoint = new FlightRecorderEndpoint(Duration.ofMinutes(5), 10_000_000);
+
+    /**
+     * A recording started through the endpoint captures pricing events with their fields, and
+     * can be stopped, downloaded and deleted.
+     */
+    @Test
+    public void recordsPricingEvents() throws Exception {
+        Tool tool = Tool.builder().toolCode("LADW").toolType("Ladder").brand("Werner").build();
+        tool.setToolCharge(ToolCharge.builder().tool(tool).dailyRentalCharge(new BigDecimal("1.99"))
+                .weekdayCharge(true).weekendCharge(true).holidayCharge(false).build());
+
+        WebEndpointResponse<Map<String, Object>> started = endpoint.start("test", null, null);
+        long id = (Long) started.getBody().get("id");
+        assertEquals("RUNNING", started.getBody().get("state"));
+
+        // Jul 7 to 9 2020, three charged weekdays
+        priceRental(tool, 3, BigDecimal.TEN, LocalDate.of(2020, 7, 6));
+
+        assertEquals("STOPPED", endpoint.stop(id).getBody().get("state"));
+        Path file = Files.createTempFile("pricing-", ".jfr");
+        Resource dump = endpoint.dump(id).getBody();
+        try (InputStream in = dump.getInputStream()) {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        assertFalse(dump.getFile().exists(), "dump file is deleted once read");
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("com.rental.tool.Pricing"))
+                .toList();
+        Files.delete(file);
+        assertEquals(1, events.size());
+        assertEquals("LADW", events.get(0).getString("toolCode"));
+        assertEquals(3, events.get(0).getInt("rentalDays"));
+        assertEquals(3, events.get(0).getInt("chargeDays"));
+        assertEquals("5.37", events.get(0).getString("finalCharge"));
+
+        assertEquals(WebEndpointResponse.STATUS_NO_CONTENT, endpoint.delete(id).getStatus());
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.dump(id).getStatus());
+    }
+}
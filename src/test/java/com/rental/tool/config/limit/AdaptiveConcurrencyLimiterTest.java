@@ -0,0 +1,87 @@
+package com.rental.tool.config.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 4, 200, 1.5, 0.2, 0.9,
+                Map.of(RequestPriority.QUOTE, 0.9, RequestPriority.READ, 0.5));
+    }
+
+    // Runs 'rounds' batches of requests that saturate the current limit, each taking rttMillis
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, int rounds, long rttMillis) {
+        for (int round = 0; round < rounds; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            AdaptiveConcurrencyLimiter.Permit permit;
+            while ((permit = limiter.tryAcquire(RequestPriority.CHECKOUT)) != null) {
+                permits.add(permit);
+            }
+            permits.forEach(p -> p.onSuccess(rttMillis * MILLIS));
+        }
+    }
+
+    /**
+     * Lower priority classes are shed first as in-flight requests approach the limit.
+     */
+    @Test
+    public void lowerPrioritiesAreShedFirst() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(limiter.tryAcquire(RequestPriority.READ));
+        }
+        assertNull(limiter.tryAcquire(RequestPriority.READ));
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(limiter.tryAcquire(RequestPriority.QUOTE));
+        }
+        assertNull(limiter.tryAcquire(RequestPriority.QUOTE));
+        assertNotNull(limiter.tryAcquire(RequestPriority.CHECKOUT));
+        assertNull(limiter.tryAcquire(RequestPriority.CHECKOUT));
+
+        assertEquals(10, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected(RequestPriority.READ));
+        assertEquals(1, limiter.getRejected(RequestPriority.CHECKOUT));
+    }
+
+    /**
+     * The limit grows while latency is steady and shrinks once requests start queueing.
+     */
+    @Test
+    public void limitFollowsLatency() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+        saturate(limiter, 20, 10);
+        int grown = limiter.getLimit();
+        assertTrue(grown > 20, "limit should grow under steady latency, was " + grown);
+
+        saturate(limiter, 2, 100);
+        int shrunk = limiter.getLimit();
+        assertTrue(shrunk < grown / 2, "limit should shrink when latency rises tenfold, was " + shrunk);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Failures cut the limit multiplicatively, never below the minimum, and each permit counts once.
+     */
+    @Test
+    public void failuresBackOffToMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire(RequestPriority.CHECKOUT);
+        permit.onFailure();
+        permit.onFailure();
+        assertEquals(18, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire(RequestPriority.CHECKOUT).onFailure();
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+}
@@ -0,0 +1,49 @@
+package com.rental.tool.config.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitFilterTest {
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 1.5, 0.2, 0.9,
+            Map.of(RequestPriority.QUOTE, 0.9, RequestPriority.READ, 0.5));
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, new ObjectMapper(), 1);
+
+    private static MockHttpServletRequest checkout() {
+        return new MockHttpServletRequest("POST", "/api/rentals/checkout");
+    }
+
+    @Test
+    public void successKeepsTheLimit() throws Exception {
+        filter.doFilter(checkout(), new MockHttpServletResponse(), (request, response) -> { });
+
+        assertEquals(20, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * A server error reported in the body of an HTTP 200 response backs the limit off like a 5xx.
+     */
+    @Test
+    public void failureInResponseBodyBacksOff() throws Exception {
+        filter.doFilter(checkout(), new MockHttpServletResponse(),
+                (request, response) -> request.setAttribute(ConcurrencyLimitFilter.FAILED_ATTRIBUTE, Boolean.TRUE));
+
+        assertTrue(limiter.getLimit() < 20, "limit: " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void serverErrorStatusBacksOff() throws Exception {
+        filter.doFilter(checkout(), new MockHttpServletResponse(),
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(503));
+
+        assertTrue(limiter.getLimit() < 20, "limit: " + limiter.getLimit());
+    }
+}
@@ -0,0 +1,98 @@
+package com.rental.tool.config.schema;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the real changelog against a fresh in-memory H2 database per test.
+ */
+class SchemaManagerTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        // Without DATABASE_TO_LOWER: Liquibase would not find its own tracking table on a second run
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:schema-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void migrateAppliesPendingChangesetsOnlyOnce() throws Exception {
+        schemaManager(SchemaManager.Mode.MIGRATE, "seed").afterPropertiesSet();
+        int applied = count("databasechangelog");
+        jdbc.update("INSERT INTO rental (tool_code, rental_days, checkout_date, discount_percent) VALUES ('LADW', 3, CURRENT_DATE, 0)");
+
+        schemaManager(SchemaManager.Mode.MIGRATE, "seed").afterPropertiesSet();
+
+        assertThat(count("databasechangelog")).isEqualTo(applied);
+        assertThat(count("rental")).isEqualTo(1);
+        assertThat(count("tool")).isEqualTo(4);
+    }
+
+    @Test
+    void seedContextIsOptional() throws Exception {
+        schemaManager(SchemaManager.Mode.MIGRATE, "production").afterPropertiesSet();
+
+        assertThat(count("tool")).isZero();
+        assertThat(count("tool_inventory")).isZero();
+        assertThat(count("idempotency_key")).isZero();
+    }
+
+    @Test
+    void validatePassesWhenNothingIsPending() throws Exception {
+        schemaManager(SchemaManager.Mode.MIGRATE, "production").afterPropertiesSet();
+        int applied = count("databasechangelog");
+
+        schemaManager(SchemaManager.Mode.VALIDATE, "production").afterPropertiesSet();
+
+        assertThat(count("databasechangelog")).isEqualTo(applied);
+    }
+
+    @Test
+    void validateFailsWhenChangesetsArePending() {
+        assertThatThrownBy(() -> schemaManager(SchemaManager.Mode.VALIDATE, "production").afterPropertiesSet())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("pending")
+                .hasMessageContaining("run the schema migration");
+        assertThat(jdbc.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'tool'", Integer.class)).isZero();
+    }
+
+    @Test
+    void validateRefusesDropFirst() {
+        SchemaManager schemaManager = schemaManager(SchemaManager.Mode.VALIDATE, "production");
+        schemaManager.setDropFirst(true);
+
+        assertThatThrownBy(schemaManager::afterPropertiesSet).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void parsesModeIgnoringCase() {
+        assertThat(SchemaManager.Mode.of("Validate")).isEqualTo(SchemaManager.Mode.VALIDATE);
+        assertThatThrownBy(() -> SchemaManager.Mode.of("update")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private SchemaManager schemaManager(SchemaManager.Mode mode, String contexts) {
+        SchemaManager schemaManager = new SchemaManager(mode);
+        schemaManager.setDataSource(dataSource);
+        schemaManager.setResourceLoader(new DefaultResourceLoader());
+        schemaManager.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        schemaManager.setContexts(contexts);
+        return schemaManager;
+    }
+
+    private int count(String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,129 @@
+package com.rental.tool.config.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CachingJwtDecoderTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T10:00:00Z");
+
+    private JwtDecoder delegate;
+    private Clock clock;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(JwtDecoder.class);
+        when(delegate.decode(anyString())).thenAnswer(invocation -> jwt(invocation.getArgument(0), NOW.plus(15, ChronoUnit.MINUTES)));
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "HS256")
+                .subject("doguscan")
+                .issuedAt(expiresAt.minus(15, ChronoUnit.MINUTES))
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    @Test
+    public void verifiesEachTokenOnce() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 10, clock);
+
+        Jwt first = decoder.decode("a");
+        Jwt second = decoder.decode("a");
+
+        assertSame(first, second);
+        verify(delegate, times(1)).decode("a");
+    }
+
+    @Test
+    public void expiredTokenGoesBackToDelegate() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 10, clock);
+        decoder.decode("a");
+
+        when(clock.instant()).thenReturn(NOW.plus(16, ChronoUnit.MINUTES));
+        when(delegate.decode("a")).thenThrow(new JwtValidationException("Jwt expired", List.of(new OAuth2Error("invalid_token"))));
+
+        assertThrows(JwtValidationException.class, () -> decoder.decode("a"));
+        assertEquals(0, decoder.size());
+    }
+
+    @Test
+    public void rejectedTokensAreNotCached() {
+        when(delegate.decode("bad")).thenThrow(new BadJwtException("Invalid signature"));
+        CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 10, clock);
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+
+        verify(delegate, times(2)).decode("bad");
+        assertEquals(0, decoder.size());
+    }
+
+    @Test
+    public void fullCacheVerifiesWithoutCaching() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 2, clock);
+
+        decoder.decode("a");
+        decoder.decode("b");
+        decoder.decode("c");
+        decoder.decode("c");
+
+        assertEquals(2, decoder.size());
+        verify(delegate, times(2)).decode("c");
+    }
+
+    @Test
+    public void expiredEntriesMakeRoom() {
+        when(delegate.decode("short")).thenReturn(jwt("short", NOW.plus(1, ChronoUnit.MINUTES)));
+        CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 1, clock);
+        decoder.decode("short");
+
+        when(clock.instant()).thenReturn(NOW.plus(2, ChronoUnit.MINUTES));
+        decoder.decode("a");
+        decoder.decode("a");
+
+        assertEquals(1, decoder.size());
+        verify(delegate, times(1)).decode("a");
+    }
+
+    /**
+     * A full cache is not swept before its earliest token expires, and then only expired tokens go.
+     */
+    @Test
+    public void fullCacheIsSweptOnceTheEarliestTokenExpires() {
+        when(delegate.decode("short")).thenReturn(jwt("short", NOW.plus(5, ChronoUnit.MINUTES)));
+        CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 2, clock);
+        decoder.decode("short");
+        decoder.decode("a");
+
+        when(clock.instant()).thenReturn(NOW.plus(1, ChronoUnit.MINUTES));
+        decoder.decode("b");
+        assertEquals(2, decoder.size());
+
+        when(clock.instant()).thenReturn(NOW.plus(6, ChronoUnit.MINUTES));
+        decoder.decode("c");
+        decoder.decode("a");
+        decoder.decode("c");
+
+        assertEquals(2, decoder.size());
+        verify(delegate, times(1)).decode("a");
+        verify(delegate, times(1)).decode("c");
+    }
+}
@@ -0,0 +1,71 @@
+package com.rental.tool.config.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardRouterTest {
+
+    private static final int STORES = 10_000;
+
+    @Test
+    public void storesAreSpreadOverAllShards() {
+        ShardRouter router = new ShardRouter(4, 128, Map.of());
+        int[] perShard = new int[4];
+        for (int i = 0; i < STORES; i++) {
+            perShard[router.shardFor("store-" + i)]++;
+        }
+        for (int count : perShard) {
+            // An even share is 2500
+            assertTrue(count > 1500 && count < 3500, "stores per shard: " + count);
+        }
+    }
+
+    /**
+     * Adding a shard only moves stores onto the new shard, about a fifth of them.
+     */
+    @Test
+    public void addingAShardMovesFewStores() {
+        ShardRouter four = new ShardRouter(4, 128, Map.of());
+        ShardRouter five = new ShardRouter(5, 128, Map.of());
+        int moved = 0;
+        for (int i = 0; i < STORES; i++) {
+            String store = "store-" + i;
+            int before = four.shardFor(store);
+            int after = five.shardFor(store);
+            if (before != after) {
+                assertEquals(4, after, store + " moved between existing shards");
+                moved++;
+            }
+        }
+        assertTrue(moved > STORES / 10 && moved < STORES * 3 / 10, "stores moved: " + moved);
+    }
+
+    @Test
+    public void defaultAndPinnedStoresSkipTheRing() {
+        ShardRouter router = new ShardRouter(3, 128, Map.of("busy", 2));
+
+        assertEquals(0, router.shardFor(null));
+        assertEquals(0, router.shardFor(StoreContext.DEFAULT_STORE));
+        assertEquals(2, router.shardFor("busy"));
+    }
+
+    @Test
+    public void pinningToAMissingShardIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardRouter(2, 128, Map.of("busy", 2)));
+    }
+
+    @Test
+    public void threadPinnedToAShardIgnoresItsStore() {
+        ShardRouter router = new ShardRouter(3, 128, Map.of("busy", 2));
+        try (StoreContext.Scope ignored = StoreContext.enter("busy")) {
+            assertEquals(2, router.currentShard());
+            assertEquals(1, StoreContext.callOnShard(1, router::currentShard));
+            assertEquals(2, router.currentShard());
+        }
+        assertNull(StoreContext.getStore());
+        assertEquals(0, router.currentShard());
+    }
+}
@@ -0,0 +1,101 @@
+package com.rental.tool.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Token issuance and bearer authentication against a protected endpoint. Uses the same configuration
+ * as {@link CheckoutQueryBudgetTest}, so both share one application context.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.liquibase.drop-first=false",
+        "springdoc.api-docs.enabled=false",
+        "springdoc.swagger-ui.enabled=false",
+        "rental.journal.path=build/query-budget/rental-journal.ndjson",
+        "rental.events.path=build/query-budget/rental-events",
+        "rental.sql-stats.response-header=true"
+})
+@AutoConfigureMockMvc
+public class AuthControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String issueToken() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/auth/token").with(httpBasic("doguscan", "doguscan")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(jsonPath("$.token_type").value("Bearer"))
+                .andExpect(jsonPath("$.expires_in").value(900))
+                .andReturn();
+        // Stateless: credentials are checked without creating a session
+        assertNull(result.getRequest().getSession(false));
+        assertNull(result.getResponse().getHeader(HttpHeaders.SET_COOKIE));
+        return objectMapper.readTree(result.getResponse().getContentAsByteArray()).get("access_token").asText();
+    }
+
+    @Test
+    public void bearerTokenAuthenticates() throws Exception {
+        String token = issueToken();
+
+        MvcResult result = mockMvc.perform(get("/actuator/flightrecorder").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    @Test
+    public void protectedEndpointRequiresAuthentication() throws Exception {
+        mockMvc.perform(get("/actuator/flightrecorder"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics/rental.checkout"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/token"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/token").with(httpBasic("doguscan", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void tamperedTokenIsRejected() throws Exception {
+        String token = issueToken();
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+
+        mockMvc.perform(get("/actuator/flightrecorder").header(HttpHeaders.AUTHORIZATION, "Bearer " + forged))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void tokenCannotRenewItself() throws Exception {
+        String token = issueToken();
+
+        mockMvc.perform(post("/api/auth/token").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,120 @@
+package com.rental.tool.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.repository.RentalRepository;
+import com.rental.tool.support.QueryBudget;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code POST /api/rentals/checkout/bulk} against the Liquibase schema and seed data. Uses the same
+ * configuration as {@link CheckoutQueryBudgetTest}, so both share one application context.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.liquibase.drop-first=false",
+        "springdoc.api-docs.enabled=false",
+        "springdoc.swagger-ui.enabled=false",
+        "rental.journal.path=build/query-budget/rental-journal.ndjson",
+        "rental.events.path=build/query-budget/rental-events",
+        "rental.sql-stats.response-header=true"
+})
+@AutoConfigureMockMvc
+public class BulkCheckoutTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    private static String line(String toolCode, int daysAhead) {
+        return "{\"toolCode\":\"" + toolCode + "\",\"rentalDays\":2,\"discountPercent\":0,\"checkoutDate\":\""
+                + LocalDate.now().plusDays(daysAhead) + "\"}\n";
+    }
+
+    private List<Integer> statuses(String body) throws Exception {
+        String results = mockMvc.perform(post("/api/rentals/checkout/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> statuses = new ArrayList<>();
+        for (String result : results.split("\n")) {
+            statuses.add(objectMapper.readTree(result).get("status").intValue());
+        }
+        return statuses;
+    }
+
+    @Test
+    public void answersEveryLineInOrder() throws Exception {
+        long rentals = rentalRepository.count();
+
+        List<Integer> statuses = statuses(line("CHNS", 120) + line("XXXX", 120) + "{\"toolCode\":\"JAKR\"}\n"
+                + line("JAKR", 120));
+
+        assertEquals(List.of(200, 404, 400, 200), statuses);
+        assertEquals(rentals + 2, rentalRepository.count());
+    }
+
+    /**
+     * Invalid input is a 400 whether bean validation or the checkout itself rejects it, as on
+     * {@code POST /api/rentals/checkout}; only an unknown tool is a 404.
+     */
+    @Test
+    public void invalidInputIsBadRequest() throws Exception {
+        long rentals = rentalRepository.count();
+        String invalidDiscount = "{\"toolCode\":\"LADW\",\"rentalDays\":2,\"discountPercent\":101,\"checkoutDate\":\""
+                + LocalDate.now().plusDays(120) + "\"}\n";
+
+        List<Integer> statuses = statuses(invalidDiscount + line(" ", 120) + line("XXXX", 120));
+
+        assertEquals(List.of(400, 400, 404), statuses);
+        assertEquals(rentals, rentalRepository.count());
+    }
+
+    /**
+     * Each checked-out line costs the rental, outbox and audit inserts of a single checkout, and
+     * nothing per batch beyond that.
+     */
+    @Test
+    public void linesStayWithinQueryBudget() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            body.append(line(i % 2 == 0 ? "CHNS" : "JAKD", 150 + i));
+        }
+
+        QueryBudget.assertAtMost(18, () -> assertEquals(List.of(200, 200, 200, 200, 200, 200), statuses(body.toString())));
+    }
+
+    @Test
+    public void fullyBookedToolIsRejectedPerLine() throws Exception {
+        StringBuilder body = new StringBuilder();
+        // JAKR has 3 units in the seed data
+        for (int i = 0; i < 4; i++) {
+            body.append(line("JAKR", 180));
+        }
+
+        assertEquals(List.of(200, 200, 200, 409), statuses(body.toString()));
+    }
+}
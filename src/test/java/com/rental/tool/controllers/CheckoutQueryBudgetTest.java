@@ -0,0 +1,79 @@
+package com.rental.tool.controllers;
+
+import com.rental.tool.support.QueryBudget;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Holds the checkout path to its SQL statement budget, against the Liquibase schema and seed data
+ * on an in-memory H2 database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.liquibase.drop-first=false",
+        "springdoc.api-docs.enabled=false",
+        "springdoc.swagger-ui.enabled=false",
+        "rental.journal.path=build/query-budget/rental-journal.ndjson",
+        "rental.events.path=build/query-budget/rental-events",
+        "rental.sql-stats.response-header=true"
+})
+@AutoConfigureMockMvc
+public class CheckoutQueryBudgetTest {
+
+    // Insert rental, its outbox event and the audit row; the catalog comes from the cache and the tool is not re-read
+    private static final int CHECKOUT_BUDGET = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String checkoutRequest() {
+        return "{\"toolCode\":\"LADW\",\"rentalDays\":3,\"discountPercent\":10,\"checkoutDate\":\""
+                + LocalDate.now().plusDays(30) + "\"}";
+    }
+
+    @Test
+    public void checkoutStaysWithinQueryBudget() {
+        QueryBudget.assertAtMost(CHECKOUT_BUDGET, () -> mockMvc.perform(post("/api/rentals/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(checkoutRequest()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(header().exists("X-SQL-Statements")));
+    }
+
+    @Test
+    public void checkoutRepeatsNoStatement() {
+        QueryBudget.assertNoRepeatedStatements(() -> mockMvc.perform(post("/api/rentals/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(checkoutRequest()))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    public void agreementIsRenderedInOneQuery() throws Exception {
+        // Makes sure rental 1 exists whichever test runs first
+        mockMvc.perform(post("/api/rentals/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(checkoutRequest()))
+                .andExpect(status().isOk());
+
+        QueryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/rentals/1/agreement"))
+                .andExpect(status().isOk()));
+    }
+}
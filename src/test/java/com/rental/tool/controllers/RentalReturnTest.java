@@ -0,0 +1,80 @@
+package com.rental.tool.controllers;
+
+import com.rental.tool.services.ToolInventoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+/**
+ * {@code POST /api/rentals/{id}/return} against the Liquibase schema and seed data, with the
+ * in-memory inventory and availability index that admit checkouts.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rental-return;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.liquibase.drop-first=false",
+        "springdoc.api-docs.enabled=false",
+        "springdoc.swagger-ui.enabled=false",
+        "rental.journal.path=build/rental-return/rental-journal.ndjson",
+        "rental.events.path=build/rental-return/rental-events",
+        "rental.late-fees.enabled=false"
+})
+@AutoConfigureMockMvc
+public class RentalReturnTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ToolInventoryService toolInventoryService;
+
+    private ResultActions checkout(String toolCode) throws Exception {
+        return mockMvc.perform(post("/api/rentals/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"toolCode\":\"" + toolCode + "\",\"rentalDays\":3,\"discountPercent\":0,\"checkoutDate\":\""
+                        + LocalDate.now() + "\"}"));
+    }
+
+    /**
+     * A returned unit, and the rest of its booking, can be checked out again the same day.
+     */
+    @Test
+    public void returnedUnitCanBeCheckedOutAgain() throws Exception {
+        jdbcTemplate.update("update tool_inventory set on_hand = 1 where tool_code = 'JAKD'");
+        toolInventoryService.reconcile();
+
+        checkout("JAKD").andExpect(jsonPath("$.status").value(200));
+        checkout("JAKD").andExpect(jsonPath("$.status").value(409));
+        assertEquals(0, toolInventoryService.getAvailable("JAKD"));
+
+        Long rentalId = jdbcTemplate.queryForObject("select max(rental_id) from rental where tool_code = 'JAKD'", Long.class);
+        mockMvc.perform(post("/api/rentals/" + rentalId + "/return").with(httpBasic("doguscan", "doguscan")))
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.data.returnedDate").value(LocalDate.now().toString()));
+        assertEquals(1, toolInventoryService.getAvailable("JAKD"));
+
+        checkout("JAKD").andExpect(jsonPath("$.status").value(200));
+        assertEquals(0, toolInventoryService.getAvailable("JAKD"));
+        // Reconciliation agrees: only the second rental is out
+        toolInventoryService.reconcile();
+        assertEquals(0, toolInventoryService.getAvailable("JAKD"));
+    }
+}
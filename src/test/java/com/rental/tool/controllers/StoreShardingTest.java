@@ -0,0 +1,152 @@
+package com.rental.tool.controllers;
+
+import com.rental.tool.config.shard.ShardDataSources;
+import com.rental.tool.config.shard.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks out for several stores against three in-memory H2 shards, each migrated and seeded by
+ * Liquibase, and looks at where the rentals end up.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:store-shard0;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "rental.sharding.shards[0].url=jdbc:h2:mem:store-shard1;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "rental.sharding.shards[1].url=jdbc:h2:mem:store-shard2;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "rental.sharding.pinned-stores.pinned=2",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.liquibase.drop-first=false",
+        "springdoc.api-docs.enabled=false",
+        "springdoc.swagger-ui.enabled=false",
+        "rental.journal.path=build/store-sharding/rental-journal.ndjson",
+        "rental.events.path=build/store-sharding/rental-events",
+        "rental.late-fees.enabled=false"
+})
+@AutoConfigureMockMvc
+public class StoreShardingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    private String checkoutRequest() {
+        return "{\"toolCode\":\"LADW\",\"rentalDays\":3,\"discountPercent\":10,\"checkoutDate\":\""
+                + LocalDate.now().plusDays(30) + "\"}";
+    }
+
+    private void checkout(String store) throws Exception {
+        mockMvc.perform(post("/api/rentals/checkout")
+                        .header("X-Store-Id", store)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(checkoutRequest()))
+                .andExpect(status().isOk());
+    }
+
+    private int count(int shard, String table, String store) {
+        return new JdbcTemplate(shardDataSources.get(shard)).queryForObject(
+                "select count(*) from " + table + " where store_id = ?", Integer.class, store);
+    }
+
+    // A store the ring places on the shard
+    private String storeOnShard(String prefix, int shard) {
+        return IntStream.range(0, 1000)
+                .mapToObj(i -> prefix + i)
+                .filter(store -> shardRouter.shardFor(store) == shard)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    public void rentalsAndAuditsAreWrittenToTheShardOfTheirStore() throws Exception {
+        assertEquals(3, shardRouter.getShardCount());
+        for (int shard = 0; shard < 3; shard++) {
+            String store = storeOnShard("store-", shard);
+            checkout(store);
+
+            for (int other = 0; other < 3; other++) {
+                int expected = other == shard ? 1 : 0;
+                assertEquals(expected, count(other, "rental", store), "rentals of " + store + " on shard " + other);
+                assertEquals(expected, count(other, "audit", store), "audits of " + store + " on shard " + other);
+            }
+        }
+    }
+
+    @Test
+    public void defaultAndPinnedStoresSkipTheRing() throws Exception {
+        int before = count(0, "rental", "main");
+        mockMvc.perform(post("/api/rentals/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(checkoutRequest()))
+                .andExpect(status().isOk());
+        assertEquals(before + 1, count(0, "rental", "main"));
+
+        checkout("pinned");
+        assertEquals(1, count(2, "rental", "pinned"));
+    }
+
+    @Test
+    public void rentalsAreReadFromTheShardOfTheRequestStore() throws Exception {
+        String store = storeOnShard("reader-", 1);
+        new JdbcTemplate(shardDataSources.get(1)).update("insert into rental (rental_id, tool_code, rental_days, checkout_date,"
+                        + " due_date, discount_percent, pre_discount_charge, discount_amount, final_charge, store_id)"
+                        + " values (5000, 'LADW', 3, ?, ?, 0, 5.97, 0, 5.97, ?)",
+                LocalDate.now(), LocalDate.now().plusDays(2), store);
+
+        mockMvc.perform(get("/api/rentals/5000/agreement").header("X-Store-Id", store))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/rentals/5000/agreement"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void storesSharingAShardCannotReachEachOthersRentals() throws Exception {
+        String owner = storeOnShard("owner-", 1);
+        String neighbour = storeOnShard("neighbour-", 1);
+        new JdbcTemplate(shardDataSources.get(1)).update("insert into rental (rental_id, tool_code, rental_days, checkout_date,"
+                        + " due_date, discount_percent, pre_discount_charge, discount_amount, final_charge, store_id)"
+                        + " values (5001, 'LADW', 3, ?, ?, 0, 5.97, 0, 5.97, ?)",
+                LocalDate.now(), LocalDate.now().plusDays(2), owner);
+
+        mockMvc.perform(get("/api/rentals/5001/agreement").header("X-Store-Id", neighbour))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/rentals/5001/return").header("X-Store-Id", neighbour).with(httpBasic("doguscan", "doguscan")))
+                .andExpect(jsonPath("$.status").value(404));
+        mockMvc.perform(get("/api/rentals/5001/agreement").header("X-Store-Id", owner))
+                .andExpect(status().isOk());
+        assertNull(new JdbcTemplate(shardDataSources.get(1)).queryForObject(
+                "select returned_date from rental where rental_id = 5001", LocalDate.class));
+    }
+
+    @Test
+    public void malformedStoreIsRejected() throws Exception {
+        mockMvc.perform(post("/api/rentals/checkout")
+                        .header("X-Store-Id", "store 1; drop table rental")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(checkoutRequest()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+    }
+}
@@ -0,0 +1,168 @@
+package com.rental.tool.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional requests, gzip and delta sync on {@code GET /api/tools}, against the seed catalog.
+ * Uses the same configuration as {@link CheckoutQueryBudgetTest}, so both share one application context.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.liquibase.drop-first=false",
+        "springdoc.api-docs.enabled=false",
+        "springdoc.swagger-ui.enabled=false",
+        "rental.journal.path=build/query-budget/rental-journal.ndjson",
+        "rental.events.path=build/query-budget/rental-events",
+        "rental.sql-stats.response-header=true"
+})
+@AutoConfigureMockMvc
+public class ToolCatalogControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void returnsCatalogWithVersionAsETag() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/tools"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.data.full").value(true))
+                .andExpect(jsonPath("$.data.tools.length()").value(4))
+                .andExpect(jsonPath("$.data.tools[0].toolCode").value("CHNS"))
+                .andExpect(jsonPath("$.data.tools[0].dailyRentalCharge").value(1.49))
+                .andReturn().getResponse();
+
+        long version = objectMapper.readTree(response.getContentAsByteArray()).get("data").get("version").longValue();
+        assertEquals("\"" + version + "\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void revalidationWithCurrentETagIsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/tools"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/tools").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/api/tools").header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void gzipWhenAccepted() throws Exception {
+        MockHttpServletResponse plain = mockMvc.perform(get("/api/tools")).andReturn().getResponse();
+        MockHttpServletResponse gzipped = mockMvc.perform(get("/api/tools").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+
+        assertNotEquals(plain.getHeader(HttpHeaders.ETAG), gzipped.getHeader(HttpHeaders.ETAG));
+        assertTrue(gzipped.getContentAsByteArray().length < plain.getContentAsByteArray().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(plain.getContentAsByteArray(), in.readAllBytes());
+        }
+        mockMvc.perform(get("/api/tools")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzipped.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void sinceCurrentVersionReturnsNoChanges() throws Exception {
+        JsonNode catalog = objectMapper.readTree(mockMvc.perform(get("/api/tools"))
+                .andReturn().getResponse().getContentAsByteArray());
+        long version = catalog.get("data").get("version").longValue();
+
+        mockMvc.perform(get("/api/tools").param("since", Long.toString(version)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.full").value(false))
+                .andExpect(jsonPath("$.data.version").value(version))
+                .andExpect(jsonPath("$.data.tools.length()").value(0))
+                .andExpect(jsonPath("$.data.removed.length()").value(0));
+        mockMvc.perform(get("/api/tools").param("since", "0"))
+                .andExpect(jsonPath("$.data.full").value(true));
+    }
+
+    @Test
+    public void cborWhenPreferred() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/tools")
+                        .accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse();
+
+        JsonNode catalog = new ObjectMapper(new CBORFactory()).readTree(response.getContentAsByteArray());
+        assertEquals(4, catalog.get("data").get("tools").size());
+        assertTrue(response.getHeader(HttpHeaders.ETAG).endsWith("-cbor\""));
+    }
+
+    @Test
+    public void searchesByTypePrefixWithCounts() throws Exception {
+        mockMvc.perform(get("/api/tools/search").param("type", "jack").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(2))
+                .andExpect(jsonPath("$.data.tools.length()").value(1))
+                .andExpect(jsonPath("$.data.tools[0].toolCode").value("JAKD"))
+                .andExpect(jsonPath("$.data.types.Jackhammer").value(2))
+                .andExpect(jsonPath("$.data.brands.DeWalt").value(1))
+                .andExpect(jsonPath("$.data.brands.Ridgid").value(1));
+
+        mockMvc.perform(get("/api/tools/search").param("brand", "WERN").param("weekendCharge", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(1))
+                .andExpect(jsonPath("$.data.tools[0].toolCode").value("LADW"));
+    }
+
+    @Test
+    public void searchRejectsInvalidLimit() throws Exception {
+        mockMvc.perform(get("/api/tools/search").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void parsesAcceptEncoding() {
+        assertTrue(ToolCatalogController.acceptsGzip("gzip"));
+        assertTrue(ToolCatalogController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(ToolCatalogController.acceptsGzip("*"));
+        assertFalse(ToolCatalogController.acceptsGzip(null));
+        assertFalse(ToolCatalogController.acceptsGzip("br, deflate"));
+        assertFalse(ToolCatalogController.acceptsGzip("gzip;q=0, *"));
+        assertFalse(ToolCatalogController.acceptsGzip("*;q=0.0"));
+    }
+
+    @Test
+    public void jsonUnlessBinaryIsPreferred() {
+        assertEquals(MediaType.APPLICATION_JSON, ToolCatalogController.preferredFormat(null));
+        assertEquals(MediaType.APPLICATION_JSON, ToolCatalogController.preferredFormat("*/*"));
+        assertEquals(MediaType.APPLICATION_JSON, ToolCatalogController.preferredFormat("application/cbor;q=0.5, application/json"));
+        assertEquals(MediaType.APPLICATION_CBOR, ToolCatalogController.preferredFormat("application/cbor"));
+    }
+}
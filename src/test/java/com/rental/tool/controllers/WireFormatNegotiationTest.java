@@ -0,0 +1,109 @@
+package com.rental.tool.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.rental.tool.config.codec.WireFormatConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Content negotiation between JSON and the binary wire formats on the rental endpoints. Uses the
+ * same configuration as {@link CheckoutQueryBudgetTest}, so both share one application context.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.liquibase.drop-first=false",
+        "springdoc.api-docs.enabled=false",
+        "springdoc.swagger-ui.enabled=false",
+        "rental.journal.path=build/query-budget/rental-journal.ndjson",
+        "rental.events.path=build/query-budget/rental-events",
+        "rental.sql-stats.response-header=true"
+})
+@AutoConfigureMockMvc
+public class WireFormatNegotiationTest {
+
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Map<String, Object> quoteRequest() {
+        return Map.of("toolCode", "LADW", "rentalDays", 3, "discountPercent", 10,
+                "checkoutDate", LocalDate.now().plusDays(30).toString());
+    }
+
+    @Test
+    public void jsonIsTheDefault() throws Exception {
+        mockMvc.perform(post("/api/rentals/quote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.ALL)
+                        .content(new ObjectMapper().writeValueAsBytes(quoteRequest())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.data.toolCode").value("LADW"));
+    }
+
+    @Test
+    public void quoteInCbor() throws Exception {
+        byte[] body = mockMvc.perform(post("/api/rentals/quote")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(quoteRequest())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode response = cbor.readTree(body);
+        assertEquals(200, response.get("status").intValue());
+        assertEquals("LADW", response.get("data").get("toolCode").textValue());
+        assertEquals(LocalDate.now().plusDays(30).toString(), response.get("data").get("checkoutDate").textValue());
+        // Null fields are left out of binary agreements
+        assertEquals(null, response.get("data").get("errorMessage"));
+    }
+
+    @Test
+    public void jsonRequestWithSmileResponse() throws Exception {
+        byte[] body = mockMvc.perform(post("/api/rentals/quote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(WireFormatConfig.APPLICATION_SMILE)
+                        .content(new ObjectMapper().writeValueAsBytes(quoteRequest())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormatConfig.APPLICATION_SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode response = smile.readTree(body);
+        assertEquals(200, response.get("status").intValue());
+        assertEquals(3, response.get("data").get("rentalDays").intValue());
+    }
+
+    @Test
+    public void invalidCborRequestIsRejected() throws Exception {
+        Map<String, Object> request = Map.of("toolCode", "LADW", "rentalDays", 0, "discountPercent", 10,
+                "checkoutDate", LocalDate.now().plusDays(30).toString());
+        mockMvc.perform(post("/api/rentals/quote")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(request)))
+                .andExpect(status().isBadRequest());
+    }
+}
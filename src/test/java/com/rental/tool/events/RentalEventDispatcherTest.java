@@ -0,0 +1,134 @@
+package com.rental.tool.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rental.tool.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RentalEventDispatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RentalEventLog log;
+    private RecordingConsumer consumer;
+    private RentalEventDispatcher dispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        log = new RentalEventLog();
+        ReflectionTestUtils.setField(log, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(log, "logPath", tempDir.toString());
+        ReflectionTestUtils.setField(log, "segmentBytes", 1024L);
+        log.open();
+        consumer = new RecordingConsumer();
+        dispatcher = newDispatcher();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        log.close();
+    }
+
+    private RentalEventDispatcher newDispatcher() {
+        RentalEventDispatcher eventDispatcher = new RentalEventDispatcher();
+        ReflectionTestUtils.setField(eventDispatcher, "rentalEventLog", log);
+        ReflectionTestUtils.setField(eventDispatcher, "consumers", List.of(consumer));
+        ReflectionTestUtils.setField(eventDispatcher, "batchSize", 4);
+        eventDispatcher.loadOffsets();
+        return eventDispatcher;
+    }
+
+    private void appendRentals(long from, long to) {
+        for (long id = from; id < to; id++) {
+            RentalCreatedEvent event = new RentalCreatedEvent();
+            event.setRentalId(id);
+            log.append(event);
+        }
+    }
+
+    @Test
+    public void deliversEachEventOnceInBatches() {
+        appendRentals(0, 10);
+        dispatcher.deliver();
+        dispatcher.deliver();
+
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), consumer.rentalIds);
+        assertEquals(3, consumer.batches);
+        assertEquals(Map.of("billing", 10L), dispatcher.getOffsets());
+        assertEquals(10, log.committedOffset("billing"));
+    }
+
+    /**
+     * A batch the consumer failed on is delivered again on the next poll.
+     */
+    @Test
+    public void failedBatchIsRedelivered() {
+        appendRentals(0, 3);
+        consumer.failures = 1;
+        dispatcher.deliver();
+        assertTrue(consumer.rentalIds.isEmpty());
+        assertEquals(0, log.committedOffset("billing"));
+
+        dispatcher.deliver();
+        assertEquals(List.of(0L, 1L, 2L), consumer.rentalIds);
+    }
+
+    @Test
+    public void restartResumesFromTheCommittedOffset() {
+        appendRentals(0, 3);
+        dispatcher.deliver();
+        appendRentals(3, 5);
+
+        dispatcher = newDispatcher();
+        dispatcher.deliver();
+
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), consumer.rentalIds);
+    }
+
+    @Test
+    public void seekReplaysFromTheOffset() {
+        appendRentals(0, 5);
+        dispatcher.deliver();
+
+        dispatcher.seek("billing", 2);
+        dispatcher.deliver();
+
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 2L, 3L, 4L), consumer.rentalIds);
+        assertThrows(ResourceNotFoundException.class, () -> dispatcher.seek("shipping", 0));
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.seek("billing", 6));
+    }
+
+    private static class RecordingConsumer implements RentalEventConsumer {
+        private final List<Long> rentalIds = new ArrayList<>();
+        private int batches;
+        private int failures;
+
+        @Override
+        public String getName() {
+            return "billing";
+        }
+
+        @Override
+        public void onEvents(List<RentalCreatedEvent> events) {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("Billing is down");
+            }
+            events.forEach(event -> rentalIds.add(event.getRentalId()));
+            batches++;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.rental.tool.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RentalEventLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RentalEventLog log;
+
+    @BeforeEach
+    public void setUp() {
+        log = openLog(1024);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        log.close();
+    }
+
+    private RentalEventLog openLog(long segmentBytes) {
+        RentalEventLog eventLog = new RentalEventLog();
+        ReflectionTestUtils.setField(eventLog, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(eventLog, "logPath", tempDir.resolve("events").toString());
+        ReflectionTestUtils.setField(eventLog, "segmentBytes", segmentBytes);
+        eventLog.open();
+        return eventLog;
+    }
+
+    private RentalEventLog reopen() throws IOException {
+        log.close();
+        log = openLog(1024);
+        return log;
+    }
+
+    private static RentalCreatedEvent event(long rentalId) {
+        RentalCreatedEvent event = new RentalCreatedEvent();
+        event.setRentalId(rentalId);
+        event.setStoreId("main");
+        event.setToolCode("LADW");
+        event.setRentalDays(3);
+        event.setCheckoutDate(LocalDate.of(2020, 7, 2));
+        event.setFinalCharge(new BigDecimal("3.58"));
+        return event;
+    }
+
+    private static List<Long> rentalIds(List<RentalCreatedEvent> events) {
+        return events.stream().map(RentalCreatedEvent::getRentalId).toList();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve("events"))) {
+            return files.filter(file -> file.toString().endsWith(".log")).count();
+        }
+    }
+
+    /**
+     * Events get consecutive offsets and become readable once flushed.
+     */
+    @Test
+    public void appendedEventsAreReadAfterFlush() {
+        assertEquals(0, log.append(event(1)));
+        assertEquals(1, log.append(event(2)));
+        assertTrue(log.read(0, 10).isEmpty());
+
+        log.flush();
+
+        List<RentalCreatedEvent> events = log.read(0, 10);
+        assertEquals(List.of(1L, 2L), rentalIds(events));
+        assertEquals(List.of(0L, 1L), events.stream().map(RentalCreatedEvent::getOffset).toList());
+        assertEquals(new BigDecimal("3.58"), events.get(0).getFinalCharge());
+        assertEquals(2, log.getEndOffset());
+    }
+
+    /**
+     * Reads from any offset work across segment boundaries and stop at the limit.
+     */
+    @Test
+    public void readsFromAnyOffsetAcrossSegments() throws IOException {
+        for (long id = 0; id < 50; id++) {
+            log.append(event(id));
+        }
+        log.flush();
+        assertTrue(segmentCount() > 3, "segments: " + segmentCount());
+
+        for (long from = 0; from < 50; from += 7) {
+            List<RentalCreatedEvent> events = log.read(from, 10);
+            assertEquals(Math.min(10, 50 - from), events.size());
+            for (int i = 0; i < events.size(); i++) {
+                assertEquals(from + i, events.get(i).getOffset());
+                assertEquals(from + i, events.get(i).getRentalId());
+            }
+        }
+        assertTrue(log.read(50, 10).isEmpty());
+    }
+
+    @Test
+    public void reopenedLogContinuesAtTheNextOffset() throws IOException {
+        for (long id = 0; id < 30; id++) {
+            log.append(event(id));
+        }
+        reopen();
+
+        assertEquals(30, log.getEndOffset());
+        assertEquals(30, log.append(event(30)));
+        log.flush();
+        assertEquals(List.of(28L, 29L, 30L), rentalIds(log.read(28, 10)));
+    }
+
+    /**
+     * A line cut short by a crash is dropped, and its offset goes to the next event.
+     */
+    @Test
+    public void tornLastEventIsCutOff() throws IOException {
+        log.append(event(1));
+        log.flush();
+        log.close();
+        Path segment = tempDir.resolve("events").resolve(String.format("%020d.log", 0));
+        Files.writeString(segment, "{\"offset\":1,\"rental", StandardOpenOption.APPEND);
+
+        log = openLog(1024);
+
+        assertEquals(1, log.getEndOffset());
+        assertEquals(1, log.append(event(2)));
+        log.flush();
+        assertEquals(List.of(1L, 2L), rentalIds(log.read(0, 10)));
+    }
+
+    @Test
+    public void consumerOffsetsSurviveReopening() throws IOException {
+        assertEquals(0, log.committedOffset("billing"));
+        log.commitOffset("billing", 42);
+        reopen();
+
+        assertEquals(42, log.committedOffset("billing"));
+        assertThrows(IllegalArgumentException.class, () -> log.commitOffset("../billing", 1));
+    }
+
+    /**
+     * Retention deletes only closed segments wholly before the offset, and reads start after them.
+     */
+    @Test
+    public void retentionDeletesWholeOldSegments() throws IOException {
+        for (long id = 0; id < 50; id++) {
+            log.append(event(id));
+        }
+        log.flush();
+        long segments = segmentCount();
+
+        assertEquals(0, log.deleteSegmentsBefore(50, Instant.now().minusSeconds(3600)));
+        assertTrue(log.deleteSegmentsBefore(20, Instant.now().plusSeconds(1)) > 0);
+
+        long start = log.getStartOffset();
+        assertTrue(start > 0 && start <= 20, "start: " + start);
+        assertTrue(segmentCount() < segments);
+        assertEquals(start, log.read(0, 1).get(0).getOffset());
+    }
+
+    /**
+     * Readers racing retention read from the new start instead of failing on a closed segment.
+     */
+    @Test
+    public void readsDuringRetentionDoNotFail() throws Exception {
+        for (long id = 0; id < 200; id++) {
+            log.append(event(id));
+        }
+        log.flush();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                try {
+                    List<RentalCreatedEvent> events = log.read(0, 200);
+                    assertEquals(199, events.get(events.size() - 1).getOffset());
+                } catch (RuntimeException | AssertionError ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }
+        });
+        reader.start();
+        for (long offset = 10; offset < 200; offset += 10) {
+            log.deleteSegmentsBefore(offset, Instant.now().plusSeconds(1));
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        assertTrue(log.getStartOffset() > 0);
+    }
+}
@@ -0,0 +1,142 @@
+package com.rental.tool.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rental.tool.config.shard.ShardDataSources;
+import com.rental.tool.entities.RentalEventOutbox;
+import com.rental.tool.repository.RentalEventOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RentalEventRelayTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private RentalEventLog log;
+    private RentalEventOutboxRepository outboxRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        log = new RentalEventLog();
+        ReflectionTestUtils.setField(log, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(log, "logPath", tempDir.toString());
+        ReflectionTestUtils.setField(log, "segmentBytes", 1024L);
+        log.open();
+        outboxRepository = mock(RentalEventOutboxRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        log.close();
+    }
+
+    private RentalEventRelay newRelay() {
+        ShardDataSources shardDataSources = mock(ShardDataSources.class);
+        doAnswer(invocation -> {
+            invocation.<IntConsumer>getArgument(0).accept(0);
+            return null;
+        }).when(shardDataSources).forEachShard(any());
+        RentalEventRelay relay = new RentalEventRelay();
+        ReflectionTestUtils.setField(relay, "rentalEventOutboxRepository", outboxRepository);
+        ReflectionTestUtils.setField(relay, "rentalEventLog", log);
+        ReflectionTestUtils.setField(relay, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(relay, "shardDataSources", shardDataSources);
+        ReflectionTestUtils.setField(relay, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(relay, "batchSize", 10);
+        relay.loadRelayed();
+        return relay;
+    }
+
+    private static RentalCreatedEvent event(long rentalId) {
+        RentalCreatedEvent event = new RentalCreatedEvent();
+        event.setRentalId(rentalId);
+        event.setStoreId("main");
+        event.setToolCode("LADW");
+        return event;
+    }
+
+    private RentalEventOutbox row(long rentalId) throws IOException {
+        RentalEventOutbox row = new RentalEventOutbox();
+        row.setId(rentalId);
+        row.setStoreId("main");
+        row.setRentalId(rentalId);
+        row.setPayload(objectMapper.writeValueAsString(event(rentalId)));
+        row.setCreatedAt(LocalDateTime.now());
+        return row;
+    }
+
+    private List<Long> loggedRentalIds() {
+        return log.read(0, 100).stream().map(RentalCreatedEvent::getRentalId).toList();
+    }
+
+    /**
+     * Enqueued events are written to the outbox, not the log.
+     */
+    @Test
+    public void enqueueWritesTheOutbox() {
+        newRelay().enqueue(event(1));
+
+        verify(outboxRepository).save(argThat(row -> row.getRentalId() == 1L && "main".equals(row.getStoreId())
+                && row.getPayload().contains("LADW")));
+        assertEquals(0, log.getEndOffset());
+    }
+
+    /**
+     * Outbox rows are appended in order, forced to disk and then deleted.
+     */
+    @Test
+    public void relayMovesOutboxRowsToTheLog() throws IOException {
+        List<RentalEventOutbox> rows = List.of(row(1), row(2));
+        when(outboxRepository.findOldestForRelay(any(Pageable.class))).thenReturn(rows, List.of());
+
+        newRelay().relay();
+
+        assertEquals(List.of(1L, 2L), loggedRentalIds());
+        verify(outboxRepository).deleteAllInBatch(rows);
+        verify(transactionManager).commit(any());
+    }
+
+    /**
+     * Rows whose delete did not commit are relayed again, but their rentals are not logged twice,
+     * also after a restart.
+     */
+    @Test
+    public void rowsAlreadyInTheLogAreNotAppendedAgain() throws IOException {
+        List<RentalEventOutbox> rows = List.of(row(1), row(2));
+        when(outboxRepository.findOldestForRelay(any(Pageable.class))).thenReturn(rows);
+        doThrow(new DataAccessResourceFailureException("Connection refused")).doNothing()
+                .when(outboxRepository).deleteAllInBatch(any());
+
+        RentalEventRelay relay = newRelay();
+        relay.relay();
+        verify(transactionManager).rollback(any());
+        assertEquals(List.of(1L, 2L), loggedRentalIds());
+
+        when(outboxRepository.findOldestForRelay(any(Pageable.class))).thenReturn(List.of(row(1), row(2), row(3)), List.of());
+        newRelay().relay();
+
+        assertEquals(List.of(1L, 2L, 3L), loggedRentalIds());
+    }
+}
@@ -0,0 +1,133 @@
+package com.rental.tool.services;
+
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.entities.Rental;
+import com.rental.tool.exception.ResourceNotFoundException;
+import com.rental.tool.mapper.RentalMapper;
+import com.rental.tool.repository.RentalAgreementViewRepository;
+import com.rental.tool.repository.RentalRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AgreementRenderServiceTest {
+
+    @Mock
+    private RentalAgreementViewRepository rentalAgreementViewRepository;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private RentalMapper rentalMapper;
+
+    private RentalAgreementViewService rentalAgreementViewService;
+    private AgreementRenderService agreementRenderService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rentalAgreementViewService = new RentalAgreementViewService(2, 100);
+        ReflectionTestUtils.setField(rentalAgreementViewService, "rentalAgreementViewRepository", rentalAgreementViewRepository);
+        ReflectionTestUtils.setField(rentalAgreementViewService, "rentalRepository", rentalRepository);
+        ReflectionTestUtils.setField(rentalAgreementViewService, "rentalMapper", rentalMapper);
+        agreementRenderService = new AgreementRenderService();
+        ReflectionTestUtils.setField(agreementRenderService, "rentalAgreementViewService", rentalAgreementViewService);
+        when(rentalAgreementViewRepository.findByRentalIdAndStoreId(any(), any())).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        rentalAgreementViewService.close();
+    }
+
+    private static RentalAgreementDTO agreement(String brand) {
+        RentalAgreementDTO agreement = new RentalAgreementDTO();
+        agreement.setToolCode("LADW");
+        agreement.setToolType("Ladder");
+        agreement.setToolBrand(brand);
+        agreement.setRentalDays(3);
+        agreement.setCheckoutDate(LocalDate.of(2020, 7, 2));
+        agreement.setDueDate(LocalDate.of(2020, 7, 5));
+        agreement.setDailyRentalCharge(new BigDecimal("1.99"));
+        agreement.setChargeDays(2);
+        agreement.setPreDiscountCharge(new BigDecimal("3.98"));
+        agreement.setDiscountPercent(new BigDecimal("10"));
+        agreement.setDiscountAmount(new BigDecimal("0.40"));
+        agreement.setFinalCharge(new BigDecimal("3.58"));
+        return agreement;
+    }
+
+    /**
+     * An agreement recorded at checkout is rendered without reading the rental back.
+     */
+    @Test
+    public void rendersCheckoutAgreement() {
+        rentalAgreementViewService.record(1L, agreement("Werner"));
+
+        String text = agreementRenderService.render(1L, AgreementRenderService.Format.TEXT);
+
+        assertTrue(text.startsWith("Tool code: LADW\nTool type: Ladder\nBrand: Werner\n"));
+        assertTrue(text.contains("Checkout date: 07/02/20\nDue date: 07/05/20\n"));
+        assertTrue(text.endsWith("Discount percent: 10%\nDiscount amount: $0.40\nFinal charge: $3.58"));
+        verifyNoInteractions(rentalRepository, rentalMapper);
+        verify(rentalAgreementViewRepository, never()).findByRentalIdAndStoreId(any(), any());
+    }
+
+    /**
+     * A rental not in the cache is loaded and mapped once; later renderings reuse it.
+     */
+    @Test
+    public void loadsUncachedRentalOnce() {
+        Rental rental = new Rental();
+        when(rentalRepository.findWithToolByIdAndStoreId(7L, "main")).thenReturn(Optional.of(rental));
+        when(rentalMapper.toRentalAgreementDTO(rental)).thenReturn(agreement("Werner"));
+
+        String first = agreementRenderService.render(7L, AgreementRenderService.Format.TEXT);
+        String second = agreementRenderService.render(7L, AgreementRenderService.Format.TEXT);
+        agreementRenderService.render(7L, AgreementRenderService.Format.HTML);
+
+        assertSame(first, second);
+        verify(rentalRepository, times(1)).findWithToolByIdAndStoreId(7L, "main");
+        verify(rentalMapper, times(1)).toRentalAgreementDTO(any(Rental.class));
+    }
+
+    /**
+     * The printable form escapes agreement values.
+     */
+    @Test
+    public void htmlEscapesValues() {
+        rentalAgreementViewService.record(1L, agreement("<b>Werner</b>"));
+
+        String html = agreementRenderService.render(1L, AgreementRenderService.Format.HTML);
+
+        assertTrue(html.contains("<tr><th align=\"left\">Brand</th><td>&lt;b&gt;Werner&lt;/b&gt;</td></tr>"));
+        assertTrue(html.contains("<td>$3.58</td>"));
+    }
+
+    /**
+     * Renderings share the view service's bounded cache, and an unknown rental is reported as not found.
+     */
+    @Test
+    public void evictsLeastRecentlyUsedAndRejectsUnknownRental() {
+        rentalAgreementViewService.record(1L, agreement("Werner"));
+        rentalAgreementViewService.record(2L, agreement("Werner"));
+        agreementRenderService.render(1L, AgreementRenderService.Format.TEXT);
+        rentalAgreementViewService.record(3L, agreement("Werner"));
+
+        assertEquals(2, rentalAgreementViewService.size());
+        when(rentalRepository.findWithToolByIdAndStoreId(2L, "main")).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> agreementRenderService.render(2L, AgreementRenderService.Format.TEXT));
+    }
+}
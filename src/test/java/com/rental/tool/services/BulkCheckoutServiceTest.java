@@ -0,0 +1,233 @@
+package com.rental.tool.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rental.tool.config.metrics.CheckoutMetrics;
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.dto.request.RentalRequest;
+import com.rental.tool.exception.InvalidRentalRequestException;
+import com.rental.tool.exception.ToolNotFoundException;
+import com.rental.tool.exception.ToolUnavailableException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BulkCheckoutServiceTest {
+
+    @Mock
+    private RentalService rentalService;
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private CheckoutMetrics checkoutMetrics;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @InjectMocks
+    private BulkCheckoutService bulkCheckoutService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(bulkCheckoutService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(bulkCheckoutService, "batchSize", 2);
+        ReflectionTestUtils.setField(bulkCheckoutService, "maxStreams", 1);
+
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(auditService.generateTransactionId()).thenReturn("tx");
+        when(rentalService.checkoutInBatch(any(RentalRequest.class), anyString(), any())).thenAnswer(invocation -> {
+            RentalAgreementDTO agreement = new RentalAgreementDTO();
+            agreement.setToolCode(invocation.<RentalRequest>getArgument(0).getToolCode());
+            return agreement;
+        });
+    }
+
+    private static String line(String toolCode) {
+        return "{\"toolCode\":\"" + toolCode + "\",\"rentalDays\":3,\"discountPercent\":10,\"checkoutDate\":\""
+                + LocalDate.now().plusDays(30) + "\"}\n";
+    }
+
+    private List<JsonNode> checkout(String body) throws IOException {
+        return checkout(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream());
+    }
+
+    private List<JsonNode> checkout(InputStream in, ByteArrayOutputStream out) throws IOException {
+        assertTrue(bulkCheckoutService.checkout(in, out, "doguscan"));
+        List<JsonNode> results = new ArrayList<>();
+        for (String result : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!result.isEmpty()) {
+                results.add(objectMapper.readTree(result));
+            }
+        }
+        return results;
+    }
+
+    private static List<Integer> statuses(List<JsonNode> results) {
+        List<Integer> statuses = new ArrayList<>();
+        for (JsonNode result : results) {
+            statuses.add(result.get("status").intValue());
+        }
+        return statuses;
+    }
+
+    @Test
+    public void answersEachLineInOrder() throws IOException {
+        when(rentalService.checkoutInBatch(argThat(request -> request != null && "XXXX".equals(request.getToolCode())), anyString(), any()))
+                .thenThrow(new ToolNotFoundException("Tool not found for code: XXXX"));
+        when(rentalService.checkoutInBatch(argThat(request -> request != null && "JAKD".equals(request.getToolCode())), anyString(), any()))
+                .thenThrow(new ToolUnavailableException("No units of tool JAKD are available for checkout"));
+
+        List<JsonNode> results = checkout(line("LADW") + line("XXXX") + line("JAKD"));
+
+        assertEquals(List.of(200, 404, 409), statuses(results));
+        assertEquals("LADW", results.get(0).get("data").get("toolCode").asText());
+        assertEquals("Tool not found for code: XXXX", results.get(1).get("message").asText());
+        verify(auditService).logAudit("tx", "doguscan", false, "Tool not found for code: XXXX");
+        verify(auditService).logAudit("tx", "doguscan", false, "No units of tool JAKD are available for checkout");
+        verify(checkoutMetrics).bulkLine("success");
+        verify(checkoutMetrics).bulkLine("not_found");
+        verify(checkoutMetrics).bulkLine("unavailable");
+    }
+
+    @Test
+    public void invalidLinesAreAnsweredWithoutCheckout() throws IOException {
+        String invalid = "{\"toolCode\":\"LADW\",\"rentalDays\":0,\"discountPercent\":10,\"checkoutDate\":\""
+                + LocalDate.now().plusDays(30) + "\"}\n";
+
+        List<JsonNode> results = checkout("{not json\n\n   \r\n" + invalid);
+
+        assertEquals(List.of(400, 400), statuses(results));
+        assertTrue(results.get(0).get("message").asText().startsWith("Invalid request"));
+        assertTrue(results.get(1).get("errors").has("rentalDays"));
+        verify(rentalService, never()).checkoutInBatch(any(), anyString(), any());
+    }
+
+    /**
+     * Input the service rejects is a 400, like on single checkout, not an unknown tool.
+     */
+    @Test
+    public void inputRejectedByTheServiceIsInvalid() throws IOException {
+        when(rentalService.checkoutInBatch(argThat(request -> request != null && " ".equals(request.getToolCode())), anyString(), any()))
+                .thenThrow(new InvalidRentalRequestException("Tool code cannot be null or empty"));
+
+        List<JsonNode> results = checkout(line(" ") + line("LADW"));
+
+        assertEquals(List.of(400, 200), statuses(results));
+        assertEquals("Tool code cannot be null or empty", results.get(0).get("message").asText());
+        verify(auditService).logAudit("tx", "doguscan", false, "Tool code cannot be null or empty");
+        verify(checkoutMetrics).bulkLine("invalid");
+    }
+
+    @Test
+    public void overlongLineIsRejectedAndSkipped() throws IOException {
+        String overlong = "{\"toolCode\":\"" + "X".repeat(BulkCheckoutService.MAX_LINE_BYTES) + "\"}\r\n";
+
+        List<JsonNode> results = checkout(overlong + line("LADW").replace("\n", "\r\n"));
+
+        assertEquals(List.of(400, 200), statuses(results));
+        assertEquals("Request line exceeds " + BulkCheckoutService.MAX_LINE_BYTES + " bytes", results.get(0).get("message").asText());
+    }
+
+    @Test
+    public void linesShareOneTransactionPerBatch() throws IOException {
+        List<JsonNode> results = checkout(line("LADW") + line("LADW") + line("CHNS") + line("CHNS") + line("JAKR"));
+
+        assertEquals(List.of(200, 200, 200, 200, 200), statuses(results));
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    /**
+     * A database failure rolls back its batch, answers its lines with 503 and ends the stream.
+     */
+    @Test
+    public void failedBatchEndsTheStream() throws IOException {
+        when(rentalService.checkoutInBatch(argThat(request -> request != null && "CHNS".equals(request.getToolCode())), anyString(), any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        List<JsonNode> results = checkout(line("LADW") + line("LADW") + line("JAKR") + line("CHNS") + line("LADW"));
+
+        assertEquals(List.of(200, 200, 503, 503), statuses(results));
+        verify(transactionManager).rollback(any());
+        verify(rentalService, times(4)).checkoutInBatch(any(), anyString(), any());
+        verify(checkoutMetrics, times(2)).bulkLine("batch_failed");
+    }
+
+    /**
+     * A batch's results are written before the next batch is read, so a client reading slowly
+     * also slows down how fast its upload is consumed.
+     */
+    @Test
+    public void resultsAreWrittenBeforeTheNextBatchIsRead() throws IOException {
+        List<String> lines = List.of(line("LADW"), line("LADW"), line("CHNS"), line("CHNS"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Integer> resultsWrittenAtRead = new ArrayList<>();
+        // Hands out one line per read, noting how many result lines were written by then
+        InputStream in = new InputStream() {
+            private int next;
+
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (next == lines.size()) {
+                    return -1;
+                }
+                resultsWrittenAtRead.add(out.toString(StandardCharsets.UTF_8).split("\n", -1).length - 1);
+                byte[] line = lines.get(next++).getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(line, 0, buffer, offset, line.length);
+                return line.length;
+            }
+        };
+
+        checkout(in, out);
+
+        assertEquals(List.of(0, 0, 2, 2), resultsWrittenAtRead);
+    }
+
+    @Test
+    public void rejectedWhenTooManyStreamsRun() throws IOException {
+        ReflectionTestUtils.setField(bulkCheckoutService, "maxStreams", 0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertFalse(bulkCheckoutService.checkout(new ByteArrayInputStream(line("LADW").getBytes(StandardCharsets.UTF_8)), out, "doguscan"));
+        assertEquals(0, out.size());
+        verify(rentalService, never()).checkoutInBatch(any(), anyString(), any());
+        verify(transactionManager, never()).getTransaction(any());
+        verify(auditService, never()).logAudit(anyString(), anyString(), eq(true), anyString());
+    }
+}
@@ -0,0 +1,93 @@
+package com.rental.tool.services;
+
+import com.rental.tool.config.shard.ShardDataSources;
+import com.rental.tool.config.shard.ShardRouter;
+import com.rental.tool.config.shard.StoreContext;
+import com.rental.tool.entities.Tool;
+import com.rental.tool.entities.ToolCharge;
+import com.rental.tool.repository.ToolRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CatalogSnapshotServiceTest {
+
+    @Mock
+    private ToolRepository toolRepository;
+
+    @Mock
+    private ToolCatalogService toolCatalogService;
+
+    @InjectMocks
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(catalogSnapshotService, "shardDataSources",
+                new ShardDataSources(List.of(mock(HikariDataSource.class), mock(HikariDataSource.class))));
+        ReflectionTestUtils.setField(catalogSnapshotService, "shardRouter", new ShardRouter(2, 16, Map.of("north", 1)));
+        ReflectionTestUtils.setField(catalogSnapshotService, "maxAgeMinutes", 1440L);
+    }
+
+    private static Tool tool(String toolCode, String dailyCharge) {
+        Tool tool = Tool.builder().toolCode(toolCode).toolType("Ladder").brand("Werner").build();
+        tool.setToolCharge(ToolCharge.builder()
+                .tool(tool)
+                .dailyRentalCharge(new BigDecimal(dailyCharge))
+                .weekdayCharge(true)
+                .weekendCharge(true)
+                .holidayCharge(false)
+                .build());
+        return tool;
+    }
+
+    /**
+     * Each store is priced from the snapshot of its own shard.
+     */
+    @Test
+    public void storesAreServedFromTheSnapshotOfTheirShard() {
+        when(toolRepository.findAllWithCharges()).thenAnswer(invocation ->
+                StoreContext.getShard() == 0 ? List.of(tool("LADW", "1.99")) : List.of(tool("LADW", "2.49")));
+
+        catalogSnapshotService.refresh();
+
+        assertEquals(new BigDecimal("1.99"), catalogSnapshotService.getTool("LADW").orElseThrow().getToolCharge().getDailyRentalCharge());
+        assertEquals(new BigDecimal("2.49"), StoreContext.callInStore("north",
+                () -> catalogSnapshotService.getTool("LADW").orElseThrow().getToolCharge().getDailyRentalCharge()));
+        // Only the default shard's catalog is published for GET /api/tools
+        verify(toolCatalogService, times(1)).update(any());
+    }
+
+    /**
+     * A shard that has never been read has no snapshot, even when another shard's has the tool.
+     */
+    @Test
+    public void failedShardIsNotServedFromAnotherShard() {
+        when(toolRepository.findAllWithCharges()).thenAnswer(invocation -> {
+            if (StoreContext.getShard() == 1) {
+                throw new DataAccessResourceFailureException("shard 1 is down");
+            }
+            return List.of(tool("LADW", "1.99"));
+        });
+
+        catalogSnapshotService.refresh();
+
+        assertTrue(catalogSnapshotService.getTool("LADW").isPresent());
+        assertTrue(StoreContext.callInStore("north", () -> catalogSnapshotService.getTool("LADW")).isEmpty());
+        assertNull(StoreContext.callInStore("north", catalogSnapshotService::getTakenAt));
+    }
+}
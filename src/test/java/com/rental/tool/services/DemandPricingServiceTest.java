@@ -0,0 +1,122 @@
+package com.rental.tool.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DemandPricingServiceTest {
+
+    private static final long MINUTE = 60_000;
+
+    private long now;
+    private Clock clock;
+
+    @BeforeEach
+    public void setUp() {
+        clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now);
+    }
+
+    private DemandPricingService service(boolean enabled) {
+        return new DemandPricingService(enabled, 60 * MINUTE, 12, 1440 * MINUTE, 24, 100, 10, 0.25, 0.8, 1.5, 2048, 4, clock);
+    }
+
+    // Two checkouts every five minutes for the given number of hours, refreshing as the scheduler would
+    private void steadyDemand(DemandPricingService service, String toolCode, int hours) {
+        for (int tick = 0; tick < hours * 12; tick++) {
+            now += 5 * MINUTE;
+            service.refresh();
+            service.recordCheckout(toolCode);
+            service.recordCheckout(toolCode);
+        }
+    }
+
+    @Test
+    public void steadyDemandKeepsTheCatalogPrice() {
+        DemandPricingService service = service(true);
+        steadyDemand(service, "LADW", 24);
+        now += 5 * MINUTE;
+        service.refresh();
+
+        assertEquals(BigDecimal.ONE, service.multiplierFor("LADW"));
+        assertTrue(service.getMultipliers().isEmpty());
+    }
+
+    /**
+     * A burst well above the hourly average raises the price; a bigger one is capped at the maximum.
+     */
+    @Test
+    public void surgeRaisesThePriceUpToTheMaximum() {
+        DemandPricingService service = service(true);
+        steadyDemand(service, "LADW", 24);
+        for (int n = 0; n < 40; n++) {
+            service.recordCheckout("LADW");
+        }
+        service.refresh();
+        // 64 in the last hour against an average of about 24
+        BigDecimal multiplier = service.multiplierFor("LADW");
+        assertTrue(multiplier.compareTo(new BigDecimal("1.3")) > 0 && multiplier.compareTo(new BigDecimal("1.5")) < 0,
+                "multiplier: " + multiplier);
+
+        for (int n = 0; n < 400; n++) {
+            service.recordCheckout("LADW");
+        }
+        service.refresh();
+        assertEquals(new BigDecimal("1.50"), service.multiplierFor("LADW"));
+    }
+
+    @Test
+    public void slumpLowersThePriceDownToTheMinimum() {
+        DemandPricingService service = service(true);
+        steadyDemand(service, "JAKR", 23);
+        for (int tick = 0; tick < 13; tick++) {
+            now += 5 * MINUTE;
+            service.refresh();
+        }
+
+        assertEquals(new BigDecimal("0.80"), service.multiplierFor("JAKR"));
+    }
+
+    /**
+     * Too few checkouts say nothing about demand, and right after startup both windows have seen
+     * the same checkouts, so neither moves the price.
+     */
+    @Test
+    public void quietAndNewToolsKeepTheCatalogPrice() {
+        DemandPricingService service = service(true);
+        for (int n = 0; n < 5; n++) {
+            service.recordCheckout("JAKR");
+        }
+        now += MINUTE;
+        for (int n = 0; n < 30; n++) {
+            service.recordCheckout("CHNS");
+        }
+        now += MINUTE;
+        service.refresh();
+
+        assertTrue(service.getMultipliers().isEmpty());
+    }
+
+    @Test
+    public void disabledPricingIgnoresDemand() {
+        DemandPricingService service = service(false);
+        for (int n = 0; n < 100; n++) {
+            service.recordCheckout("LADW");
+        }
+        now += 5 * MINUTE;
+        service.refresh();
+
+        assertEquals(BigDecimal.ONE, service.multiplierFor("LADW"));
+    }
+
+    @Test
+    public void multiplierBoundsMustIncludeOne() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new DemandPricingService(true, 60 * MINUTE, 12, 1440 * MINUTE, 24, 100, 10, 0.25, 1.1, 1.5, 2048, 4, clock));
+    }
+}
@@ -0,0 +1,89 @@
+package com.rental.tool.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DemandSketchTest {
+
+    private static final long MINUTE = 60_000;
+
+    /**
+     * With far more keys than counters per row, counts are still never under and rarely far over.
+     */
+    @Test
+    public void estimatesNeverUndercount() {
+        DemandSketch sketch = new DemandSketch(60 * MINUTE, 12, 256, 4, 10, 0);
+        for (int i = 0; i < 1000; i++) {
+            for (int n = 0; n <= i % 5; n++) {
+                sketch.add("TOOL" + i);
+            }
+        }
+        int farOver = 0;
+        for (int i = 0; i < 1000; i++) {
+            long estimate = sketch.estimate("TOOL" + i);
+            assertTrue(estimate >= i % 5 + 1, "TOOL" + i + " undercounted: " + estimate);
+            if (estimate > i % 5 + 1 + 30) {
+                farOver++;
+            }
+        }
+        assertTrue(farOver < 50, "keys overcounted by more than 30: " + farOver);
+    }
+
+    /**
+     * Counts leave the window one bucket at a time, and all at once after a long pause.
+     */
+    @Test
+    public void oldBucketsSlideOutOfTheWindow() {
+        DemandSketch sketch = new DemandSketch(60 * MINUTE, 12, 64, 4, 10, 0);
+        sketch.add("LADW");
+        sketch.advance(5 * MINUTE);
+        sketch.add("LADW");
+        sketch.add("LADW");
+
+        sketch.advance(59 * MINUTE);
+        assertEquals(3, sketch.estimate("LADW"));
+        sketch.advance(60 * MINUTE);
+        assertEquals(2, sketch.estimate("LADW"));
+        sketch.advance(65 * MINUTE);
+        assertEquals(0, sketch.estimate("LADW"));
+
+        sketch.add("LADW");
+        sketch.advance(24 * 60 * MINUTE);
+        assertEquals(0, sketch.estimate("LADW"));
+    }
+
+    @Test
+    public void coveredMillisGrowsToTheWindow() {
+        DemandSketch sketch = new DemandSketch(60 * MINUTE, 12, 64, 4, 10, 0);
+        assertEquals(20 * MINUTE, sketch.coveredMillis(20 * MINUTE));
+        sketch.advance(3 * 60 * MINUTE + 2 * MINUTE);
+        // 11 full buckets and 2 minutes of the current one
+        assertEquals(57 * MINUTE, sketch.coveredMillis(3 * 60 * MINUTE + 2 * MINUTE));
+    }
+
+    /**
+     * Top K reports the most counted keys first, including ones that became busy after the candidates filled up.
+     */
+    @Test
+    public void topKFindsTheBusiestKeys() {
+        DemandSketch sketch = new DemandSketch(60 * MINUTE, 12, 1024, 4, 2, 0);
+        for (int i = 0; i < 20; i++) {
+            sketch.add("QUIET" + i);
+        }
+        assertEquals(2, sketch.topK().size());
+        for (int n = 0; n < 50; n++) {
+            sketch.add("CHNS");
+        }
+        for (int n = 0; n < 30; n++) {
+            sketch.add("JAKR");
+        }
+
+        Map<String, Long> top = sketch.topK();
+        assertEquals(List.of("CHNS", "JAKR"), List.copyOf(top.keySet()));
+        assertEquals(Map.of("CHNS", 50L, "JAKR", 30L), top);
+    }
+}
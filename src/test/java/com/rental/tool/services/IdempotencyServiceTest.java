@@ -0,0 +1,221 @@
+package com.rental.tool.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rental.tool.config.shard.StoreContext;
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.entities.IdempotencyRecord;
+import com.rental.tool.exception.IdempotencyKeyMismatchException;
+import com.rental.tool.exception.ToolUnavailableException;
+import com.rental.tool.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyServiceTest {
+
+    private static final String FINGERPRINT = "LADW|3|10|2020-07-02";
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(idempotencyService, "ttlMinutes", 1440L);
+        ReflectionTestUtils.setField(idempotencyService, "maxEntries", 100);
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMs", 5000L);
+
+        when(idempotencyRecordRepository.findByStoreIdAndUsernameAndIdempotencyKey(anyString(), anyString(), anyString())).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static RentalAgreementDTO agreement() {
+        RentalAgreementDTO agreement = new RentalAgreementDTO();
+        agreement.setToolCode("LADW");
+        agreement.setRentalDays(3);
+        agreement.setCheckoutDate(LocalDate.of(2020, 7, 2));
+        agreement.setDueDate(LocalDate.of(2020, 7, 5));
+        agreement.setFinalCharge(new BigDecimal("3.58"));
+        return agreement;
+    }
+
+    private static RentalAgreementDTO notCommitted(long rentalId) {
+        throw new AssertionError("no rental was committed");
+    }
+
+    /**
+     * A retry with the same key returns the first agreement without running the checkout again.
+     */
+    @Test
+    public void duplicateReturnsOriginalAgreement() {
+        AtomicInteger runs = new AtomicInteger();
+
+        RentalAgreementDTO first = idempotencyService.execute("key-1", "user", FINGERPRINT, committed -> {
+            runs.incrementAndGet();
+            return agreement();
+        }, IdempotencyServiceTest::notCommitted);
+        RentalAgreementDTO second = idempotencyService.execute("key-1", "user", FINGERPRINT, committed -> {
+            runs.incrementAndGet();
+            return agreement();
+        }, IdempotencyServiceTest::notCommitted);
+
+        assertEquals(1, runs.get());
+        assertSame(first, second);
+        verify(idempotencyRecordRepository).saveAndFlush(any(IdempotencyRecord.class));
+        verify(idempotencyRecordRepository).save(argThat(record -> record.getResponse() != null));
+    }
+
+    /**
+     * Concurrent duplicates wait for the in-flight checkout instead of running their own.
+     */
+    @Test
+    public void concurrentDuplicatesRunCheckoutOnce() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<RentalAgreementDTO>> results = new ArrayList<>();
+
+        results.add(executor.submit(() -> idempotencyService.execute("key-2", "user", FINGERPRINT, committed -> {
+            runs.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return agreement();
+        }, IdempotencyServiceTest::notCommitted)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 7; i++) {
+            results.add(executor.submit(() -> idempotencyService.execute("key-2", "user", FINGERPRINT, committed -> {
+                runs.incrementAndGet();
+                return agreement();
+            }, IdempotencyServiceTest::notCommitted)));
+        }
+        release.countDown();
+
+        RentalAgreementDTO first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<RentalAgreementDTO> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * A failed checkout releases its key, so a retry runs the checkout again.
+     */
+    @Test
+    public void failedCheckoutReleasesKey() {
+        assertThrows(ToolUnavailableException.class, () -> idempotencyService.execute("key-3", "user", FINGERPRINT, committed -> {
+            throw new ToolUnavailableException("No units of tool LADW are available for checkout");
+        }, IdempotencyServiceTest::notCommitted));
+        verify(idempotencyRecordRepository).delete(any(IdempotencyRecord.class));
+
+        RentalAgreementDTO retried = idempotencyService.execute("key-3", "user", FINGERPRINT,
+                committed -> agreement(), IdempotencyServiceTest::notCommitted);
+        assertEquals("LADW", retried.getToolCode());
+    }
+
+    /**
+     * A checkout failing after its rental was committed keeps the key, and a retry gets that
+     * rental's agreement instead of renting the tool again.
+     */
+    @Test
+    public void failureAfterCommitKeepsKey() {
+        AtomicInteger runs = new AtomicInteger();
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("key-6", "user", FINGERPRINT, committed -> {
+            runs.incrementAndGet();
+            committed.accept(42L);
+            throw new IllegalStateException("Audit failed");
+        }, IdempotencyServiceTest::notCommitted));
+        verify(idempotencyRecordRepository, never()).delete(any(IdempotencyRecord.class));
+        ArgumentCaptor<IdempotencyRecord> kept = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).save(kept.capture());
+        assertEquals(42L, kept.getValue().getRentalId());
+        assertNull(kept.getValue().getResponse());
+
+        // The retry finds the kept claim in the table
+        when(idempotencyRecordRepository.findByStoreIdAndUsernameAndIdempotencyKey("main", "user", "key-6")).thenReturn(Optional.of(kept.getValue()));
+        RentalAgreementDTO retried = idempotencyService.execute("key-6", "user", FINGERPRINT, committed -> {
+            runs.incrementAndGet();
+            return agreement();
+        }, rentalId -> {
+            assertEquals(42L, rentalId);
+            return agreement();
+        });
+
+        assertEquals(1, runs.get());
+        assertEquals(new BigDecimal("3.58"), retried.getFinalCharge());
+        assertNotNull(kept.getValue().getResponse());
+    }
+
+    /**
+     * Reusing a key with a different request is rejected; keys of different users or stores do not collide.
+     */
+    @Test
+    public void keyReusedWithDifferentRequestIsRejected() {
+        idempotencyService.execute("key-4", "user", FINGERPRINT, committed -> agreement(), IdempotencyServiceTest::notCommitted);
+
+        assertThrows(IdempotencyKeyMismatchException.class, () -> idempotencyService.execute("key-4", "user",
+                "LADW|4|10|2020-07-02", committed -> agreement(), IdempotencyServiceTest::notCommitted));
+        assertNotNull(idempotencyService.execute("key-4", "other", "LADW|4|10|2020-07-02",
+                committed -> agreement(), IdempotencyServiceTest::notCommitted));
+        assertNotNull(StoreContext.callInStore("north", () -> idempotencyService.execute("key-4", "user",
+                "LADW|4|10|2020-07-02", committed -> agreement(), IdempotencyServiceTest::notCommitted)));
+        verify(idempotencyRecordRepository).findByStoreIdAndUsernameAndIdempotencyKey("north", "user", "key-4");
+        verify(idempotencyRecordRepository).saveAndFlush(argThat(record -> "north".equals(record.getStoreId())));
+    }
+
+    /**
+     * A key completed before a restart, or by another instance, is replayed from the table.
+     */
+    @Test
+    public void storedResultIsReplayedAfterRestart() throws Exception {
+        IdempotencyRecord stored = new IdempotencyRecord();
+        stored.setIdempotencyKey("key-5");
+        stored.setUsername("user");
+        stored.setStoreId("main");
+        stored.setRequestFingerprint(FINGERPRINT);
+        stored.setResponse(objectMapper.writeValueAsString(agreement()));
+        when(idempotencyRecordRepository.findByStoreIdAndUsernameAndIdempotencyKey("main", "user", "key-5")).thenReturn(Optional.of(stored));
+
+        RentalAgreementDTO replayed = idempotencyService.execute("key-5", "user", FINGERPRINT, committed -> {
+            throw new AssertionError("checkout must not run again");
+        }, IdempotencyServiceTest::notCommitted);
+
+        assertEquals(new BigDecimal("3.58"), replayed.getFinalCharge());
+        assertEquals(LocalDate.of(2020, 7, 5), replayed.getDueDate());
+        verify(idempotencyRecordRepository, never()).saveAndFlush(any(IdempotencyRecord.class));
+    }
+}
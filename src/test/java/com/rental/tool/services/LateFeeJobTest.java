@@ -0,0 +1,181 @@
+package com.rental.tool.services;
+
+import com.rental.tool.entities.ToolCharge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the late fee job against the Liquibase schema and seed catalog on an in-memory H2 database,
+ * with small partitions and chunks so every run spans several of both.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:late-fees;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.liquibase.drop-first=false",
+        "springdoc.api-docs.enabled=false",
+        "springdoc.swagger-ui.enabled=false",
+        "rental.journal.path=build/late-fees/rental-journal.ndjson",
+        "rental.events.path=build/late-fees/rental-events",
+        "rental.late-fees.enabled=false",
+        "rental.late-fees.partitions=3",
+        "rental.late-fees.threads=2",
+        "rental.late-fees.chunk-size=2"
+})
+public class LateFeeJobTest {
+
+    // Monday; JAKD is charged on weekdays only, LADW every day but holidays
+    private static final LocalDate BUSINESS_DATE = LocalDate.of(2026, 10, 19);
+
+    @Autowired
+    private LateFeeJob lateFeeJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("delete from late_fee");
+        jdbcTemplate.update("delete from late_fee_partition");
+        jdbcTemplate.update("delete from late_fee_job");
+        jdbcTemplate.update("delete from rental");
+    }
+
+    private long insertRental(String toolCode, LocalDate dueDate, LocalDate returnedDate) {
+        jdbcTemplate.update("insert into rental (tool_code, rental_days, checkout_date, due_date, returned_date, discount_percent,"
+                        + " pre_discount_charge, discount_amount, final_charge) values (?, 5, ?, ?, ?, 0, 9.95, 0, 9.95)",
+                toolCode, dueDate.minusDays(5), dueDate, returnedDate);
+        return jdbcTemplate.queryForObject("select max(rental_id) from rental", Long.class);
+    }
+
+    private List<BigDecimal> fees(long rentalId) {
+        return jdbcTemplate.queryForList("select amount from late_fee where rental_id = ? order by through_date",
+                BigDecimal.class, rentalId);
+    }
+
+    private static ToolCharge weekdaysOnly() {
+        return ToolCharge.builder().dailyRentalCharge(new BigDecimal("2.99"))
+                .weekdayCharge(true).weekendCharge(false).holidayCharge(false).build();
+    }
+
+    @Test
+    public void lateFeeFollowsChargeRules() {
+        // Friday due date: Saturday and Sunday are free, Monday is charged
+        LateFeeJob.LateFee fee = LateFeeJob.lateFee(weekdaysOnly(), null, LocalDate.of(2026, 10, 16), null, null, BUSINESS_DATE);
+
+        assertEquals(LocalDate.of(2026, 10, 17), fee.fromDate());
+        assertEquals(BUSINESS_DATE, fee.throughDate());
+        assertEquals(1, fee.chargeDays());
+        assertEquals(new BigDecimal("2.99"), fee.amount());
+    }
+
+    @Test
+    public void lateFeeUsesTheChargeTheRentalWasPricedAt() {
+        LateFeeJob.LateFee fee = LateFeeJob.lateFee(weekdaysOnly(), new BigDecimal("4.49"), LocalDate.of(2026, 10, 16), null, null, BUSINESS_DATE);
+
+        assertEquals(1, fee.chargeDays());
+        assertEquals(new BigDecimal("4.49"), fee.amount());
+    }
+
+    @Test
+    public void lateFeeStartsAfterLastChargeAndStopsAtReturn() {
+        LocalDate due = LocalDate.of(2026, 10, 12);
+
+        LateFeeJob.LateFee continued = LateFeeJob.lateFee(weekdaysOnly(), null, due, null, LocalDate.of(2026, 10, 14), BUSINESS_DATE);
+        assertEquals(LocalDate.of(2026, 10, 15), continued.fromDate());
+        assertEquals(3, continued.chargeDays());
+
+        LateFeeJob.LateFee returned = LateFeeJob.lateFee(weekdaysOnly(), null, due, LocalDate.of(2026, 10, 13), null, BUSINESS_DATE);
+        assertEquals(LocalDate.of(2026, 10, 13), returned.throughDate());
+        assertEquals(1, returned.chargeDays());
+
+        assertNull(LateFeeJob.lateFee(weekdaysOnly(), null, due, LocalDate.of(2026, 10, 13), LocalDate.of(2026, 10, 13), BUSINESS_DATE));
+        assertNull(LateFeeJob.lateFee(weekdaysOnly(), null, BUSINESS_DATE, null, null, BUSINESS_DATE));
+    }
+
+    @Test
+    public void chargesOverdueRentalsAcrossPartitions() {
+        long[] overdue = new long[7];
+        for (int i = 0; i < overdue.length; i++) {
+            overdue[i] = insertRental("LADW", BUSINESS_DATE.minusDays(3), null);
+        }
+        long returnedOnTime = insertRental("LADW", BUSINESS_DATE.minusDays(3), BUSINESS_DATE.minusDays(3));
+        long notDue = insertRental("JAKD", BUSINESS_DATE, null);
+
+        LateFeeJob.Result result = lateFeeJob.run(BUSINESS_DATE);
+
+        assertEquals(LateFeeJob.COMPLETED, result.status());
+        assertEquals(7, result.rentalsRead());
+        assertEquals(7, result.feesWritten());
+        for (long rentalId : overdue) {
+            assertEquals(List.of(new BigDecimal("5.97")), fees(rentalId));
+        }
+        assertTrue(fees(returnedOnTime).isEmpty());
+        assertTrue(fees(notDue).isEmpty());
+        assertEquals(3, jdbcTemplate.queryForObject("select count(*) from late_fee_partition where job_id = ? and status = ?",
+                Integer.class, result.jobId(), LateFeeJob.COMPLETED));
+    }
+
+    @Test
+    public void laterRunsChargeOnlyNewDays() {
+        long rentalId = insertRental("LADW", BUSINESS_DATE.minusDays(3), null);
+        lateFeeJob.run(BUSINESS_DATE.minusDays(1));
+
+        LateFeeJob.Result again = lateFeeJob.run(BUSINESS_DATE.minusDays(1));
+        assertEquals(-1, again.jobId());
+        assertEquals(LateFeeJob.COMPLETED, again.status());
+
+        lateFeeJob.run(BUSINESS_DATE);
+        assertEquals(List.of(new BigDecimal("3.98"), new BigDecimal("1.99")), fees(rentalId));
+    }
+
+    @Test
+    public void failedRunResumesFromCheckpoint() {
+        long first = insertRental("LADW", BUSINESS_DATE.minusDays(1), null);
+        long second = insertRental("LADW", BUSINESS_DATE.minusDays(1), null);
+        long third = insertRental("LADW", BUSINESS_DATE.minusDays(1), null);
+
+        // A run that failed after committing the chunk up to the second rental (its fees are not re-read)
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("insert into late_fee_job (business_date, status, started_at, heartbeat_at) values (?, ?, ?, ?)",
+                BUSINESS_DATE, LateFeeJob.FAILED, now, now);
+        long jobId = jdbcTemplate.queryForObject("select id from late_fee_job where business_date = ?", Long.class, BUSINESS_DATE);
+        jdbcTemplate.update("insert into late_fee_partition (job_id, partition_no, first_id, last_id, checkpoint_id, status, rentals_read,"
+                + " fees_written, updated_at) values (?, 0, ?, ?, ?, ?, 2, 0, ?)", jobId, first, third, second, LateFeeJob.PENDING, now);
+
+        LateFeeJob.Result result = lateFeeJob.run(BUSINESS_DATE);
+
+        assertEquals(jobId, result.jobId());
+        assertEquals(LateFeeJob.COMPLETED, result.status());
+        assertEquals(3, result.rentalsRead());
+        assertTrue(fees(first).isEmpty());
+        assertTrue(fees(second).isEmpty());
+        assertEquals(List.of(new BigDecimal("1.99")), fees(third));
+    }
+
+    @Test
+    public void runningJobIsNotTakenOver() {
+        insertRental("LADW", BUSINESS_DATE.minusDays(1), null);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("insert into late_fee_job (business_date, status, started_at, heartbeat_at) values (?, ?, ?, ?)",
+                BUSINESS_DATE, LateFeeJob.RUNNING, now, now);
+
+        LateFeeJob.Result result = lateFeeJob.run(BUSINESS_DATE);
+
+        assertEquals(-1, result.jobId());
+        assertEquals(LateFeeJob.RUNNING, result.status());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from late_fee", Integer.class));
+    }
+}
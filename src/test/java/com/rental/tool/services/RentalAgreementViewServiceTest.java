@@ -0,0 +1,175 @@
+package com.rental.tool.services;
+
+import com.rental.tool.config.shard.StoreContext;
+import com.rental.tool.dto.RentalAgreementDTO;
+import com.rental.tool.entities.Rental;
+import com.rental.tool.entities.RentalAgreementView;
+import com.rental.tool.exception.ResourceNotFoundException;
+import com.rental.tool.mapper.RentalMapper;
+import com.rental.tool.repository.RentalAgreementViewRepository;
+import com.rental.tool.repository.RentalRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class RentalAgreementViewServiceTest {
+
+    @Mock
+    private RentalAgreementViewRepository rentalAgreementViewRepository;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private RentalMapper rentalMapper;
+
+    private RentalAgreementViewService rentalAgreementViewService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rentalAgreementViewService = new RentalAgreementViewService(2, 100);
+        ReflectionTestUtils.setField(rentalAgreementViewService, "rentalAgreementViewRepository", rentalAgreementViewRepository);
+        ReflectionTestUtils.setField(rentalAgreementViewService, "rentalRepository", rentalRepository);
+        ReflectionTestUtils.setField(rentalAgreementViewService, "rentalMapper", rentalMapper);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        rentalAgreementViewService.close();
+    }
+
+    private static RentalAgreementDTO agreement(String brand) {
+        RentalAgreementDTO agreement = new RentalAgreementDTO();
+        agreement.setToolCode("LADW");
+        agreement.setToolType("Ladder");
+        agreement.setToolBrand(brand);
+        agreement.setRentalDays(3);
+        agreement.setCheckoutDate(LocalDate.of(2020, 7, 2));
+        agreement.setDueDate(LocalDate.of(2020, 7, 5));
+        agreement.setDailyRentalCharge(new BigDecimal("1.99"));
+        agreement.setWeekdayCharge(true);
+        agreement.setWeekendCharge(true);
+        agreement.setChargeDays(2);
+        agreement.setPreDiscountCharge(new BigDecimal("3.98"));
+        agreement.setDiscountPercent(new BigDecimal("10"));
+        agreement.setDiscountAmount(new BigDecimal("0.40"));
+        agreement.setFinalCharge(new BigDecimal("3.58"));
+        return agreement;
+    }
+
+    /**
+     * A checkout's agreement is served from the cache and written to the view in the background.
+     */
+    @Test
+    public void recordedAgreementIsCachedAndWritten() {
+        RentalAgreementDTO agreement = agreement("Werner");
+        rentalAgreementViewService.record(1L, agreement);
+
+        assertSame(agreement, rentalAgreementViewService.find(1L));
+        verify(rentalAgreementViewRepository, timeout(1000)).save(argThat(view -> view.getRentalId() == 1L
+                && StoreContext.DEFAULT_STORE.equals(view.getStoreId())
+                && "Werner".equals(view.getToolBrand())
+                && new BigDecimal("3.58").equals(view.getFinalCharge())));
+        verify(rentalAgreementViewRepository, never()).findByRentalIdAndStoreId(any(), any());
+        verifyNoInteractions(rentalRepository, rentalMapper);
+    }
+
+    /**
+     * A rental not in the cache is one view read, after which it is cached.
+     */
+    @Test
+    public void readsViewOnceByPrimaryKey() {
+        when(rentalAgreementViewRepository.findByRentalIdAndStoreId(7L, StoreContext.DEFAULT_STORE))
+                .thenReturn(Optional.of(RentalAgreementView.of(7L, StoreContext.DEFAULT_STORE, agreement("Werner"))));
+
+        RentalAgreementDTO first = rentalAgreementViewService.find(7L);
+        RentalAgreementDTO second = rentalAgreementViewService.find(7L);
+
+        assertEquals(agreement("Werner"), first);
+        assertSame(first, second);
+        verify(rentalAgreementViewRepository, times(1)).findByRentalIdAndStoreId(7L, StoreContext.DEFAULT_STORE);
+        verifyNoInteractions(rentalRepository, rentalMapper);
+    }
+
+    /**
+     * A rental without a view row is mapped from the rental table and added to the view.
+     */
+    @Test
+    public void rentalMissingFromViewIsAdded() {
+        Rental rental = new Rental();
+        rental.setStoreId("north");
+        when(rentalAgreementViewRepository.findByRentalIdAndStoreId(9L, "north")).thenReturn(Optional.empty());
+        when(rentalRepository.findWithToolByIdAndStoreId(9L, "north")).thenReturn(Optional.of(rental));
+        when(rentalMapper.toRentalAgreementDTO(rental)).thenReturn(agreement("Werner"));
+
+        assertEquals("Werner", StoreContext.callInStore("north", () -> rentalAgreementViewService.find(9L)).getToolBrand());
+        verify(rentalAgreementViewRepository, timeout(1000)).save(argThat(view -> view.getRentalId() == 9L
+                && "north".equals(view.getStoreId())));
+    }
+
+    @Test
+    public void unknownRentalIsNotFound() {
+        when(rentalAgreementViewRepository.findByRentalIdAndStoreId(99L, StoreContext.DEFAULT_STORE)).thenReturn(Optional.empty());
+        when(rentalRepository.findWithToolByIdAndStoreId(99L, StoreContext.DEFAULT_STORE)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> rentalAgreementViewService.find(99L));
+        verify(rentalAgreementViewRepository, never()).save(any());
+    }
+
+    /**
+     * Rental IDs repeat across shards, so another store's agreement is not served from the cache.
+     */
+    @Test
+    public void cachesPerStore() {
+        StoreContext.runInStore("north", () -> rentalAgreementViewService.record(1L, agreement("Werner")));
+        when(rentalAgreementViewRepository.findByRentalIdAndStoreId(1L, StoreContext.DEFAULT_STORE))
+                .thenReturn(Optional.of(RentalAgreementView.of(1L, StoreContext.DEFAULT_STORE, agreement("Stihl"))));
+
+        assertEquals("Stihl", rentalAgreementViewService.find(1L).getToolBrand());
+        assertEquals("Werner", StoreContext.callInStore("north", () -> rentalAgreementViewService.find(1L)).getToolBrand());
+    }
+
+    /**
+     * Stores can share a shard, so a rental of another store is not found, in the view or the rental table.
+     */
+    @Test
+    public void otherStoresRentalIsNotFound() {
+        when(rentalAgreementViewRepository.findByRentalIdAndStoreId(5L, "south")).thenReturn(Optional.empty());
+        when(rentalRepository.findWithToolByIdAndStoreId(5L, "south")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> StoreContext.callInStore("south", () -> rentalAgreementViewService.find(5L)));
+        verify(rentalAgreementViewRepository, never()).findById(any());
+        verify(rentalRepository, never()).findWithToolById(any());
+        assertEquals(0, rentalAgreementViewService.size());
+    }
+
+    @Test
+    public void keepsOnlyTheCacheSize() {
+        rentalAgreementViewService.record(1L, agreement("Werner"));
+        rentalAgreementViewService.record(2L, agreement("Stihl"));
+        rentalAgreementViewService.record(3L, agreement("DeWalt"));
+
+        assertEquals(2, rentalAgreementViewService.size());
+    }
+
+    @Test
+    public void viewRoundTripsTheAgreement() {
+        RentalAgreementDTO agreement = agreement("Werner");
+
+        assertEquals(agreement, RentalAgreementView.of(1L, "main", agreement).toAgreement());
+    }
+}
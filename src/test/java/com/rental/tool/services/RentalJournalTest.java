@@ -0,0 +1,187 @@
+package com.rental.tool.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rental.tool.entities.Rental;
+import com.rental.tool.entities.Tool;
+import com.rental.tool.events.RentalEventRelay;
+import com.rental.tool.repository.RentalRepository;
+import com.rental.tool.repository.ToolRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class RentalJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private ToolRepository toolRepository;
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private RentalEventRelay rentalEventRelay;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @InjectMocks
+    private RentalJournal rentalJournal;
+
+    private Path journalFile;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        journalFile = tempDir.resolve("journal/rental-journal.ndjson");
+        ReflectionTestUtils.setField(rentalJournal, "journalPath", journalFile.toString());
+        when(toolRepository.getReferenceById(anyString())).thenAnswer(invocation ->
+                Tool.builder().toolCode(invocation.getArgument(0)).build());
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        rentalJournal.open();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        rentalJournal.close();
+    }
+
+    private static Rental provisionalRental(String toolCode) {
+        Rental rental = new Rental();
+        rental.setTool(Tool.builder().toolCode(toolCode).build());
+        rental.setRentalDays(3);
+        rental.setCheckoutDate(LocalDate.of(2020, 7, 2));
+        rental.setDueDate(LocalDate.of(2020, 7, 5));
+        rental.setDiscountPercent(BigDecimal.TEN);
+        rental.setPreDiscountCharge(new BigDecimal("3.98"));
+        rental.setDiscountAmount(new BigDecimal("0.40"));
+        rental.setFinalCharge(new BigDecimal("3.58"));
+        rental.setProvisional(true);
+        return rental;
+    }
+
+    /**
+     * Journaled rentals are on disk and still pending after a restart.
+     */
+    @Test
+    public void entriesSurviveRestart() throws IOException {
+        rentalJournal.append(provisionalRental("LADW"), "doguscan");
+        rentalJournal.append(provisionalRental("CHNS"), "doguscan");
+        assertEquals(2, Files.readAllLines(journalFile).size());
+
+        rentalJournal.close();
+        rentalJournal.open();
+
+        assertEquals(2, rentalJournal.getPendingCount());
+    }
+
+    /**
+     * Replay writes each rental and its audit entry, then removes it from the journal.
+     */
+    @Test
+    public void replayPersistsAndCompacts() throws IOException {
+        String journalId = rentalJournal.append(provisionalRental("LADW"), "doguscan");
+
+        rentalJournal.replay();
+
+        ArgumentCaptor<Rental> saved = ArgumentCaptor.forClass(Rental.class);
+        verify(rentalRepository).save(saved.capture());
+        assertEquals(journalId, saved.getValue().getJournalId());
+        assertEquals("LADW", saved.getValue().getTool().getToolCode());
+        assertEquals(new BigDecimal("3.58"), saved.getValue().getFinalCharge());
+        verify(auditService).logAudit(eq(journalId), eq("doguscan"), eq(true), anyString());
+        verify(rentalEventRelay).enqueue(argThat(event -> journalId.equals(event.getJournalId())));
+        assertEquals(0, rentalJournal.getPendingCount());
+        assertTrue(Files.readAllLines(journalFile).isEmpty());
+
+        // Appends keep working on the compacted file
+        rentalJournal.append(provisionalRental("CHNS"), "doguscan");
+        assertEquals(1, Files.readAllLines(journalFile).size());
+    }
+
+    /**
+     * Replay stops at the first database failure and keeps the rest for the next attempt.
+     */
+    @Test
+    public void replayStopsWhileDatabaseIsDown() {
+        rentalJournal.append(provisionalRental("LADW"), "doguscan");
+        rentalJournal.append(provisionalRental("CHNS"), "doguscan");
+        when(rentalRepository.save(any(Rental.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        rentalJournal.replay();
+
+        assertEquals(1, rentalJournal.getPendingCount());
+        verify(auditService, times(1)).logAudit(anyString(), anyString(), anyBoolean(), anyString());
+    }
+
+    /**
+     * A failed audit rolls back its rental, and the entry stays pending until both can be stored.
+     */
+    @Test
+    public void failedAuditRollsBackRental() {
+        String journalId = rentalJournal.append(provisionalRental("LADW"), "doguscan");
+        doThrow(new DataAccessResourceFailureException("Connection refused"))
+                .doNothing()
+                .when(auditService).logAudit(anyString(), anyString(), anyBoolean(), anyString());
+
+        rentalJournal.replay();
+
+        verify(transactionManager).rollback(any());
+        verify(rentalEventRelay, never()).enqueue(any());
+        assertEquals(1, rentalJournal.getPendingCount());
+
+        rentalJournal.replay();
+
+        verify(rentalRepository, times(2)).save(any(Rental.class));
+        verify(transactionManager).commit(any());
+        verify(rentalEventRelay).enqueue(argThat(event -> journalId.equals(event.getJournalId())));
+        assertEquals(0, rentalJournal.getPendingCount());
+    }
+
+    /**
+     * An entry already recorded, for example before a crash during compaction, is not saved again.
+     */
+    @Test
+    public void replayedEntryIsNotSavedTwice() {
+        String journalId = rentalJournal.append(provisionalRental("LADW"), "doguscan");
+        when(rentalRepository.existsByJournalId(journalId)).thenReturn(true);
+
+        rentalJournal.replay();
+
+        verify(rentalRepository, never()).save(any(Rental.class));
+        assertEquals(0, rentalJournal.getPendingCount());
+    }
+}
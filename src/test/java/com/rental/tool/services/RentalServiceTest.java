@@ -1,19 +1,32 @@
 package com.rental.tool.services;
 
+import com.rental.tool.config.metrics.CheckoutMetrics;
+import com.rental.tool.dto.RentalAgreementDTO;
 import com.rental.tool.entities.Rental;
 import com.rental.tool.entities.Tool;
 import com.rental.tool.entities.ToolCharge;
+import com.rental.tool.events.RentalCreatedEvent;
+import com.rental.tool.events.RentalEventRelay;
+import com.rental.tool.exception.CatalogUnavailableException;
+import com.rental.tool.exception.InvalidRentalRequestException;
 import com.rental.tool.exception.ToolNotFoundException;
+import com.rental.tool.exception.ToolUnavailableException;
+import com.rental.tool.mapper.RentalMapper;
 import com.rental.tool.repository.RentalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.math.BigDecimal;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.Optional;
 
 import static com.rental.tool.utility.HolidayUtils.isHoliday;
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,12 +37,41 @@ public class RentalServiceTest {
     @Mock
     private RentalRepository rentalRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private RentalService rentalService;
 
     @Mock
     private ToolService toolService;
 
+    @Mock
+    private ToolInventoryService toolInventoryService;
+
+    @Mock
+    private ToolAvailabilityIndex toolAvailabilityIndex;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private RentalJournal rentalJournal;
+
+    @Mock
+    private DemandPricingService demandPricingService;
+
+    @Mock
+    private RentalEventRelay rentalEventRelay;
+
+    @Mock
+    private RentalAgreementViewService rentalAgreementViewService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private CheckoutMetrics checkoutMetrics = new CheckoutMetrics(meterRegistry);
+
     private Tool mockTool;
     private ToolCharge mockToolCharge;
 
@@ -56,6 +98,15 @@ public class RentalServiceTest {
         // Mock the toolService to return Tool and ToolCharge from cache
         when(toolService.getToolFromCache("JAKR")).thenReturn(mockTool);
         when(toolService.getToolChargeFromCache("JAKR")).thenReturn(mockToolCharge);
+
+        when(entityManager.getReference(eq(Tool.class), anyString()))
+                .thenAnswer(invocation -> Tool.builder().toolCode(invocation.getArgument(1)).build());
+
+        // Every tool has stock unless a test says otherwise
+        when(toolInventoryService.tryReserve(anyString())).thenReturn(true);
+        when(toolAvailabilityIndex.tryBook(anyString(), any(LocalDate.class), any(LocalDate.class))).thenReturn(1L);
+        // Catalog prices unless a test says otherwise
+        when(demandPricingService.multiplierFor(anyString())).thenReturn(BigDecimal.ONE);
     }
 
     /**
@@ -72,7 +123,7 @@ public class RentalServiceTest {
 
         // Assert that an exception is thrown for discount > 100
         BigDecimal finalDiscountPercent = discountPercent;
-        ToolNotFoundException exception = assertThrows(ToolNotFoundException.class, () -> {
+        InvalidRentalRequestException exception = assertThrows(InvalidRentalRequestException.class, () -> {
             rentalService.createRental(toolCode, rentalDays, finalDiscountPercent, checkoutDate);
         });
         assertEquals("Discount percent must be between 0 and 100", exception.getMessage());
@@ -659,6 +710,145 @@ public class RentalServiceTest {
         assertNotNull(rental, "Rental object should not be null");
         assertEquals(toolCode, rental.getTool().getToolCode());
         assertEquals(discountPercent, rental.getDiscountPercent());
+        for (String stage : new String[]{"validate", "catalog", "price", "reserve", "save"}) {
+            assertEquals(1, meterRegistry.get("rental.checkout.stage").tag("stage", stage).timer().count(), stage);
+        }
+        ArgumentCaptor<RentalCreatedEvent> event = ArgumentCaptor.forClass(RentalCreatedEvent.class);
+        verify(rentalEventRelay).enqueue(event.capture());
+        assertEquals(toolCode, event.getValue().getToolCode());
+        assertEquals(rental.getFinalCharge(), event.getValue().getFinalCharge());
+    }
+
+    /**
+     * A sold-out tool is rejected before anything is saved.
+     */
+    @Test
+    public void createRental_SoldOut() {
+        when(toolInventoryService.tryReserve("JAKR")).thenReturn(false);
+
+        ToolUnavailableException exception = assertThrows(ToolUnavailableException.class, () ->
+                rentalService.createRental("JAKR", 3, BigDecimal.ZERO, LocalDate.now()));
+
+        assertEquals("No units of tool JAKR are available for checkout", exception.getMessage());
+        verify(rentalRepository, never()).save(any(Rental.class));
+        verify(toolAvailabilityIndex).release("JAKR", 1L);
+    }
+
+    /**
+     * A future booking is admitted by the availability index alone; it takes no unit today.
+     */
+    @Test
+    public void createRental_FullyBookedRange() {
+        LocalDate checkoutDate = LocalDate.now().plusDays(30);
+        when(toolAvailabilityIndex.tryBook("JAKR", checkoutDate, checkoutDate.plusDays(3))).thenReturn(null);
+
+        ToolUnavailableException exception = assertThrows(ToolUnavailableException.class, () ->
+                rentalService.createRental("JAKR", 3, BigDecimal.ZERO, checkoutDate));
+
+        assertTrue(exception.getMessage().startsWith("Tool JAKR is fully booked between"));
+        verify(toolInventoryService, never()).tryReserve(anyString());
+        verify(rentalRepository, never()).save(any(Rental.class));
+    }
+
+    /**
+     * A demand multiplier raises the daily charge before days are counted, and the checkout counts as demand.
+     */
+    @Test
+    public void createRental_AppliesDemandMultiplier() {
+        when(demandPricingService.multiplierFor("JAKR")).thenReturn(new BigDecimal("1.25"));
+        when(rentalRepository.save(any(Rental.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Rental rental = rentalService.createRental("JAKR", 5, BigDecimal.ZERO, LocalDate.of(2015, 9, 3));
+
+        // 2.99 * 1.25 rounded to cents, for Sep 4 and 8
+        assertEquals(new BigDecimal("3.74"), rental.getDailyCharge());
+        assertEquals(new BigDecimal("7.48"), rental.getFinalCharge());
+        assertEquals(new BigDecimal("3.74"), new RentalMapper().toRentalAgreementDTO(rental).getDailyRentalCharge());
+        assertEquals(2, new RentalMapper().toRentalAgreementDTO(rental).getChargeDays());
+        verify(demandPricingService).recordCheckout("JAKR");
+    }
+
+    /**
+     * An agreement shows the charge days and rules the rental was priced with, after the tool's
+     * rules change and for rentals that did not record them.
+     */
+    @Test
+    public void agreementKeepsTheChargeRulesTheRentalWasPricedWith() {
+        when(rentalRepository.save(any(Rental.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Rental rental = rentalService.createRental("JAKR", 5, BigDecimal.ZERO, LocalDate.of(2015, 9, 3));
+        mockToolCharge.setWeekendCharge(true);
+        mockToolCharge.setHolidayCharge(true);
+
+        RentalAgreementDTO agreement = new RentalMapper().toRentalAgreementDTO(rental);
+        assertEquals(2, agreement.getChargeDays());
+        assertFalse(agreement.isWeekendCharge());
+        assertFalse(agreement.isHolidayCharge());
+
+        rental.setChargeDays(null);
+        assertEquals(2, new RentalMapper().toRentalAgreementDTO(rental).getChargeDays());
+    }
+
+    /**
+     * With the circuit open, a checkout is priced from the catalog snapshot and journaled instead of saved.
+     */
+    @Test
+    public void createRentalFallback_PricesFromSnapshot() {
+        LocalDate checkoutDate = LocalDate.of(2015, 9, 3);
+        when(catalogSnapshotService.getTool("JAKR")).thenReturn(Optional.of(mockTool));
+        when(rentalJournal.append(any(Rental.class), anyString())).thenReturn("journal-1");
+
+        Rental rental = rentalService.createRentalFallback("JAKR", 5, BigDecimal.ZERO, checkoutDate,
+                new RuntimeException("Connection is not available"));
+
+        assertTrue(rental.isProvisional());
+        assertEquals("journal-1", rental.getJournalId());
+        // Sep 4 (Fri), 8 (Tue, after Labor Day) charged; the weekend and Labor Day are not
+        assertEquals(new BigDecimal("5.98"), rental.getFinalCharge());
+        verify(rentalRepository, never()).save(any(Rental.class));
+        verify(toolAvailabilityIndex, never()).release(anyString(), anyLong());
+        assertEquals(1, meterRegistry.get("rental.checkout.fallbacks")
+                .tags("result", "snapshot", "cause", "error").counter().count());
+    }
+
+    /**
+     * Without a usable snapshot the checkout fails instead of producing a zero-charge rental.
+     */
+    @Test
+    public void createRentalFallback_NoSnapshot() {
+        when(catalogSnapshotService.getTool("JAKR")).thenReturn(Optional.empty());
+
+        assertThrows(CatalogUnavailableException.class, () -> rentalService.createRentalFallback("JAKR", 5,
+                BigDecimal.ZERO, LocalDate.now(), new RuntimeException("Connection is not available")));
+        verify(toolAvailabilityIndex, never()).tryBook(anyString(), any(LocalDate.class), any(LocalDate.class));
+        verify(rentalJournal, never()).append(any(Rental.class), anyString());
+        assertEquals(1, meterRegistry.get("rental.checkout.fallbacks").tag("result", "no_snapshot").counter().count());
+    }
+
+    /**
+     * A journal write failure gives back the booking taken for the rental.
+     */
+    @Test
+    public void createRentalFallback_JournalFailureReleasesBooking() {
+        when(catalogSnapshotService.getTool("JAKR")).thenReturn(Optional.of(mockTool));
+        when(rentalJournal.append(any(Rental.class), anyString())).thenThrow(new IllegalStateException("disk full"));
+
+        assertThrows(CatalogUnavailableException.class, () -> rentalService.createRentalFallback("JAKR", 5,
+                BigDecimal.ZERO, LocalDate.now(), new RuntimeException("Connection is not available")));
+        verify(toolAvailabilityIndex).release("JAKR", 1L);
+        verify(toolInventoryService).release("JAKR");
+    }
+
+    /**
+     * Invalid input reaching the fallback is passed on rather than priced.
+     */
+    @Test
+    public void createRentalFallback_RethrowsInvalidInput() {
+        InvalidRentalRequestException invalid = new InvalidRentalRequestException("Rental days must be 1 or greater");
+
+        InvalidRentalRequestException thrown = assertThrows(InvalidRentalRequestException.class, () ->
+                rentalService.createRentalFallback("JAKR", 0, BigDecimal.ZERO, LocalDate.now(), invalid));
+        assertSame(invalid, thrown);
+        verifyNoInteractions(catalogSnapshotService, rentalJournal);
     }
 
 }
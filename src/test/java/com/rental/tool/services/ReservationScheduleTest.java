@@ -0,0 +1,161 @@
+package com.rental.tool.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReservationScheduleTest {
+
+    private static int day(int month, int dayOfMonth) {
+        return (int) LocalDate.of(2020, month, dayOfMonth).toEpochDay();
+    }
+
+    /**
+     * Peak overlap counts the bookings active on the busiest single day of the query range.
+     */
+    @Test
+    public void peakOverlapWithinRange() {
+        ReservationSchedule schedule = ReservationSchedule.EMPTY
+                .with(1, day(7, 1), day(7, 3))
+                .with(2, day(7, 2), day(7, 5))
+                .with(3, day(7, 4), day(7, 9))
+                .with(4, day(7, 20), day(7, 25));
+
+        assertEquals(4, schedule.size());
+        assertEquals(2, schedule.peakOverlap(day(7, 2), day(7, 9)));
+        assertEquals(1, schedule.peakOverlap(day(7, 6), day(7, 9)));
+        assertEquals(0, schedule.peakOverlap(day(7, 10), day(7, 19)));
+        // Closed ranges: the due date still counts as booked
+        assertEquals(1, schedule.peakOverlap(day(7, 25), day(7, 30)));
+    }
+
+    /**
+     * Removing and pruning return new schedules and leave the original snapshot untouched.
+     */
+    @Test
+    public void withoutAndPruneAreCopyOnWrite() {
+        ReservationSchedule schedule = ReservationSchedule.EMPTY
+                .with(1, day(7, 1), day(7, 3))
+                .with(2, day(7, 2), day(7, 5));
+
+        ReservationSchedule removed = schedule.without(2);
+        assertEquals(1, removed.size());
+        assertEquals(1, removed.peakOverlap(day(7, 1), day(7, 5)));
+        assertEquals(2, schedule.peakOverlap(day(7, 1), day(7, 5)));
+        assertSame(schedule, schedule.without(99));
+
+        ReservationSchedule pruned = schedule.withoutEndedBefore(day(7, 4));
+        assertEquals(1, pruned.size());
+        assertEquals(0, pruned.peakOverlap(day(7, 1), day(7, 1)));
+    }
+
+    /**
+     * The indexed query agrees with a brute-force day-by-day count.
+     */
+    @Test
+    public void matchesBruteForce() {
+        Random random = new Random(42);
+        int[][] ranges = new int[300][2];
+        ReservationSchedule schedule = ReservationSchedule.EMPTY;
+        for (int i = 0; i < ranges.length; i++) {
+            int start = random.nextInt(365);
+            int end = start + random.nextInt(20);
+            ranges[i][0] = start;
+            ranges[i][1] = end;
+            schedule = schedule.with(i, start, end);
+        }
+
+        for (int query = 0; query < 200; query++) {
+            int from = random.nextInt(380);
+            int to = from + random.nextInt(30);
+            int expected = 0;
+            for (int d = from; d <= to; d++) {
+                int active = 0;
+                for (int[] range : ranges) {
+                    if (range[0] <= d && d <= range[1]) {
+                        active++;
+                    }
+                }
+                expected = Math.max(expected, active);
+            }
+            assertEquals(expected, schedule.peakOverlap(from, to), "range " + from + ".." + to);
+        }
+    }
+
+    /**
+     * A booking ends on its last day: a booking starting the next day never overlaps it, one
+     * starting on that day does. Holds for every snapshot while other threads add and remove the
+     * adjacent bookings, as {@link ToolAvailabilityIndex} does.
+     */
+    @Test
+    public void boundariesHoldUnderConcurrentUpdates() throws Exception {
+        int start = day(7, 1);
+        int end = day(7, 10);
+        AtomicReference<ReservationSchedule> reference =
+                new AtomicReference<>(ReservationSchedule.EMPTY.with(0, start, end));
+        int writers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int w = 0; w < writers; w++) {
+                long firstId = 1 + w * 1_000_000L;
+                futures.add(executor.submit(() -> {
+                    ready.await();
+                    for (long id = firstId; id < firstId + 2_000; id++) {
+                        long booking = id;
+                        // Alternately adjacent to and touching the end of the fixed booking
+                        int adjacentStart = booking % 2 == 0 ? end + 1 : end;
+                        reference.updateAndGet(schedule -> schedule.with(booking, adjacentStart, adjacentStart + 5));
+                        reference.updateAndGet(schedule -> schedule.without(booking));
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < 2; r++) {
+                futures.add(executor.submit(() -> {
+                    ready.await();
+                    while (writing.get()) {
+                        ReservationSchedule snapshot = reference.get();
+                        int afterEnd = snapshot.peakOverlap(end + 1, end + 1);
+                        int onEnd = snapshot.peakOverlap(end, end);
+                        // Every booking but the fixed one covers the day after its end
+                        assertEquals(snapshot.size() - 1, afterEnd);
+                        assertEquals(1, snapshot.peakOverlap(start, end - 1));
+                        assertTrue(onEnd >= 1 && onEnd <= snapshot.size());
+                        assertEquals(Math.max(onEnd, afterEnd), snapshot.peakOverlap(end, end + 1));
+                    }
+                    return null;
+                }));
+            }
+            ready.countDown();
+            for (Future<?> future : futures.subList(0, writers)) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ReservationSchedule last = reference.get();
+        assertEquals(1, last.size());
+        assertEquals(1, last.peakOverlap(end, end));
+        assertEquals(0, last.peakOverlap(end + 1, end + 1));
+    }
+}
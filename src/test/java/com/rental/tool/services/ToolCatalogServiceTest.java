@@ -0,0 +1,183 @@
+package com.rental.tool.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.tool.dto.CatalogToolDTO;
+import com.rental.tool.dto.ToolCatalogDTO;
+import com.rental.tool.dto.ToolSearchDTO;
+import com.rental.tool.entities.Tool;
+import com.rental.tool.entities.ToolCharge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ToolCatalogServiceTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ToolCatalogService toolCatalogService;
+
+    @BeforeEach
+    public void setUp() {
+        toolCatalogService = new ToolCatalogService();
+        ReflectionTestUtils.setField(toolCatalogService, "objectMapper", objectMapper);
+    }
+
+    private static Tool tool(String code, String brand, String dailyCharge) {
+        Tool tool = Tool.builder().toolCode(code).toolType("Ladder").brand(brand).build();
+        tool.setToolCharge(ToolCharge.builder()
+                .toolChargeId(code)
+                .tool(tool)
+                .dailyRentalCharge(new BigDecimal(dailyCharge))
+                .weekdayCharge(true)
+                .weekendCharge(true)
+                .holidayCharge(false)
+                .build());
+        return tool;
+    }
+
+    private static List<String> codes(ToolCatalogDTO dto) {
+        List<String> codes = new ArrayList<>();
+        for (CatalogToolDTO tool : dto.getTools()) {
+            codes.add(tool.getToolCode());
+        }
+        return codes;
+    }
+
+    @Test
+    public void noCatalogBeforeFirstUpdate() {
+        assertNull(toolCatalogService.getCatalog());
+    }
+
+    @Test
+    public void fullCatalogIsSortedByToolCode() {
+        toolCatalogService.update(List.of(tool("LADW", "Werner", "1.99"), tool("CHNS", "Stihl", "1.49")));
+
+        ToolCatalogDTO dto = toolCatalogService.getCatalog().describe(null);
+        assertTrue(dto.isFull());
+        assertEquals(List.of("CHNS", "LADW"), codes(dto));
+        assertEquals(new BigDecimal("1.49"), dto.getTools().get(0).getDailyRentalCharge());
+        assertEquals(dto.getVersion(), dto.getTools().get(0).getVersion());
+    }
+
+    /**
+     * A refresh that finds nothing changed keeps the version and the encoded bodies.
+     */
+    @Test
+    public void unchangedCatalogKeepsVersion() {
+        toolCatalogService.update(List.of(tool("LADW", "Werner", "1.99")));
+        ToolCatalogService.Catalog first = toolCatalogService.getCatalog();
+        ToolCatalogService.Body body = first.body(null);
+
+        toolCatalogService.update(List.of(tool("LADW", "Werner", "1.99")));
+
+        assertSame(first, toolCatalogService.getCatalog());
+        assertSame(body, toolCatalogService.getCatalog().body(null));
+    }
+
+    @Test
+    public void deltaHoldsOnlyChangedAndRemovedTools() {
+        toolCatalogService.update(List.of(tool("CHNS", "Stihl", "1.49"), tool("LADW", "Werner", "1.99"),
+                tool("JAKR", "Ridgid", "2.99")));
+        long v1 = toolCatalogService.getCatalog().getVersion();
+
+        toolCatalogService.update(List.of(tool("CHNS", "Stihl", "1.49"), tool("LADW", "Werner", "2.49")));
+        long v2 = toolCatalogService.getCatalog().getVersion();
+        assertTrue(v2 > v1);
+
+        ToolCatalogDTO delta = toolCatalogService.getCatalog().describe(v1);
+        assertFalse(delta.isFull());
+        assertEquals(v2, delta.getVersion());
+        assertEquals(List.of("LADW"), codes(delta));
+        assertEquals(new BigDecimal("2.49"), delta.getTools().get(0).getDailyRentalCharge());
+        assertEquals(List.of("JAKR"), delta.getRemoved());
+
+        ToolCatalogDTO upToDate = toolCatalogService.getCatalog().describe(v2);
+        assertFalse(upToDate.isFull());
+        assertTrue(upToDate.getTools().isEmpty());
+        assertTrue(upToDate.getRemoved().isEmpty());
+    }
+
+    /**
+     * Searches run against the version they report, and see a change once it is published.
+     */
+    @Test
+    public void searchFollowsCatalogUpdates() {
+        ToolSearchIndex.Query werner = new ToolSearchIndex.Query();
+        werner.setBrand("wer");
+        toolCatalogService.update(List.of(tool("CHNS", "Stihl", "1.49"), tool("LADW", "Werner", "1.99")));
+        ToolCatalogService.Catalog first = toolCatalogService.getCatalog();
+        assertEquals(1, first.search(werner).getTotal());
+
+        toolCatalogService.update(List.of(tool("CHNS", "Werner", "1.49"), tool("LADW", "Werner", "1.99")));
+
+        ToolSearchDTO result = toolCatalogService.getCatalog().search(werner);
+        assertEquals(toolCatalogService.getCatalog().getVersion(), result.getVersion());
+        assertEquals(2, result.getTotal());
+        assertEquals(1, first.search(werner).getTotal());
+    }
+
+    @Test
+    public void readdedToolLosesItsTombstone() {
+        toolCatalogService.update(List.of(tool("LADW", "Werner", "1.99"), tool("JAKR", "Ridgid", "2.99")));
+        long v1 = toolCatalogService.getCatalog().getVersion();
+        toolCatalogService.update(List.of(tool("LADW", "Werner", "1.99")));
+        toolCatalogService.update(List.of(tool("LADW", "Werner", "1.99"), tool("JAKR", "Ridgid", "3.49")));
+
+        ToolCatalogDTO delta = toolCatalogService.getCatalog().describe(v1);
+        assertEquals(List.of("JAKR"), codes(delta));
+        assertTrue(delta.getRemoved().isEmpty());
+    }
+
+    /**
+     * Versions from before this instance's history, or from the future, get the whole catalog.
+     */
+    @Test
+    public void unknownVersionGetsFullCatalog() {
+        toolCatalogService.update(List.of(tool("LADW", "Werner", "1.99")));
+        ToolCatalogService.Catalog catalog = toolCatalogService.getCatalog();
+
+        assertTrue(catalog.describe(catalog.getVersion() - 1).isFull());
+        assertTrue(catalog.describe(catalog.getVersion() + 1).isFull());
+        assertSame(catalog.body(null), catalog.body(0L));
+    }
+
+    @Test
+    public void largeBodiesAreGzipped() throws IOException {
+        List<Tool> tools = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tools.add(tool(String.format("T%03d", i), "Brand " + i, "1.99"));
+        }
+        toolCatalogService.update(tools);
+
+        ToolCatalogService.Body body = toolCatalogService.getCatalog().body(null);
+        assertTrue(body.getIdentity().length >= ToolCatalogService.MIN_GZIP_BYTES);
+        assertNotNull(body.getGzip());
+        assertTrue(body.getGzip().length < body.getIdentity().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.getGzip()))) {
+            assertArrayEquals(body.getIdentity(), in.readAllBytes());
+        }
+
+        JsonNode json = objectMapper.readTree(body.getIdentity());
+        assertEquals(200, json.get("status").intValue());
+        assertEquals(20, json.get("data").get("tools").size());
+    }
+
+    @Test
+    public void smallBodiesAreNotGzipped() {
+        toolCatalogService.update(List.of(tool("LADW", "Werner", "1.99")));
+        long version = toolCatalogService.getCatalog().getVersion();
+
+        assertNull(toolCatalogService.getCatalog().body(version).getGzip());
+    }
+}
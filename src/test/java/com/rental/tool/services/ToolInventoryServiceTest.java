@@ -0,0 +1,175 @@
+package com.rental.tool.services;
+
+import com.rental.tool.config.shard.ShardDataSources;
+import com.rental.tool.entities.ToolInventory;
+import com.rental.tool.repository.RentalRepository;
+import com.rental.tool.repository.ToolInventoryRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ToolInventoryServiceTest {
+
+    @Mock
+    private ToolInventoryRepository toolInventoryRepository;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @InjectMocks
+    private ToolInventoryService toolInventoryService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(toolInventoryService, "shardDataSources",
+                new ShardDataSources(List.of(mock(HikariDataSource.class))));
+
+        ToolInventory chainsaws = new ToolInventory();
+        chainsaws.setToolCode("CHNS");
+        chainsaws.setOnHand(5);
+        chainsaws.setAvailable(5);
+        when(toolInventoryRepository.findAll()).thenReturn(List.of(chainsaws));
+
+        // Two chainsaws are still out
+        List<Object[]> outstanding = new ArrayList<>();
+        outstanding.add(new Object[]{"CHNS", 2L});
+        when(rentalRepository.countOutstandingByToolCode(any(LocalDate.class))).thenReturn(outstanding);
+
+        toolInventoryService.loadCounters();
+    }
+
+    /**
+     * Concurrent checkouts never admit more rentals than there are units available.
+     */
+    @Test
+    public void concurrentReservationsNeverOversell() throws InterruptedException {
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                start.await();
+                if (toolInventoryService.tryReserve("CHNS")) {
+                    admitted.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(3, admitted.get());
+        assertEquals(0, toolInventoryService.getAvailable("CHNS"));
+    }
+
+    /**
+     * A released reservation returns its unit; reconciliation keeps pending reservations out.
+     */
+    @Test
+    public void releaseAndReconcile() {
+        assertTrue(toolInventoryService.tryReserve("CHNS"));
+        assertTrue(toolInventoryService.tryReserve("CHNS"));
+        assertEquals(1, toolInventoryService.getAvailable("CHNS"));
+
+        toolInventoryService.release("CHNS");
+        assertEquals(2, toolInventoryService.getAvailable("CHNS"));
+
+        // One reservation is still in flight: 5 on hand - 2 outstanding - 1 pending
+        toolInventoryService.reconcile();
+        assertEquals(2, toolInventoryService.getAvailable("CHNS"));
+
+        toolInventoryService.flushCounters();
+        verify(toolInventoryRepository).updateAvailable(eq("CHNS"), anyInt(), any());
+    }
+
+    /**
+     * Reconciliation running while checkouts reserve, commit, confirm and roll back never hands
+     * out a unit twice, and settles on the committed rentals once checkouts stop.
+     */
+    @Test
+    public void reconcileDuringCheckoutsNeverOversells() throws Exception {
+        // Rentals in the database: the two already out plus every committed checkout
+        AtomicInteger committed = new AtomicInteger();
+        when(rentalRepository.countOutstandingByToolCode(any(LocalDate.class))).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[]{"CHNS", 2L + committed.get()});
+            Thread.yield();
+            return rows;
+        });
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean checkingOut = new AtomicBoolean(true);
+        List<Future<?>> checkouts = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            boolean rollsBack = i % 2 == 0;
+            checkouts.add(executor.submit(() -> {
+                start.await();
+                for (int attempt = 0; attempt < 2000; attempt++) {
+                    if (toolInventoryService.tryReserve("CHNS")) {
+                        if (rollsBack) {
+                            toolInventoryService.release("CHNS");
+                        } else {
+                            committed.incrementAndGet();
+                            toolInventoryService.confirm("CHNS");
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<?> reconciler = executor.submit(() -> {
+            start.await();
+            while (checkingOut.get()) {
+                toolInventoryService.reconcile();
+            }
+            return null;
+        });
+        start.countDown();
+        for (Future<?> checkout : checkouts) {
+            checkout.get(30, TimeUnit.SECONDS);
+        }
+        checkingOut.set(false);
+        reconciler.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // 5 on hand with 2 out leaves 3 units, and none was ever returned
+        assertTrue(committed.get() <= 3, "committed: " + committed.get());
+        toolInventoryService.reconcile();
+        assertEquals(3 - committed.get(), toolInventoryService.getAvailable("CHNS"));
+    }
+
+    /**
+     * Tools without an inventory row are not stock-tracked.
+     */
+    @Test
+    public void untrackedToolIsAlwaysAdmitted() {
+        assertTrue(toolInventoryService.tryReserve("LADW"));
+        assertNull(toolInventoryService.getAvailable("LADW"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.rental.tool.services;
+
+import com.rental.tool.dto.CatalogToolDTO;
+import com.rental.tool.dto.ToolSearchDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ToolSearchIndexTest {
+
+    private static CatalogToolDTO tool(String code, String type, String brand, String dailyCharge, boolean weekendCharge) {
+        CatalogToolDTO tool = new CatalogToolDTO();
+        tool.setToolCode(code);
+        tool.setToolType(type);
+        tool.setBrand(brand);
+        if (dailyCharge != null) {
+            tool.setDailyRentalCharge(new BigDecimal(dailyCharge));
+            tool.setWeekdayCharge(true);
+            tool.setWeekendCharge(weekendCharge);
+            tool.setHolidayCharge(false);
+        }
+        return tool;
+    }
+
+    private final ToolSearchIndex index = new ToolSearchIndex(7, List.of(
+            tool("CHNS", "Chainsaw", "Stihl", "1.49", false),
+            tool("CSAW", "Circular Saw", "DeWalt", "2.49", true),
+            tool("JAKD", "Jackhammer", "DeWalt", "2.99", false),
+            tool("JAKR", "Jackhammer", "Ridgid", "2.99", false),
+            tool("LADW", "Ladder", "Werner", "1.99", true),
+            tool("NEWT", "Ladder", null, null, false)));
+
+    private static ToolSearchIndex.Query query() {
+        return new ToolSearchIndex.Query();
+    }
+
+    private static List<String> codes(ToolSearchDTO result) {
+        return result.getTools().stream().map(CatalogToolDTO::getToolCode).toList();
+    }
+
+    @Test
+    public void emptyQueryMatchesEverything() {
+        ToolSearchDTO result = index.search(query());
+
+        assertEquals(7, result.getVersion());
+        assertEquals(6, result.getTotal());
+        assertEquals(List.of("CHNS", "CSAW", "JAKD", "JAKR", "LADW", "NEWT"), codes(result));
+        assertEquals(Map.of("Chainsaw", 1, "Circular Saw", 1, "Jackhammer", 2, "Ladder", 2), result.getTypes());
+        assertEquals(Map.of("Stihl", 1, "DeWalt", 2, "Ridgid", 1, "Werner", 1), result.getBrands());
+    }
+
+    /**
+     * Each word of a text filter must start a word of the field, ignoring case.
+     */
+    @Test
+    public void typeAndBrandMatchWordPrefixes() {
+        ToolSearchIndex.Query jack = query();
+        jack.setType("JACK");
+        assertEquals(List.of("JAKD", "JAKR"), codes(index.search(jack)));
+
+        ToolSearchIndex.Query saw = query();
+        saw.setType("saw");
+        assertEquals(List.of("CSAW"), codes(index.search(saw)));
+
+        ToolSearchIndex.Query circularSaw = query();
+        circularSaw.setType("circ s");
+        assertEquals(List.of("CSAW"), codes(index.search(circularSaw)));
+
+        ToolSearchIndex.Query dewaltJackhammer = query();
+        dewaltJackhammer.setType("jackhammer");
+        dewaltJackhammer.setBrand("de");
+        ToolSearchDTO result = index.search(dewaltJackhammer);
+        assertEquals(List.of("JAKD"), codes(result));
+        assertEquals(Map.of("Jackhammer", 1), result.getTypes());
+
+        ToolSearchIndex.Query none = query();
+        none.setBrand("makita");
+        assertEquals(0, index.search(none).getTotal());
+
+        ToolSearchIndex.Query blank = query();
+        blank.setBrand(" - ");
+        assertEquals(6, index.search(blank).getTotal());
+    }
+
+    @Test
+    public void chargeRulesAndRangeFilter() {
+        ToolSearchIndex.Query weekend = query();
+        weekend.setWeekendCharge(true);
+        assertEquals(List.of("CSAW", "LADW"), codes(index.search(weekend)));
+
+        // A tool without charge rules is neither charged nor free on weekends
+        ToolSearchIndex.Query noWeekend = query();
+        noWeekend.setWeekendCharge(false);
+        assertEquals(List.of("CHNS", "JAKD", "JAKR"), codes(index.search(noWeekend)));
+
+        ToolSearchIndex.Query range = query();
+        range.setMinDailyCharge(new BigDecimal("1.99"));
+        range.setMaxDailyCharge(new BigDecimal("2.99"));
+        assertEquals(List.of("CSAW", "JAKD", "JAKR", "LADW"), codes(index.search(range)));
+
+        ToolSearchIndex.Query cheap = query();
+        cheap.setMaxDailyCharge(new BigDecimal("1.98"));
+        assertEquals(List.of("CHNS"), codes(index.search(cheap)));
+    }
+
+    /**
+     * The limit cuts the list of tools but not the total or the counts.
+     */
+    @Test
+    public void limitKeepsTotalsAndCounts() {
+        ToolSearchIndex.Query query = query();
+        query.setLimit(2);
+        ToolSearchDTO result = index.search(query);
+
+        assertEquals(List.of("CHNS", "CSAW"), codes(result));
+        assertEquals(6, result.getTotal());
+        assertEquals(2, result.getTypes().get("Ladder"));
+    }
+
+    /**
+     * Searching a large catalog agrees with filtering it tool by tool.
+     */
+    @Test
+    public void matchesLinearScan() {
+        String[] types = {"Jackhammer", "Ladder", "Chainsaw", "Circular Saw", "Pressure Washer"};
+        String[] brands = {"DeWalt", "Ridgid", "Stihl", "Werner", "Makita", "Milwaukee"};
+        Random random = new Random(42);
+        List<CatalogToolDTO> tools = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            tools.add(tool(String.format("T%05d", i), types[random.nextInt(types.length)], brands[random.nextInt(brands.length)],
+                    BigDecimal.valueOf(random.nextInt(1000), 2).toPlainString(), random.nextBoolean()));
+        }
+        ToolSearchIndex large = new ToolSearchIndex(1, tools);
+
+        ToolSearchIndex.Query query = query();
+        query.setBrand("m");
+        query.setWeekendCharge(true);
+        query.setMaxDailyCharge(new BigDecimal("5.00"));
+        query.setLimit(500);
+        ToolSearchDTO result = large.search(query);
+
+        List<CatalogToolDTO> expected = tools.stream()
+                .filter(tool -> tool.getBrand().startsWith("M"))
+                .filter(CatalogToolDTO::getWeekendCharge)
+                .filter(tool -> tool.getDailyRentalCharge().compareTo(new BigDecimal("5.00")) <= 0)
+                .toList();
+        assertEquals(expected.size(), result.getTotal());
+        assertEquals(expected.subList(0, 500), result.getTools());
+        assertEquals(expected.size(), result.getBrands().get("Makita") + result.getBrands().get("Milwaukee"));
+    }
+}
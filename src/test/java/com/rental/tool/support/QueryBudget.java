@@ -0,0 +1,75 @@
+package com.rental.tool.support;
+
+import com.rental.tool.config.sql.SqlStatementScope;
+
+import java.util.Map;
+
+/**
+ * Test assertions on the number of SQL statements a piece of code executes, so that a change
+ * adding queries to a hot path, such as a lazy association loaded per row, fails the build.
+ * <p>
+ * Statements are counted at the JDBC level by {@code StatementCountingDataSource}, which must be
+ * active in the test context ({@code rental.sql-stats.enabled}, on by default). Only statements
+ * executed on the calling thread are counted, which covers MockMvc requests.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    /**
+     * Runs the work and fails if it executed more than {@code maxStatements} statements.
+     *
+     * @param maxStatements the statement budget
+     * @param work          the code under test
+     */
+    public static void assertAtMost(int maxStatements, ThrowingRunnable work) {
+        try (SqlStatementScope scope = SqlStatementScope.open()) {
+            run(work);
+            if (scope.getStatementCount() > maxStatements) {
+                throw new AssertionError("Expected at most " + maxStatements + " SQL statements but "
+                        + scope.getStatementCount() + " were executed:" + describe(scope.getRepeatedStatements(1)));
+            }
+        }
+    }
+
+    /**
+     * Runs the work and fails if it executed any statement more than once, the signature of an
+     * N+1 query.
+     *
+     * @param work the code under test
+     */
+    public static void assertNoRepeatedStatements(ThrowingRunnable work) {
+        try (SqlStatementScope scope = SqlStatementScope.open()) {
+            run(work);
+            Map<String, Integer> repeated = scope.getRepeatedStatements(2);
+            if (!repeated.isEmpty()) {
+                throw new AssertionError("Expected no repeated SQL statements:" + describe(repeated));
+            }
+        }
+    }
+
+    private static void run(ThrowingRunnable work) {
+        try {
+            work.run();
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String describe(Map<String, Integer> executions) {
+        StringBuilder description = new StringBuilder();
+        executions.forEach((sql, count) -> description.append("\n  ").append(count).append(" x ").append(sql));
+        return description.toString();
+    }
+
+    /**
+     * Code under test, which may throw checked exceptions such as those of MockMvc.
+     */
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}